@@ -0,0 +1,112 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.benchmark;
+
+import com.arcadedb.database.MutableDocument;
+import com.arcadedb.security.ACCM.Argument;
+import com.arcadedb.security.ACCM.ArgumentOperator;
+import com.arcadedb.security.ACCM.Expression;
+import com.arcadedb.security.ACCM.ExpressionOperator;
+import com.arcadedb.security.ACCM.GraphType;
+import com.arcadedb.security.ACCM.TypeRestriction;
+import com.arcadedb.security.AuthorizationUtils;
+import com.arcadedb.security.serializers.OpaPolicy;
+import com.arcadedb.serializer.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * ACCM authorization of a classified document: the evaluation of the type restrictions alone and the whole check executed on every
+ * record read.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthorizationBenchmark extends DatabaseBenchmark {
+  private TypeRestriction restriction;
+  private AnalystUser     user;
+  private MutableDocument document;
+  private JSONObject      classification;
+
+  static class AnalystUser extends BenchmarkUser {
+    private final List<OpaPolicy> policies;
+
+    AnalystUser(final TypeRestriction restriction) {
+      policies = List.of(new OpaPolicy("*", List.of("read"), List.of(restriction)));
+    }
+
+    @Override
+    public String getName() {
+      return "analyst";
+    }
+
+    @Override
+    public boolean isServiceAccount() {
+      return false;
+    }
+
+    @Override
+    public boolean isDataSteward(final String type) {
+      return false;
+    }
+
+    @Override
+    public List<OpaPolicy> getOpaPolicy() {
+      return policies;
+    }
+  }
+
+  @Override
+  protected void populate() {
+    database.getSchema().createDocumentType("Report");
+
+    final Expression read = new Expression(ExpressionOperator.AND,
+        new Argument("components.classification", ArgumentOperator.ANY_OF, List.of("U", "C", "S")),
+        new Argument("components.disseminationControls", ArgumentOperator.FIELD_NOT_PRESENT, true));
+    restriction = new TypeRestriction("Report", GraphType.VERTEX, new ArrayList<>(), List.of(read), new ArrayList<>(), new ArrayList<>());
+    user = new AnalystUser(restriction);
+
+    final Map<String, Object> components = new LinkedHashMap<>();
+    components.put("classification", "S");
+    components.put("releasableTo", List.of("USA", "GBR"));
+
+    document = database.newDocument("Report");
+    document.set("title", "Quarterly report");
+    document.set(MutableDocument.CLASSIFICATION_MARKED, true);
+    document.set("classification", Map.of("components", components));
+
+    classification = new JSONObject(document.getMap("classification"));
+
+    database.getSchema().getEmbedded().setClassificationValidationEnabled(true);
+  }
+
+  @Benchmark
+  public boolean evaluateTypeRestriction() {
+    return restriction.evaluateReadRestrictions(classification);
+  }
+
+  @Benchmark
+  public boolean checkPermissionsOnDocument() {
+    return AuthorizationUtils.checkPermissionsOnDocumentToRead(document, user);
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.benchmark;
+
+import com.arcadedb.database.Binary;
+import com.arcadedb.database.MutableDocument;
+import com.arcadedb.schema.DocumentType;
+import com.arcadedb.serializer.BinarySerializer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Encoding and decoding of the primitive values and of the whole documents.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BinarySerializerBenchmark extends DatabaseBenchmark {
+  private final Binary           buffer = new Binary(4096);
+  private       BinarySerializer serializer;
+  private       DocumentType     type;
+  private       MutableDocument  document;
+  private       Binary           serializedDocument;
+
+  @Override
+  protected void populate() {
+    serializer = database.getSerializer();
+    type = database.getSchema().createDocumentType("Person");
+
+    document = database.newDocument("Person");
+    document.set("name", "Jay");
+    document.set("surname", "Miner");
+    document.set("age", 42);
+    document.set("salary", 123_456_789L);
+    document.set("tags", List.of("amiga", "denise", "agnus", "paula"));
+    document.set("address", Map.of("city", "Los Gatos", "zip", "95030"));
+
+    serializedDocument = serializer.serializeDocument(database, document).copyOfContent();
+  }
+
+  @Benchmark
+  public int encodeNumbers() {
+    buffer.clear();
+    for (long i = 0; i < 64; ++i)
+      buffer.putNumber(i * 1_000_003L);
+    return buffer.position();
+  }
+
+  @Benchmark
+  public long decodeNumbers() {
+    buffer.clear();
+    for (long i = 0; i < 64; ++i)
+      buffer.putNumber(i * 1_000_003L);
+    buffer.flip();
+
+    long total = 0;
+    for (int i = 0; i < 64; ++i)
+      total += buffer.getNumber();
+    return total;
+  }
+
+  @Benchmark
+  public String encodeDecodeString() {
+    buffer.clear();
+    buffer.putString("The quick brown fox jumps over the lazy dog");
+    buffer.flip();
+    return buffer.getString();
+  }
+
+  @Benchmark
+  public int encodeDocument() {
+    return serializer.serializeDocument(database, document).size();
+  }
+
+  @Benchmark
+  public Map<String, Object> decodeDocument() {
+    // SKIP THE RECORD TYPE
+    serializedDocument.position(Binary.BYTE_SERIALIZED_SIZE);
+    return serializer.deserializeProperties(database, serializedDocument, null, type);
+  }
+}
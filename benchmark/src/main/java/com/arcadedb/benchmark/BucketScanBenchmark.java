@@ -0,0 +1,60 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.benchmark;
+
+import com.arcadedb.engine.Bucket;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.*;
+
+import java.util.concurrent.*;
+
+/**
+ * Full scan of a bucket, both at the raw record level and with the records loaded as documents.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BucketScanBenchmark extends DatabaseBenchmark {
+  private static final int    RECORDS = 100_000;
+  private              Bucket bucket;
+
+  @Override
+  protected void populate() {
+    bucket = database.getSchema().createDocumentType("Scan", 1).getBuckets(false).get(0);
+    database.transaction(() -> {
+      for (int i = 0; i < RECORDS; ++i)
+        database.newDocument("Scan").set("id", i, "name", "name-" + i, "score", i * 0.5D).save();
+    });
+  }
+
+  @Benchmark
+  public void rawScan(final Blackhole blackhole) {
+    bucket.scan((rid, view) -> {
+      blackhole.consume(view);
+      return true;
+    }, null);
+  }
+
+  @Benchmark
+  public void documentScan(final Blackhole blackhole) {
+    bucket.iterator().forEachRemaining(record -> blackhole.consume(record.asDocument().get("id")));
+  }
+}
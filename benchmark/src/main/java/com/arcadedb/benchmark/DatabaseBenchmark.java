@@ -0,0 +1,77 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.benchmark;
+
+import com.arcadedb.database.DatabaseContext;
+import com.arcadedb.database.DatabaseFactory;
+import com.arcadedb.database.DatabaseInternal;
+import com.arcadedb.log.LogManager;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Base state for the benchmarks that need a database. A fresh embedded database is created under `target/benchmark-databases` for every
+ * trial and dropped at the end.
+ */
+@State(Scope.Benchmark)
+public abstract class DatabaseBenchmark {
+  // KEEP A STRONG REFERENCE, OTHERWISE THE LOGGER AND ITS LEVEL CAN BE GARBAGE COLLECTED
+  private static final java.util.logging.Logger LOGGER = java.util.logging.Logger.getLogger("com.arcadedb");
+  protected            DatabaseInternal         database;
+
+  static {
+    // WRITING THE AUDIT MESSAGES TO THE CONSOLE WOULD DOMINATE THE MEASUREMENTS. THE LOG MANAGER IS INITIALIZED FIRST BECAUSE IT RELOADS
+    // THE LOGGING CONFIGURATION
+    LogManager.instance();
+    LOGGER.setLevel(java.util.logging.Level.WARNING);
+  }
+
+  @Setup(Level.Trial)
+  public void createDatabase() throws Exception {
+    final DatabaseFactory factory = new DatabaseFactory("target/benchmark-databases/" + getClass().getSimpleName());
+    if (factory.exists())
+      factory.open().drop();
+
+    database = (DatabaseInternal) factory.setClassificationValidationEnabled(false).create();
+    DatabaseContext.INSTANCE.init(database).setCurrentUser(BenchmarkUser.INSTANCE);
+
+    // THE AUDIT TIMESTAMPS HAVE NANOSECOND PRECISION
+    database.command("sql", "alter database `arcadedb.dateTimeImplementation` `java.time.LocalDateTime`");
+
+    populate();
+  }
+
+  /**
+   * The benchmark threads can be different from the one that executed the setup, so the security context is bound on every iteration.
+   */
+  @Setup(Level.Iteration)
+  public void bindUser() {
+    DatabaseContext.INSTANCE.init(database).setCurrentUser(BenchmarkUser.INSTANCE);
+  }
+
+  @TearDown(Level.Trial)
+  public void dropDatabase() {
+    if (database != null) {
+      if (database.isTransactionActive())
+        database.rollback();
+      database.drop();
+    }
+  }
+
+  protected abstract void populate() throws Exception;
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.benchmark;
+
+import com.arcadedb.database.RID;
+import com.arcadedb.graph.MutableVertex;
+import com.arcadedb.graph.Vertex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.*;
+
+import java.util.concurrent.*;
+
+/**
+ * Edge traversal through the graph engine: a hub vertex connected to many neighbors, and a two-hop expansion from the hub.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphTraversalBenchmark extends DatabaseBenchmark {
+  private static final int NEIGHBORS        = 1_000;
+  private static final int SECOND_NEIGHBORS = 10;
+  private              RID hub;
+
+  @Override
+  protected void populate() {
+    database.getSchema().createVertexType("Node");
+    database.getSchema().createEdgeType("Link");
+
+    database.transaction(() -> {
+      final MutableVertex root = database.newVertex("Node").set("id", -1).save();
+      hub = root.getIdentity();
+
+      for (int i = 0; i < NEIGHBORS; ++i) {
+        final MutableVertex neighbor = database.newVertex("Node").set("id", i).save();
+        root.newEdge("Link", neighbor, true);
+
+        for (int k = 0; k < SECOND_NEIGHBORS; ++k)
+          neighbor.newEdge("Link", database.newVertex("Node").set("id", i * SECOND_NEIGHBORS + k).save(), true);
+      }
+    });
+  }
+
+  @Benchmark
+  public long countEdges() {
+    return hub.asVertex(true).countEdges(Vertex.DIRECTION.OUT, "Link");
+  }
+
+  @Benchmark
+  public void outVertices(final Blackhole blackhole) {
+    for (final Vertex v : hub.asVertex(true).getVertices(Vertex.DIRECTION.OUT, "Link"))
+      blackhole.consume(v.getIdentity());
+  }
+
+  @Benchmark
+  public void twoHops(final Blackhole blackhole) {
+    for (final Vertex v : hub.asVertex(true).getVertices(Vertex.DIRECTION.OUT, "Link"))
+      for (final Vertex v2 : v.getVertices(Vertex.DIRECTION.OUT, "Link"))
+        blackhole.consume(v2.getIdentity());
+  }
+}
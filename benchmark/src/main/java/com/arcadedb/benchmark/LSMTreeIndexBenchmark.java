@@ -0,0 +1,108 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.benchmark;
+
+import com.arcadedb.database.RID;
+import com.arcadedb.index.IndexCursor;
+import com.arcadedb.index.TypeIndex;
+import com.arcadedb.index.lsm.LSMTreeIndex;
+import com.arcadedb.schema.DocumentType;
+import com.arcadedb.schema.Schema;
+import com.arcadedb.schema.Type;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.*;
+
+/**
+ * Put, point lookup and range scan on the LSM-Tree index of a bucket, with unique integer keys.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LSMTreeIndexBenchmark extends DatabaseBenchmark {
+  private static final int          KEYS         = 200_000;
+  private static final int          RANGE        = 100;
+  private static final int          COMMIT_EVERY = 10_000;
+  private final        RID[]        rids         = new RID[1];
+  private              LSMTreeIndex index;
+  private              int          nextKey;
+  private              int          pendingPuts;
+
+  @Override
+  protected void populate() {
+    final DocumentType type = database.getSchema().createDocumentType("Key", 1);
+    type.createProperty("id", Type.INTEGER);
+    final TypeIndex typeIndex = database.getSchema().buildTypeIndex("Key", new String[] { "id" }).withType(Schema.INDEX_TYPE.LSM_TREE)
+        .withUnique(true).create();
+    index = (LSMTreeIndex) typeIndex.getIndexesOnBuckets()[0];
+
+    database.transaction(() -> rids[0] = database.newDocument("Key").set("id", -1).save().getIdentity());
+
+    database.begin();
+    for (nextKey = 0; nextKey < KEYS; ++nextKey) {
+      index.put(new Object[] { nextKey }, rids);
+      if (nextKey % COMMIT_EVERY == 0) {
+        database.commit();
+        database.begin();
+      }
+    }
+    database.commit();
+  }
+
+  @TearDown(Level.Iteration)
+  public void commitPendingPuts() {
+    if (database.isTransactionActive())
+      database.commit();
+    pendingPuts = 0;
+  }
+
+  @Benchmark
+  public void put() {
+    if (!database.isTransactionActive())
+      database.begin();
+
+    index.put(new Object[] { nextKey++ }, rids);
+
+    if (++pendingPuts == COMMIT_EVERY) {
+      database.commit();
+      pendingPuts = 0;
+    }
+  }
+
+  @Benchmark
+  public boolean get() {
+    final IndexCursor cursor = index.get(new Object[] { ThreadLocalRandom.current().nextInt(KEYS) });
+    return cursor.hasNext();
+  }
+
+  @Benchmark
+  public int range() {
+    final int from = ThreadLocalRandom.current().nextInt(KEYS - RANGE);
+    final IndexCursor cursor = index.range(true, new Object[] { from }, true, new Object[] { from + RANGE }, false);
+
+    int found = 0;
+    while (cursor.hasNext()) {
+      cursor.next();
+      ++found;
+    }
+    return found;
+  }
+}
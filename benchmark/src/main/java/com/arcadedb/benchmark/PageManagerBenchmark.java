@@ -0,0 +1,70 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.benchmark;
+
+import com.arcadedb.engine.ImmutablePage;
+import com.arcadedb.engine.PageId;
+import com.arcadedb.engine.PageManager;
+import com.arcadedb.engine.PaginatedComponent;
+import com.arcadedb.schema.DocumentType;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.util.concurrent.*;
+
+/**
+ * Page lookups served by the page cache (hit) and by the file after the page has been evicted (miss).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PageManagerBenchmark extends DatabaseBenchmark {
+  private static final int                RECORDS = 100_000;
+  private              PageManager        pageManager;
+  private              PaginatedComponent bucket;
+  private              int                totalPages;
+
+  @Override
+  protected void populate() {
+    final DocumentType type = database.getSchema().createDocumentType("Page", 1);
+    database.transaction(() -> {
+      for (int i = 0; i < RECORDS; ++i)
+        database.newDocument("Page").set("id", i, "payload", "payload-" + i).save();
+    });
+
+    pageManager = database.getPageManager();
+    bucket = type.getBuckets(false).get(0);
+    totalPages = bucket.getTotalPages();
+  }
+
+  @Benchmark
+  public ImmutablePage hit() throws IOException {
+    return pageManager.getImmutablePage(new PageId(bucket.getFileId(), ThreadLocalRandom.current().nextInt(totalPages)), bucket.getPageSize(),
+        false, true);
+  }
+
+  @Benchmark
+  public ImmutablePage miss() throws IOException {
+    final PageId pageId = new PageId(bucket.getFileId(), ThreadLocalRandom.current().nextInt(totalPages));
+    pageManager.removePageFromCache(pageId);
+    return pageManager.getImmutablePage(pageId, bucket.getPageSize(), false, true);
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.benchmark;
+
+import com.arcadedb.query.sql.executor.BasicCommandContext;
+import com.arcadedb.query.sql.executor.ExecutionPlan;
+import com.arcadedb.query.sql.executor.ResultSet;
+import com.arcadedb.query.sql.parser.SqlParser;
+import com.arcadedb.query.sql.parser.Statement;
+import com.arcadedb.schema.DocumentType;
+import com.arcadedb.schema.Schema;
+import com.arcadedb.schema.Type;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.*;
+
+/**
+ * The phases of a SQL query: parsing, planning and execution of an indexed lookup.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SQLBenchmark extends DatabaseBenchmark {
+  private static final int       RECORDS = 100_000;
+  private static final String    QUERY   = "select name, age from Person where id = ? and age > 18 order by name limit 10";
+  private              Statement statement;
+
+  @Override
+  protected void populate() throws Exception {
+    final DocumentType type = database.getSchema().createDocumentType("Person");
+    type.createProperty("id", Type.INTEGER);
+    type.createProperty("name", Type.STRING);
+    type.createProperty("age", Type.INTEGER);
+    database.getSchema().buildTypeIndex("Person", new String[] { "id" }).withType(Schema.INDEX_TYPE.LSM_TREE).withUnique(true).create();
+
+    database.transaction(() -> {
+      for (int i = 0; i < RECORDS; ++i)
+        database.newDocument("Person").set("id", i, "name", "name-" + i, "age", i % 100).save();
+    });
+
+    statement = new SqlParser(database, QUERY).Parse();
+  }
+
+  @Benchmark
+  public Statement parse() throws Exception {
+    return new SqlParser(database, QUERY).Parse();
+  }
+
+  @Benchmark
+  public ExecutionPlan plan() {
+    final BasicCommandContext context = new BasicCommandContext();
+    context.setDatabase(database);
+    return statement.createExecutionPlanNoCache(context, false);
+  }
+
+  @Benchmark
+  public int execute() {
+    int found = 0;
+    try (final ResultSet resultSet = database.query("sql", QUERY, ThreadLocalRandom.current().nextInt(RECORDS))) {
+      while (resultSet.hasNext()) {
+        resultSet.next();
+        ++found;
+      }
+    }
+    return found;
+  }
+}
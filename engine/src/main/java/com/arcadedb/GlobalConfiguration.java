@@ -96,12 +96,14 @@ public enum GlobalConfiguration {
       } else if (v.equalsIgnoreCase("low-ram")) {
         MAX_PAGE_RAM.setValue(16); // 16 MB OF RAM FOR PAGE CACHE
         INDEX_COMPACTION_RAM_MB.setValue(16);
+        INDEX_BUILD_RAM_MB.setValue(16);
         INITIAL_PAGE_CACHE_SIZE.setValue(256);
         FREE_PAGE_RAM.setValue(80);
         ASYNC_OPERATIONS_QUEUE_SIZE.setValue(8);
         ASYNC_TX_BATCH_SIZE.setValue(8);
         PAGE_FLUSH_QUEUE.setValue(8);
         SQL_STATEMENT_CACHE.setValue(16);
+        GREMLIN_STATEMENT_CACHE.setValue(16);
         HA_REPLICATION_QUEUE_SIZE.setValue(8);
         ASYNC_OPERATIONS_QUEUE_IMPL.setValue("standard");
         SERVER_HTTP_IO_THREADS.setValue(cores > 8 ? 4 : 2);
@@ -180,6 +182,9 @@ public enum GlobalConfiguration {
   OIDC_AUTH("arcadedb.oidcAuth", SCOPE.SERVER, "Use OIDC Auth instead of basic", Boolean.class, true),
   KEYCLOAK_ROOT_URL("arcadedb.keycloakRootUrl", SCOPE.SERVER, "Keycloak root URL", String.class, "http://df-keycloak:8080"),
   DF_CLASSIFICATION_URL("arcadedb.classificationRootUrl", SCOPE.SERVER, "DF-classification root URL", String.class, "http://localhost:8000"),
+  DF_CLASSIFICATION_CACHE_TIMEOUT("arcadedb.classificationCacheTimeout", SCOPE.SERVER,
+      "Time in ms the result of the validation of a classification by DF-classification is reused for the same markings. 0 disables the cache",
+      Long.class, 300_000),
   KEYCLOAK_ADMIN_USERNAME("arcadedb.keycloakAdminUsername", SCOPE.SERVER, "Keycloak admin username", String.class, "admin"),
   KEYCLOAK_ADMIN_PASSWORD("arcadedb.keycloakAdminPassword", SCOPE.SERVER, "Keycloak admin password", String.class, ""),
   KEYCLOAK_CLIENT_ID("arcadedb.keycloakClientId", SCOPE.SERVER, "Keycloak client ID", String.class, "df-backend"),
@@ -196,6 +201,18 @@ public enum GlobalConfiguration {
       "Flushes the WAL on disk at commit time. It can be 0 = no flush, 1 = flush without metadata and 2 = full flush (fsync)",
       Integer.class, 0),
 
+  TX_WAL_COMPRESSION("arcadedb.txWalCompression", SCOPE.DATABASE,
+      "Writes the changes of the pages in the WAL as difference from the previous version of the page compressed with LZ4. The same buffer is sent to the replicas without compressing it again",
+      Boolean.class, false),
+
+  TX_SNAPSHOT_MAX_RAM("arcadedb.txSnapshotMaxRAM", SCOPE.DATABASE,
+      "Maximum amount of RAM in MB used to keep the previous versions of the pages needed by the transactions in SNAPSHOT isolation. Beyond this limit, the versions are spilled to a temporary file",
+      Long.class, 256),
+
+  TX_WAL_RECOVERY_THREADS("arcadedb.txWalRecoveryThreads", SCOPE.DATABASE,
+      "Number of threads used to apply the WAL files at recovery after an unclean shutdown. The pages are partitioned by file, so each file is restored by one thread. 0 = available cores",
+      Integer.class, 0),
+
   FREE_PAGE_RAM("arcadedb.freePageRAM", SCOPE.DATABASE, "Percentage (0-100) of memory to free when Page RAM is full", Integer.class,
       50),
 
@@ -205,6 +222,10 @@ public enum GlobalConfiguration {
   BUCKET_DEFAULT_PAGE_SIZE("arcadedb.bucketDefaultPageSize", SCOPE.DATABASE,
       "Default page size in bytes for buckets. Default is 64KB", Integer.class, 65_536),
 
+  GRAPH_EDGE_LIST_BY_TYPE("arcadedb.graph.edgeListByType", SCOPE.DATABASE,
+      "Partitions the edge lists of new vertices by edge type, so traversals and counting filtered by edge type browse only the segments of the requested types. Vertices created before keep their layout",
+      Boolean.class, false),
+
   ASYNC_WORKER_THREADS("arcadedb.asyncWorkerThreads", SCOPE.DATABASE,
       "Number of asynchronous worker threads. 0 (default) = available cores minus 1", Integer.class,
       Runtime.getRuntime().availableProcessors() > 1 ? Runtime.getRuntime().availableProcessors() - 1 : 1),
@@ -245,6 +266,10 @@ public enum GlobalConfiguration {
       "Gremlin engine to use. By default the `auto` setting uses the legacy `groovy` engine in case parameters are set, otherwise, the new native `java` is preferred. If you have compatibility issues with gremlin statements that use lambdas or in general, switch to the `groovy` one",
       String.class, "auto", Set.of("auto", "groovy", "java")),
 
+  GREMLIN_STATEMENT_CACHE("arcadedb.gremlin.statementCache", SCOPE.DATABASE,
+      "Maximum number of parsed Gremlin statements to keep in cache. The parameters are bound at every execution, so parameterized statements are parsed only once. 0 disables the cache",
+      Integer.class, 300),
+
   /**
    * Not in use anymore after removing Gremlin Executor
    */
@@ -261,6 +286,14 @@ public enum GlobalConfiguration {
           + "This setting is intended as a safety measure against excessive resource consumption from a single query (eg. prevent OutOfMemory)",
       Long.class, 500_000),
 
+  QUERY_SORT_BUFFER_SIZE("arcadedb.querySortBufferSize", SCOPE.DATABASE,
+      "Maximum number of results sorted in RAM by ORDER BY. Bigger results are sorted in runs of this size written in temporary files and merged while "
+          + "they are fetched. 0 = sort all the results in RAM, up to queryMaxHeapElementsAllowedPerOp", Long.class, 500_000),
+
+  QUERY_AGGREGATION_BUFFER_SIZE("arcadedb.queryAggregationBufferSize", SCOPE.DATABASE,
+      "Maximum number of groups kept in RAM by GROUP BY and of distinct results kept in RAM by DISTINCT. When exceeded, the new groups and results are "
+          + "partitioned by hash in temporary files and processed one partition at a time. 0 = keep everything in RAM", Long.class, 500_000),
+
   // CYPHER
   CYPHER_STATEMENT_CACHE("arcadedb.cypher.statementCache", SCOPE.DATABASE,
       "Max number of entries in the cypher statement cache. Use 0 to disable. Caching statements speeds up execution of the same cypher queries",
@@ -273,6 +306,20 @@ public enum GlobalConfiguration {
   INDEX_COMPACTION_MIN_PAGES_SCHEDULE("arcadedb.indexCompactionMinPagesSchedule", SCOPE.DATABASE,
       "Minimum number of mutable pages for an index to be schedule for automatic compaction. 0 = disabled", Integer.class, 10),
 
+  INDEX_COMPACTION_MAX_SERIES("arcadedb.indexCompactionMaxSeries", SCOPE.DATABASE,
+      "Maximum number of series in a compacted index before the compaction merges them into fewer, larger series. Lookups probe every series, so this bounds the read amplification. 0 = disabled",
+      Integer.class, 8),
+
+  INDEX_COMPACTION_MAX_BYTES_PER_SECOND("arcadedb.indexCompactionMaxBytesPerSecond", SCOPE.DATABASE,
+      "Maximum I/O, in bytes per second, used to merge the series of a compacted index. 0 = unlimited", Long.class, 0),
+
+  INDEX_BUILD_RAM_MB("arcadedb.indexBuildRAM", SCOPE.DATABASE,
+      "Maximum amount of RAM to use to sort the keys when an index is built on existing records, in MB. Bigger sets of keys are sorted in temporary files. 0 = index the records through transactions",
+      Long.class, 256),
+
+  INDEX_BUILD_PARALLEL_LEVEL("arcadedb.indexBuildParallelLevel", SCOPE.DATABASE,
+      "Number of threads scanning the records when an index is built on existing records. 0 = number of cores", Integer.class, 0),
+
   // NETWORK
   NETWORK_SOCKET_TIMEOUT("arcadedb.network.socketTimeout", SCOPE.SERVER, "TCP/IP Socket timeout (in ms)", Integer.class, 30000),
 
@@ -288,6 +335,15 @@ public enum GlobalConfiguration {
   NETWORK_SSL_TRUSTSTORE_PASSWORD("arcadedb.ssl.trustStorePassword", SCOPE.SERVER, "Password to open the SSL trust store",
       String.class, null),
 
+  NETWORK_BINARY_PROTOCOL("arcadedb.network.binaryProtocol", SCOPE.JVM,
+      "Remote databases use the binary protocol when the server exposes it, instead of HTTP/JSON", Boolean.class, true),
+
+  NETWORK_BINARY_POOL_SIZE("arcadedb.network.binaryPoolSize", SCOPE.JVM,
+      "Maximum number of idle binary connections kept open by a remote database", Integer.class, 8),
+
+  NETWORK_BINARY_RESULT_PAGE_SIZE("arcadedb.network.binaryResultPageSize", SCOPE.SERVER,
+      "Maximum number of records sent in one page of a result set over the binary protocol", Integer.class, 1000),
+
   // SERVER
   SERVER_NAME("arcadedb.server.name", SCOPE.SERVER, "Server name", String.class, Constants.PRODUCT + "_0"),
 
@@ -300,6 +356,13 @@ public enum GlobalConfiguration {
 
   SERVER_METRICS("arcadedb.serverMetrics", SCOPE.SERVER, "True to enable metrics", Boolean.class, true),
 
+  SERVER_ASYNC_LOGGING("arcadedb.server.asyncLogging", SCOPE.SERVER,
+      "Writes the server logs from a background thread through a bounded buffer. When the buffer is full, records below WARNING are dropped",
+      Boolean.class, false),
+
+  SERVER_ASYNC_LOGGING_BUFFER_SIZE("arcadedb.server.asyncLoggingBufferSize", SCOPE.SERVER, "Number of log records the async logging buffer can hold",
+      Integer.class, 8192),
+
   SERVER_ROOT_PATH("arcadedb.server.rootPath", SCOPE.SERVER,
       "Root path in the file system where the server is looking for files. By default is the current directory", String.class,
       null),
@@ -350,6 +413,14 @@ public enum GlobalConfiguration {
   SERVER_WS_EVENT_BUS_QUEUE_SIZE("arcadedb.server.eventBusQueueSize", SCOPE.SERVER,
       "Size of the queue used as a buffer for unserviced database change events.", Integer.class, 1000),
 
+  SERVER_WS_SUBSCRIBER_QUEUE_SIZE("arcadedb.server.eventBusSubscriberQueueSize", SCOPE.SERVER,
+      "Maximum number of change events waiting to be sent to a single WebSocket subscriber. When full, the overflow policy is applied",
+      Integer.class, 1000),
+
+  SERVER_WS_SUBSCRIBER_OVERFLOW_POLICY("arcadedb.server.eventBusSubscriberOverflowPolicy", SCOPE.SERVER,
+      "Policy applied when the queue of a WebSocket subscriber is full: 'dropOldest' discards the oldest event, 'dropNewest' discards the new event, 'coalesce' keeps only the latest change per record",
+      String.class, "dropOldest", Set.of((Object[]) new String[] { "dropOldest", "dropNewest", "coalesce" })),
+
   // SERVER SECURITY
   SERVER_SECURITY_ALGORITHM("arcadedb.server.securityAlgorithm", SCOPE.SERVER,
       "Default encryption algorithm used for passwords hashing", String.class, "PBKDF2WithHmacSHA256"),
@@ -428,7 +499,15 @@ public enum GlobalConfiguration {
       "TCP/IP port number used for incoming connections for Mongo plugin. Default is 27017", Integer.class, 27017),
 
   MONGO_HOST("arcadedb.mongo.host", SCOPE.SERVER,
-      "TCP/IP host name used for incoming connections for Mongo plugin. Default is '0.0.0.0'", String.class, "0.0.0.0"), 
+      "TCP/IP host name used for incoming connections for Mongo plugin. Default is '0.0.0.0'", String.class, "0.0.0.0"),
+
+  // BINARY
+  BINARY_PORT("arcadedb.binary.port", SCOPE.SERVER,
+      "TCP/IP port number used for incoming connections for the binary protocol plugin. Default is 2424", Integer.class, 2424),
+
+  BINARY_HOST("arcadedb.binary.host", SCOPE.SERVER,
+      "TCP/IP host name used for incoming connections for the binary protocol plugin. Default is '0.0.0.0'", String.class,
+      "0.0.0.0"),
   ;
 
   /**
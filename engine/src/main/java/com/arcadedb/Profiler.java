@@ -85,6 +85,8 @@ public class Profiler {
     long countBucket = 0;
     long evictionRuns = 0;
     long pagesEvicted = 0;
+    long activeSnapshots = 0;
+    long snapshotPageVersions = 0;
     int readCachePages = 0;
     int writeCachePages = 0;
     long indexCompactions = 0;
@@ -121,6 +123,8 @@ public class Profiler {
       concurrentModificationExceptions += pStats.concurrentModificationExceptions;
       evictionRuns += pStats.evictionRuns;
       pagesEvicted += pStats.pagesEvicted;
+      activeSnapshots += pStats.activeSnapshots;
+      snapshotPageVersions += pStats.snapshotPageVersions;
       readCachePages += pStats.readCachePages;
 
       final FileManager.FileManagerStats fStats = db.getFileManager().getStats();
@@ -172,6 +176,8 @@ public class Profiler {
     json.put("countBucket", new JSONObject().put("count", countBucket));
     json.put("evictionRuns", new JSONObject().put("count", evictionRuns));
     json.put("pagesEvicted", new JSONObject().put("count", pagesEvicted));
+    json.put("activeSnapshots", new JSONObject().put("count", activeSnapshots));
+    json.put("snapshotPageVersions", new JSONObject().put("count", snapshotPageVersions));
     json.put("readCachePages", new JSONObject().put("count", readCachePages));
     json.put("writeCachePages", new JSONObject().put("count", writeCachePages));
     json.put("indexCompactions", new JSONObject().put("count", indexCompactions));
@@ -0,0 +1,281 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.database;
+
+import com.arcadedb.GlobalConfiguration;
+import com.arcadedb.engine.Bucket;
+import com.arcadedb.engine.BucketPageWriter;
+import com.arcadedb.exception.DatabaseOperationException;
+import com.arcadedb.graph.Edge;
+import com.arcadedb.index.IndexInternal;
+import com.arcadedb.index.TypeIndex;
+import com.arcadedb.index.lsm.LSMTreeIndex;
+import com.arcadedb.index.lsm.LSMTreeIndexBulkBuilder;
+import com.arcadedb.log.LogManager;
+import com.arcadedb.schema.DocumentType;
+import com.arcadedb.schema.EmbeddedSchema;
+import com.arcadedb.security.SecurityDatabaseUser;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.logging.*;
+
+/**
+ * Loads new records by appending them to new pages at the end of the buckets, without transactions, WAL and index maintenance per record. When the
+ * loader is closed, the keys of the new records are checked against the unique indexes before the new pages are made visible: in case of duplicated
+ * keys the new pages are discarded and a {@link com.arcadedb.exception.DuplicatedKeyException} is thrown. Then the bucket files are forced on disk and the
+ * indexes are updated: the indexes of buckets that were empty are built by sorting the keys ({@link IndexInternal#build}), the others receive the keys
+ * of the new records only.
+ * <p>
+ * The buckets of the types passed in the constructor are locked exclusively until the loader is closed, so no transaction can modify them in the
+ * meantime. The loader cannot be used with a transaction active, because the indexes are updated in their own transactions. The loaded records are
+ * visible only after the loader is closed. The load is not atomic: in case of crash the buckets could contain part of the records. Records can be created
+ * by multiple threads, but the loader must be closed by the thread that created it. Edges are not supported, because creating an edge updates the
+ * vertices it connects. Replicated databases are not supported, because the pages are written without the WAL, that is what the replicas receive.
+ *
+ * @author Luca Garulli (l.garulli@arcadedata.com)
+ */
+public class BulkLoader implements AutoCloseable {
+  private final EmbeddedDatabase          database;
+  private final SecurityDatabaseUser      currentUser;
+  private final Map<Integer, BucketState> buckets = new HashMap<>();
+  private final List<Integer>             lockedFiles;
+  private final AtomicLong                created = new AtomicLong();
+  private       boolean                   closed  = false;
+
+  private static class BucketState {
+    private final Bucket           bucket;
+    private final DocumentType     type;
+    private final BucketPageWriter writer;
+    private final boolean          wasEmpty;
+
+    private BucketState(final Bucket bucket, final DocumentType type) {
+      this.bucket = bucket;
+      this.type = type;
+      this.writer = new BucketPageWriter(bucket);
+      this.wasEmpty = bucket.getTotalPages() == 0;
+    }
+  }
+
+  public BulkLoader(final Database database, final String... typeNames) {
+    this.database = (EmbeddedDatabase) ((DatabaseInternal) database).getEmbedded();
+
+    if (this.database.getWrappedDatabaseInstance() != this.database)
+      throw new IllegalArgumentException("Bulk load is not supported on replicated databases, because the pages are not written in the WAL");
+    if (this.database.isTransactionActive())
+      throw new IllegalStateException("Cannot bulk load records with a transaction active");
+
+    final DatabaseContext.DatabaseContextTL context = DatabaseContext.INSTANCE.getContextIfExists(this.database.getDatabasePath());
+    this.currentUser = context != null ? context.getCurrentUser() : null;
+
+    final List<Integer> fileIds = new ArrayList<>();
+    for (final String typeName : typeNames) {
+      final DocumentType type = this.database.getSchema().getType(typeName);
+      for (final Bucket bucket : type.getBuckets(false)) {
+        this.database.checkPermissionsOnFile(bucket.getFileId(), SecurityDatabaseUser.ACCESS.CREATE_RECORD);
+        fileIds.add(bucket.getFileId());
+      }
+    }
+
+    Collections.sort(fileIds);
+    this.lockedFiles = this.database.getTransactionManager()
+        .tryLockFiles(fileIds, this.database.getConfiguration().getValueAsLong(GlobalConfiguration.COMMIT_LOCK_TIMEOUT));
+
+    for (final String typeName : typeNames) {
+      final DocumentType type = this.database.getSchema().getType(typeName);
+      for (final Bucket bucket : type.getBuckets(false))
+        buckets.put(bucket.getFileId(), new BucketState(bucket, type));
+    }
+  }
+
+  /**
+   * Appends the record in a bucket of its type and returns its RID, or null if a before-create callback rejected it.
+   */
+  public RID createRecord(final MutableDocument record) {
+    if (closed)
+      throw new IllegalStateException("Bulk loader is closed");
+    if (record instanceof Edge)
+      throw new IllegalArgumentException("Edges cannot be bulk loaded");
+
+    final boolean contextCreated = DatabaseContext.INSTANCE.getContextIfExists(database.getDatabasePath()) == null;
+    if (contextCreated)
+      // RECORD CREATED BY ANOTHER THREAD: INHERIT THE USER OF THE LOADER FOR THIS CALL ONLY
+      DatabaseContext.INSTANCE.init(database).setCurrentUser(currentUser);
+
+    try {
+      return appendRecord(record);
+    } finally {
+      if (contextCreated)
+        DatabaseContext.INSTANCE.removeContext(database.getDatabasePath());
+    }
+  }
+
+  public long getCreated() {
+    return created.get();
+  }
+
+  private RID appendRecord(final MutableDocument record) {
+    if (!database.beforeCreateRecord(record))
+      return null;
+
+    final Bucket bucket = record.getType().getBucketIdByRecord(record, false);
+    final BucketState state = buckets.get(bucket.getFileId());
+    if (state == null)
+      throw new IllegalArgumentException("Bucket '" + bucket.getName() + "' is not part of the bulk load");
+
+    try {
+      final RID rid = state.writer.append(database.getSerializer().serialize(database, record));
+      ((RecordInternal) record).setIdentity(rid);
+      ((RecordInternal) record).unsetDirty();
+      created.incrementAndGet();
+
+      database.afterCreateRecord(record);
+      return rid;
+
+    } catch (final IOException e) {
+      throw new DatabaseOperationException("Cannot bulk load record in bucket '" + bucket.getName() + "'", e);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new DatabaseOperationException("Bulk load of record in bucket '" + bucket.getName() + "' has been interrupted", e);
+    }
+  }
+
+  /**
+   * Writes the last pages, checks the unique keys, makes the new pages visible, forces the bucket files on disk, updates the indexes with the new records
+   * and releases the locks. If a unique key is duplicated, the new records are discarded and a {@link com.arcadedb.exception.DuplicatedKeyException} is
+   * thrown.
+   */
+  @Override
+  public void close() {
+    if (closed)
+      return;
+    if (database.isTransactionActive())
+      throw new IllegalStateException("Cannot complete the bulk load with a transaction active, because the indexes are updated in their own transactions");
+    closed = true;
+
+    try {
+      try {
+        for (final BucketState state : buckets.values())
+          state.writer.flush();
+
+        checkUniqueKeys();
+
+      } catch (final IOException | InterruptedException | RuntimeException e) {
+        // THE NEW PAGES ARE NOT VISIBLE YET: REMOVE THEM, SO THE BUCKETS ARE AS BEFORE THE LOAD
+        for (final BucketState state : buckets.values())
+          try {
+            state.writer.discard();
+          } catch (final IOException ex) {
+            LogManager.instance().log(this, Level.SEVERE, "Error on discarding the pages loaded in bucket '%s'", ex, state.bucket.getName());
+          }
+        throw e;
+      }
+
+      for (final BucketState state : buckets.values())
+        state.writer.close(true);
+
+      for (final BucketState state : buckets.values())
+        if (state.writer.getWritten() > 0)
+          updateIndexes(state);
+
+      LogManager.instance().log(this, Level.INFO, "Bulk load completed: %d records in %d buckets", created.get(), buckets.size());
+
+    } catch (final IOException e) {
+      throw new DatabaseOperationException("Error on completing bulk load", e);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new DatabaseOperationException("Bulk load has been interrupted", e);
+    } finally {
+      database.getTransactionManager().unlockFilesInOrder(lockedFiles);
+    }
+  }
+
+  /**
+   * Checks the keys of the new records against the unique indexes, while the new pages are not visible yet. The new records of all the buckets indexed by
+   * the same type index are checked together, so the keys duplicated across buckets are found too.
+   */
+  private void checkUniqueKeys() throws IOException, InterruptedException {
+    final Map<Object, List<int[]>> rangesByIndex = new LinkedHashMap<>();
+    final Map<Object, LSMTreeIndex> indexByKey = new HashMap<>();
+
+    for (final BucketState state : buckets.values()) {
+      if (state.writer.getWritten() == 0)
+        continue;
+
+      for (final IndexInternal index : state.type.getPolymorphicBucketIndexByBucketId(state.bucket.getFileId(), null))
+        if (index instanceof LSMTreeIndex && index.isUnique()) {
+          final TypeIndex typeIndex = index.getTypeIndex();
+          final Object key = typeIndex != null ? typeIndex : index;
+          indexByKey.putIfAbsent(key, (LSMTreeIndex) index);
+          rangesByIndex.computeIfAbsent(key, k -> new ArrayList<>())
+              .add(new int[] { state.bucket.getFileId(), state.writer.getFirstPageNumber(), state.writer.getNextPageNumber() });
+        }
+    }
+
+    long buildRAM = database.getConfiguration().getValueAsLong(GlobalConfiguration.INDEX_BUILD_RAM_MB);
+    if (buildRAM <= 0)
+      buildRAM = ((Number) GlobalConfiguration.INDEX_BUILD_RAM_MB.getDefValue()).longValue();
+
+    for (final Map.Entry<Object, List<int[]>> entry : rangesByIndex.entrySet())
+      new LSMTreeIndexBulkBuilder(indexByKey.get(entry.getKey()), buildRAM * 1024L * 1024L, null).checkUniqueKeys(entry.getValue());
+  }
+
+  private void updateIndexes(final BucketState state) {
+    final List<IndexInternal> indexes = state.type.getPolymorphicBucketIndexByBucketId(state.bucket.getFileId(), null);
+    if (indexes.isEmpty())
+      return;
+
+    if (state.wasEmpty) {
+      // THE BUCKET CONTAINS ONLY THE NEW RECORDS: BUILD THE INDEXES FROM SCRATCH
+      for (final IndexInternal index : indexes) {
+        database.begin();
+        try {
+          index.build(EmbeddedSchema.BUILD_TX_BATCH_SIZE, null);
+          database.commit();
+        } finally {
+          if (database.isTransactionActive())
+            database.rollback();
+        }
+      }
+      return;
+    }
+
+    // INDEX THE NEW PAGES ONLY
+    final AtomicLong indexed = new AtomicLong();
+    database.begin();
+    try {
+      state.bucket.scan((rid, view) -> {
+        final Document record = (Document) database.getRecordFactory().newImmutableRecord(database.getWrappedDatabaseInstance(), state.type, rid, view, null);
+        for (final IndexInternal index : indexes)
+          database.getIndexer().addToIndex(index, rid, record);
+
+        if (indexed.incrementAndGet() % EmbeddedSchema.BUILD_TX_BATCH_SIZE == 0) {
+          database.commit();
+          database.begin();
+        }
+        return true;
+      }, null, state.writer.getFirstPageNumber(), state.bucket.getTotalPages());
+      database.commit();
+    } finally {
+      if (database.isTransactionActive())
+        database.rollback();
+    }
+  }
+}
@@ -37,7 +37,7 @@ import java.util.concurrent.*;
 
 public interface Database extends BasicDatabase {
   enum TRANSACTION_ISOLATION_LEVEL {
-    READ_COMMITTED, REPEATABLE_READ
+    READ_COMMITTED, REPEATABLE_READ, SNAPSHOT
   }
 
   ContextConfiguration getConfiguration();
@@ -299,7 +299,7 @@ public interface Database extends BasicDatabase {
    * <ul>
    *   <li><b>READ_COMMITTED</b></li>
    *   <li><b>REPEATABLE_READ</b></li>
-   *   <li><b>SERIALIZABLE</b></li>
+   *   <li><b>SNAPSHOT</b>, the transaction reads the database as it was when the transaction began, while the other transactions keep on committing</li>
    * </ul>
    *
    * @param level The isolation level
@@ -313,7 +313,7 @@ public interface Database extends BasicDatabase {
    * <ul>
    *   <li><b>READ_COMMITTED</b></li>
    *   <li><b>REPEATABLE_READ</b></li>
-   *   <li><b>SERIALIZABLE</b></li>
+   *   <li><b>SNAPSHOT</b></li>
    * </ul>
    *
    * @return Current isolation level.
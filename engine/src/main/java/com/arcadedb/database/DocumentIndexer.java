@@ -62,14 +62,20 @@ public class DocumentIndexer {
   }
 
   public void addToIndex(final Index entry, final RID rid, final Document record) {
-    final Index index = entry;
-    final List<String> keyNames = entry.getPropertyNames();
+    entry.put(getKeyValues(entry, record), new RID[] { rid });
+  }
+
+  /**
+   * Returns the values of the properties of the record indexed by the index, in the same order of the properties of the index.
+   */
+  public Object[] getKeyValues(final Index index, final Document record) {
+    final List<String> keyNames = index.getPropertyNames();
 
     final Object[] keyValues = new Object[keyNames.size()];
     for (int i = 0; i < keyValues.length; ++i)
       keyValues[i] = getPropertyValue(record, keyNames.get(i));
 
-    index.put(keyValues, new RID[] { rid });
+    return keyValues;
   }
 
   public void updateDocument(final Document originalRecord, final Document modifiedRecord, final List<IndexInternal> indexes) {
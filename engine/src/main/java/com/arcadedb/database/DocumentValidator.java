@@ -69,9 +69,7 @@ public class DocumentValidator {
       throw new ValidationException("Document is null!");
     }
 
-    String message = "Validating classification markings on " + document.toJSON(true)
-            + ". CRUD op '" + action + "'...";
-    LogManager.instance().log(DocumentValidator.class, Level.INFO, message);
+    LogManager.instance().log(DocumentValidator.class, Level.FINE, "Validating classification markings on %s. CRUD op '%s'...", document, action);
 
     if (document instanceof MutableEmbeddedDocument) {
       LogManager.instance().log(DocumentValidator.class, Level.INFO,
@@ -99,12 +97,19 @@ public class DocumentValidator {
         throw new ValidationException("Document has no classification property!");
     }
 
-    if (!document.toJSON().getJSONObject(MutableDocument.CLASSIFICATION_PROPERTY).has("components")) {
+    // READ THE CLASSIFICATION DIRECTLY FROM THE PROPERTY, WITHOUT SERIALIZING THE WHOLE DOCUMENT TO JSON
+    final Map<String, Object> classification = toMap(document.get(MutableDocument.CLASSIFICATION_PROPERTY));
+    if (classification == null || !classification.containsKey("components")) {
       throw new ValidationException("Document has no classification.components property!");
     }
 
-    var component = document.toJSON().getJSONObject(MutableDocument.CLASSIFICATION_PROPERTY).getJSONObject("components").toString();
-    boolean valid = DataFabricClassificationClient.validateDocumentClassification(component);
+    final Map<String, Object> components = toMap(classification.get("components"));
+    if (components == null) {
+      throw new ValidationException("Document has no valid classification defined!");
+    }
+
+    // THE RESULT IS CACHED BY THE CANONICAL FORM OF THE COMPONENTS: THE DISTINCT COMBINATIONS OF MARKINGS ARE FEW
+    boolean valid = DataFabricClassificationClient.validateDocumentClassificationCached(new JSONObject(canonical(components)).toString());
     if (!valid) {
       throw new ValidationException("Document has no valid classification defined!");
     }
@@ -115,11 +120,41 @@ public class DocumentValidator {
       throw new ValidationException("User cannot set classification markings on documents higher than or outside their current access.");
     }
 
-    var classificationObj = new JSONObject(document.get(MutableDocument.CLASSIFICATION_PROPERTY).toString());
-    validateAttributeClassificationTagging(document, classificationObj.getJSONObject(MutableDocument.CLASSIFICATION_ATTRIBUTES_PROPERTY), securityDatabaseUser, action);
+    final Map<String, Object> attributes = toMap(classification.get(MutableDocument.CLASSIFICATION_ATTRIBUTES_PROPERTY));
+    if (attributes == null) {
+      throw new ValidationException("Document has no classification.attributes property!");
+    }
+    validateAttributeClassificationTagging(document, attributes, securityDatabaseUser, action);
+  }
+
+  /**
+   * Returns the value as a map if it is a map, a document or a JSON object, otherwise null.
+   */
+  private static Map<String, Object> toMap(final Object value) {
+    if (value instanceof Map)
+      return (Map<String, Object>) value;
+    else if (value instanceof Document)
+      return ((Document) value).toMap(false);
+    else if (value instanceof JSONObject)
+      return ((JSONObject) value).toMap();
+    else if (value instanceof String && ((String) value).startsWith("{"))
+      return new JSONObject((String) value).toMap();
+    return null;
+  }
+
+  /**
+   * Returns a copy of the map with the keys sorted at any level, so the same markings always produce the same JSON.
+   */
+  private static Map<String, Object> canonical(final Map<String, Object> map) {
+    final Map<String, Object> sorted = new TreeMap<>();
+    for (final Map.Entry<String, Object> entry : map.entrySet()) {
+      final Map<String, Object> nested = entry.getValue() instanceof List ? null : toMap(entry.getValue());
+      sorted.put(entry.getKey(), nested != null ? canonical(nested) : entry.getValue());
+    }
+    return sorted;
   }
 
-  private static void validateAttributeClassificationTagging(final MutableDocument document, final JSONObject attributes, SecurityDatabaseUser securityDatabaseUser, RecordAction action) {
+  private static void validateAttributeClassificationTagging(final MutableDocument document, final Map<String, Object> attributes, SecurityDatabaseUser securityDatabaseUser, RecordAction action) {
 
     // confirm each json key in document has a matching key in attributes
     // have counter for each key in document, and decrement when found in attributes
@@ -133,8 +168,8 @@ public class DocumentValidator {
     propNames.remove(Utils.LAST_MODIFIED_DATE);
 
     var numProps = propNames.size();
-    LogManager.instance().log(DocumentValidator.class, Level.INFO, "Validating document attribute classifications: " + attributes);
-    attributes.toMap().forEach((attribute, value) -> {
+    LogManager.instance().log(DocumentValidator.class, Level.FINE, "Validating document attribute classifications: %s", attributes);
+    attributes.forEach((attribute, value) -> {
 
         // validate valid key
         if (!document.has(attribute)) {
@@ -166,7 +201,8 @@ public class DocumentValidator {
 
            // var userClearanceIndex = AuthorizationUtils.classificationOptions.get(userClearance);
 
-            LogManager.instance().log(DocumentValidator.class, Level.INFO, inputIndex + "_" + userClearanceIndex);
+            if (LogManager.instance().isLoggable(DocumentValidator.class, Level.INFO))
+                LogManager.instance().log(DocumentValidator.class, Level.INFO, inputIndex + "_" + userClearanceIndex);
 
             if (inputIndex > userClearanceIndex) {
                 throw new ValidationException(
@@ -178,8 +214,8 @@ public class DocumentValidator {
         }
     });
 
-    if (attributes.length() < numProps) {
-      throw new ValidationException("Missing attribute classification data on document: " + attributes.length() + "/" + numProps);
+    if (attributes.size() < numProps) {
+      throw new ValidationException("Missing attribute classification data on document: " + attributes.size() + "/" + numProps);
     }
   }
 
@@ -218,7 +254,7 @@ public class DocumentValidator {
         throw new ValidationException("Invalid classification for source: " + classification);
       }
 
-      validateAttributeClassificationTagging(document, jo.getJSONObject(MutableDocument.CLASSIFICATION_ATTRIBUTES_PROPERTY), securityDatabaseUser, action);
+      validateAttributeClassificationTagging(document, jo.getJSONObject(MutableDocument.CLASSIFICATION_ATTRIBUTES_PROPERTY).toMap(), securityDatabaseUser, action);
     });
   }
 
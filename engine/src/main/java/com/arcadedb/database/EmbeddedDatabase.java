@@ -798,32 +798,8 @@ public class EmbeddedDatabase extends RWLockContext implements DatabaseInternal
     if (record.getIdentity() != null)
       throw new IllegalArgumentException("Cannot create record " + record.getIdentity() + " because it is already persistent");
 
-    if (mode == ComponentFile.MODE.READ_ONLY)
-      throw new DatabaseIsReadOnlyException("Cannot create a new record");
-
-    setDefaultValues(record);
-
-    if (record instanceof MutableDocument) {
-      ((MutableDocument) record).validateAndAccmCheck(getContext().getCurrentUser(), RecordAction.CREATE);
-
-      ((MutableDocument) record).set(Utils.CREATED_BY, getCurrentUserName());
-      ((MutableDocument) record).set(Utils.CREATED_DATE, LocalDateTime.now());
-
-      // Prevent a smartass from setting this on record creation.
-      if (((MutableDocument) record).has(Utils.LAST_MODIFIED_BY)) {
-        ((MutableDocument) record).remove(Utils.LAST_MODIFIED_BY);
-      }
-      if (((MutableDocument) record).has(Utils.LAST_MODIFIED_DATE)) {
-        ((MutableDocument) record).remove(Utils.LAST_MODIFIED_DATE);
-      }
-    }
-
-    // INVOKE EVENT CALLBACKS
-    if (!events.onBeforeCreate(record))
+    if (!beforeCreateRecord(record))
       return;
-    if (record instanceof Document)
-      if (!((RecordEventsRegistry) ((Document) record).getType().getEvents()).onBeforeCreate(record))
-        return;
 
     boolean success = false;
     final boolean implicitTransaction = checkTransactionIsActive(autoTransaction);
@@ -851,10 +827,7 @@ public class EmbeddedDatabase extends RWLockContext implements DatabaseInternal
 
       success = true;
 
-      // INVOKE EVENT CALLBACKS
-      events.onAfterCreate(record);
-      if (record instanceof Document)
-        ((RecordEventsRegistry) ((Document) record).getType().getEvents()).onAfterCreate(record);
+      afterCreateRecord(record);
 
     } finally {
       if (implicitTransaction) {
@@ -866,6 +839,49 @@ public class EmbeddedDatabase extends RWLockContext implements DatabaseInternal
     }
   }
 
+  /**
+   * Applies the default values, the security checks and the before-create callbacks to a new record. Returns false if a callback rejected the record.
+   */
+  boolean beforeCreateRecord(final Record record) {
+    if (mode == ComponentFile.MODE.READ_ONLY)
+      throw new DatabaseIsReadOnlyException("Cannot create a new record");
+
+    setDefaultValues(record);
+
+    if (record instanceof MutableDocument) {
+      ((MutableDocument) record).validateAndAccmCheck(getContext().getCurrentUser(), RecordAction.CREATE);
+
+      ((MutableDocument) record).set(Utils.CREATED_BY, getCurrentUserName());
+      ((MutableDocument) record).set(Utils.CREATED_DATE, LocalDateTime.now());
+
+      // Prevent a smartass from setting this on record creation.
+      if (((MutableDocument) record).has(Utils.LAST_MODIFIED_BY)) {
+        ((MutableDocument) record).remove(Utils.LAST_MODIFIED_BY);
+      }
+      if (((MutableDocument) record).has(Utils.LAST_MODIFIED_DATE)) {
+        ((MutableDocument) record).remove(Utils.LAST_MODIFIED_DATE);
+      }
+    }
+
+    // INVOKE EVENT CALLBACKS
+    if (!events.onBeforeCreate(record))
+      return false;
+    if (record instanceof Document)
+      if (!((RecordEventsRegistry) ((Document) record).getType().getEvents()).onBeforeCreate(record))
+        return false;
+
+    return true;
+  }
+
+  /**
+   * Invokes the after-create callbacks on a record just created.
+   */
+  void afterCreateRecord(final Record record) {
+    events.onAfterCreate(record);
+    if (record instanceof Document)
+      ((RecordEventsRegistry) ((Document) record).getType().getEvents()).onAfterCreate(record);
+  }
+
   @Override
   public void updateRecord(final Record record) {
     if (record.getIdentity() == null)
@@ -21,6 +21,7 @@ package com.arcadedb.database;
 import com.arcadedb.exception.DatabaseMetadataException;
 import com.arcadedb.graph.Edge;
 import com.arcadedb.graph.EdgeSegment;
+import com.arcadedb.graph.EdgeTypeHeadTable;
 import com.arcadedb.graph.ImmutableEdge;
 import com.arcadedb.graph.ImmutableVertex;
 import com.arcadedb.graph.MutableEdge;
@@ -42,6 +43,8 @@ public class RecordFactory {
       return new ImmutableEdge(database, type, rid, null);
     case EdgeSegment.RECORD_TYPE:
       return new MutableEdgeSegment(database, rid, null);
+    case EdgeTypeHeadTable.RECORD_TYPE:
+      return new EdgeTypeHeadTable(database, rid, null);
     case EmbeddedDocument.RECORD_TYPE:
       return new ImmutableEmbeddedDocument(database, type, null, null);
     }
@@ -60,6 +63,8 @@ public class RecordFactory {
       return new ImmutableEdge(database, type, rid, content);
     case EdgeSegment.RECORD_TYPE:
       return new MutableEdgeSegment(database, rid, content);
+    case EdgeTypeHeadTable.RECORD_TYPE:
+      return new EdgeTypeHeadTable(database, rid, content);
     case EmbeddedDocument.RECORD_TYPE:
       return new ImmutableEmbeddedDocument(database, type, content, modifier);
     }
@@ -88,6 +93,8 @@ public class RecordFactory {
       return new MutableEdge(database, (EdgeType) type, rid);
     case EdgeSegment.RECORD_TYPE:
       return new MutableEdgeSegment(database, rid);
+    case EdgeTypeHeadTable.RECORD_TYPE:
+      return new EdgeTypeHeadTable(database, rid, content);
     case EmbeddedDocument.RECORD_TYPE:
       return new MutableEmbeddedDocument(database, type, content, modifier);
     }
@@ -28,6 +28,7 @@ import com.arcadedb.engine.PageId;
 import com.arcadedb.engine.PageManager;
 import com.arcadedb.engine.PaginatedComponent;
 import com.arcadedb.engine.PaginatedComponentFile;
+import com.arcadedb.engine.TransactionManager;
 import com.arcadedb.engine.WALFile;
 import com.arcadedb.exception.ConcurrentModificationException;
 import com.arcadedb.exception.DuplicatedKeyException;
@@ -47,7 +48,11 @@ import java.util.logging.*;
  * Manage the transaction context. When the transaction begins, the modifiedPages map is initialized. This allows to always delegate
  * to the transaction context, even if there is no active transaction by ignoring tx data.
  * <br>
- * At commit time, the files are locked in order (to avoid deadlocks) and to allow parallel commit on different files.
+ * At commit time, the files are locked in order (to avoid deadlocks) and to allow parallel commit on different files. The buckets where the transaction
+ * only modified existent pages are locked in shared mode and only the modified pages are locked exclusively, so transactions that write to different
+ * pages of the same bucket can commit in parallel. Structural changes (new pages) and indexes still lock the whole file: the index pages are known only
+ * after the locks are taken, when the index changes are applied and the unique keys are checked, so the commits that update the same index are still
+ * serialized on its file. Locking the indexes per page or per key range is not supported yet.
  * <br>
  * Format of WAL:
  * <br>
@@ -67,7 +72,10 @@ public class TransactionContext implements Transaction {
   private       boolean                              asyncFlush            = true;
   private       WALFile.FLUSH_TYPE                   walFlush;
   private       List<Integer>                        lockedFiles;
+  private       List<Integer>                        sharedLockedFiles;
+  private       List<PageId>                         lockedPages;
   private       long                                 txId                  = -1;
+  private       long                                 snapshotVersion       = -1;
   private       STATUS                               status                = STATUS.INACTIVE;
   // KEEPS TRACK OF MODIFIED RECORD IN TX. AT 1ST PHASE COMMIT TIME THE RECORD ARE SERIALIZED AND INDEXES UPDATED. THIS DEFERRING IMPROVES SPEED ESPECIALLY
   // WITH GRAPHS WHERE EDGES ARE CREATED AND CHUNKS ARE UPDATED MULTIPLE TIMES IN THE SAME TX
@@ -103,6 +111,10 @@ public class TransactionContext implements Transaction {
 
     status = STATUS.BEGUN;
 
+    if (isolationLevel == Database.TRANSACTION_ISOLATION_LEVEL.SNAPSHOT)
+      // PIN THE LAST COMMITTED VERSION: ALL THE PAGES ARE READ AS THEY WERE AT THIS POINT
+      snapshotVersion = database.getPageManager().openSnapshot();
+
     modifiedPages = new HashMap<>();
 
     if (newPages == null)
@@ -294,6 +306,13 @@ public class TransactionContext implements Transaction {
             // CACHE THE IMMUTABLE PAGE ONLY IF IT IS NOT NEW
             immutablePages.put(pageId, (ImmutablePage) page);
           break;
+        case SNAPSHOT:
+          // THE CURRENT PAGE IS LOADED BEFORE LOOKING FOR THE PREVIOUS IMAGES: IF A COMMIT REPLACES THE PAGE IN THE MEANTIME, ITS IMAGE IS RETAINED
+          final ImmutablePage snapshotPage = database.getPageManager().getSnapshotPage(pageId, snapshotVersion);
+          if (snapshotPage != null)
+            page = snapshotPage;
+          immutablePages.put(pageId, (ImmutablePage) page);
+          break;
         }
       }
     }
@@ -315,12 +334,16 @@ public class TransactionContext implements Transaction {
 
       if (page == null) {
         // IF AVAILABLE REMOVE THE PAGE FROM IMMUTABLE PAGES TO KEEP ONLY ONE PAGE IN RAM
-        final ImmutablePage loadedPage = immutablePages.remove(pageId);
+        ImmutablePage loadedPage = immutablePages.remove(pageId);
+        if (loadedPage == null && snapshotVersion > -1 && !isNew)
+          // MODIFY THE PAGE AS SEEN BY THE SNAPSHOT: IF IT HAS BEEN REPLACED IN THE MEANTIME, THE COMMIT FAILS WITH A CONCURRENT MODIFICATION
+          loadedPage = database.getPageManager().getSnapshotPage(pageId, snapshotVersion);
+
         if (loadedPage == null)
           // NOT FOUND, DELEGATES TO THE DATABASE
           page = database.getPageManager().getMutablePage(pageId, pageSize, isNew, true);
         else
-          page = loadedPage.modify();
+          page = loadedPage.modify(isWALCompressed());
 
         if (isNew)
           newPages.put(pageId, page);
@@ -338,7 +361,7 @@ public class TransactionContext implements Transaction {
     if (!isActive())
       throw new TransactionException("Transaction not active");
 
-    final MutablePage mutablePage = page.modify();
+    final MutablePage mutablePage = page instanceof ImmutablePage ? ((ImmutablePage) page).modify(isWALCompressed()) : page.modify();
 
     final PageId pageId = page.getPageId();
     if (newPages.containsKey(pageId))
@@ -413,11 +436,34 @@ public class TransactionContext implements Transaction {
     return result;
   }
 
+  /**
+   * Returns true if the transaction modified or added pages of the file. These changes are visible only to the thread that owns the transaction.
+   */
+  public boolean isFileModified(final int fileId) {
+    if (newPageCounters.containsKey(fileId))
+      return true;
+
+    if (modifiedPages != null)
+      for (final PageId pageId : modifiedPages.keySet())
+        if (pageId.getFileId() == fileId)
+          return true;
+
+    if (newPages != null)
+      for (final PageId pageId : newPages.keySet())
+        if (pageId.getFileId() == fileId)
+          return true;
+
+    return false;
+  }
+
   /**
    * Test only API.
    */
   public void kill() {
+    closeSnapshot();
     lockedFiles = null;
+    sharedLockedFiles = null;
+    lockedPages = null;
     modifiedPages = null;
     newPages = null;
     updatedRecords = null;
@@ -495,7 +541,7 @@ public class TransactionContext implements Transaction {
         final MutablePage page = getPageToModify(pageId, pageSize, isNew);
 
         // APPLY THE CHANGE TO THE PAGE
-        page.writeByteArray(p.changesFrom - BasePage.PAGE_HEADER_SIZE, p.currentContent.content);
+        p.applyTo(page);
         page.setContentSize(p.currentPageSize);
 
         if (isNew) {
@@ -553,8 +599,8 @@ public class TransactionContext implements Transaction {
     status = STATUS.COMMIT_1ST_PHASE;
 
     if (isLeader)
-      // LOCK FILES IN ORDER (TO AVOID DEADLOCK)
-      lockedFiles = lockFilesInOrder();
+      // LOCK FILES AND PAGES IN ORDER (TO AVOID DEADLOCK)
+      lockFilesInOrder();
     else
       // IN CASE OF REPLICA THIS IS DEMANDED TO THE LEADER EXECUTION
       lockedFiles = new ArrayList<>();
@@ -644,13 +690,9 @@ public class TransactionContext implements Transaction {
         }
       }
 
-      // UPDATE RECORD COUNT
-      for (Map.Entry<Integer, AtomicInteger> entry : bucketRecordDelta.entrySet()) {
-        final Bucket bucket = database.getSchema().getBucketById(entry.getKey());
-        if (bucket.getCachedRecordCount() > -1)
-          // UPDATE THE CACHE COUNTER ONLY IF ALREADY COMPUTED
-          bucket.setCachedRecordCount(bucket.getCachedRecordCount() + entry.getValue().get());
-      }
+      // UPDATE RECORD COUNT. THE BUCKET COULD BE COMMITTED IN PARALLEL BY OTHER TRANSACTIONS (PAGE LEVEL LOCKING), SO THE COUNTER IS UPDATED ATOMICALLY
+      for (Map.Entry<Integer, AtomicInteger> entry : bucketRecordDelta.entrySet())
+        database.getSchema().getBucketById(entry.getKey()).incrementCachedRecordCount(entry.getValue().get());
 
       for (final Record r : modifiedRecordsCache.values())
         ((RecordInternal) r).unsetDirty();
@@ -662,6 +704,13 @@ public class TransactionContext implements Transaction {
           file.onAfterCommit();
       }
 
+      if (sharedLockedFiles != null)
+        for (final int fileId : sharedLockedFiles) {
+          final PaginatedComponent file = (PaginatedComponent) database.getSchema().getFileByIdIfExists(fileId);
+          if (file != null)
+            file.onAfterCommit();
+        }
+
     } catch (final ConcurrentModificationException e) {
       throw e;
     } catch (final Exception e) {
@@ -690,6 +739,16 @@ public class TransactionContext implements Transaction {
   public void reset() {
     status = STATUS.INACTIVE;
 
+    if (lockedPages != null) {
+      database.getTransactionManager().unlockPages(lockedPages);
+      lockedPages = null;
+    }
+
+    if (sharedLockedFiles != null) {
+      database.getTransactionManager().unlockFilesSharedInOrder(sharedLockedFiles);
+      sharedLockedFiles = null;
+    }
+
     if (lockedFiles != null) {
       database.getTransactionManager().unlockFilesInOrder(lockedFiles);
       lockedFiles = null;
@@ -706,6 +765,28 @@ public class TransactionContext implements Transaction {
     immutablePages.clear();
     bucketRecordDelta.clear();
     txId = -1;
+    closeSnapshot();
+  }
+
+  /**
+   * The previous content of the modified pages is needed only to write the changes in the compressed WAL format, so it is kept only in that case.
+   */
+  private boolean isWALCompressed() {
+    return database.getConfiguration().getValueAsBoolean(GlobalConfiguration.TX_WAL_COMPRESSION);
+  }
+
+  /**
+   * Returns true if the transaction reads a snapshot of the database taken when it began.
+   */
+  public boolean isSnapshot() {
+    return snapshotVersion > -1;
+  }
+
+  private void closeSnapshot() {
+    if (snapshotVersion > -1) {
+      database.getPageManager().closeSnapshot(snapshotVersion);
+      snapshotVersion = -1;
+    }
   }
 
   public void removePagesOfFile(final int fileId) {
@@ -743,7 +824,13 @@ public class TransactionContext implements Transaction {
     this.status = status;
   }
 
-  private List<Integer> lockFilesInOrder() {
+  /**
+   * Locks the files and the pages touched by the transaction. The buckets where only existent pages have been modified are locked in shared mode, plus
+   * the modified pages exclusively. All the other files (new pages, indexes, dictionary, etc.) are locked exclusively. The indexes are always locked
+   * exclusively because the pages they modify are known only when the index changes are committed, after this method. The exclusive and shared file locks
+   * are acquired in file order before the page locks, so the order is the same for all the transactions.
+   */
+  private void lockFilesInOrder() {
     final Set<Integer> modifiedFiles = new HashSet<>();
 
     for (final PageId p : modifiedPages.keySet())
@@ -756,19 +843,63 @@ public class TransactionContext implements Transaction {
 
     modifiedFiles.addAll(newPageCounters.keySet());
 
+    final Set<Integer> exclusiveFiles = new HashSet<>();
+    final Set<Integer> sharedFiles = new HashSet<>();
+    for (final Integer fileId : modifiedFiles) {
+      if (!newPageCounters.containsKey(fileId) && database.getSchema().getFileByIdIfExists(fileId) instanceof Bucket)
+        sharedFiles.add(fileId);
+      else
+        exclusiveFiles.add(fileId);
+    }
+
     final long timeout = database.getConfiguration().getValueAsLong(GlobalConfiguration.COMMIT_LOCK_TIMEOUT);
 
-    final List<Integer> locked = database.getTransactionManager().tryLockFiles(modifiedFiles, timeout);
+    final TransactionManager transactionManager = database.getTransactionManager();
+
+    // ACQUIRE ALL THE FILE LOCKS IN FILE ORDER (EXCLUSIVE AND SHARED ARE INTERLEAVED BY FILE ID)
+    final List<Integer> orderedFiles = new ArrayList<>(modifiedFiles);
+    Collections.sort(orderedFiles);
+
+    lockedFiles = new ArrayList<>();
+    sharedLockedFiles = new ArrayList<>();
+    try {
+      for (final Integer fileId : orderedFiles) {
+        if (sharedFiles.contains(fileId))
+          sharedLockedFiles.addAll(transactionManager.tryLockFilesShared(List.of(fileId), timeout));
+        else
+          lockedFiles.addAll(transactionManager.tryLockFiles(List.of(fileId), timeout));
+      }
+
+      if (!sharedLockedFiles.isEmpty()) {
+        final List<PageId> pagesToLock = new ArrayList<>();
+        for (final PageId pageId : modifiedPages.keySet())
+          if (sharedFiles.contains(pageId.getFileId()))
+            pagesToLock.add(pageId);
+
+        lockedPages = transactionManager.tryLockPages(pagesToLock, timeout);
+      }
+    } catch (final RuntimeException e) {
+      releaseLocks();
+      throw e;
+    }
 
     // CHECK IF ALL THE LOCKED FILES STILL EXIST. FILE MISSING CAN HAPPEN IN CASE OF INDEX COMPACTION OR DROP OF A BUCKET OR AN INDEX
-    for (Integer f : locked)
+    for (final Integer f : orderedFiles)
       if (!database.getFileManager().existsFile(f)) {
         // ONE FILE HAS BEEN REMOVED
-        database.getTransactionManager().unlockFilesInOrder(locked);
+        releaseLocks();
         rollback();
         throw new ConcurrentModificationException("File with id '" + f + "' has been removed");
       }
+  }
 
-    return locked;
+  private void releaseLocks() {
+    final TransactionManager transactionManager = database.getTransactionManager();
+    transactionManager.unlockPages(lockedPages);
+    lockedPages = null;
+    transactionManager.unlockFilesSharedInOrder(sharedLockedFiles);
+    sharedLockedFiles = null;
+    transactionManager.unlockFilesInOrder(lockedFiles);
+    lockedFiles = null;
   }
 }
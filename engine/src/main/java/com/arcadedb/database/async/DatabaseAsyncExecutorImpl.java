@@ -33,6 +33,7 @@ import com.arcadedb.engine.WALFile;
 import com.arcadedb.exception.DatabaseOperationException;
 import com.arcadedb.graph.Vertex;
 import com.arcadedb.index.IndexInternal;
+import com.arcadedb.index.lsm.LSMTreeIndex;
 import com.arcadedb.log.LogManager;
 import com.arcadedb.schema.DocumentType;
 import com.conversantmedia.util.concurrent.PushPullBlockingQueue;
@@ -251,6 +252,15 @@ public class DatabaseAsyncExecutorImpl implements DatabaseAsyncExecutor {
       scheduleTask(getBestSlot(), new DatabaseAsyncIndexCompaction(index), false, backPressurePercentage);
   }
 
+  /**
+   * Schedules the merge of the series of the compacted index. It never waits if the queue is full.
+   *
+   * @return true if the merge has been scheduled
+   */
+  public boolean mergeSeries(final LSMTreeIndex index) {
+    return scheduleTask(getBestSlot(), new DatabaseAsyncIndexSeriesMerge(index), false, 0);
+  }
+
   /**
    * Looks for an empty queue or the queue with less messages.
    */
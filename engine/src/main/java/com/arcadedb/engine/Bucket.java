@@ -64,9 +64,9 @@ public class Bucket extends PaginatedComponent {
   protected static final int        PAGE_RECORD_COUNT_IN_PAGE_OFFSET = 0;
   protected static final int        PAGE_RECORD_TABLE_OFFSET         = PAGE_RECORD_COUNT_IN_PAGE_OFFSET + Binary.SHORT_SERIALIZED_SIZE;
   private static final   int        DEF_MAX_RECORDS_IN_PAGE          = 2048;
-  private static final   int        MINIMUM_RECORD_SIZE              = 5;    // RECORD SIZE CANNOT BE < 5 BYTES IN CASE OF UPDATE AND PLACEHOLDER, 5 BYTES IS THE SPACE REQUIRED TO HOST THE PLACEHOLDER
+  static final           int        MINIMUM_RECORD_SIZE              = 5;    // RECORD SIZE CANNOT BE < 5 BYTES IN CASE OF UPDATE AND PLACEHOLDER, 5 BYTES IS THE SPACE REQUIRED TO HOST THE PLACEHOLDER
   private static final   long       RECORD_PLACEHOLDER_CONTENT       = MINIMUM_RECORD_SIZE * -1L;    // < -5 FOR SURROGATE RECORDS
-  private static final   long       MINIMUM_SPACE_LEFT_IN_PAGE       = 50L;
+  static final           long       MINIMUM_SPACE_LEFT_IN_PAGE       = 50L;
   protected final        int        contentHeaderSize;
   private final          int        maxRecordsInPage                 = DEF_MAX_RECORDS_IN_PAGE;
   private final          AtomicLong cachedRecordCount                = new AtomicLong(-1);
@@ -168,12 +168,17 @@ public class Bucket extends PaginatedComponent {
   }
 
   public void scan(final RawRecordCallback callback, final ErrorRecordCallback errorRecordCallback) {
-    database.checkPermissionsOnFile(fileId, SecurityDatabaseUser.ACCESS.READ_RECORD);
+    scan(callback, errorRecordCallback, 0, getTotalPages());
+  }
 
-    final int txPageCount = getTotalPages();
+  /**
+   * Scans the records contained in the pages from `fromPage` (inclusive) to `toPage` (exclusive). Ranges of pages can be scanned by different threads.
+   */
+  public void scan(final RawRecordCallback callback, final ErrorRecordCallback errorRecordCallback, final int fromPage, final int toPage) {
+    database.checkPermissionsOnFile(fileId, SecurityDatabaseUser.ACCESS.READ_RECORD);
 
     try {
-      for (int pageId = 0; pageId < txPageCount; ++pageId) {
+      for (int pageId = fromPage; pageId < toPage; ++pageId) {
         final BasePage page = database.getTransaction().getPage(new PageId(file.getFileId(), pageId), pageSize);
         final short recordCountInPage = page.readShort(PAGE_RECORD_COUNT_IN_PAGE_OFFSET);
 
@@ -277,8 +282,9 @@ public class Bucket extends PaginatedComponent {
 
     final TransactionContext transaction = database.getTransaction();
 
+    // THE CACHED COUNTER IS ALWAYS UPDATED TO THE LAST COMMIT: A SNAPSHOT MUST COUNT THE RECORDS IN ITS PAGES
     final long cached = cachedRecordCount.get();
-    if (cached > -1)
+    if (cached > -1 && !transaction.isSnapshot())
       return cached + transaction.getBucketRecordDelta(fileId);
 
     long total = 0;
@@ -305,7 +311,8 @@ public class Bucket extends PaginatedComponent {
         }
       }
 
-      cachedRecordCount.set(total);
+      if (!transaction.isSnapshot())
+        cachedRecordCount.set(total);
 
     } catch (final IOException e) {
       throw new DatabaseOperationException("Cannot count bucket '" + componentName + "'", e);
@@ -560,6 +567,13 @@ public class Bucket extends PaginatedComponent {
     cachedRecordCount.set(count);
   }
 
+  /**
+   * Adds the delta to the cached record count, only if the count has been already computed.
+   */
+  public void incrementCachedRecordCount(final long delta) {
+    cachedRecordCount.updateAndGet(count -> count > -1 ? count + delta : count);
+  }
+
   private RID createRecordInternal(final Record record, final boolean isPlaceHolder, final boolean discardRecordAfter) {
     final Binary buffer = database.getSerializer().serialize(database, record);
 
@@ -0,0 +1,220 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.engine;
+
+import com.arcadedb.database.Binary;
+import com.arcadedb.database.DatabaseInternal;
+import com.arcadedb.database.RID;
+
+import java.io.*;
+
+import static com.arcadedb.database.Binary.INT_SERIALIZED_SIZE;
+import static com.arcadedb.database.Binary.LONG_SERIALIZED_SIZE;
+
+/**
+ * Appends serialized records to new pages at the end of a bucket, without passing through the transaction, the read cache and the WAL. Every page is
+ * written to the file as soon as it is full and the existent pages are never touched. The new pages become visible only when the writer is closed, by
+ * updating the page count of the bucket through {@link PageManager#publishNewPages(PaginatedComponent, int, int)}, so the transactions running in
+ * snapshot isolation do not see them. Until then the new pages can be removed with {@link #discard()}. The caller must hold the lock on the bucket file for
+ * the whole life of the writer.
+ * <p>
+ * The pages have the same layout of the pages written by {@link Bucket}, multi-page records included.
+ *
+ * @author Luca Garulli (l.garulli@arcadedata.com)
+ */
+public class BucketPageWriter {
+  private final Bucket           bucket;
+  private final DatabaseInternal database;
+  private final PageManager      pageManager;
+  private final int              maxRecordsInPage;
+  private final int              firstPageNumber;
+  private       int              nextPageNumber;
+  private       MutablePage      page;
+  private       int              position;
+  private       int              recordsInPage;
+  private       long             written;
+
+  public BucketPageWriter(final Bucket bucket) {
+    this.bucket = bucket;
+    this.database = bucket.getDatabase();
+    this.pageManager = database.getPageManager();
+    this.maxRecordsInPage = bucket.getMaxRecordsInPage();
+    this.firstPageNumber = bucket.getTotalPages();
+    this.nextPageNumber = firstPageNumber;
+  }
+
+  /**
+   * Appends a record serialized by the database serializer and returns its RID.
+   */
+  public synchronized RID append(final Binary buffer) throws IOException, InterruptedException {
+    // RECORD SIZE CANNOT BE < 5 BYTES, FILL THE DIFFERENCE WITH BLANK (0)
+    while (buffer.size() < Bucket.MINIMUM_RECORD_SIZE)
+      buffer.putByte(buffer.size(), (byte) 0);
+
+    final int bufferSize = buffer.size();
+    final int spaceNeeded = Binary.getNumberSpace(bufferSize) + bufferSize;
+
+    if (page == null || recordsInPage >= maxRecordsInPage)
+      newPage();
+    else {
+      final int spaceAvailable = page.getMaxContentSize() - position;
+      if (spaceNeeded > spaceAvailable && spaceAvailable < Bucket.MINIMUM_SPACE_LEFT_IN_PAGE)
+        // RECORD TOO BIG FOR THIS PAGE, USE A NEW PAGE
+        newPage();
+    }
+
+    final RID rid = new RID(database, bucket.getFileId(), ((long) page.getPageId().getPageNumber()) * maxRecordsInPage + recordsInPage);
+
+    page.writeUnsignedInt(Bucket.PAGE_RECORD_TABLE_OFFSET + recordsInPage * INT_SERIALIZED_SIZE, position);
+    page.writeShort(Bucket.PAGE_RECORD_COUNT_IN_PAGE_OFFSET, (short) ++recordsInPage);
+
+    final int spaceAvailable = page.getMaxContentSize() - position;
+    if (spaceNeeded > spaceAvailable)
+      writeMultiPageRecord(buffer, spaceAvailable);
+    else {
+      position += page.writeNumber(position, bufferSize);
+      page.writeByteArray(position, buffer.getContent(), buffer.getContentBeginOffset(), bufferSize);
+      position += bufferSize;
+    }
+
+    ++written;
+    return rid;
+  }
+
+  public synchronized long getWritten() {
+    return written;
+  }
+
+  public int getFirstPageNumber() {
+    return firstPageNumber;
+  }
+
+  /**
+   * Returns the number of the page after the last page written.
+   */
+  public synchronized int getNextPageNumber() {
+    return nextPageNumber;
+  }
+
+  /**
+   * Writes the last page without making the new pages visible. The pages can be read by scanning the range from {@link #getFirstPageNumber()}.
+   */
+  public synchronized void flush() throws IOException, InterruptedException {
+    if (page != null) {
+      flushPage();
+      page = null;
+    }
+  }
+
+  /**
+   * Removes the new pages from the cache and from the file, so the bucket is as before the writer was created. The pages must not be visible yet.
+   */
+  public synchronized void discard() throws IOException {
+    page = null;
+    for (int i = firstPageNumber; i < nextPageNumber; ++i)
+      pageManager.removePageFromCache(new PageId(bucket.getFileId(), i));
+    bucket.getComponentFile().truncate(firstPageNumber);
+    nextPageNumber = firstPageNumber;
+    written = 0;
+  }
+
+  /**
+   * Writes the last page and makes the new pages visible by updating the page count and the cached record count of the bucket.
+   *
+   * @param sync if true the file is forced on disk before returning
+   */
+  public synchronized void close(final boolean sync) throws IOException, InterruptedException {
+    flush();
+
+    if (nextPageNumber > firstPageNumber) {
+      pageManager.publishNewPages(bucket, firstPageNumber, nextPageNumber);
+      bucket.incrementCachedRecordCount(written);
+    }
+
+    if (sync)
+      bucket.getComponentFile().sync();
+  }
+
+  private void writeMultiPageRecord(final Binary buffer, final int availableSpaceForFirstChunk) throws IOException, InterruptedException {
+    int bufferSize = buffer.size();
+    final byte[] content = buffer.getContent();
+    int contentOffset = buffer.getContentBeginOffset();
+
+    // WRITE THE 1ST CHUNK
+    final int byteWritten = page.writeNumber(position, Bucket.FIRST_CHUNK);
+    position += byteWritten;
+
+    int chunkSize = availableSpaceForFirstChunk - byteWritten - INT_SERIALIZED_SIZE - LONG_SERIALIZED_SIZE;
+    page.writeInt(position, chunkSize);
+    position += INT_SERIALIZED_SIZE;
+
+    int nextChunkPointerOffset = position;
+    position += LONG_SERIALIZED_SIZE;
+
+    page.writeByteArray(position, content, contentOffset, chunkSize);
+    position += chunkSize;
+
+    bufferSize -= chunkSize;
+    contentOffset += chunkSize;
+
+    // WRITE ALL THE REMAINING CHUNKS IN NEW PAGES, ONE AFTER THE OTHER
+    while (bufferSize > 0) {
+      // THE NEXT CHUNK IS THE FIRST RECORD OF THE NEXT PAGE
+      page.writeLong(nextChunkPointerOffset, (long) nextPageNumber * maxRecordsInPage);
+      newPage();
+
+      page.writeUnsignedInt(Bucket.PAGE_RECORD_TABLE_OFFSET, position);
+      page.writeShort(Bucket.PAGE_RECORD_COUNT_IN_PAGE_OFFSET, (short) ++recordsInPage);
+
+      position += page.writeNumber(position, Bucket.NEXT_CHUNK);
+
+      chunkSize = page.getMaxContentSize() - position - INT_SERIALIZED_SIZE - LONG_SERIALIZED_SIZE;
+      final boolean lastChunk = bufferSize < chunkSize;
+      if (lastChunk)
+        chunkSize = bufferSize;
+
+      page.writeInt(position, chunkSize);
+      position += INT_SERIALIZED_SIZE;
+
+      nextChunkPointerOffset = position;
+      if (lastChunk)
+        page.writeLong(nextChunkPointerOffset, 0L);
+      position += LONG_SERIALIZED_SIZE;
+
+      page.writeByteArray(position, content, contentOffset, chunkSize);
+      position += chunkSize;
+
+      bufferSize -= chunkSize;
+      contentOffset += chunkSize;
+    }
+  }
+
+  private void newPage() throws IOException, InterruptedException {
+    if (page != null)
+      flushPage();
+
+    page = new MutablePage(pageManager, new PageId(bucket.getFileId(), nextPageNumber++), bucket.getPageSize());
+    position = bucket.contentHeaderSize;
+    recordsInPage = 0;
+  }
+
+  private void flushPage() throws IOException, InterruptedException {
+    pageManager.overwritePage(pageManager.updatePageVersion(page, true));
+  }
+}
@@ -50,8 +50,21 @@ public class ImmutablePage extends BasePage {
 
   @Override
   public MutablePage modify() {
+    return modify(false);
+  }
+
+  /**
+   * Returns a mutable copy of the page.
+   *
+   * @param keepPreviousContent true to keep a reference to the current content in the mutable page, needed to write the changes in the WAL as
+   *                            difference from the previous version (compressed WAL)
+   */
+  public MutablePage modify(final boolean keepPreviousContent) {
     final byte[] array = this.content.getByteBuffer().array();
     // COPY THE CONTENT, SO CHANGES DOES NOT AFFECT IMMUTABLE COPY
-    return new MutablePage(manager, pageId, size, Arrays.copyOf(array, array.length), version, content.size());
+    final MutablePage page = new MutablePage(manager, pageId, size, Arrays.copyOf(array, array.length), version, content.size());
+    if (keepPreviousContent)
+      page.setPreviousContent(array);
+    return page;
   }
 }
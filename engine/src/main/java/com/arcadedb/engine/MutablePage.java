@@ -36,6 +36,7 @@ public class MutablePage extends BasePage implements TrackableContent {
   private int     modifiedRangeFrom = Integer.MAX_VALUE;
   private int     modifiedRangeTo   = -1;
   private WALFile walFile;
+  private byte[]  previousContent;
 
   public MutablePage(final PageManager manager, final PageId pageId, final int size) {
     this(manager, pageId, size, new byte[size], 0, 0);
@@ -170,6 +171,18 @@ public class MutablePage extends BasePage implements TrackableContent {
       modifiedRangeTo = end;
   }
 
+  /**
+   * Returns the content of the page before the changes, or null if the page is new. Used to encode the changes in the WAL as difference from the previous
+   * version.
+   */
+  public byte[] getPreviousContent() {
+    return previousContent;
+  }
+
+  public void setPreviousContent(final byte[] previousContent) {
+    this.previousContent = previousContent;
+  }
+
   public WALFile getWALFile() {
     return walFile;
   }
@@ -58,6 +58,7 @@ public class PageManager extends LockContext {
   private final AtomicLong                        pagesEvicted                          = new AtomicLong();
   private       long                              lastCheckForRAM                       = 0;
   private final PageManagerFlushThread            flushThread;
+  private final PageVersionStore                  versionStore;
   private final int                               freePageRAM;
 
   public interface ConcurrentPageAccessCallback {
@@ -79,6 +80,10 @@ public class PageManager extends LockContext {
     public long evictionRuns;
     public long pagesEvicted;
     public int  readCachePages;
+    public int  activeSnapshots;
+    public long snapshotPageVersions;
+    public long snapshotPageVersionsRAM;
+    public long snapshotPageVersionsSpilled;
   }
 
   public PageManager(final FileManager fileManager, final TransactionManager txManager, final ContextConfiguration configuration,
@@ -93,6 +98,8 @@ public class PageManager extends LockContext {
     if (maxRAM < 0)
       throw new ConfigurationException(GlobalConfiguration.MAX_PAGE_RAM.getKey() + " configuration is invalid (" + maxRAM + " MB)");
 
+    versionStore = new PageVersionStore(databaseName, configuration.getValueAsLong(GlobalConfiguration.TX_SNAPSHOT_MAX_RAM) * 1024 * 1024);
+
     flushThread = new PageManagerFlushThread(this, configuration, databaseName);
     flushThread.start();
   }
@@ -109,6 +116,7 @@ public class PageManager extends LockContext {
     readCache.clear();
     totalReadCacheRAM.set(0);
     totalWriteCacheRAM.set(0);
+    versionStore.close();
   }
 
   public void suspendFlushAndExecute(final CallableNoReturn callback) throws IOException, InterruptedException {
@@ -141,6 +149,7 @@ public class PageManager extends LockContext {
     readCache.clear();
     totalReadCacheRAM.set(0);
     totalWriteCacheRAM.set(0);
+    versionStore.close();
   }
 
   public void clear() {
@@ -188,6 +197,33 @@ public class PageManager extends LockContext {
     return null;
   }
 
+  /**
+   * Opens a snapshot on the last committed version of the database. Until the snapshot is closed with {@link #closeSnapshot(long)}, the commits retain the
+   * images of the pages they replace.
+   *
+   * @return the commit version pinned by the snapshot
+   */
+  public long openSnapshot() {
+    // NO COMMITS CAN PUBLISH PAGES WHILE THE SNAPSHOT IS OPENED
+    lock();
+    try {
+      return versionStore.openSnapshot();
+    } finally {
+      unlock();
+    }
+  }
+
+  public void closeSnapshot(final long snapshotVersion) {
+    versionStore.closeSnapshot(snapshotVersion);
+  }
+
+  /**
+   * Returns the image of the page visible by the snapshot, or null if the current version of the page is visible.
+   */
+  public ImmutablePage getSnapshotPage(final PageId pageId, final long snapshotVersion) throws IOException {
+    return versionStore.getPage(this, pageId, snapshotVersion);
+  }
+
   public void checkPageVersion(final MutablePage page, final boolean isNew) throws IOException {
     final PageId pageId = page.getPageId();
 
@@ -221,6 +257,11 @@ public class PageManager extends LockContext {
       for (final MutablePage p : modifiedPages.values())
         pagesToWrite.add(updatePageVersion(p, false));
 
+      // RETAIN THE IMAGES ONLY AFTER ALL THE VERSIONS HAVE BEEN CHECKED, SO A CONCURRENT MODIFICATION DOES NOT LEAVE IMAGES OF A COMMIT THAT NEVER HAPPENED
+      final long commitVersion = versionStore.beginCommit();
+      if (versionStore.hasActiveSnapshots())
+        retainPagesForSnapshots(commitVersion, newPages, modifiedPages);
+
       writePages(pagesToWrite, asyncFlush);
 
     } finally {
@@ -228,6 +269,44 @@ public class PageManager extends LockContext {
     }
   }
 
+  /**
+   * Keeps the current images of the pages replaced by the commit, so the active snapshots can still read them. The new pages are retained as not existent.
+   */
+  private void retainPagesForSnapshots(final long commitVersion, final Map<PageId, MutablePage> newPages, final Map<PageId, MutablePage> modifiedPages)
+      throws IOException {
+    if (newPages != null)
+      for (final MutablePage p : newPages.values())
+        versionStore.retain(commitVersion, p.getPageId(), null, p.getPhysicalSize());
+
+    for (final MutablePage p : modifiedPages.values()) {
+      CachedPage current = readCache.get(p.getPageId());
+      if (current == null)
+        current = loadPage(p.getPageId(), p.getPhysicalSize(), false, false);
+      versionStore.retain(commitVersion, p.getPageId(), current != null ? current.useAsImmutable() : null, p.getPhysicalSize());
+    }
+  }
+
+  /**
+   * Publishes the new pages written directly to the file of the component, without the transaction (bulk load), by updating its page count. The
+   * publication counts as a commit: the active snapshots keep seeing the new pages as not existent, like the new pages of a transaction.
+   *
+   * @param fromPage first new page
+   * @param toPage   last new page (excluded), that is the new page count
+   */
+  public void publishNewPages(final PaginatedComponent component, final int fromPage, final int toPage) throws IOException {
+    lock();
+    try {
+      final long commitVersion = versionStore.beginCommit();
+      if (versionStore.hasActiveSnapshots())
+        for (int i = fromPage; i < toPage; ++i)
+          versionStore.retain(commitVersion, new PageId(component.getFileId(), i), null, component.getPageSize());
+
+      component.setPageCount(toPage);
+    } finally {
+      unlock();
+    }
+  }
+
   public MutablePage updatePageVersion(final MutablePage page, final boolean isNew) throws IOException, InterruptedException {
     final PageId pageId = page.getPageId();
 
@@ -275,6 +354,12 @@ public class PageManager extends LockContext {
     stats.concurrentModificationExceptions = totalConcurrentModificationExceptions.get();
     stats.evictionRuns = evictionRuns.get();
     stats.pagesEvicted = pagesEvicted.get();
+
+    final Map<String, Object> snapshotStats = versionStore.getStats();
+    stats.activeSnapshots = (Integer) snapshotStats.get("activeSnapshots");
+    stats.snapshotPageVersions = (Long) snapshotStats.get("pageVersions");
+    stats.snapshotPageVersionsRAM = (Long) snapshotStats.get("pageVersionsRAM");
+    stats.snapshotPageVersionsSpilled = (Long) snapshotStats.get("pageVersionsSpilled");
     return stats;
   }
 
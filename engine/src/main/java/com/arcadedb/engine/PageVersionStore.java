@@ -0,0 +1,228 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.engine;
+
+import com.arcadedb.log.LogManager;
+import com.arcadedb.utility.FileUtils;
+
+import java.io.*;
+import java.util.*;
+import java.util.logging.*;
+
+/**
+ * Keeps the prior images of the pages needed by the transactions running in snapshot isolation. Every commit increments the global commit version. A
+ * snapshot pins the commit version at the time it is opened and reads every page as it was at that version: when a commit replaces a page while snapshots
+ * are active, the previous image is retained together with the commit version that replaced it. The image visible to a snapshot is the one replaced by the
+ * oldest commit after the snapshot, or the current page if the page has not been replaced since.
+ * <p>
+ * The images are kept in RAM up to the configured limit, then they are spilled to a temporary file. When a snapshot is closed, the images not needed by
+ * the remaining snapshots are discarded. Opening a snapshot and retaining the images must be executed while no commit is publishing pages: the
+ * {@link PageManager} calls this class under its lock.
+ */
+public class PageVersionStore {
+  private final String                          databaseName;
+  private final long                            maxRAM;
+  private final TreeMap<Long, Integer>          activeSnapshots = new TreeMap<>();
+  private final Map<PageId, List<PageVersion>> versions        = new HashMap<>();
+  private       long                            commitVersion   = 0;
+  private       long                            totalRAM        = 0;
+  private       long                            totalVersions   = 0;
+  private       RandomAccessFile                spillFile;
+  private       File                            spillFilePath;
+  private       long                            spilledBytes    = 0;
+
+  private static class PageVersion {
+    private final long   replacedAt;
+    private final int    version;
+    private final int    contentSize;
+    private final int    size;
+    private       byte[] content;          // NULL IF THE PAGE DID NOT EXIST OR IF THE CONTENT HAS BEEN SPILLED TO DISK
+    private final boolean existed;
+    private       long   spillPosition = -1;
+
+    private PageVersion(final long replacedAt, final ImmutablePage page, final int size) {
+      this.replacedAt = replacedAt;
+      this.size = size;
+      if (page != null) {
+        this.version = page.version;
+        this.contentSize = page.getContentSize();
+        this.content = page.getContent().array();
+        this.existed = true;
+      } else {
+        this.version = 0;
+        this.contentSize = 0;
+        this.existed = false;
+      }
+    }
+  }
+
+  public PageVersionStore(final String databaseName, final long maxRAM) {
+    this.databaseName = databaseName;
+    this.maxRAM = maxRAM;
+  }
+
+  /**
+   * Pins the current commit version. The caller must close the snapshot with {@link #closeSnapshot(long)}.
+   */
+  public synchronized long openSnapshot() {
+    activeSnapshots.merge(commitVersion, 1, Integer::sum);
+    return commitVersion;
+  }
+
+  public synchronized void closeSnapshot(final long snapshotVersion) {
+    final Integer count = activeSnapshots.get(snapshotVersion);
+    if (count == null)
+      return;
+
+    if (count > 1)
+      activeSnapshots.put(snapshotVersion, count - 1);
+    else
+      activeSnapshots.remove(snapshotVersion);
+
+    if (activeSnapshots.isEmpty())
+      clear();
+    else
+      discardVersionsBefore(activeSnapshots.firstKey());
+  }
+
+  public synchronized boolean hasActiveSnapshots() {
+    return !activeSnapshots.isEmpty();
+  }
+
+  /**
+   * Starts a new commit and returns its version. The images of the pages replaced by the commit must be registered with
+   * {@link #retain(long, PageId, ImmutablePage, int)} before the new pages are published.
+   */
+  public synchronized long beginCommit() {
+    return ++commitVersion;
+  }
+
+  /**
+   * Retains the image of the page replaced by the commit. A null page means the page did not exist before the commit.
+   */
+  public synchronized void retain(final long commit, final PageId pageId, final ImmutablePage page, final int size) throws IOException {
+    final PageVersion v = new PageVersion(commit, page, size);
+    if (v.content != null) {
+      if (totalRAM + v.size > maxRAM)
+        spill(v);
+      else
+        totalRAM += v.size;
+    }
+
+    versions.computeIfAbsent(pageId, k -> new ArrayList<>(2)).add(v);
+    ++totalVersions;
+  }
+
+  /**
+   * Returns the image of the page visible by the snapshot, or null if the current page is visible.
+   */
+  public synchronized ImmutablePage getPage(final PageManager pageManager, final PageId pageId, final long snapshotVersion)
+      throws IOException {
+    final List<PageVersion> list = versions.get(pageId);
+    if (list == null)
+      return null;
+
+    // THE LIST IS ORDERED BY COMMIT VERSION
+    for (final PageVersion v : list) {
+      if (v.replacedAt > snapshotVersion) {
+        if (!v.existed)
+          // THE PAGE HAS BEEN CREATED AFTER THE SNAPSHOT, RETURN AN EMPTY PAGE
+          return new ImmutablePage(pageManager, pageId, v.size, new byte[v.size], 0, 0);
+
+        final byte[] content = v.content != null ? v.content : readSpilled(v);
+        return new ImmutablePage(pageManager, pageId, v.size, content, v.version, v.contentSize);
+      }
+    }
+    return null;
+  }
+
+  public synchronized Map<String, Object> getStats() {
+    final Map<String, Object> map = new HashMap<>();
+    map.put("activeSnapshots", activeSnapshots.values().stream().mapToInt(Integer::intValue).sum());
+    map.put("commitVersion", commitVersion);
+    map.put("pageVersions", totalVersions);
+    map.put("pageVersionsRAM", totalRAM);
+    map.put("pageVersionsSpilled", spilledBytes);
+    return map;
+  }
+
+  public synchronized void close() {
+    activeSnapshots.clear();
+    clear();
+  }
+
+  private void discardVersionsBefore(final long oldestSnapshot) {
+    // AN IMAGE REPLACED AT COMMIT C IS NEEDED ONLY BY THE SNAPSHOTS OPENED BEFORE C
+    for (final Iterator<List<PageVersion>> it = versions.values().iterator(); it.hasNext(); ) {
+      final List<PageVersion> list = it.next();
+      for (final Iterator<PageVersion> vit = list.iterator(); vit.hasNext(); ) {
+        final PageVersion v = vit.next();
+        if (v.replacedAt <= oldestSnapshot) {
+          if (v.content != null)
+            totalRAM -= v.size;
+          --totalVersions;
+          vit.remove();
+        }
+      }
+      if (list.isEmpty())
+        it.remove();
+    }
+  }
+
+  private void clear() {
+    versions.clear();
+    totalRAM = 0;
+    totalVersions = 0;
+
+    if (spillFile != null) {
+      try {
+        spillFile.close();
+      } catch (final IOException e) {
+        // IGNORE IT
+      }
+      FileUtils.deleteFile(spillFilePath);
+      spillFile = null;
+      spillFilePath = null;
+      spilledBytes = 0;
+    }
+  }
+
+  private void spill(final PageVersion v) throws IOException {
+    if (spillFile == null) {
+      spillFilePath = File.createTempFile("arcadedb-" + databaseName + "-snapshot", ".tmp");
+      spillFile = new RandomAccessFile(spillFilePath, "rw");
+      LogManager.instance()
+          .log(this, Level.INFO, "Page versions kept for snapshots exceeded %d bytes of RAM, spilling them to file '%s'", null, maxRAM,
+              spillFilePath);
+    }
+
+    v.spillPosition = spilledBytes;
+    spillFile.seek(v.spillPosition);
+    spillFile.write(v.content, 0, v.size);
+    spilledBytes += v.size;
+    v.content = null;
+  }
+
+  private byte[] readSpilled(final PageVersion v) throws IOException {
+    final byte[] content = new byte[v.size];
+    spillFile.seek(v.spillPosition);
+    spillFile.readFully(content);
+    return content;
+  }
+}
@@ -136,6 +136,20 @@ public class PaginatedComponentFile extends ComponentFile {
 //    return range[1] - range[0] + 1;
   }
 
+  /**
+   * Removes the pages from the page number passed on.
+   */
+  public void truncate(final int fromPage) throws IOException {
+    channel.truncate(pageSize * (long) fromPage);
+  }
+
+  /**
+   * Forces the content and the metadata of the file on disk.
+   */
+  public void sync() throws IOException {
+    channel.force(true);
+  }
+
   public void read(final CachedPage page) throws IOException {
     if (page.getPageId().getPageNumber() < 0)
       throw new IllegalArgumentException("Invalid page number to read: " + page.getPageId().getPageNumber());
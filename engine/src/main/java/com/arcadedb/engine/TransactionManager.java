@@ -18,6 +18,7 @@
  */
 package com.arcadedb.engine;
 
+import com.arcadedb.GlobalConfiguration;
 import com.arcadedb.database.Binary;
 import com.arcadedb.database.DatabaseInternal;
 import com.arcadedb.exception.ConcurrentModificationException;
@@ -35,7 +36,8 @@ import java.util.logging.*;
 import java.util.stream.*;
 
 public class TransactionManager {
-  private static final long MAX_LOG_FILE_SIZE = 64 * 1024 * 1024;
+  private static final long MAX_LOG_FILE_SIZE          = 64 * 1024 * 1024;
+  private static final long RECOVERY_PROGRESS_INTERVAL = 5_000;
 
   private final DatabaseInternal             database;
   private       WALFile[]                    activeWALFilePool;
@@ -46,8 +48,70 @@ public class TransactionManager {
   private final AtomicLong                   transactionIds      = new AtomicLong();
   private final AtomicLong                   logFileCounter      = new AtomicLong();
   private final LockManager<Integer, Thread> fileIdsLockManager  = new LockManager<>();
+  private final LockManager<PageId, Thread>  pageIdsLockManager  = new LockManager<>();
+  private final Map<Integer, SharedLock>     sharedFileLocks     = new ConcurrentHashMap<>();
   private final AtomicLong                   statsPagesWritten   = new AtomicLong();
   private final AtomicLong                   statsBytesWritten   = new AtomicLong();
+  private final AtomicLong                   statsLockWaitNanos  = new AtomicLong();
+  private final AtomicLong                   statsLockTimeouts   = new AtomicLong();
+  private       long                         statsRecoveryTransactions;
+  private       long                         statsRecoveryPagesApplied;
+  private       long                         statsRecoveryPagesSkipped;
+  private       long                         statsRecoveryScanTime;
+  private       long                         statsRecoveryApplyTime;
+
+  /**
+   * Number of transactions committing pages of a file with page-level locks. A file can be locked exclusively only when no transactions hold it in shared
+   * mode.
+   */
+  private static class SharedLock {
+    private int holders = 0;
+
+    private synchronized void acquire() {
+      ++holders;
+    }
+
+    private synchronized void release() {
+      if (--holders <= 0) {
+        holders = 0;
+        notifyAll();
+      }
+    }
+
+    private synchronized boolean awaitNoHolders(final long timeout) throws InterruptedException {
+      final long deadline = System.currentTimeMillis() + timeout;
+      while (holders > 0) {
+        if (timeout <= 0)
+          wait();
+        else {
+          final long remaining = deadline - System.currentTimeMillis();
+          if (remaining <= 0)
+            return false;
+          wait(remaining);
+        }
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Page version found in a WAL file at recovery. The changes are loaded from the WAL file only when applied.
+   */
+  private static class RecoveryPage {
+    private final WALFile         walFile;
+    private final WALFile.WALPage page;
+
+    private RecoveryPage(final WALFile walFile, final WALFile.WALPage page) {
+      this.walFile = walFile;
+      this.page = page;
+    }
+  }
+
+  private static class RecoveryScan {
+    private final List<RecoveryPage> pages        = new ArrayList<>();
+    private       long               lastTxId     = -1;
+    private       long               transactions = 0;
+  }
 
   public TransactionManager(final DatabaseInternal database) {
     this.database = database;
@@ -97,6 +161,7 @@ public class TransactionManager {
     }
 
     fileIdsLockManager.close();
+    pageIdsLockManager.close();
 
     if (activeWALFilePool != null) {
       // MOVE ALL WAL FILES AS INACTIVE
@@ -138,7 +203,7 @@ public class TransactionManager {
   }
 
   public Binary createTransactionBuffer(final long txId, final List<MutablePage> pages) {
-    return WALFile.writeTransactionToBuffer(pages, txId);
+    return WALFile.writeTransactionToBuffer(pages, txId, database.getConfiguration().getValueAsBoolean(GlobalConfiguration.TX_WAL_COMPRESSION));
   }
 
   public void writeTransactionToWAL(final List<MutablePage> pages, final WALFile.FLUSH_TYPE sync, final long txId,
@@ -201,42 +266,90 @@ public class TransactionManager {
       }
 
       if (activeWALFilePool.length > 0) {
-        final WALFile.WALTransaction[] walPositions = new WALFile.WALTransaction[activeWALFilePool.length];
-        for (int i = 0; i < activeWALFilePool.length; ++i) {
-          final WALFile file = activeWALFilePool[i];
-          walPositions[i] = file.getFirstTransaction();
-        }
-
-        long lastTxId = -1;
+        final long beginTime = System.currentTimeMillis();
+        final ExecutorService executor = Executors.newFixedThreadPool(getRecoveryThreads());
+        try {
+          // INDEX THE PAGE VERSIONS CONTAINED IN THE WAL FILES BY FILE AND PAGE NUMBER
+          final List<Future<RecoveryScan>> scans = new ArrayList<>(activeWALFilePool.length);
+          for (final WALFile file : activeWALFilePool)
+            if (file != null)
+              scans.add(executor.submit(() -> scanWALFile(file)));
+
+          final Map<Integer, Map<Integer, List<RecoveryPage>>> pagesByFile = new HashMap<>();
+          long lastTxId = -1;
+          long transactions = 0;
+          long pageVersions = 0;
+          for (final Future<RecoveryScan> scan : scans) {
+            final RecoveryScan result = waitForRecoveryTask(scan);
+            lastTxId = Math.max(lastTxId, result.lastTxId);
+            transactions += result.transactions;
+            pageVersions += result.pages.size();
+            for (final RecoveryPage page : result.pages)
+              pagesByFile.computeIfAbsent(page.page.fileId, k -> new HashMap<>())
+                  .computeIfAbsent(page.page.pageNumber, k -> new ArrayList<>()).add(page);
+          }
 
-        while (true) {
-          int lowerTx = -1;
-          long lowerTxId = -1;
+          statsRecoveryScanTime = System.currentTimeMillis() - beginTime;
+          statsRecoveryTransactions = transactions;
 
-          for (int i = 0; i < walPositions.length; ++i) {
-            final WALFile.WALTransaction walTx = walPositions[i];
-            if (walTx != null) {
-              if (lowerTxId == -1 || walTx.txId < lowerTxId) {
-                lowerTxId = walTx.txId;
-                lowerTx = i;
+          LogManager.instance().log(this, Level.WARNING,
+              "Recovery of database '%s': found %d transactions with %d page versions on %d files (scan time=%dms)", null, database,
+              transactions, pageVersions, pagesByFile.size(), statsRecoveryScanTime);
+
+          // APPLY THE PAGES IN PARALLEL, ONE TASK PER FILE
+          final long beginApplyTime = System.currentTimeMillis();
+          final AtomicLong processed = new AtomicLong();
+          final AtomicLong applied = new AtomicLong();
+          final List<Future<Boolean>> tasks = new ArrayList<>(pagesByFile.size());
+          for (final Map.Entry<Integer, Map<Integer, List<RecoveryPage>>> entry : pagesByFile.entrySet())
+            tasks.add(executor.submit(() -> recoverFile(entry.getKey(), entry.getValue(), processed, applied)));
+
+          final int dictionaryId =
+              database.getSchema().getDictionary() != null ? database.getSchema().getDictionary().file.getFileId() : -1;
+
+          boolean involveDictionary = false;
+          int i = 0;
+          for (final Integer fileId : pagesByFile.keySet()) {
+            final Future<Boolean> task = tasks.get(i++);
+            while (!task.isDone()) {
+              try {
+                task.get(RECOVERY_PROGRESS_INTERVAL, TimeUnit.MILLISECONDS);
+              } catch (final java.util.concurrent.TimeoutException e) {
+                LogManager.instance().log(this, Level.WARNING, "Recovery of database '%s' in progress: %d/%d page versions processed (%d%%)",
+                    null, database, processed.get(), pageVersions, processed.get() * 100 / Math.max(1, pageVersions));
+              } catch (final Exception e) {
+                // REPORTED BELOW
+                break;
               }
             }
+
+            if (waitForRecoveryTask(task) && fileId == dictionaryId)
+              involveDictionary = true;
           }
 
-          if (lowerTxId == -1)
-            // FINISHED
-            break;
+          statsRecoveryApplyTime = System.currentTimeMillis() - beginApplyTime;
+          statsRecoveryPagesApplied = applied.get();
+          statsRecoveryPagesSkipped = pageVersions - applied.get();
+
+          if (involveDictionary) {
+            try {
+              database.getSchema().getDictionary().reload();
+            } catch (final IOException e) {
+              throw new SchemaException("Unable to update dictionary after recovery", e);
+            }
+          }
 
-          lastTxId = lowerTxId;
+          LogManager.instance().log(this, Level.WARNING,
+              "Recovery of database '%s': applied %d page versions, skipped %d already stored (apply time=%dms threads=%d)", null, database,
+              statsRecoveryPagesApplied, statsRecoveryPagesSkipped, statsRecoveryApplyTime, getRecoveryThreads());
 
-          applyChanges(walPositions[lowerTx], Collections.emptyMap(), true);
+          // CONTINUE FROM LAST TXID
+          transactionIds.set(lastTxId + 1);
 
-          walPositions[lowerTx] = activeWALFilePool[lowerTx].getTransaction(walPositions[lowerTx].endPositionInLog);
+        } finally {
+          executor.shutdownNow();
         }
 
-        // CONTINUE FROM LAST TXID
-        transactionIds.set(lastTxId + 1);
-
         // REMOVE ALL WAL FILES
         for (final WALFile file : activeWALFilePool) {
           try {
@@ -268,6 +381,13 @@ public class TransactionManager {
 
     map.put("pagesWritten", statsPagesWritten.get());
     map.put("bytesWritten", statsBytesWritten.get());
+    map.put("lockWaitTime", statsLockWaitNanos.get() / 1_000_000);
+    map.put("lockTimeouts", statsLockTimeouts.get());
+    map.put("recoveryTransactions", statsRecoveryTransactions);
+    map.put("recoveryPagesApplied", statsRecoveryPagesApplied);
+    map.put("recoveryPagesSkipped", statsRecoveryPagesSkipped);
+    map.put("recoveryScanTime", statsRecoveryScanTime);
+    map.put("recoveryApplyTime", statsRecoveryApplyTime);
     return map;
   }
 
@@ -339,8 +459,7 @@ public class TransactionManager {
 
         // IF VERSION IS THE SAME OR MAJOR, OVERWRITE THE PAGE
         final MutablePage modifiedPage = page.modify();
-        txPage.currentContent.rewind();
-        modifiedPage.writeByteArray(txPage.changesFrom - BasePage.PAGE_HEADER_SIZE, txPage.currentContent.getContent());
+        txPage.applyTo(modifiedPage);
         modifiedPage.version = txPage.currentPageVersion;
         modifiedPage.setContentSize(txPage.currentPageSize);
         modifiedPage.updateMetadata();
@@ -396,6 +515,7 @@ public class TransactionManager {
     }
 
     fileIdsLockManager.close();
+    pageIdsLockManager.close();
 
     try {
       taskExecuting.await();
@@ -439,56 +559,293 @@ public class TransactionManager {
    * the new acquired locks are released.
    */
   public List<Integer> tryLockFiles(final Collection<Integer> fileIds, final long timeout) {
+    return tryLockFiles(fileIds, timeout, false);
+  }
+
+  /**
+   * Locks the files in shared mode: multiple transactions can hold the same file in shared mode, but not while the file is locked exclusively. Used by
+   * the transactions that modify only existent pages of a file, in conjunction with {@link #tryLockPages(Collection, long)}.
+   */
+  public List<Integer> tryLockFilesShared(final Collection<Integer> fileIds, final long timeout) {
+    return tryLockFiles(fileIds, timeout, true);
+  }
+
+  public void unlockFilesInOrder(final List<Integer> lockedFileIds) {
+    if (lockedFileIds != null && !lockedFileIds.isEmpty()) {
+      for (final Integer fileId : lockedFileIds)
+        unlockFile(fileId);
+
+      LogManager.instance()
+          .log(this, Level.FINE, "Unlocked files %s (threadId=%d)", null, lockedFileIds, Thread.currentThread().getId());
+    }
+  }
+
+  public void unlockFilesSharedInOrder(final List<Integer> lockedFileIds) {
+    if (lockedFileIds != null && !lockedFileIds.isEmpty()) {
+      for (final Integer fileId : lockedFileIds)
+        unlockFileShared(fileId);
+
+      LogManager.instance()
+          .log(this, Level.FINE, "Unlocked shared files %s (threadId=%d)", null, lockedFileIds, Thread.currentThread().getId());
+    }
+  }
+
+  /**
+   * Locks the pages in order (to avoid deadlocks). Returns the locked pages only. In case the current thread already locked a page, the lock is not
+   * returned.
+   */
+  public List<PageId> tryLockPages(final Collection<PageId> pageIds, final long timeout) {
+    final List<PageId> orderedPageIds = new ArrayList<>(pageIds);
+    Collections.sort(orderedPageIds);
+
+    final List<PageId> lockedPages = new ArrayList<>(orderedPageIds.size());
+
+    final long beginTime = System.nanoTime();
+    try {
+      for (final PageId pageId : orderedPageIds) {
+        final LockManager.LOCK_STATUS lock = pageIdsLockManager.tryLock(pageId, Thread.currentThread(), timeout);
+
+        if (lock == LockManager.LOCK_STATUS.YES)
+          lockedPages.add(pageId);
+        else if (lock == LockManager.LOCK_STATUS.NO) {
+          // ERROR: UNLOCK LOCKED PAGES
+          unlockPages(lockedPages);
+          statsLockTimeouts.incrementAndGet();
+          throw new TimeoutException("Timeout on locking page " + pageId + " during commit");
+        }
+      }
+    } finally {
+      statsLockWaitNanos.addAndGet(System.nanoTime() - beginTime);
+    }
+
+    return lockedPages;
+  }
+
+  public void unlockPages(final List<PageId> lockedPageIds) {
+    if (lockedPageIds != null)
+      for (final PageId pageId : lockedPageIds)
+        pageIdsLockManager.unlock(pageId, Thread.currentThread());
+  }
+
+  /**
+   * Locks the file exclusively. If the file is held in shared mode by other transactions, waits for them to finish.
+   */
+  public LockManager.LOCK_STATUS tryLockFile(final Integer fileId, final long timeout) {
+    final LockManager.LOCK_STATUS lock = fileIdsLockManager.tryLock(fileId, Thread.currentThread(), timeout);
+    if (lock != LockManager.LOCK_STATUS.YES)
+      return lock;
+
+    // NO NEW SHARED LOCKS CAN BE ACQUIRED FROM NOW: WAIT FOR THE CURRENT HOLDERS
+    final SharedLock shared = sharedFileLocks.get(fileId);
+    if (shared != null)
+      try {
+        if (!shared.awaitNoHolders(timeout)) {
+          unlockFile(fileId);
+          return LockManager.LOCK_STATUS.NO;
+        }
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        unlockFile(fileId);
+        return LockManager.LOCK_STATUS.NO;
+      }
+
+    return lock;
+  }
+
+  public void unlockFile(final Integer fileId) {
+    fileIdsLockManager.unlock(fileId, Thread.currentThread());
+  }
+
+  private LockManager.LOCK_STATUS tryLockFileShared(final Integer fileId, final long timeout) {
+    // PASS THROUGH THE EXCLUSIVE LOCK TO WAIT FOR ANY EXCLUSIVE OWNER
+    final LockManager.LOCK_STATUS lock = fileIdsLockManager.tryLock(fileId, Thread.currentThread(), timeout);
+    if (lock == LockManager.LOCK_STATUS.NO)
+      return lock;
+
+    sharedFileLocks.computeIfAbsent(fileId, k -> new SharedLock()).acquire();
+
+    if (lock == LockManager.LOCK_STATUS.YES)
+      unlockFile(fileId);
+
+    // THE SHARED LOCK MUST BE ALWAYS RELEASED, ALSO IF THE CURRENT THREAD ALREADY OWNS THE FILE EXCLUSIVELY
+    return LockManager.LOCK_STATUS.YES;
+  }
+
+  private void unlockFileShared(final Integer fileId) {
+    final SharedLock shared = sharedFileLocks.get(fileId);
+    if (shared != null)
+      shared.release();
+  }
+
+  private List<Integer> tryLockFiles(final Collection<Integer> fileIds, final long timeout, final boolean shared) {
     // ORDER THE FILES TO AVOID DEADLOCK
     final List<Integer> orderedFilesIds = new ArrayList<>(fileIds);
     Collections.sort(orderedFilesIds);
 
     final List<Integer> lockedFiles = new ArrayList<>(orderedFilesIds.size());
 
-    Integer attemptFileId;
-    for (final Integer fileId : orderedFilesIds) {
-      attemptFileId = fileId;
-
-      final LockManager.LOCK_STATUS lock = tryLockFile(fileId, timeout);
+    final long beginTime = System.nanoTime();
+    try {
+      Integer attemptFileId;
+      for (final Integer fileId : orderedFilesIds) {
+        attemptFileId = fileId;
+
+        final LockManager.LOCK_STATUS lock = shared ? tryLockFileShared(fileId, timeout) : tryLockFile(fileId, timeout);
+
+        if (lock == LockManager.LOCK_STATUS.YES)
+          lockedFiles.add(fileId);
+        else if (lock == LockManager.LOCK_STATUS.NO) {
+          // ERROR: UNLOCK LOCKED FILES
+          if (shared)
+            unlockFilesSharedInOrder(lockedFiles);
+          else
+            unlockFilesInOrder(lockedFiles);
 
-      if (lock == LockManager.LOCK_STATUS.YES)
-        lockedFiles.add(fileId);
-      else if (lock == LockManager.LOCK_STATUS.NO) {
-        // ERROR: UNLOCK LOCKED FILES
-        unlockFilesInOrder(lockedFiles);
+          statsLockTimeouts.incrementAndGet();
 
-        if (attemptFileId != null)
-          throw new TimeoutException(
-              "Timeout on locking file " + attemptFileId + " (" + database.getFileManager().getFile(attemptFileId).getFileName()
-                  + ") during commit (fileIds=" + orderedFilesIds + ")");
+          if (attemptFileId != null)
+            throw new TimeoutException(
+                "Timeout on locking file " + attemptFileId + " (" + database.getFileManager().getFile(attemptFileId).getFileName()
+                    + ") during commit (fileIds=" + orderedFilesIds + ")");
 
-        throw new TimeoutException("Timeout on locking files during commit (fileIds=" + orderedFilesIds + ")");
+          throw new TimeoutException("Timeout on locking files during commit (fileIds=" + orderedFilesIds + ")");
+        }
       }
+    } finally {
+      statsLockWaitNanos.addAndGet(System.nanoTime() - beginTime);
     }
 
     // OK: ALL LOCKED
     LogManager.instance()
-        .log(this, Level.FINE, "Locked files %s (threadId=%d)", null, orderedFilesIds, Thread.currentThread().getId());
+        .log(this, Level.FINE, "Locked %sfiles %s (threadId=%d)", null, shared ? "shared " : "", orderedFilesIds, Thread.currentThread().getId());
     // RETURN ONLY THE LOCKED FILES
     return lockedFiles;
   }
 
-  public void unlockFilesInOrder(final List<Integer> lockedFileIds) {
-    if (lockedFileIds != null && !lockedFileIds.isEmpty()) {
-      for (final Integer fileId : lockedFileIds)
-        unlockFile(fileId);
+  /**
+   * Reads the headers of all the transactions in the WAL file, without loading the page changes.
+   */
+  private RecoveryScan scanWALFile(final WALFile file) {
+    final RecoveryScan result = new RecoveryScan();
 
-      LogManager.instance()
-          .log(this, Level.FINE, "Unlocked files %s (threadId=%d)", null, lockedFileIds, Thread.currentThread().getId());
+    WALFile.WALTransaction tx = file.getTransaction(0, false);
+    while (tx != null) {
+      result.lastTxId = Math.max(result.lastTxId, tx.txId);
+      ++result.transactions;
+      for (final WALFile.WALPage page : tx.pages)
+        result.pages.add(new RecoveryPage(file, page));
+
+      tx = file.getTransaction(tx.endPositionInLog, false);
     }
+    return result;
   }
 
-  public LockManager.LOCK_STATUS tryLockFile(final Integer fileId, final long timeout) {
-    return fileIdsLockManager.tryLock(fileId, Thread.currentThread(), timeout);
+  /**
+   * Restores the pages of a file from the versions found in the WAL files. The versions of each page are applied in order on the same page in RAM, skipping
+   * the versions already stored in the database, so every page is written only once. Only one thread works on a file.
+   *
+   * @return true if at least one page has been updated
+   */
+  private boolean recoverFile(final int fileId, final Map<Integer, List<RecoveryPage>> pages, final AtomicLong processed,
+      final AtomicLong applied) {
+    if (!database.getFileManager().existsFile(fileId)) {
+      LogManager.instance().log(this, Level.WARNING, "Error on restoring transaction: received operation on deleted file %d", null, fileId);
+      for (final List<RecoveryPage> versions : pages.values())
+        processed.addAndGet(versions.size());
+      return false;
+    }
+
+    final PaginatedComponentFile file = (PaginatedComponentFile) database.getFileManager().getFile(fileId);
+
+    boolean changed = false;
+    for (final Map.Entry<Integer, List<RecoveryPage>> entry : pages.entrySet()) {
+      final PageId pageId = new PageId(fileId, entry.getKey());
+      final List<RecoveryPage> versions = entry.getValue();
+      versions.sort(Comparator.comparingInt(v -> v.page.currentPageVersion));
+
+      try {
+        final ImmutablePage page = database.getPageManager().getImmutablePage(pageId, file.getPageSize(), false, true);
+
+        MutablePage modifiedPage = null;
+        long currentVersion = page.getVersion();
+        for (final RecoveryPage version : versions) {
+          processed.incrementAndGet();
+
+          final WALFile.WALPage txPage = version.page;
+          if (txPage.currentPageVersion <= currentVersion)
+            // ALREADY IN THE DATABASE, SKIP IT
+            continue;
+
+          if (txPage.currentPageVersion > currentVersion + 1) {
+            LogManager.instance().log(this, Level.WARNING,
+                "Cannot apply changes to the database because modified page %s version in WAL (%d) does not match with existent version (%d)",
+                null, pageId, txPage.currentPageVersion, currentVersion);
+            continue;
+          }
+
+          if (modifiedPage == null)
+            modifiedPage = page.modify();
+
+          version.walFile.loadPageContent(txPage);
+          txPage.applyTo(modifiedPage);
+          modifiedPage.version = txPage.currentPageVersion;
+          modifiedPage.setContentSize(txPage.currentPageSize);
+          txPage.currentContent = null;
+
+          currentVersion = txPage.currentPageVersion;
+          applied.incrementAndGet();
+        }
+
+        if (modifiedPage != null) {
+          modifiedPage.updateMetadata();
+          file.write(modifiedPage);
+          database.getPageManager().removePageFromCache(pageId);
+          changed = true;
+
+          LogManager.instance().log(this, Level.FINE, "  - recovered page %s v%d", null, pageId, modifiedPage.version);
+        }
+
+      } catch (final ClosedByInterruptException e) {
+        Thread.currentThread().interrupt();
+        throw new WALException("Cannot apply changes to page " + pageId, e);
+      } catch (final IOException e) {
+        LogManager.instance().log(this, Level.SEVERE, "Error on applying changes to page %s", e, pageId);
+        throw new WALException("Cannot apply changes to page " + pageId, e);
+      }
+    }
+
+    if (changed) {
+      final PaginatedComponent component = (PaginatedComponent) database.getSchema().getFileById(fileId);
+      if (component != null) {
+        try {
+          final int newPageCount = (int) (file.getSize() / file.getPageSize());
+          if (newPageCount > component.pageCount.get())
+            component.setPageCount(newPageCount);
+        } catch (final IOException e) {
+          throw new WALException("Cannot update the page count of file " + fileId, e);
+        }
+      }
+    }
+
+    return changed;
   }
 
-  public void unlockFile(final Integer fileId) {
-    fileIdsLockManager.unlock(fileId, Thread.currentThread());
+  private <T> T waitForRecoveryTask(final Future<T> task) {
+    try {
+      return task.get();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new WALException("Recovery of database '" + database.getName() + "' has been interrupted", e);
+    } catch (final ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException)
+        throw (RuntimeException) e.getCause();
+      throw new WALException("Error on recovery of database '" + database.getName() + "'", e);
+    }
+  }
+
+  private int getRecoveryThreads() {
+    final int threads = database.getConfiguration().getValueAsInteger(GlobalConfiguration.TX_WAL_RECOVERY_THREADS);
+    return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
   }
 
   private void createWALFilePool() {
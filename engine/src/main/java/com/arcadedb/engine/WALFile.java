@@ -18,6 +18,7 @@
  */
 package com.arcadedb.engine;
 
+import com.arcadedb.compression.CompressionFactory;
 import com.arcadedb.database.Binary;
 import com.arcadedb.database.DatabaseInternal;
 import com.arcadedb.exception.ConfigurationException;
@@ -49,8 +50,24 @@ public class WALFile extends LockContext {
       Binary.INT_SERIALIZED_SIZE + Binary.INT_SERIALIZED_SIZE + Binary.INT_SERIALIZED_SIZE + Binary.INT_SERIALIZED_SIZE + Binary.INT_SERIALIZED_SIZE
           + Binary.INT_SERIALIZED_SIZE;
 
+  // ENCODING (byte) + STORED_SIZE (int), FOLLOWING THE PAGE HEADER IN THE COMPRESSED FORMAT
+  private static final int COMPRESSED_PAGE_HEADER_SIZE = PAGE_HEADER_SIZE + Binary.BYTE_SERIALIZED_SIZE + Binary.INT_SERIALIZED_SIZE;
+
   public static final long MAGIC_NUMBER = 9371515385058702L;
 
+  /**
+   * Changes stored verbatim.
+   */
+  public static final byte PAGE_ENCODING_RAW     = 0;
+  /**
+   * Changes compressed with LZ4.
+   */
+  public static final byte PAGE_ENCODING_LZ4     = 1;
+  /**
+   * Changes XORed with the previous version of the page and then compressed with LZ4. The unchanged bytes become zeros that compress very well.
+   */
+  public static final byte PAGE_ENCODING_XOR_LZ4 = 2;
+
   private final    RandomAccessFile file;
   private final    String           filePath;
   private final    FileChannel      channel;
@@ -62,6 +79,7 @@ public class WALFile extends LockContext {
   // STATIC BUFFERS USED FOR RECOVERY
   private final    ByteBuffer       bufferLong        = ByteBuffer.allocate(Binary.LONG_SERIALIZED_SIZE);
   private final    ByteBuffer       bufferInt         = ByteBuffer.allocate(Binary.INT_SERIALIZED_SIZE);
+  private final    ByteBuffer       bufferByte        = ByteBuffer.allocate(Binary.BYTE_SERIALIZED_SIZE);
 
   public static class WALTransaction {
     public long      txId;
@@ -79,6 +97,34 @@ public class WALFile extends LockContext {
     public Binary currentContent;
     public int    currentPageVersion;
     public int    currentPageSize;
+    public long   contentPositionInLog;
+    public byte   encoding = PAGE_ENCODING_RAW;
+    public int    storedSize;
+
+    /**
+     * Writes the changes to the page. If the changes are XOR encoded, they are combined with the current content of the page, that must be the previous
+     * version.
+     */
+    public void applyTo(final MutablePage page) {
+      currentContent.rewind();
+      final byte[] changes = currentContent.getContent();
+
+      if (encoding == PAGE_ENCODING_XOR_LZ4) {
+        final ByteBuffer previous = page.getContent();
+        for (int i = 0; i < changes.length; ++i)
+          changes[i] ^= previous.get(changesFrom + i);
+        encoding = PAGE_ENCODING_RAW;
+      }
+
+      page.writeByteArray(changesFrom - BasePage.PAGE_HEADER_SIZE, changes);
+    }
+
+    private void decompress(final Binary stored) {
+      if (encoding == PAGE_ENCODING_RAW)
+        currentContent = stored;
+      else
+        currentContent = CompressionFactory.getDefault().decompress(stored, changesTo - changesFrom + 1);
+    }
 
     @Override
     public String toString() {
@@ -143,7 +189,17 @@ public class WALFile extends LockContext {
     this.active = active;
   }
 
-  public WALTransaction getTransaction(long pos) {
+  public WALTransaction getTransaction(final long pos) {
+    return getTransaction(pos, true);
+  }
+
+  /**
+   * Reads the transaction starting at the position in the log. If loadContent is false, only the headers of the pages are read and the changes must be loaded
+   * later with {@link #loadPageContent(WALPage)}. This is used by the recovery to index the pages without keeping all the changes in RAM.
+   *
+   * @return the transaction or null if the log is truncated or invalid at the position
+   */
+  public WALTransaction getTransaction(long pos, final boolean loadContent) {
     final WALTransaction tx = new WALTransaction();
 
     tx.startPositionInLog = pos;
@@ -159,9 +215,14 @@ public class WALFile extends LockContext {
       tx.timestamp = readLong(pos);
       pos += Binary.LONG_SERIALIZED_SIZE;
 
-      final int pages = readInt(pos);
+      // THE COMPRESSED FORMAT STORES THE NUMBER OF PAGES AS NEGATIVE
+      int pages = readInt(pos);
       pos += Binary.INT_SERIALIZED_SIZE;
 
+      final boolean compressed = pages < 0;
+      if (compressed)
+        pages = -pages;
+
       final int segmentSize = readInt(pos);
       pos += Binary.INT_SERIALIZED_SIZE;
 
@@ -198,12 +259,20 @@ public class WALFile extends LockContext {
         tx.pages[i].currentPageSize = readInt(pos);
         pos += Binary.INT_SERIALIZED_SIZE;
 
-        final ByteBuffer buffer = ByteBuffer.allocate(deltaSize);
+        if (compressed) {
+          tx.pages[i].encoding = readByte(pos);
+          pos += Binary.BYTE_SERIALIZED_SIZE;
 
-        tx.pages[i].currentContent = new Binary(buffer);
-        channel.read(buffer, pos);
+          tx.pages[i].storedSize = readInt(pos);
+          pos += Binary.INT_SERIALIZED_SIZE;
+        } else
+          tx.pages[i].storedSize = deltaSize;
 
-        pos += deltaSize;
+        tx.pages[i].contentPositionInLog = pos;
+        if (loadContent)
+          loadPageContent(tx.pages[i]);
+
+        pos += tx.pages[i].storedSize;
       }
 
       final long mn = readLong(pos + Binary.INT_SERIALIZED_SIZE);
@@ -219,7 +288,118 @@ public class WALFile extends LockContext {
     }
   }
 
+  /**
+   * Loads the changes of a page read with only the headers. It can be called concurrently by multiple threads.
+   */
+  public void loadPageContent(final WALPage page) throws IOException {
+    final ByteBuffer buffer = ByteBuffer.allocate(page.storedSize);
+    channel.read(buffer, page.contentPositionInLog);
+    page.decompress(new Binary(buffer.array()));
+  }
+
+  /**
+   * Parses a transaction written by {@link #writeTransactionToBuffer(List, long, boolean)}, in both the plain and the compressed format. This is used by
+   * the replicas that receive the buffer from the leader.
+   *
+   * @return the transaction or null if the buffer is truncated or invalid
+   */
+  public static WALTransaction readTransactionFromBuffer(final Binary buffer) {
+    final WALTransaction tx = new WALTransaction();
+
+    int pos = 0;
+    tx.txId = buffer.getLong(pos);
+    pos += Binary.LONG_SERIALIZED_SIZE;
+
+    tx.timestamp = buffer.getLong(pos);
+    pos += Binary.LONG_SERIALIZED_SIZE;
+
+    int pages = buffer.getInt(pos);
+    pos += Binary.INT_SERIALIZED_SIZE;
+
+    final boolean compressed = pages < 0;
+    if (compressed)
+      pages = -pages;
+
+    final int segmentSize = buffer.getInt(pos);
+    pos += Binary.INT_SERIALIZED_SIZE;
+
+    if (pos + segmentSize + Binary.LONG_SERIALIZED_SIZE > buffer.size())
+      // TRUNCATED BUFFER
+      return null;
+
+    tx.pages = new WALPage[pages];
+
+    for (int i = 0; i < pages; ++i) {
+      if (pos > buffer.size())
+        // INVALID
+        return null;
+
+      final WALPage page = new WALPage();
+      tx.pages[i] = page;
+
+      page.fileId = buffer.getInt(pos);
+      pos += Binary.INT_SERIALIZED_SIZE;
+
+      page.pageNumber = buffer.getInt(pos);
+      pos += Binary.INT_SERIALIZED_SIZE;
+
+      page.changesFrom = buffer.getInt(pos);
+      pos += Binary.INT_SERIALIZED_SIZE;
+
+      page.changesTo = buffer.getInt(pos);
+      pos += Binary.INT_SERIALIZED_SIZE;
+
+      page.currentPageVersion = buffer.getInt(pos);
+      pos += Binary.INT_SERIALIZED_SIZE;
+
+      page.currentPageSize = buffer.getInt(pos);
+      pos += Binary.INT_SERIALIZED_SIZE;
+
+      if (compressed) {
+        page.encoding = buffer.getByte(pos);
+        pos += Binary.BYTE_SERIALIZED_SIZE;
+
+        page.storedSize = buffer.getInt(pos);
+        pos += Binary.INT_SERIALIZED_SIZE;
+      } else
+        page.storedSize = page.changesTo - page.changesFrom + 1;
+
+      final byte[] stored = new byte[page.storedSize];
+      buffer.getByteArray(pos, stored, 0, page.storedSize);
+      page.decompress(new Binary(stored));
+
+      pos += page.storedSize;
+    }
+
+    if (buffer.getLong(pos + Binary.INT_SERIALIZED_SIZE) != MAGIC_NUMBER)
+      // INVALID
+      return null;
+
+    tx.endPositionInLog = pos + Binary.INT_SERIALIZED_SIZE + Binary.LONG_SERIALIZED_SIZE;
+
+    return tx;
+  }
+
+  /**
+   * Returns true if the buffer contains a transaction written with the compressed format, so it does not need to be compressed again to be sent to the
+   * replicas.
+   */
+  public static boolean isCompressedTransactionBuffer(final Binary buffer) {
+    return buffer.size() >= TX_HEADER_SIZE && buffer.getInt(Binary.LONG_SERIALIZED_SIZE + Binary.LONG_SERIALIZED_SIZE) < 0;
+  }
+
   public static Binary writeTransactionToBuffer(final List<MutablePage> pages, final long txId) {
+    return writeTransactionToBuffer(pages, txId, false);
+  }
+
+  /**
+   * Serializes the changes of the transaction. With compression, the modified range of each page is XORed with the previous version of the page (when
+   * available) and compressed with LZ4. The changes are stored verbatim when the compression does not save space.
+   */
+  public static Binary writeTransactionToBuffer(final List<MutablePage> pages, final long txId, final boolean compress) {
+    if (compress)
+      return writeCompressedTransactionToBuffer(pages, txId);
+
     // COMPUTE TOTAL TXLOG SEGMENT SIZE
     int segmentSize = 0;
     for (final MutablePage newPage : pages) {
@@ -253,9 +433,10 @@ public class WALFile extends LockContext {
 
       final int deltaSize = deltaRange[1] - deltaRange[0] + 1;
 
-      LogManager.instance()
-          .log(WALFile.class, Level.FINE, "Writing page %s v%d range %d-%d into buffer (txId=%d threadId=%d)", null, newPage.getPageId(), newPage.version + 1,
-              deltaRange[0], deltaRange[1], txId, Thread.currentThread().getId());
+      if (LogManager.instance().isLoggable(WALFile.class, Level.FINE))
+        LogManager.instance()
+            .log(WALFile.class, Level.FINE, "Writing page %s v%d range %d-%d into buffer (txId=%d threadId=%d)", null, newPage.getPageId(), newPage.version + 1,
+                deltaRange[0], deltaRange[1], txId, Thread.currentThread().getId());
 
       bufferChanges.putInt(newPage.getPageId().getFileId());
       bufferChanges.putInt(newPage.getPageId().getPageNumber());
@@ -280,11 +461,90 @@ public class WALFile extends LockContext {
     return bufferChanges;
   }
 
+  private static Binary writeCompressedTransactionToBuffer(final List<MutablePage> pages, final long txId) {
+    final byte[] encodings = new byte[pages.size()];
+    final Binary[] changes = new Binary[pages.size()];
+
+    int segmentSize = 0;
+    for (int i = 0; i < pages.size(); ++i) {
+      final MutablePage newPage = pages.get(i);
+      final int[] deltaRange = newPage.getModifiedRange();
+
+      assert deltaRange[0] > -1 && deltaRange[1] < newPage.getPhysicalSize();
+
+      final int deltaSize = deltaRange[1] - deltaRange[0] + 1;
+
+      final byte[] delta = new byte[deltaSize];
+      final ByteBuffer newPageBuffer = newPage.getContent();
+      newPageBuffer.position(deltaRange[0]);
+      newPageBuffer.get(delta, 0, deltaSize);
+
+      // THE PAGE HEADER IS NOT XORED BECAUSE IT IS UPDATED ONLY WHEN THE PAGE IS WRITTEN
+      final byte[] previous = newPage.getPreviousContent();
+      final boolean xor = previous != null && deltaRange[0] >= BasePage.PAGE_HEADER_SIZE;
+      if (xor)
+        for (int b = 0; b < deltaSize; ++b)
+          delta[b] ^= previous[deltaRange[0] + b];
+
+      final Binary compressed = CompressionFactory.getDefault().compress(new Binary(delta));
+      if (compressed.size() < deltaSize) {
+        encodings[i] = xor ? PAGE_ENCODING_XOR_LZ4 : PAGE_ENCODING_LZ4;
+        changes[i] = compressed;
+      } else {
+        if (xor) {
+          // RESTORE THE ORIGINAL CHANGES
+          newPageBuffer.position(deltaRange[0]);
+          newPageBuffer.get(delta, 0, deltaSize);
+        }
+        encodings[i] = PAGE_ENCODING_RAW;
+        changes[i] = new Binary(delta);
+      }
+
+      final long totalSizeCheck = 0L + TX_HEADER_SIZE + TX_FOOTER_SIZE + segmentSize + COMPRESSED_PAGE_HEADER_SIZE + changes[i].size();
+      if (totalSizeCheck > Integer.MAX_VALUE)
+        throw new TransactionException("Transaction buffer bigger than " + FileUtils.getSizeAsString(Integer.MAX_VALUE)
+            + ". Split the big transaction in smaller transactions. This transaction will be roll backed");
+
+      segmentSize += COMPRESSED_PAGE_HEADER_SIZE + changes[i].size();
+    }
+
+    final Binary bufferChanges = new Binary(TX_HEADER_SIZE + TX_FOOTER_SIZE + segmentSize);
+    bufferChanges.setAutoResizable(false);
+
+    // WRITE TX HEADER (TXID, TIMESTAMP, -PAGES, SEGMENT-SIZE)
+    bufferChanges.putLong(txId);
+    bufferChanges.putLong(System.currentTimeMillis());
+    bufferChanges.putInt(-pages.size());
+    bufferChanges.putInt(segmentSize);
+
+    for (int i = 0; i < pages.size(); ++i) {
+      final MutablePage newPage = pages.get(i);
+      final int[] deltaRange = newPage.getModifiedRange();
+
+      bufferChanges.putInt(newPage.getPageId().getFileId());
+      bufferChanges.putInt(newPage.getPageId().getPageNumber());
+      bufferChanges.putInt(deltaRange[0]);
+      bufferChanges.putInt(deltaRange[1]);
+      bufferChanges.putInt(newPage.version + 1);
+      bufferChanges.putInt(newPage.getContentSize());
+      bufferChanges.putByte(encodings[i]);
+      bufferChanges.putInt(changes[i].size());
+      bufferChanges.putByteArray(changes[i].getContent(), changes[i].size());
+    }
+
+    // WRITE TX FOOTER (MAGIC NUMBER)
+    bufferChanges.putInt(segmentSize);
+    bufferChanges.putLong(MAGIC_NUMBER);
+
+    return bufferChanges;
+  }
+
   public void writeTransactionToFile(final DatabaseInternal database, final List<MutablePage> pages, final FLUSH_TYPE sync, final WALFile file, final long txId,
       final Binary buffer) throws IOException {
 
-    LogManager.instance()
-        .log(this, Level.FINE, "Appending WAL for txId=%d (size=%d file=%s threadId=%d)", null, txId, buffer.size(), filePath, Thread.currentThread().getId());
+    if (LogManager.instance().isLoggable(this, Level.FINE))
+      LogManager.instance()
+          .log(this, Level.FINE, "Appending WAL for txId=%d (size=%d file=%s threadId=%d)", null, txId, buffer.size(), filePath, Thread.currentThread().getId());
 
     file.append(buffer.getByteBuffer());
 
@@ -346,6 +606,12 @@ public class WALFile extends LockContext {
     return bufferLong.getLong(0);
   }
 
+  private byte readByte(final long pos) throws IOException {
+    bufferByte.rewind();
+    channel.read(bufferByte, pos);
+    return bufferByte.get(0);
+  }
+
   private int readInt(final long pos) throws IOException {
     bufferInt.rewind();
     channel.read(bufferInt, pos);
@@ -0,0 +1,342 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.graph;
+
+import com.arcadedb.database.DatabaseContext;
+import com.arcadedb.database.DatabaseInternal;
+import com.arcadedb.database.RID;
+import com.arcadedb.exception.CommandExecutionException;
+import com.arcadedb.exception.RecordNotFoundException;
+import com.arcadedb.security.SecurityDatabaseUser;
+import com.arcadedb.utility.LongLongHashMap;
+import com.arcadedb.utility.Pair;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Finds the shortest path (minimum number of hops) between two vertices with a breadth-first search that starts from both ends and stops when the two
+ * searches meet. The traversal works on RIDs only: the visited vertices and their predecessors are kept in primitive long maps, the connected vertices
+ * are read from the edge segments without loading the edge and vertex records. Only the vertices in the frontier are loaded, to find the head of their
+ * edge lists.
+ * <p>
+ * When a frontier has at least {@link #PARALLEL_THRESHOLD} vertices, it is split in chunks expanded in parallel by a fork-join pool shared by all the
+ * searches, with one thread per core. The expansion runs in parallel only if the current transaction has no changes, because the other threads cannot
+ * see them.
+ */
+public class BidirectionalPathFinder {
+  public static final  int  PARALLEL_THRESHOLD = 256;
+  private static final int  CHUNK_SIZE         = 64;
+  private static final long NOT_FOUND          = Long.MIN_VALUE;
+  private static final long ROOT               = -1L;
+
+  private final DatabaseInternal database;
+  private final Vertex.DIRECTION direction;
+  private final String[]         edgeTypes;
+  private final boolean          includeEdges;
+  private final int              maxDepth;
+  private       boolean          parallel = true;
+
+  /**
+   * The pool is created on the first parallel expansion.
+   */
+  private static class PoolHolder {
+    private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), pool -> {
+      final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+      thread.setName("ArcadeDB-ShortestPath-" + thread.getPoolIndex());
+      return thread;
+    }, null, false);
+  }
+
+  private class Side {
+    private final Vertex.DIRECTION direction;
+    private final LongLongHashMap  predecessors = new LongLongHashMap();
+    private final LongLongHashMap  edges;
+    private       long[]           frontier;
+
+    private Side(final Vertex.DIRECTION direction, final RID start) {
+      this.direction = direction;
+      this.edges = includeEdges ? new LongLongHashMap() : null;
+      final long encoded = encode(start);
+      predecessors.put(encoded, ROOT);
+      frontier = new long[] { encoded };
+    }
+  }
+
+  /**
+   * @param database     Database
+   * @param direction    Direction to follow from the source vertex. The search from the destination follows the opposite direction
+   * @param edgeTypes    Edge types to follow. Null or empty means any type
+   * @param includeEdges If true the returned path contains also the edges between the vertices
+   * @param maxDepth     Maximum number of vertices in the path, or -1 for no limit
+   */
+  public BidirectionalPathFinder(final DatabaseInternal database, final Vertex.DIRECTION direction, final String[] edgeTypes,
+      final boolean includeEdges, final int maxDepth) {
+    this.database = database;
+    this.direction = direction;
+    this.edgeTypes = edgeTypes;
+    this.includeEdges = includeEdges;
+    this.maxDepth = maxDepth;
+  }
+
+  public BidirectionalPathFinder setParallel(final boolean parallel) {
+    this.parallel = parallel;
+    return this;
+  }
+
+  /**
+   * Returns the RIDs of the vertices (and the edges if requested) in the shortest path from the source to the destination, or an empty list if there is
+   * no path.
+   */
+  public List<RID> find(final RID source, final RID destination) {
+    if (source.equals(destination))
+      return new ArrayList<>(List.of(source));
+
+    final Side left = new Side(direction, source);
+    final Side right = new Side(opposite(direction), destination);
+
+    final boolean runInParallel = parallel && (!database.isTransactionActive() || database.getTransaction().getModifiedPages() == 0);
+
+    int walks = 0;
+    while (maxDepth < 0 || walks < maxDepth - 1) {
+      if (left.frontier.length == 0 || right.frontier.length == 0)
+        break;
+
+      if (Thread.currentThread().isInterrupted())
+        throw new CommandExecutionException("The shortestPath() function has been interrupted");
+
+      // EXPAND THE SMALLEST FRONTIER
+      final boolean fromLeft = left.frontier.length <= right.frontier.length;
+      final Side side = fromLeft ? left : right;
+      final Side other = fromLeft ? right : left;
+
+      final long meeting = walk(side, other, runInParallel);
+      ++walks;
+
+      if (meeting != NOT_FOUND)
+        return buildPath(left, right, meeting);
+    }
+
+    return new ArrayList<>();
+  }
+
+  /**
+   * Expands the frontier of one side by one level.
+   *
+   * @return the vertex where the two searches meet, or NOT_FOUND
+   */
+  private long walk(final Side side, final Side other, final boolean runInParallel) {
+    final long[] frontier = side.frontier;
+
+    final List<long[]> expanded;
+    if (runInParallel && frontier.length >= PARALLEL_THRESHOLD) {
+      final SecurityDatabaseUser user = getCurrentUser();
+
+      final List<Future<long[]>> tasks = new ArrayList<>();
+      for (int i = 0; i < frontier.length; i += CHUNK_SIZE) {
+        final int from = i;
+        final int to = Math.min(i + CHUNK_SIZE, frontier.length);
+        tasks.add(PoolHolder.POOL.submit(() -> {
+          DatabaseContext.INSTANCE.init(database).setCurrentUser(user);
+          try {
+            return expand(side, frontier, from, to);
+          } finally {
+            DatabaseContext.INSTANCE.removeContext(database.getDatabasePath());
+          }
+        }));
+      }
+
+      expanded = new ArrayList<>(tasks.size());
+      try {
+        for (final Future<long[]> task : tasks)
+          expanded.add(waitForTask(task));
+      } finally {
+        // IN CASE OF ERROR THE OTHER CHUNKS ARE NOT NEEDED ANYMORE
+        for (final Future<long[]> task : tasks)
+          task.cancel(false);
+      }
+    } else
+      expanded = List.of(expand(side, frontier, 0, frontier.length));
+
+    // MERGE THE RESULTS IN ORDER, SO THE RESULT IS THE SAME AS THE SEQUENTIAL EXPANSION
+    long[] nextFrontier = new long[Math.max(16, frontier.length)];
+    int nextSize = 0;
+
+    for (final long[] chunk : expanded) {
+      // EACH ENTRY IS A TRIPLE: [0] = FROM VERTEX, [1] = EDGE, [2] = CONNECTED VERTEX. THE FIRST ITEM OF THE ARRAY IS THE NUMBER OF TRIPLES
+      final int total = (int) chunk[0];
+      for (int i = 0; i < total; ++i) {
+        final long fromVertex = chunk[1 + i * 3];
+        final long edge = chunk[2 + i * 3];
+        final long neighbor = chunk[3 + i * 3];
+
+        if (side.predecessors.containsKey(neighbor))
+          continue;
+
+        side.predecessors.put(neighbor, fromVertex);
+        if (side.edges != null)
+          side.edges.put(neighbor, edge);
+
+        if (other.predecessors.containsKey(neighbor))
+          return neighbor;
+
+        if (nextSize == nextFrontier.length)
+          nextFrontier = Arrays.copyOf(nextFrontier, nextSize * 2);
+        nextFrontier[nextSize++] = neighbor;
+      }
+    }
+
+    side.frontier = Arrays.copyOf(nextFrontier, nextSize);
+    return NOT_FOUND;
+  }
+
+  /**
+   * Reads the connections of the vertices in the range of the frontier. The maps are only read, so this method can run in parallel with other
+   * expansions of the same level.
+   */
+  private long[] expand(final Side side, final long[] frontier, final int from, final int to) {
+    long[] result = new long[1 + (to - from) * 3 * 4];
+    int total = 0;
+
+    for (int i = from; i < to; ++i) {
+      final long current = frontier[i];
+
+      final VertexInternal vertex;
+      try {
+        vertex = (VertexInternal) database.lookupByRID(decode(current), true);
+      } catch (final RecordNotFoundException e) {
+        continue;
+      }
+
+      for (final Vertex.DIRECTION dir : side.direction == Vertex.DIRECTION.BOTH ?
+          new Vertex.DIRECTION[] { Vertex.DIRECTION.OUT, Vertex.DIRECTION.IN } :
+          new Vertex.DIRECTION[] { side.direction }) {
+        final EdgeLinkedList edges = database.getGraphEngine().getEdgeHeadChunk(vertex, dir);
+        if (edges == null)
+          continue;
+
+        final Iterator<Pair<RID, RID>> it = edges.entryIterator(edgeTypes);
+        while (it.hasNext()) {
+          final Pair<RID, RID> entry = it.next();
+          final RID neighborRID = entry.getSecond();
+          if (neighborRID == null)
+            continue;
+
+          final long neighbor = encode(neighborRID);
+          if (side.predecessors.containsKey(neighbor))
+            // ALREADY VISITED, AVOID TO RETURN IT
+            continue;
+
+          if (1 + (total + 1) * 3 > result.length)
+            result = Arrays.copyOf(result, result.length * 2);
+
+          result[1 + total * 3] = current;
+          result[2 + total * 3] = entry.getFirst() != null ? encode(entry.getFirst()) : NOT_FOUND;
+          result[3 + total * 3] = neighbor;
+          ++total;
+        }
+      }
+    }
+
+    result[0] = total;
+    return result;
+  }
+
+  private List<RID> buildPath(final Side left, final Side right, final long meeting) {
+    final LinkedList<RID> path = new LinkedList<>();
+
+    path.add(decode(meeting));
+
+    // FROM THE MEETING VERTEX BACK TO THE SOURCE
+    long current = meeting;
+    while (true) {
+      final long previous = left.predecessors.get(current, NOT_FOUND);
+      if (previous == ROOT || previous == NOT_FOUND)
+        break;
+      if (left.edges != null)
+        addEdge(path, left.edges.get(current, NOT_FOUND), true);
+      path.addFirst(decode(previous));
+      current = previous;
+    }
+
+    // FROM THE MEETING VERTEX FORWARD TO THE DESTINATION
+    current = meeting;
+    while (true) {
+      final long next = right.predecessors.get(current, NOT_FOUND);
+      if (next == ROOT || next == NOT_FOUND)
+        break;
+      if (right.edges != null)
+        addEdge(path, right.edges.get(current, NOT_FOUND), false);
+      path.addLast(decode(next));
+      current = next;
+    }
+
+    return new ArrayList<>(path);
+  }
+
+  private void addEdge(final LinkedList<RID> path, final long edge, final boolean first) {
+    if (edge == NOT_FOUND)
+      return;
+    if (first)
+      path.addFirst(decode(edge));
+    else
+      path.addLast(decode(edge));
+  }
+
+  private SecurityDatabaseUser getCurrentUser() {
+    final DatabaseContext.DatabaseContextTL current = DatabaseContext.INSTANCE.getContextIfExists(database.getDatabasePath());
+    return current != null ? current.getCurrentUser() : null;
+  }
+
+  private static long[] waitForTask(final Future<long[]> task) {
+    try {
+      return task.get();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CommandExecutionException("The shortestPath() function has been interrupted");
+    } catch (final ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException)
+        throw (RuntimeException) e.getCause();
+      throw new CommandExecutionException("Error on expanding the shortestPath() frontier", e.getCause());
+    }
+  }
+
+  private static Vertex.DIRECTION opposite(final Vertex.DIRECTION direction) {
+    switch (direction) {
+    case OUT:
+      return Vertex.DIRECTION.IN;
+    case IN:
+      return Vertex.DIRECTION.OUT;
+    default:
+      return Vertex.DIRECTION.BOTH;
+    }
+  }
+
+  /**
+   * Encodes the RID in a long: the bucket id in the 16 most significant bits and the position in the other 48 bits. Negative positions (lightweight
+   * edges) are preserved.
+   */
+  private static long encode(final RID rid) {
+    return ((long) rid.getBucketId() << 48) | (rid.getPosition() & 0xFFFFFFFFFFFFL);
+  }
+
+  private RID decode(final long value) {
+    return new RID(database, (int) (value >>> 48), (value << 16) >> 16);
+  }
+}
@@ -25,6 +25,7 @@ import com.arcadedb.log.LogManager;
 import com.arcadedb.schema.DocumentType;
 
 import java.util.*;
+import java.util.concurrent.atomic.*;
 import java.util.logging.*;
 
 public class EdgeIterator extends ResettableIteratorBase<Edge> {
@@ -110,9 +111,22 @@ public class EdgeIterator extends ResettableIteratorBase<Edge> {
       LogManager.instance().log(this, Level.WARNING, "Error on deleting edge record %s", e, nextEdgeRID);
     }
 
-    currentContainer.removeEntry(lastElementPosition, currentPosition.get());
-    ((DatabaseInternal) vertex.getDatabase()).updateRecord(currentContainer);
+    if (isEntryStillInContainer()) {
+      currentContainer.removeEntry(lastElementPosition, currentPosition.get());
+      ((DatabaseInternal) vertex.getDatabase()).updateRecord(currentContainer);
+    }
 
     currentPosition.set(lastElementPosition);
   }
+
+  /**
+   * Returns true if the last entry returned is still in its position. Deleting the edge removes its entries from the edge lists of both vertices, and
+   * this segment is the same instance when it was already loaded in the transaction.
+   */
+  private boolean isEntryStillInContainer() {
+    if (lastElementPosition >= currentContainer.getUsed())
+      return false;
+    final AtomicInteger position = new AtomicInteger(lastElementPosition);
+    return nextEdgeRID.equals(currentContainer.getRID(position)) && nextVertexRID.equals(currentContainer.getRID(position));
+  }
 }
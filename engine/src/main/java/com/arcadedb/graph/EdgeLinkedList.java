@@ -18,6 +18,7 @@
  */
 package com.arcadedb.graph;
 
+import com.arcadedb.database.Database;
 import com.arcadedb.database.DatabaseInternal;
 import com.arcadedb.database.Identifiable;
 import com.arcadedb.database.RID;
@@ -34,9 +35,9 @@ import java.util.*;
  * @author Luca Garulli (l.garulli@arcadedata.com)
  */
 public class EdgeLinkedList {
-  private final Vertex           vertex;
-  private final Vertex.DIRECTION direction;
-  private       EdgeSegment      lastSegment;
+  protected       Vertex           vertex;
+  protected final Vertex.DIRECTION direction;
+  private         EdgeSegment      lastSegment;
 
   public EdgeLinkedList(final Vertex vertex, final Vertex.DIRECTION direction, final EdgeSegment lastSegment) {
     this.vertex = vertex;
@@ -128,6 +129,25 @@ public class EdgeLinkedList {
     return total;
   }
 
+  /**
+   * Counts the items in the linked list whose edge record exists. Unlike {@link #count(String)}, the entries left by edges deleted without updating the
+   * vertex are skipped. Light edges are always counted, because they have no record. The records are not loaded.
+   *
+   * @param edgeType Type of edge to filter for the counting. If it is null, any type is counted.
+   */
+  public long countExistingEdges(final String edgeType) {
+    final Database database = vertex.getDatabase();
+
+    long total = 0;
+    final Iterator<Pair<RID, RID>> entries = edgeType != null ? entryIterator(edgeType) : entryIterator();
+    while (entries.hasNext()) {
+      final RID edgeRID = entries.next().getFirst();
+      if (edgeRID != null && (edgeRID.getPosition() < 0 || database.existsRecord(edgeRID)))
+        ++total;
+    }
+    return total;
+  }
+
   public void add(final RID edgeRID, final RID vertexRID) {
     if (lastSegment.add(edgeRID, vertexRID))
       ((DatabaseInternal) vertex.getDatabase()).updateRecord(lastSegment);
@@ -142,16 +162,11 @@ public class EdgeLinkedList {
 
       database.createRecord(newChunk, database.getSchema().getBucketById(lastSegment.getIdentity().getBucketId()).getName());
 
-      final MutableVertex modifiableV = vertex.modify();
-
-      if (direction == Vertex.DIRECTION.OUT)
-        modifiableV.setOutEdgesHeadChunk(newChunk.getIdentity());
-      else
-        modifiableV.setInEdgesHeadChunk(newChunk.getIdentity());
+      final Record headOwner = setHead(newChunk);
 
       lastSegment = newChunk;
 
-      modifiableV.save();
+      database.updateRecord(headOwner);
     }
   }
 
@@ -160,8 +175,6 @@ public class EdgeLinkedList {
 
     final DatabaseInternal database = (DatabaseInternal) vertex.getDatabase();
 
-    Vertex currentVertex = vertex;
-
     for (int i = 0; i < entries.size(); ++i) {
       final Pair<Identifiable, Identifiable> entry = entries.get(i);
 
@@ -179,17 +192,11 @@ public class EdgeLinkedList {
 
         database.createRecord(newChunk, database.getSchema().getBucketById(lastSegment.getIdentity().getBucketId()).getName());
 
-        final MutableVertex modifiableV = currentVertex.modify();
-        currentVertex = modifiableV;
-
-        if (direction == Vertex.DIRECTION.OUT)
-          modifiableV.setOutEdgesHeadChunk(newChunk.getIdentity());
-        else
-          modifiableV.setInEdgesHeadChunk(newChunk.getIdentity());
+        final Record headOwner = setHead(newChunk);
 
         lastSegment = newChunk;
 
-        recordsToUpdate.add(modifiableV);
+        recordsToUpdate.add(headOwner);
       }
     }
 
@@ -197,7 +204,13 @@ public class EdgeLinkedList {
       database.updateRecord(r);
   }
 
-  public void removeEdge(final Edge edge) {
+  /**
+   * Removes the edge from the list.
+   *
+   * @return the number of entries removed
+   */
+  public int removeEdge(final Edge edge) {
+    int total = 0;
     EdgeSegment current = lastSegment;
     while (current != null) {
       final RID rid = edge.getIdentity();
@@ -210,31 +223,68 @@ public class EdgeLinkedList {
         // DELETE BY VERTEX RID
         deleted = current.removeVertex(direction == Vertex.DIRECTION.OUT ? edge.getIn() : edge.getOut());
 
-      if (deleted > 0)
+      if (deleted > 0) {
         ((DatabaseInternal) vertex.getDatabase()).updateRecord(current);
+        total += deleted;
+      }
 
       current = current.getPrevious();
     }
+    return total;
   }
 
-  public void removeEdgeRID(final RID edge) {
+  /**
+   * Removes the edge from the list.
+   *
+   * @return the number of entries removed
+   */
+  public int removeEdgeRID(final RID edge) {
+    int total = 0;
     EdgeSegment current = lastSegment;
     while (current != null) {
       final int deleted = current.removeEdge(edge);
-      if (deleted > 0)
+      if (deleted > 0) {
         ((DatabaseInternal) vertex.getDatabase()).updateRecord(current);
+        total += deleted;
+      }
       current = current.getPrevious();
     }
+    return total;
   }
 
-  public void removeVertex(final RID vertexRID) {
+  /**
+   * Removes all the entries pointing to the vertex.
+   *
+   * @return the number of entries removed
+   */
+  public int removeVertex(final RID vertexRID) {
+    int total = 0;
     EdgeSegment current = lastSegment;
     while (current != null) {
-      if (current.removeVertex(vertexRID) > 0)
+      final int deleted = current.removeVertex(vertexRID);
+      if (deleted > 0) {
         ((DatabaseInternal) vertex.getDatabase()).updateRecord(current);
+        total += deleted;
+      }
 
       current = current.getPrevious();
     }
+    return total;
+  }
+
+  /**
+   * Makes the new segment the head of the list by updating the pointer in the vertex. Returns the record that holds the pointer and must be saved.
+   */
+  protected Record setHead(final EdgeSegment newHead) {
+    final MutableVertex modifiableV = vertex.modify();
+
+    if (direction == Vertex.DIRECTION.OUT)
+      modifiableV.setOutEdgesHeadChunk(newHead.getIdentity());
+    else
+      modifiableV.setInEdgesHeadChunk(newHead.getIdentity());
+
+    vertex = modifiableV;
+    return modifiableV;
   }
 
   private int computeBestSize() {
@@ -0,0 +1,397 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.graph;
+
+import com.arcadedb.database.DatabaseInternal;
+import com.arcadedb.database.Identifiable;
+import com.arcadedb.database.RID;
+import com.arcadedb.database.Record;
+import com.arcadedb.exception.RecordNotFoundException;
+import com.arcadedb.exception.SchemaException;
+import com.arcadedb.log.LogManager;
+import com.arcadedb.schema.DocumentType;
+import com.arcadedb.serializer.json.JSONArray;
+import com.arcadedb.utility.MultiIterator;
+import com.arcadedb.utility.Pair;
+
+import java.util.*;
+import java.util.logging.*;
+
+/**
+ * Edge list partitioned by edge type. The vertex points to a {@link EdgeTypeHeadTable} that keeps the head of one chain of segments per edge type. Each
+ * chain is managed as a regular {@link EdgeLinkedList}, so traversals, counting and lookups filtered by edge type only touch the segments of the involved
+ * types. Browsing without a type filter returns the edges grouped by type and, inside each type, in reverse order of insertion.
+ */
+public class EdgeLinkedListByType extends EdgeLinkedList {
+  private final DatabaseInternal  database;
+  private final EdgeTypeHeadTable table;
+
+  public EdgeLinkedListByType(final Vertex vertex, final Vertex.DIRECTION direction, final EdgeTypeHeadTable table) {
+    super(vertex, direction, null);
+    this.database = (DatabaseInternal) vertex.getDatabase();
+    this.table = table;
+  }
+
+  @Override
+  public Iterator<Pair<RID, RID>> entryIterator(final String... edgeTypes) {
+    final MultiIterator<Pair<RID, RID>> result = new MultiIterator<>();
+    for (final TypeChain chain : getChains(edgeTypes))
+      result.addIterator(new ChainIterator<>(chain, chain.entryIterator()));
+    return result;
+  }
+
+  @Override
+  public Iterator<Edge> edgeIterator(final String... edgeTypes) {
+    final MultiIterator<Edge> result = new MultiIterator<>();
+    for (final TypeChain chain : getChains(edgeTypes))
+      result.addIterator(new ChainIterator<>(chain, chain.edgeIterator()));
+    return result;
+  }
+
+  @Override
+  public Iterator<Vertex> vertexIterator(final String... edgeTypes) {
+    final MultiIterator<Vertex> result = new MultiIterator<>();
+    for (final TypeChain chain : getChains(edgeTypes))
+      result.addIterator(new ChainIterator<>(chain, chain.vertexIterator()));
+    return result;
+  }
+
+  @Override
+  public boolean containsEdge(final RID rid) {
+    for (final EdgeLinkedList chain : getChainsByBucketId(rid.getBucketId()))
+      if (chain.containsEdge(rid))
+        return true;
+    return false;
+  }
+
+  @Override
+  public JSONArray toJSON() {
+    final JSONArray array = new JSONArray();
+    for (final EdgeLinkedList chain : getChains())
+      for (final Object item : chain.toJSON())
+        array.put(item);
+    return array;
+  }
+
+  @Override
+  public boolean containsVertex(final RID rid, final int[] edgeBucketFilter) {
+    for (int i = 0; i < table.size(); ++i) {
+      if (edgeBucketFilter != null && !isTypeInBuckets(table.getTypeId(i), edgeBucketFilter))
+        continue;
+
+      final EdgeLinkedList chain = loadChain(i);
+      if (chain != null && chain.containsVertex(rid, null))
+        return true;
+    }
+    return false;
+  }
+
+  /**
+   * Returns the number of edges of the requested type and its sub-types by reading the counters in the head table, without browsing any segment.
+   *
+   * @param edgeType Type of edge to filter for the counting. If it is null, any type is counted.
+   */
+  @Override
+  public long count(final String edgeType) {
+    final Set<Integer> typeIds = edgeType != null ? getTypeIds(edgeType) : null;
+
+    long total = 0;
+    for (int i = 0; i < table.size(); ++i)
+      if (typeIds == null || typeIds.contains(table.getTypeId(i)))
+        total += table.getCount(i);
+    return total;
+  }
+
+  @Override
+  public void add(final RID edgeRID, final RID vertexRID) {
+    final int typeId = getTypeId(edgeRID);
+    getOrCreateChain(typeId).add(edgeRID, vertexRID);
+    table.incrementCount(typeId, 1);
+    database.updateRecord(table);
+  }
+
+  @Override
+  public void addAll(final List<Pair<Identifiable, Identifiable>> entries) {
+    // GROUP THE ENTRIES BY EDGE TYPE, KEEPING THE ORIGINAL ORDER INSIDE EACH TYPE
+    final Map<Integer, List<Pair<Identifiable, Identifiable>>> entriesByType = new LinkedHashMap<>();
+    for (int i = 0; i < entries.size(); ++i) {
+      final Pair<Identifiable, Identifiable> entry = entries.get(i);
+      entriesByType.computeIfAbsent(getTypeId(entry.getFirst().getIdentity()), k -> new ArrayList<>()).add(entry);
+    }
+
+    for (final Map.Entry<Integer, List<Pair<Identifiable, Identifiable>>> entry : entriesByType.entrySet()) {
+      getOrCreateChain(entry.getKey()).addAll(entry.getValue());
+      table.incrementCount(entry.getKey(), entry.getValue().size());
+    }
+    database.updateRecord(table);
+  }
+
+  @Override
+  public int removeEdge(final Edge edge) {
+    int total = 0;
+    for (final TypeChain chain : getChainsByBucketId(edge.getIdentity().getBucketId()))
+      total += chain.decrementCount(chain.removeEdge(edge));
+    return total;
+  }
+
+  @Override
+  public int removeEdgeRID(final RID edge) {
+    int total = 0;
+    for (final TypeChain chain : getChainsByBucketId(edge.getBucketId()))
+      total += chain.decrementCount(chain.removeEdgeRID(edge));
+    return total;
+  }
+
+  @Override
+  public int removeVertex(final RID vertexRID) {
+    int total = 0;
+    for (final TypeChain chain : getChains())
+      total += chain.decrementCount(chain.removeVertex(vertexRID));
+    return total;
+  }
+
+  /**
+   * Recounts the entries of each chain and compares the result with the counter in the head table. This is used by the integrity check to repair the
+   * counters of the databases where edges were deleted without updating the vertices.
+   *
+   * @param fix true to overwrite the wrong counters
+   *
+   * @return the number of wrong counters found
+   */
+  public long checkCounters(final boolean fix) {
+    long invalid = 0;
+    for (int i = 0; i < table.size(); ++i) {
+      final EdgeLinkedList chain = loadChain(i);
+      final long actual = chain != null ? chain.countExistingEdges(null) : 0L;
+      if (actual != table.getCount(i)) {
+        ++invalid;
+        if (fix)
+          table.setCount(i, actual);
+      }
+    }
+
+    if (fix && invalid > 0)
+      database.updateRecord(table);
+
+    return invalid;
+  }
+
+  /**
+   * Deletes all the segments of all the chains. The head table is not deleted.
+   */
+  public void deleteSegments() {
+    for (int i = 0; i < table.size(); ++i) {
+      try {
+        EdgeSegment current = (EdgeSegment) database.lookupByRID(table.getHead(i), true);
+        while (current != null) {
+          final EdgeSegment previous = current.getPrevious();
+          current.delete();
+          current = previous;
+        }
+      } catch (final RecordNotFoundException e) {
+        // ALREADY DELETED: IGNORE IT
+      }
+    }
+  }
+
+  public EdgeTypeHeadTable getTable() {
+    return table;
+  }
+
+  private List<TypeChain> getChains() {
+    final List<TypeChain> result = new ArrayList<>(table.size());
+    for (int i = 0; i < table.size(); ++i) {
+      final TypeChain chain = loadChain(i);
+      if (chain != null)
+        result.add(chain);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the chains of the requested edge types, including their sub-types. Types not defined in the schema are ignored. If no types are passed,
+   * all the chains are returned.
+   */
+  private List<TypeChain> getChains(final String... edgeTypes) {
+    if (edgeTypes == null || edgeTypes.length == 0)
+      return getChains();
+
+    final Set<Integer> typeIds = getTypeIds(edgeTypes);
+
+    final List<TypeChain> result = new ArrayList<>(typeIds.size());
+    for (int i = 0; i < table.size(); ++i) {
+      if (typeIds.contains(table.getTypeId(i))) {
+        final TypeChain chain = loadChain(i);
+        if (chain != null)
+          result.add(chain);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the chain where edges stored in the bucket are kept. If the bucket does not belong to any type, all the chains are returned.
+   */
+  private List<TypeChain> getChainsByBucketId(final int bucketId) {
+    final DocumentType type = database.getSchema().getTypeByBucketId(bucketId);
+    if (type == null)
+      return getChains();
+
+    final int typeId = database.getSchema().getDictionary().getIdByName(type.getName(), false);
+    for (int i = 0; i < table.size(); ++i)
+      if (table.getTypeId(i) == typeId) {
+        final TypeChain chain = loadChain(i);
+        return chain != null ? List.of(chain) : Collections.emptyList();
+      }
+
+    return Collections.emptyList();
+  }
+
+  private TypeChain getOrCreateChain(final int typeId) {
+    final RID head = table.getHeadByTypeId(typeId);
+    if (head != null)
+      try {
+        return new TypeChain(typeId, (EdgeSegment) database.lookupByRID(head, true));
+      } catch (final RecordNotFoundException e) {
+        LogManager.instance()
+            .log(this, Level.WARNING, "Record %s (edge segment of type %d) not found on vertex %s. Creating a new one", head, typeId, vertex.getIdentity());
+      }
+
+    final MutableEdgeSegment segment = new MutableEdgeSegment(database, database.getNewEdgeListSize(0));
+    database.createRecord(segment, database.getSchema().getBucketById(table.getIdentity().getBucketId()).getName());
+
+    table.setHead(typeId, segment.getIdentity());
+    database.updateRecord(table);
+
+    return new TypeChain(typeId, segment);
+  }
+
+  private TypeChain loadChain(final int index) {
+    final RID head = table.getHead(index);
+    try {
+      return new TypeChain(table.getTypeId(index), (EdgeSegment) database.lookupByRID(head, true));
+    } catch (final RecordNotFoundException e) {
+      LogManager.instance().log(this, Level.WARNING, "Cannot load %s edge list chunk (%s) for vertex %s", e, direction, head, vertex.getIdentity());
+      return null;
+    }
+  }
+
+  private int getTypeId(final RID edgeRID) {
+    final DocumentType type = database.getSchema().getTypeByBucketId(edgeRID.getBucketId());
+    if (type == null)
+      throw new SchemaException("Cannot find the edge type for the edge " + edgeRID);
+    return database.getSchema().getDictionary().getIdByName(type.getName(), true);
+  }
+
+  /**
+   * Returns the dictionary ids of the requested edge types, including their sub-types. Types not defined in the schema are ignored.
+   */
+  private Set<Integer> getTypeIds(final String... edgeTypes) {
+    final Set<Integer> typeIds = new HashSet<>();
+    for (final String edgeType : edgeTypes)
+      if (database.getSchema().existsType(edgeType))
+        collectTypeIds(database.getSchema().getType(edgeType), typeIds);
+    return typeIds;
+  }
+
+  private void collectTypeIds(final DocumentType type, final Set<Integer> typeIds) {
+    final int typeId = database.getSchema().getDictionary().getIdByName(type.getName(), false);
+    if (typeId > -1)
+      typeIds.add(typeId);
+    for (final DocumentType subType : type.getSubTypes())
+      collectTypeIds(subType, typeIds);
+  }
+
+  private boolean isTypeInBuckets(final int typeId, final int[] bucketIds) {
+    final String typeName = database.getSchema().getDictionary().getNameById(typeId);
+    if (!database.getSchema().existsType(typeName))
+      return false;
+
+    final List<Integer> typeBucketIds = database.getSchema().getType(typeName).getBucketIds(false);
+    for (final int bucketId : bucketIds)
+      if (typeBucketIds.contains(bucketId))
+        return true;
+    return false;
+  }
+
+  /**
+   * Chain of segments for one edge type. When the chain grows, the new head is stored in the head table instead of the vertex.
+   */
+  private class TypeChain extends EdgeLinkedList {
+    private final int typeId;
+
+    private TypeChain(final int typeId, final EdgeSegment lastSegment) {
+      super(EdgeLinkedListByType.this.vertex, EdgeLinkedListByType.this.direction, lastSegment);
+      this.typeId = typeId;
+    }
+
+    @Override
+    protected Record setHead(final EdgeSegment newHead) {
+      table.setHead(typeId, newHead.getIdentity());
+      return table;
+    }
+
+    private int decrementCount(final int removed) {
+      if (removed > 0) {
+        table.incrementCount(typeId, -removed);
+        database.updateRecord(table);
+      }
+      return removed;
+    }
+
+    private long getCount() {
+      for (int i = 0; i < table.size(); ++i)
+        if (table.getTypeId(i) == typeId)
+          return table.getCount(i);
+      return 0L;
+    }
+  }
+
+  /**
+   * Iterator on one chain that keeps the counter updated when an entry is removed through it. The removal through the iterator can also delete the
+   * edge, that already decrements the counter through {@link #removeEdge(Edge)}, so the counter is decremented only if it did not change.
+   */
+  private static class ChainIterator<T> implements Iterator<T> {
+    private final TypeChain   chain;
+    private final Iterator<T> iterator;
+
+    private ChainIterator(final TypeChain chain, final Iterator<T> iterator) {
+      this.chain = chain;
+      this.iterator = iterator;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return iterator.hasNext();
+    }
+
+    @Override
+    public T next() {
+      return iterator.next();
+    }
+
+    @Override
+    public void remove() {
+      final long before = chain.getCount();
+      iterator.remove();
+      if (chain.getCount() == before)
+        chain.decrementCount(1);
+    }
+  }
+}
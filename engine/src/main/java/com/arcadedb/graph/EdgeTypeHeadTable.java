@@ -0,0 +1,198 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.graph;
+
+import com.arcadedb.database.BaseRecord;
+import com.arcadedb.database.Binary;
+import com.arcadedb.database.Database;
+import com.arcadedb.database.RID;
+import com.arcadedb.database.RecordInternal;
+import com.arcadedb.serializer.BinaryTypes;
+import com.arcadedb.serializer.json.JSONObject;
+
+import java.util.*;
+
+/**
+ * Head table of an edge list partitioned by edge type. The vertex points to this record instead of pointing to a single chain of {@link EdgeSegment}
+ * mixing all the edge types. For each edge type the table keeps the head of a dedicated chain of segments, so traversals and counting filtered by edge
+ * type browse only the segments of the requested types. The edge type is stored as the id of its name in the schema dictionary. Each entry keeps also the
+ * number of edges in the chain, so the degree of the vertex is known without browsing the segments.
+ * <p>
+ * Binary format: [record type (byte)][entries (int)] followed by the entries as [type name id (unsigned number)][head segment (compressed RID)][edges
+ * (unsigned number)].
+ *
+ * @see EdgeLinkedListByType
+ */
+public class EdgeTypeHeadTable extends BaseRecord implements RecordInternal {
+  public static final byte   RECORD_TYPE = 5;
+  private             int[]  typeIds;
+  private             RID[]  heads;
+  private             long[] counts;
+  private             int    entries   = -1;
+
+  public EdgeTypeHeadTable(final Database database) {
+    super(database, null, null);
+    this.typeIds = new int[2];
+    this.heads = new RID[2];
+    this.counts = new long[2];
+    this.entries = 0;
+  }
+
+  public EdgeTypeHeadTable(final Database database, final RID rid, final Binary buffer) {
+    super(database, rid, buffer);
+  }
+
+  @Override
+  public byte getRecordType() {
+    return RECORD_TYPE;
+  }
+
+  public int size() {
+    checkForLazyLoading();
+    return entries;
+  }
+
+  public int getTypeId(final int index) {
+    checkForLazyLoading();
+    return typeIds[index];
+  }
+
+  public RID getHead(final int index) {
+    checkForLazyLoading();
+    return heads[index];
+  }
+
+  public long getCount(final int index) {
+    checkForLazyLoading();
+    return counts[index];
+  }
+
+  /**
+   * Returns the head segment of the chain for the edge type, or null if no edges of the type have been connected yet.
+   */
+  public RID getHeadByTypeId(final int typeId) {
+    checkForLazyLoading();
+    for (int i = 0; i < entries; ++i)
+      if (typeIds[i] == typeId)
+        return heads[i];
+    return null;
+  }
+
+  /**
+   * Sets the head segment of the chain for the edge type, adding a new entry if the type is not present yet. The caller is in charge to update the record.
+   */
+  public void setHead(final int typeId, final RID head) {
+    checkForLazyLoading();
+    for (int i = 0; i < entries; ++i)
+      if (typeIds[i] == typeId) {
+        heads[i] = head;
+        return;
+      }
+
+    if (entries == typeIds.length) {
+      typeIds = Arrays.copyOf(typeIds, entries * 2);
+      heads = Arrays.copyOf(heads, entries * 2);
+      counts = Arrays.copyOf(counts, entries * 2);
+    }
+    typeIds[entries] = typeId;
+    heads[entries] = head;
+    counts[entries] = 0;
+    ++entries;
+  }
+
+  /**
+   * Adds the delta (positive or negative) to the number of edges of the edge type. The caller is in charge to update the record.
+   */
+  public void incrementCount(final int typeId, final long delta) {
+    checkForLazyLoading();
+    for (int i = 0; i < entries; ++i)
+      if (typeIds[i] == typeId) {
+        counts[i] = Math.max(0, counts[i] + delta);
+        return;
+      }
+  }
+
+  /**
+   * Overwrites the number of edges of the entry. Used to repair the counters. The caller is in charge to update the record.
+   */
+  public void setCount(final int index, final long count) {
+    checkForLazyLoading();
+    counts[index] = count;
+  }
+
+  public Binary getContent() {
+    checkForLazyLoading();
+
+    final Binary content = new Binary(Binary.BYTE_SERIALIZED_SIZE + Binary.INT_SERIALIZED_SIZE + Binary.LONG_SERIALIZED_SIZE * entries * 4);
+    content.putByte(RECORD_TYPE);
+    content.putInt(entries);
+    for (int i = 0; i < entries; ++i) {
+      content.putUnsignedNumber(typeIds[i]);
+      database.getSerializer().serializeValue(database, content, BinaryTypes.TYPE_COMPRESSED_RID, heads[i]);
+      content.putUnsignedNumber(counts[i]);
+    }
+    content.flip();
+    return content;
+  }
+
+  @Override
+  public JSONObject toJSON(final boolean includeMetadata) {
+    checkForLazyLoading();
+
+    final JSONObject json = new JSONObject();
+    for (int i = 0; i < entries; ++i)
+      json.put(database.getSchema().getDictionary().getNameById(typeIds[i]),
+          new JSONObject().put("head", heads[i].toString()).put("count", counts[i]));
+    return json;
+  }
+
+  @Override
+  public void setIdentity(final RID rid) {
+    this.rid = rid;
+  }
+
+  @Override
+  public void unsetDirty() {
+    // IGNORE THIS FLAG
+  }
+
+  private void checkForLazyLoading() {
+    if (entries > -1)
+      return;
+
+    if (buffer == null)
+      reload();
+
+    if (buffer == null)
+      throw new IllegalStateException("Cannot load the edge type head table " + rid);
+
+    buffer.position(Binary.BYTE_SERIALIZED_SIZE);
+    final int total = buffer.getInt();
+
+    typeIds = new int[Math.max(total, 2)];
+    heads = new RID[typeIds.length];
+    counts = new long[typeIds.length];
+    for (int i = 0; i < total; ++i) {
+      typeIds[i] = (int) buffer.getUnsignedNumber();
+      heads[i] = (RID) database.getSerializer().deserializeValue(database, buffer, BinaryTypes.TYPE_COMPRESSED_RID, null);
+      counts[i] = buffer.getUnsignedNumber();
+    }
+    entries = total;
+  }
+}
@@ -26,6 +26,7 @@ import com.arcadedb.schema.DocumentType;
 import com.arcadedb.utility.Pair;
 
 import java.util.*;
+import java.util.concurrent.atomic.*;
 import java.util.logging.*;
 
 public class EdgeVertexIterator extends ResettableIteratorBase<Pair<RID, RID>> {
@@ -93,9 +94,22 @@ public class EdgeVertexIterator extends ResettableIteratorBase<Pair<RID, RID>> {
       LogManager.instance().log(this, Level.WARNING, "Error on deleting edge record %s", e, nextEdgeRID);
     }
 
-    currentContainer.removeEntry(lastElementPosition, currentPosition.get());
-    ((DatabaseInternal) vertex.getDatabase()).updateRecord(currentContainer);
+    if (isEntryStillInContainer()) {
+      currentContainer.removeEntry(lastElementPosition, currentPosition.get());
+      ((DatabaseInternal) vertex.getDatabase()).updateRecord(currentContainer);
+    }
 
     currentPosition.set(lastElementPosition);
   }
+
+  /**
+   * Returns true if the last entry returned is still in its position. Deleting the edge removes its entries from the edge lists of both vertices, and
+   * this segment is the same instance when it was already loaded in the transaction.
+   */
+  private boolean isEntryStillInContainer() {
+    if (lastElementPosition >= currentContainer.getUsed())
+      return false;
+    final AtomicInteger position = new AtomicInteger(lastElementPosition);
+    return nextEdgeRID.equals(currentContainer.getRID(position)) && nextVertexRID.equals(currentContainer.getRID(position));
+  }
 }
@@ -18,11 +18,13 @@
  */
 package com.arcadedb.graph;
 
+import com.arcadedb.GlobalConfiguration;
 import com.arcadedb.database.Database;
 import com.arcadedb.database.DatabaseInternal;
 import com.arcadedb.database.Identifiable;
 import com.arcadedb.database.MutableDocument;
 import com.arcadedb.database.RID;
+import com.arcadedb.database.Record;
 import com.arcadedb.engine.Bucket;
 import com.arcadedb.exception.RecordNotFoundException;
 import com.arcadedb.exception.SchemaException;
@@ -153,9 +155,7 @@ public class GraphEngine {
   public void connectEdge(VertexInternal fromVertex, final Identifiable toVertex, final Edge edge, final boolean bidirectional) {
     fromVertex = fromVertex.modify();
 
-    final EdgeSegment outChunk = createOutEdgeChunk((MutableVertex) fromVertex);
-
-    final EdgeLinkedList outLinkedList = new EdgeLinkedList(fromVertex, Vertex.DIRECTION.OUT, outChunk);
+    final EdgeLinkedList outLinkedList = createEdgeLinkedList((MutableVertex) fromVertex, Vertex.DIRECTION.OUT);
 
     outLinkedList.add(edge.getIdentity(), toVertex.getIdentity());
 
@@ -196,9 +196,7 @@ public class GraphEngine {
 
     sourceVertex = sourceVertex.modify();
 
-    final EdgeSegment outChunk = createOutEdgeChunk((MutableVertex) sourceVertex);
-
-    final EdgeLinkedList outLinkedList = new EdgeLinkedList(sourceVertex, Vertex.DIRECTION.OUT, outChunk);
+    final EdgeLinkedList outLinkedList = createEdgeLinkedList((MutableVertex) sourceVertex, Vertex.DIRECTION.OUT);
     outLinkedList.addAll(outEdgePairs);
 
     if (bidirectional) {
@@ -214,59 +212,44 @@ public class GraphEngine {
   public void connectIncomingEdge(final Identifiable toVertex, final RID fromVertexRID, final RID edgeRID) {
     final MutableVertex toVertexRecord = toVertex.asVertex().modify();
 
-    final EdgeSegment inChunk = createInEdgeChunk(toVertexRecord);
-
-    final EdgeLinkedList inLinkedList = new EdgeLinkedList(toVertexRecord, Vertex.DIRECTION.IN, inChunk);
+    final EdgeLinkedList inLinkedList = createEdgeLinkedList(toVertexRecord, Vertex.DIRECTION.IN);
     inLinkedList.add(edgeRID, fromVertexRID);
   }
 
-  public EdgeSegment createInEdgeChunk(final MutableVertex toVertex) {
-    RID inEdgesHeadChunk = toVertex.getInEdgesHeadChunk();
-
-    EdgeSegment inChunk = null;
-    if (inEdgesHeadChunk != null)
-      try {
-        inChunk = (EdgeSegment) database.lookupByRID(inEdgesHeadChunk, true);
-      } catch (final RecordNotFoundException e) {
-        LogManager.instance().log(this, Level.WARNING, "Record %s (inEdgesHeadChunk) not found on vertex %s. Creating a new one", inEdgesHeadChunk, toVertex);
-        inEdgesHeadChunk = null;
-      }
-
-    if (inEdgesHeadChunk == null) {
-      inChunk = new MutableEdgeSegment(database, database.getNewEdgeListSize(0));
-      database.createRecord(inChunk, getEdgesBucketName(toVertex.getIdentity().getBucketId(), Vertex.DIRECTION.IN));
-      inEdgesHeadChunk = inChunk.getIdentity();
-
-      toVertex.setInEdgesHeadChunk(inEdgesHeadChunk);
-      database.updateRecord(toVertex);
-    }
-
-    return inChunk;
-  }
-
-  public EdgeSegment createOutEdgeChunk(final MutableVertex fromVertex) {
-    RID outEdgesHeadChunk = fromVertex.getOutEdgesHeadChunk();
+  /**
+   * Returns the edge list of the vertex for the direction, creating it if the vertex has no edges yet in that direction. New edge lists are partitioned by
+   * edge type if {@link GlobalConfiguration#GRAPH_EDGE_LIST_BY_TYPE} is enabled, while existing edge lists keep their layout.
+   */
+  public EdgeLinkedList createEdgeLinkedList(final MutableVertex vertex, final Vertex.DIRECTION direction) {
+    RID headRID = direction == Vertex.DIRECTION.OUT ? vertex.getOutEdgesHeadChunk() : vertex.getInEdgesHeadChunk();
 
-    EdgeSegment outChunk = null;
-    if (outEdgesHeadChunk != null)
+    Record head = null;
+    if (headRID != null)
       try {
-        outChunk = (EdgeSegment) database.lookupByRID(outEdgesHeadChunk, true);
+        head = database.lookupByRID(headRID, true);
       } catch (final RecordNotFoundException e) {
         LogManager.instance()
-            .log(this, Level.WARNING, "Record %s (outEdgesHeadChunk) not found on vertex %s. Creating a new one", outEdgesHeadChunk, fromVertex.getIdentity());
-        outEdgesHeadChunk = null;
+            .log(this, Level.WARNING, "Record %s (%s edges head chunk) not found on vertex %s. Creating a new one", headRID, direction, vertex.getIdentity());
+        headRID = null;
       }
 
-    if (outEdgesHeadChunk == null) {
-      outChunk = new MutableEdgeSegment(database, database.getNewEdgeListSize(0));
-      database.createRecord(outChunk, getEdgesBucketName(fromVertex.getIdentity().getBucketId(), Vertex.DIRECTION.OUT));
-      outEdgesHeadChunk = outChunk.getIdentity();
+    if (headRID == null) {
+      if (database.getConfiguration().getValueAsBoolean(GlobalConfiguration.GRAPH_EDGE_LIST_BY_TYPE))
+        head = new EdgeTypeHeadTable(database);
+      else
+        head = new MutableEdgeSegment(database, database.getNewEdgeListSize(0));
+
+      database.createRecord(head, getEdgesBucketName(vertex.getIdentity().getBucketId(), direction));
+      headRID = head.getIdentity();
 
-      fromVertex.setOutEdgesHeadChunk(outEdgesHeadChunk);
-      database.updateRecord(fromVertex);
+      if (direction == Vertex.DIRECTION.OUT)
+        vertex.setOutEdgesHeadChunk(headRID);
+      else
+        vertex.setInEdgesHeadChunk(headRID);
+      database.updateRecord(vertex);
     }
 
-    return outChunk;
+    return newEdgeLinkedList(vertex, direction, head);
   }
 
   public long countEdges(final VertexInternal vertex, final Vertex.DIRECTION direction, final String edgeType) {
@@ -368,6 +351,9 @@ public class GraphEngine {
         }
       }
 
+      if (outEdges instanceof EdgeLinkedListByType)
+        ((EdgeLinkedListByType) outEdges).deleteSegments();
+
       final RID outRID = vertex.getOutEdgesHeadChunk();
       outRID.getRecord(false).delete();
     }
@@ -399,6 +385,9 @@ public class GraphEngine {
         }
       }
 
+      if (inEdges instanceof EdgeLinkedListByType)
+        ((EdgeLinkedListByType) inEdges).deleteSegments();
+
       final RID inRID = vertex.getInEdgesHeadChunk();
       inRID.getRecord(false).delete();
     }
@@ -610,7 +599,7 @@ public class GraphEngine {
       final RID rid = vertex.getOutEdgesHeadChunk();
       if (rid != null) {
         try {
-          return new EdgeLinkedList(vertex, Vertex.DIRECTION.OUT, (EdgeSegment) vertex.getDatabase().lookupByRID(rid, true));
+          return newEdgeLinkedList(vertex, Vertex.DIRECTION.OUT, vertex.getDatabase().lookupByRID(rid, true));
         } catch (final RecordNotFoundException e) {
           LogManager.instance().log(this, Level.WARNING, "Cannot load OUT edge list chunk (%s) for vertex %s", e, rid, vertex.getIdentity());
         }
@@ -619,7 +608,7 @@ public class GraphEngine {
       final RID rid = vertex.getInEdgesHeadChunk();
       if (rid != null) {
         try {
-          return new EdgeLinkedList(vertex, Vertex.DIRECTION.IN, (EdgeSegment) vertex.getDatabase().lookupByRID(rid, true));
+          return newEdgeLinkedList(vertex, Vertex.DIRECTION.IN, vertex.getDatabase().lookupByRID(rid, true));
         } catch (final RecordNotFoundException e) {
           LogManager.instance().log(this, Level.WARNING, "Cannot load IN edge list chunk (%s) for vertex %s", e, rid, vertex.getIdentity());
         }
@@ -629,9 +618,16 @@ public class GraphEngine {
     return null;
   }
 
+  private static EdgeLinkedList newEdgeLinkedList(final Vertex vertex, final Vertex.DIRECTION direction, final Record head) {
+    if (head instanceof EdgeTypeHeadTable)
+      return new EdgeLinkedListByType(vertex, direction, (EdgeTypeHeadTable) head);
+    return new EdgeLinkedList(vertex, direction, (EdgeSegment) head);
+  }
+
   public Map<String, Object> checkVertices(final String typeName, final boolean fix, final int verboseLevel) {
     final AtomicLong autoFix = new AtomicLong();
     final AtomicLong invalidLinks = new AtomicLong();
+    final AtomicLong invalidCounters = new AtomicLong();
     final LinkedHashSet<RID> corruptedRecords = new LinkedHashSet<>();
     final List<String> warnings = new ArrayList<>();
 
@@ -723,6 +719,9 @@ public class GraphEngine {
               if (fix && removeEntry)
                 out.remove();
             }
+
+            if (outEdges instanceof EdgeLinkedListByType)
+              invalidCounters.addAndGet(((EdgeLinkedListByType) outEdges).checkCounters(fix));
           }
 
           final EdgeLinkedList inEdges = getEdgeHeadChunk((VertexInternal) vertex, Vertex.DIRECTION.IN);
@@ -803,6 +802,9 @@ public class GraphEngine {
               if (fix && removeEntry)
                 in.remove();
             }
+
+            if (inEdges instanceof EdgeLinkedListByType)
+              invalidCounters.addAndGet(((EdgeLinkedListByType) inEdges).checkCounters(fix));
           }
 
         } catch (final Throwable e) {
@@ -840,6 +842,7 @@ public class GraphEngine {
       stats.put("autoFix", autoFix.get());
       stats.put("corruptedRecords", corruptedRecords);
       stats.put("invalidLinks", invalidLinks.get());
+      stats.put("invalidEdgeCounters", invalidCounters.get());
       stats.put("warnings", warnings);
     }
 
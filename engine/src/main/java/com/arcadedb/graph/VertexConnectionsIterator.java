@@ -0,0 +1,43 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.graph;
+
+import com.arcadedb.utility.MultiIterator;
+
+/**
+ * Iterates the edges or the vertices connected to a vertex. Counting the entries does not browse the connections, but uses
+ * {@link Vertex#countEdges(Vertex.DIRECTION, String)}, that with the edge lists partitioned by type reads the counters kept in the head table.
+ */
+public class VertexConnectionsIterator<T> extends MultiIterator<T> {
+  private final Vertex           vertex;
+  private final Vertex.DIRECTION direction;
+  private final String           edgeType;
+
+  public VertexConnectionsIterator(final Vertex vertex, final Vertex.DIRECTION direction, final String edgeType, final Iterable<T> connections) {
+    this.vertex = vertex;
+    this.direction = direction;
+    this.edgeType = edgeType;
+    addIterator(connections);
+  }
+
+  @Override
+  public long countEntries() {
+    return vertex.countEdges(direction, edgeType);
+  }
+}
@@ -37,7 +37,10 @@ import java.util.*;
  * pointed by the hash table, then a fixed-size integer containing the next entry (with the same hash) and after that the compressed RID.
  * <p>
  * TODO support up to 4GB by using unsigned int
+ *
+ * @deprecated the importers use {@link OffHeapAny2RIDIndex}, that keeps the data off-heap. This class will be removed in a future release.
  */
+@Deprecated
 public class CompressedAny2RIDIndex<K> {
   private final Database         database;
   private final BinarySerializer serializer;
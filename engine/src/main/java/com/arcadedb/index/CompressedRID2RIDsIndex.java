@@ -43,7 +43,10 @@ import java.util.logging.*;
  * with a linked list in the only direction of the previous.
  * <p>
  * TODO support up to 4GB by using unsigned int
+ *
+ * @deprecated the importers use {@link OffHeapRID2RIDsBuffer}, that keeps the data off-heap. This class will be removed in a future release.
  */
+@Deprecated
 public class CompressedRID2RIDsIndex {
   protected final Database         database;
   protected final BinarySerializer serializer;
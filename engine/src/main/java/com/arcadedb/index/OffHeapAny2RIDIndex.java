@@ -0,0 +1,311 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.index;
+
+import com.arcadedb.database.Database;
+import com.arcadedb.database.RID;
+import com.arcadedb.schema.Type;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Map of keys to RIDs stored out of the heap, with open addressing and linear probing. Keys of integer types are stored as longs in the slots,
+ * any other key is stored by its string representation: the slot contains the 64-bit hash and the offset of the key bytes, kept in a separate
+ * buffer. The map starts from the expected size and doubles the slots when 3/4 of them are used, so the expected size is only a hint. The slots and
+ * the keys share the same budget of direct memory, then they are kept in temporary files (see {@link OffHeapBuffer}).
+ * <br>
+ * Updates are synchronized. Lookups are synchronized until {@link #setReadOnly()} is called, after that they are lock free. This Map implementation
+ * doesn't support to overwrite a value. Values cannot be null.
+ */
+public class OffHeapAny2RIDIndex {
+  private static final int           SEGMENT_SIZE = 64 * 1024 * 1024;
+  private final        Database      database;
+  private final        Type          keyType;
+  private final        boolean       longKeys;
+  private final        int           slotSize;
+  private final        AtomicLong    availableRAM;
+  private final        File          spillDirectory;
+  private              OffHeapBuffer slots;
+  private              long          capacity;
+  private              OffHeapBuffer keys;
+  private              long          keysSize     = 0;
+  private              long          totalEntries = 0;
+  private volatile     boolean       readOnly     = false;
+
+  public OffHeapAny2RIDIndex(final Database database, final Type keyType, final long expectedSize, final long maxRAM, final File spillDirectory) {
+    this(database, keyType, expectedSize, new AtomicLong(maxRAM), spillDirectory);
+  }
+
+  /**
+   * @param availableRAM bytes of direct memory still available, shared with the other structures created with the same budget
+   */
+  public OffHeapAny2RIDIndex(final Database database, final Type keyType, final long expectedSize, final AtomicLong availableRAM,
+      final File spillDirectory) {
+    this.database = database;
+    this.keyType = keyType;
+    this.longKeys = keyType == Type.LONG || keyType == Type.INTEGER || keyType == Type.SHORT || keyType == Type.BYTE;
+    // LONG KEYS: KEY|RID, OTHER KEYS: HASH|KEY OFFSET|RID
+    this.slotSize = longKeys ? 16 : 24;
+    this.availableRAM = availableRAM;
+    this.spillDirectory = spillDirectory;
+
+    long initialCapacity = 1024;
+    while (initialCapacity * 3 / 4 < expectedSize)
+      initialCapacity <<= 1;
+
+    this.capacity = initialCapacity;
+    this.slots = newSlots(initialCapacity);
+    if (!longKeys)
+      this.keys = new OffHeapBuffer(SEGMENT_SIZE, availableRAM, spillDirectory);
+  }
+
+  public Type getKeyType() {
+    return keyType;
+  }
+
+  public long size() {
+    return totalEntries;
+  }
+
+  public boolean isEmpty() {
+    return totalEntries == 0;
+  }
+
+  public long getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Returns the bytes used by slots and keys, in RAM and in temporary files.
+   */
+  public long getAllocatedBytes() {
+    return slots.getCapacity() + (keys != null ? keys.getCapacity() : 0);
+  }
+
+  public long getSpilledBytes() {
+    return slots.getSpilledBytes() + (keys != null ? keys.getSpilledBytes() : 0);
+  }
+
+  /**
+   * Makes the map read only. After this call the lookups are not synchronized anymore.
+   */
+  public void setReadOnly() {
+    readOnly = true;
+  }
+
+  public boolean containsKey(final Object key) {
+    return get(key) != null;
+  }
+
+  public RID get(final Object key) {
+    if (key == null)
+      throw new IllegalArgumentException("Key is null");
+
+    if (longKeys)
+      return get(((Number) key).longValue());
+
+    final byte[] keyBytes = key.toString().getBytes(StandardCharsets.UTF_8);
+    if (readOnly)
+      return lookup(keyBytes);
+
+    synchronized (this) {
+      return lookup(keyBytes);
+    }
+  }
+
+  public RID get(final long key) {
+    if (!longKeys)
+      return get(Long.toString(key));
+
+    if (readOnly)
+      return lookup(key);
+
+    synchronized (this) {
+      return lookup(key);
+    }
+  }
+
+  public synchronized void put(final Object key, final RID value) {
+    if (key == null)
+      throw new IllegalArgumentException("Key is null");
+
+    if (longKeys)
+      put(((Number) key).longValue(), value);
+    else
+      put(key.toString().getBytes(StandardCharsets.UTF_8), value);
+  }
+
+  public synchronized void put(final long key, final RID value) {
+    if (!longKeys) {
+      put(Long.toString(key), value);
+      return;
+    }
+
+    final long encodedValue = encodeValue(value);
+    ensureSpace();
+
+    for (long slot = hash(key) & (capacity - 1); ; slot = (slot + 1) & (capacity - 1)) {
+      final long offset = slot * slotSize;
+      if (slots.getLong(offset + 8) == 0) {
+        slots.putLong(offset, key);
+        slots.putLong(offset + 8, encodedValue);
+        ++totalEntries;
+        return;
+      }
+
+      if (slots.getLong(offset) == key)
+        throw new IllegalArgumentException("Key '" + key + "' is already present in the map");
+    }
+  }
+
+  /**
+   * Releases the memory and deletes the temporary files.
+   */
+  public synchronized void close() {
+    slots.close();
+    if (keys != null)
+      keys.close();
+    totalEntries = 0;
+  }
+
+  private void put(final byte[] key, final RID value) {
+    final long encodedValue = encodeValue(value);
+    ensureSpace();
+
+    final long hash = hash(key);
+    for (long slot = hash & (capacity - 1); ; slot = (slot + 1) & (capacity - 1)) {
+      final long offset = slot * slotSize;
+      if (slots.getLong(offset + 16) == 0) {
+        // STORE THE KEY AS LENGTH + BYTES
+        final long keyOffset = keysSize;
+        keys.ensureCapacity(keyOffset + Integer.BYTES + key.length);
+        keys.putInt(keyOffset, key.length);
+        keys.putBytes(keyOffset + Integer.BYTES, key);
+        // KEEP THE NEXT KEY ALIGNED TO 4 BYTES
+        keysSize = (keyOffset + Integer.BYTES + key.length + 3) & ~3L;
+
+        slots.putLong(offset, hash);
+        slots.putLong(offset + 8, keyOffset);
+        slots.putLong(offset + 16, encodedValue);
+        ++totalEntries;
+        return;
+      }
+
+      if (slots.getLong(offset) == hash && keyEquals(slots.getLong(offset + 8), key))
+        throw new IllegalArgumentException("Key '" + new String(key, StandardCharsets.UTF_8) + "' is already present in the map");
+    }
+  }
+
+  private RID lookup(final long key) {
+    for (long slot = hash(key) & (capacity - 1); ; slot = (slot + 1) & (capacity - 1)) {
+      final long offset = slot * slotSize;
+      final long value = slots.getLong(offset + 8);
+      if (value == 0)
+        return null;
+      if (slots.getLong(offset) == key)
+        return OffHeapBuffer.decodeRID(database, value);
+    }
+  }
+
+  private RID lookup(final byte[] key) {
+    final long hash = hash(key);
+    for (long slot = hash & (capacity - 1); ; slot = (slot + 1) & (capacity - 1)) {
+      final long offset = slot * slotSize;
+      final long value = slots.getLong(offset + 16);
+      if (value == 0)
+        return null;
+      if (slots.getLong(offset) == hash && keyEquals(slots.getLong(offset + 8), key))
+        return OffHeapBuffer.decodeRID(database, value);
+    }
+  }
+
+  private boolean keyEquals(final long keyOffset, final byte[] key) {
+    return keys.getInt(keyOffset) == key.length && keys.equalsBytes(keyOffset + Integer.BYTES, key);
+  }
+
+  private long encodeValue(final RID value) {
+    if (value == null)
+      throw new IllegalArgumentException("Value is null");
+    if (readOnly)
+      throw new IllegalStateException("Map is read only");
+    return OffHeapBuffer.encodeRID(value);
+  }
+
+  /**
+   * Doubles the slots when 3/4 are used. The entries are moved to the new slots without touching the keys, then the old slots are freed.
+   */
+  private void ensureSpace() {
+    if (totalEntries + 1 <= capacity * 3 / 4)
+      return;
+
+    final long newCapacity = capacity << 1;
+    final OffHeapBuffer newSlots = newSlots(newCapacity);
+    final int valueOffset = slotSize - 8;
+
+    for (long slot = 0; slot < capacity; ++slot) {
+      final long offset = slot * slotSize;
+      final long value = slots.getLong(offset + valueOffset);
+      if (value == 0)
+        continue;
+
+      final long keyOrHash = slots.getLong(offset);
+      long newSlot = (longKeys ? hash(keyOrHash) : keyOrHash) & (newCapacity - 1);
+      while (newSlots.getLong(newSlot * slotSize + valueOffset) != 0)
+        newSlot = (newSlot + 1) & (newCapacity - 1);
+
+      final long newOffset = newSlot * slotSize;
+      for (int i = 0; i < slotSize; i += 8)
+        newSlots.putLong(newOffset + i, slots.getLong(offset + i));
+    }
+
+    slots.close();
+    slots = newSlots;
+    capacity = newCapacity;
+  }
+
+  private OffHeapBuffer newSlots(final long capacity) {
+    final long bytes = capacity * slotSize;
+    final OffHeapBuffer buffer = new OffHeapBuffer((int) Math.min(bytes, SEGMENT_SIZE), availableRAM, spillDirectory);
+    buffer.ensureCapacity(bytes);
+    return buffer;
+  }
+
+  private static long hash(final long key) {
+    // MURMUR3 FINALIZER: SPREADS SEQUENTIAL IDS ACROSS THE SLOTS
+    long h = key;
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  private static long hash(final byte[] key) {
+    // FNV-1A
+    long h = 0xcbf29ce484222325L;
+    for (final byte b : key) {
+      h ^= b;
+      h *= 0x100000001b3L;
+    }
+    return hash(h);
+  }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.index;
+
+import com.arcadedb.database.Database;
+import com.arcadedb.database.RID;
+import com.arcadedb.log.LogManager;
+
+import java.io.*;
+import java.lang.reflect.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.logging.*;
+
+/**
+ * Growable buffer addressed by a long offset, made of fixed-size segments allocated out of the heap. The segments are direct buffers while the
+ * RAM budget allows it (and the JVM grants more direct memory), then they are mapped from a temporary file, so the buffer can grow beyond the
+ * available RAM. The budget is the number of direct bytes still available and can be shared by multiple buffers, so the limit is enforced on all of
+ * them together. The segment size is a power of 2, so aligned longs and ints never span two segments. New segments are filled with zeros.
+ * <p>
+ * This class is not synchronized, the shared budget is.
+ */
+class OffHeapBuffer {
+  static final         int              MAX_SEGMENT_SIZE = 1 << 30;
+  // sun.misc.Unsafe IS ACCESSED BY REFLECTION ONLY, SO THE BUILD DOES NOT DEPEND ON IT
+  private static final Object           UNSAFE           = loadUnsafe();
+  private static final Method           INVOKE_CLEANER   = loadInvokeCleaner();
+  private final        int              segmentShift;
+  private final        int              segmentMask;
+  private final        AtomicLong       availableRAM;
+  private final        File             spillDirectory;
+  private              ByteBuffer[]     segments         = new ByteBuffer[0];
+  private              long             directBytes      = 0;
+  private              File             spillFile;
+  private              RandomAccessFile spillRandomAccessFile;
+  private              long             spilledBytes     = 0;
+
+  /**
+   * @param segmentSize    size of each segment in bytes, rounded up to the next power of 2 (max 1GB)
+   * @param availableRAM   bytes still available as direct memory, shared by all the buffers with the same budget. The bytes allocated are
+   *                       returned to the budget on {@link #close()}
+   * @param spillDirectory directory where to create the temporary file, null for the default temporary directory
+   */
+  OffHeapBuffer(final int segmentSize, final AtomicLong availableRAM, final File spillDirectory) {
+    final int size = Math.max(64, Integer.highestOneBit(Math.max(1, Math.min(segmentSize, MAX_SEGMENT_SIZE) - 1)) << 1);
+    this.segmentShift = Integer.numberOfTrailingZeros(size);
+    this.segmentMask = size - 1;
+    this.availableRAM = availableRAM;
+    this.spillDirectory = spillDirectory;
+  }
+
+  /**
+   * Makes sure the buffer can address `bytes` bytes by allocating the missing segments.
+   */
+  void ensureCapacity(final long bytes) {
+    final long segmentSize = segmentMask + 1L;
+    final int needed = (int) ((bytes + segmentSize - 1) >>> segmentShift);
+    if (needed <= segments.length)
+      return;
+
+    final ByteBuffer[] newSegments = Arrays.copyOf(segments, needed);
+    for (int i = segments.length; i < needed; ++i)
+      newSegments[i] = allocateSegment(i);
+    segments = newSegments;
+  }
+
+  long getCapacity() {
+    return ((long) segments.length) << segmentShift;
+  }
+
+  long getSpilledBytes() {
+    return spilledBytes;
+  }
+
+  long getLong(final long offset) {
+    return segments[(int) (offset >>> segmentShift)].getLong((int) (offset & segmentMask));
+  }
+
+  void putLong(final long offset, final long value) {
+    segments[(int) (offset >>> segmentShift)].putLong((int) (offset & segmentMask), value);
+  }
+
+  int getInt(final long offset) {
+    return segments[(int) (offset >>> segmentShift)].getInt((int) (offset & segmentMask));
+  }
+
+  void putInt(final long offset, final int value) {
+    segments[(int) (offset >>> segmentShift)].putInt((int) (offset & segmentMask), value);
+  }
+
+  void putBytes(long offset, final byte[] content) {
+    for (int i = 0; i < content.length; ) {
+      final ByteBuffer segment = segments[(int) (offset >>> segmentShift)].duplicate();
+      final int posInSegment = (int) (offset & segmentMask);
+      final int length = Math.min(content.length - i, segmentMask + 1 - posInSegment);
+      segment.position(posInSegment);
+      segment.put(content, i, length);
+      i += length;
+      offset += length;
+    }
+  }
+
+  boolean equalsBytes(long offset, final byte[] content) {
+    for (int i = 0; i < content.length; ++i, ++offset)
+      if (segments[(int) (offset >>> segmentShift)].get((int) (offset & segmentMask)) != content[i])
+        return false;
+    return true;
+  }
+
+  /**
+   * Frees the segments and deletes the temporary file, if any. The direct memory is freed immediately and returned to the budget, without waiting for
+   * the GC. The buffer must not be used after this call.
+   */
+  void close() {
+    final ByteBuffer[] toFree = segments;
+    segments = new ByteBuffer[0];
+    for (final ByteBuffer segment : toFree)
+      free(segment);
+
+    availableRAM.addAndGet(directBytes);
+    directBytes = 0;
+    spilledBytes = 0;
+    if (spillRandomAccessFile != null) {
+      try {
+        spillRandomAccessFile.close();
+      } catch (final IOException e) {
+        LogManager.instance().log(this, Level.WARNING, "Error on closing temporary file '%s'", e, spillFile);
+      }
+      spillRandomAccessFile = null;
+      if (!spillFile.delete())
+        spillFile.deleteOnExit();
+      spillFile = null;
+    }
+  }
+
+  /**
+   * Encodes a RID in a long: 16 bits for the bucket id + 1 (so 0 is never a valid RID) and 48 bits for the position + 1 (light edges have position
+   * -1). Encoded RIDs have the same order of the RIDs.
+   */
+  static long encodeRID(final RID rid) {
+    final int bucketId = rid.getBucketId();
+    final long position = rid.getPosition();
+    if (bucketId < 0 || bucketId >= 0x7FFF || position < -1 || position >= 0xFFFFFFFFFFFFL)
+      throw new IllegalArgumentException("RID " + rid + " cannot be stored out of the heap");
+    return ((long) (bucketId + 1) << 48) | (position + 1);
+  }
+
+  static RID decodeRID(final Database database, final long value) {
+    return new RID(database, (int) (value >>> 48) - 1, (value & 0xFFFFFFFFFFFFL) - 1);
+  }
+
+  private ByteBuffer allocateSegment(final int index) {
+    final int segmentSize = segmentMask + 1;
+    if (spillRandomAccessFile == null && reserveRAM(segmentSize)) {
+      try {
+        final ByteBuffer segment = ByteBuffer.allocateDirect(segmentSize);
+        directBytes += segmentSize;
+        return segment;
+      } catch (final OutOfMemoryError e) {
+        availableRAM.addAndGet(segmentSize);
+        LogManager.instance().log(this, Level.INFO, "Direct memory exhausted after %d bytes, using a temporary file", null, directBytes);
+      }
+    }
+
+    try {
+      if (spillRandomAccessFile == null) {
+        spillFile = File.createTempFile("arcadedb-offheap", ".tmp", spillDirectory);
+        spillRandomAccessFile = new RandomAccessFile(spillFile, "rw");
+      }
+
+      // MAPPING A REGION BEYOND THE END OF THE FILE EXTENDS IT WITH ZEROS
+      final ByteBuffer segment = spillRandomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, spilledBytes, segmentSize);
+      spilledBytes += segmentSize;
+      return segment;
+    } catch (final IOException e) {
+      throw new IndexException("Cannot allocate segment " + index + " of " + segmentSize + " bytes in temporary file", e);
+    }
+  }
+
+  private boolean reserveRAM(final int bytes) {
+    while (true) {
+      final long available = availableRAM.get();
+      if (available < bytes)
+        return false;
+      if (availableRAM.compareAndSet(available, available - bytes))
+        return true;
+    }
+  }
+
+  /**
+   * Unmaps direct and mapped buffers. If the cleaner is not accessible, the buffer is left to the GC.
+   */
+  private static void free(final ByteBuffer buffer) {
+    if (INVOKE_CLEANER == null || !buffer.isDirect())
+      return;
+    try {
+      INVOKE_CLEANER.invoke(UNSAFE, buffer);
+    } catch (final Exception e) {
+      LogManager.instance().log(OffHeapBuffer.class, Level.FINE, "Cannot free off-heap buffer, it will be released by the GC", e);
+    }
+  }
+
+  private static Object loadUnsafe() {
+    try {
+      final Field field = Class.forName("sun.misc.Unsafe").getDeclaredField("theUnsafe");
+      field.setAccessible(true);
+      return field.get(null);
+    } catch (final Exception e) {
+      LogManager.instance().log(OffHeapBuffer.class, Level.FINE, "Off-heap buffers will be released by the GC", e);
+      return null;
+    }
+  }
+
+  private static Method loadInvokeCleaner() {
+    if (UNSAFE == null)
+      return null;
+    try {
+      return UNSAFE.getClass().getMethod("invokeCleaner", ByteBuffer.class);
+    } catch (final NoSuchMethodException e) {
+      LogManager.instance().log(OffHeapBuffer.class, Level.FINE, "Off-heap buffers will be released by the GC", e);
+      return null;
+    }
+  }
+}
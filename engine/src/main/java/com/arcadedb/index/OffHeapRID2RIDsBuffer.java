@@ -0,0 +1,222 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.index;
+
+import com.arcadedb.database.Database;
+import com.arcadedb.database.RID;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Append-only buffer of entries made of a RID key and a pair of RIDs (edge+vertex), stored out of the heap as 3 longs per entry. It replaces a map
+ * when the entries are consumed in order: after {@link #sort()} the entries are ordered by key, so the entries of the same key are contiguous and the
+ * keys are browsed in the physical order of the records. The buffer grows without limits: when the budget of direct memory, possibly shared with other
+ * buffers, is exhausted the entries are kept in a temporary file (see {@link OffHeapBuffer}).
+ * <br>
+ * This index is used for invert incoming edge creation.
+ * <br>
+ * This class is not synchronized.
+ */
+public class OffHeapRID2RIDsBuffer {
+  private static final int           ENTRY_SIZE               = 3 * 8;
+  private static final int           SEGMENT_SIZE             = 16 * 1024 * 1024;
+  private static final int           INSERTION_SORT_THRESHOLD = 16;
+  private final        Database      database;
+  private final        OffHeapBuffer buffer;
+  private              long          totalEntries             = 0;
+  private              boolean       sorted                   = true;
+
+  public class EntryIterator {
+    private long entry = 0;
+
+    public boolean hasNext() {
+      return entry < totalEntries;
+    }
+
+    public RID getKeyRID() {
+      return OffHeapBuffer.decodeRID(database, getKey());
+    }
+
+    /**
+     * Returns the key encoded as a long, to compare keys without creating RID objects. Encoded keys have the same order of the RIDs.
+     */
+    public long getKey() {
+      if (!hasNext())
+        throw new NoSuchElementException();
+      return buffer.getLong(entry * ENTRY_SIZE);
+    }
+
+    public RID getEdgeRID() {
+      if (!hasNext())
+        throw new NoSuchElementException();
+      return OffHeapBuffer.decodeRID(database, buffer.getLong(entry * ENTRY_SIZE + 8));
+    }
+
+    public RID getVertexRID() {
+      if (!hasNext())
+        throw new NoSuchElementException();
+      return OffHeapBuffer.decodeRID(database, buffer.getLong(entry * ENTRY_SIZE + 16));
+    }
+
+    public void moveNext() {
+      ++entry;
+    }
+  }
+
+  public OffHeapRID2RIDsBuffer(final Database database, final long maxRAM, final File spillDirectory) {
+    this(database, new AtomicLong(maxRAM), spillDirectory);
+  }
+
+  /**
+   * @param availableRAM bytes of direct memory still available, shared with the other buffers created with the same budget
+   */
+  public OffHeapRID2RIDsBuffer(final Database database, final AtomicLong availableRAM, final File spillDirectory) {
+    this.database = database;
+    this.buffer = new OffHeapBuffer(SEGMENT_SIZE, availableRAM, spillDirectory);
+  }
+
+  public long size() {
+    return totalEntries;
+  }
+
+  public boolean isEmpty() {
+    return totalEntries == 0;
+  }
+
+  /**
+   * Returns the bytes used by the entries.
+   */
+  public long getUsedBytes() {
+    return totalEntries * ENTRY_SIZE;
+  }
+
+  public void put(final RID key, final RID edgeRID, final RID vertexRID) {
+    if (key == null)
+      throw new IllegalArgumentException("Key is null");
+
+    if (vertexRID == null)
+      throw new IllegalArgumentException("Source vertex RID is null");
+
+    final long encodedKey = OffHeapBuffer.encodeRID(key);
+    final long offset = totalEntries * ENTRY_SIZE;
+    buffer.ensureCapacity(offset + ENTRY_SIZE);
+
+    if (sorted && totalEntries > 0 && buffer.getLong(offset - ENTRY_SIZE) > encodedKey)
+      sorted = false;
+
+    buffer.putLong(offset, encodedKey);
+    buffer.putLong(offset + 8, OffHeapBuffer.encodeRID(edgeRID));
+    buffer.putLong(offset + 16, OffHeapBuffer.encodeRID(vertexRID));
+    ++totalEntries;
+  }
+
+  /**
+   * Sorts the entries by key, if they were not appended in order.
+   */
+  public void sort() {
+    if (sorted)
+      return;
+    quickSort(0, totalEntries - 1);
+    sorted = true;
+  }
+
+  public EntryIterator entryIterator() {
+    return new EntryIterator();
+  }
+
+  /**
+   * Removes all the entries, keeping the allocated memory for the next entries.
+   */
+  public void clear() {
+    totalEntries = 0;
+    sorted = true;
+  }
+
+  /**
+   * Releases the memory and deletes the temporary file, if any.
+   */
+  public void close() {
+    clear();
+    buffer.close();
+  }
+
+  private void quickSort(long low, long high) {
+    while (high - low > INSERTION_SORT_THRESHOLD) {
+      // MEDIAN OF THREE AS PIVOT
+      final long middle = low + (high - low) / 2;
+      if (compare(middle, low) < 0)
+        swap(middle, low);
+      if (compare(high, low) < 0)
+        swap(high, low);
+      if (compare(high, middle) < 0)
+        swap(high, middle);
+
+      final long pivotKey = buffer.getLong(middle * ENTRY_SIZE);
+      final long pivotVertex = buffer.getLong(middle * ENTRY_SIZE + 16);
+
+      long i = low;
+      long j = high;
+      while (i <= j) {
+        while (compare(i, pivotKey, pivotVertex) < 0)
+          ++i;
+        while (compare(j, pivotKey, pivotVertex) > 0)
+          --j;
+        if (i <= j) {
+          swap(i, j);
+          ++i;
+          --j;
+        }
+      }
+
+      // RECURSE ON THE SMALLER PART TO LIMIT THE STACK DEPTH
+      if (j - low < high - i) {
+        quickSort(low, j);
+        low = i;
+      } else {
+        quickSort(i, high);
+        high = j;
+      }
+    }
+
+    for (long i = low + 1; i <= high; ++i)
+      for (long j = i; j > low && compare(j, j - 1) < 0; --j)
+        swap(j, j - 1);
+  }
+
+  private int compare(final long entry1, final long entry2) {
+    return compare(entry1, buffer.getLong(entry2 * ENTRY_SIZE), buffer.getLong(entry2 * ENTRY_SIZE + 16));
+  }
+
+  private int compare(final long entry, final long key, final long vertex) {
+    final int cmp = Long.compare(buffer.getLong(entry * ENTRY_SIZE), key);
+    return cmp != 0 ? cmp : Long.compare(buffer.getLong(entry * ENTRY_SIZE + 16), vertex);
+  }
+
+  private void swap(final long entry1, final long entry2) {
+    final long offset1 = entry1 * ENTRY_SIZE;
+    final long offset2 = entry2 * ENTRY_SIZE;
+    for (int i = 0; i < ENTRY_SIZE; i += 8) {
+      final long value = buffer.getLong(offset1 + i);
+      buffer.putLong(offset1 + i, buffer.getLong(offset2 + i));
+      buffer.putLong(offset2 + i, value);
+    }
+  }
+}
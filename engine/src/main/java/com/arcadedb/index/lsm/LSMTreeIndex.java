@@ -18,12 +18,14 @@
  */
 package com.arcadedb.index.lsm;
 
+import com.arcadedb.GlobalConfiguration;
 import com.arcadedb.database.DatabaseInternal;
 import com.arcadedb.database.Document;
 import com.arcadedb.database.Identifiable;
 import com.arcadedb.database.RID;
 import com.arcadedb.database.TransactionContext;
 import com.arcadedb.database.TransactionIndexContext;
+import com.arcadedb.database.async.DatabaseAsyncExecutorImpl;
 import com.arcadedb.engine.BasePage;
 import com.arcadedb.engine.ComponentFile;
 import com.arcadedb.engine.MutablePage;
@@ -63,16 +65,17 @@ import java.util.logging.*;
  * LSM-Tree index implementation. It relies on a mutable index and its underlying immutable, compacted index.
  */
 public class LSMTreeIndex implements RangeIndex, IndexInternal {
-  private static final IndexCursor                   EMPTY_CURSOR       = new EmptyIndexCursor();
+  private static final IndexCursor                   EMPTY_CURSOR         = new EmptyIndexCursor();
   private final        String                        name;
-  private final        RWLockContext                 lock               = new RWLockContext();
+  private final        RWLockContext                 lock                 = new RWLockContext();
   private              TypeIndex                     typeIndex;
-  private              int                           associatedBucketId = -1;
+  private              int                           associatedBucketId   = -1;
   private              String                        typeName;
   protected            List<String>                  propertyNames;
   protected            LSMTreeIndexMutable           mutable;
-  protected final      AtomicReference<INDEX_STATUS> status             = new AtomicReference<>(INDEX_STATUS.AVAILABLE);
-  private              boolean                       valid              = true;
+  protected final      AtomicReference<INDEX_STATUS> status               = new AtomicReference<>(INDEX_STATUS.AVAILABLE);
+  private final        AtomicBoolean                 seriesMergeScheduled = new AtomicBoolean(false);
+  private              boolean                       valid                = true;
 
   public static class IndexFactoryHandler implements com.arcadedb.index.IndexFactoryHandler {
     @Override
@@ -228,14 +231,51 @@ public class LSMTreeIndex implements RangeIndex, IndexInternal {
       // COMPACTION NOT SCHEDULED
       return false;
 
+    final boolean compacted;
     try {
-      return new LSMTreeIndexCompactor().compact(this);
+      compacted = new LSMTreeIndexCompactor().compact(this);
     } catch (final TimeoutException e) {
       // IGNORE IT, WILL RETRY LATER
       return false;
     } finally {
       status.set(INDEX_STATUS.AVAILABLE);
     }
+
+    if (compacted)
+      scheduleSeriesMerge();
+    return compacted;
+  }
+
+  /**
+   * Merges the series of the compacted index if they are more than {@link GlobalConfiguration#INDEX_COMPACTION_MAX_SERIES}. The merge is scheduled in
+   * background after a compaction and it never runs together with a compaction.
+   *
+   * @return true if the series have been merged
+   */
+  public boolean mergeSeries() throws IOException, InterruptedException {
+    checkIsValid();
+    seriesMergeScheduled.set(false);
+
+    if (getDatabase().getMode() == ComponentFile.MODE.READ_ONLY)
+      return false;
+
+    if (getDatabase().getPageManager().isPageFlushingSuspended())
+      // POSTPONE MERGING (DATABASE BACKUP IN PROGRESS?): THE NEXT COMPACTION WILL SCHEDULE IT AGAIN
+      return false;
+
+    if (!status.compareAndSet(INDEX_STATUS.AVAILABLE, INDEX_STATUS.COMPACTION_IN_PROGRESS))
+      // A COMPACTION IS SCHEDULED OR RUNNING: IT WILL SCHEDULE THE MERGE AGAIN
+      return false;
+
+    try {
+      final LSMTreeIndexCompacted subIndex = mutable.getSubIndex();
+      return subIndex != null && new LSMTreeIndexSeriesMerger(this, subIndex).mergeIfNeeded();
+    } catch (final TimeoutException e) {
+      // IGNORE IT, WILL RETRY AFTER THE NEXT COMPACTION
+      return false;
+    } finally {
+      status.set(INDEX_STATUS.AVAILABLE);
+    }
   }
 
   @Override
@@ -506,6 +546,46 @@ public class LSMTreeIndex implements RangeIndex, IndexInternal {
     return name;
   }
 
+  /**
+   * Makes visible the series appended to the compacted index by a merge. The series replaced by the merge are not visible anymore.
+   */
+  protected void publishCompactedSeries(final LSMTreeIndexCompacted compactedIndex) {
+    checkIsValid();
+    lock.executeInWriteLock(() -> {
+      final MutablePage mainPage = compactedIndex.setCompactedTotalPages();
+      getDatabase().getPageManager().writePages(List.of(getDatabase().getPageManager().updatePageVersion(mainPage, false)), false);
+      return null;
+    });
+  }
+
+  /**
+   * Replaces the compacted index with a new one with the same entries, like the one written by a full merge of the series. The old compacted index is not
+   * dropped.
+   */
+  protected void replaceCompactedIndex(final LSMTreeIndexCompacted compactedIndex) {
+    checkIsValid();
+    final DatabaseInternal database = getDatabase();
+    if (database.isTransactionActive())
+      throw new IllegalStateException("Cannot replace compacted index because a transaction is active");
+
+    final int fileId = mutable.getFileId();
+
+    final LockManager.LOCK_STATUS locked = database.getTransactionManager().tryLockFile(fileId, 0);
+    if (locked == LockManager.LOCK_STATUS.NO)
+      throw new IllegalStateException("Cannot replace compacted index because cannot lock index file " + fileId);
+
+    try {
+      lock.executeInWriteLock(() -> {
+        final MutablePage rootPage = mutable.replaceSubIndex(compactedIndex);
+        database.getPageManager().writePages(List.of(database.getPageManager().updatePageVersion(rootPage, false)), false);
+        return null;
+      });
+    } finally {
+      if (locked == LockManager.LOCK_STATUS.YES)
+        database.getTransactionManager().unlockFile(fileId);
+    }
+  }
+
   protected LSMTreeIndexMutable splitIndex(final int startingFromPage, final LSMTreeIndexCompacted compactedIndex) {
     checkIsValid();
     final DatabaseInternal database = getDatabase();
@@ -530,7 +610,8 @@ public class LSMTreeIndex implements RangeIndex, IndexInternal {
 
         final LSMTreeIndexMutable newMutableIndex = new LSMTreeIndexMutable(this, database, newName, mutable.isUnique(),
             database.getDatabasePath() + File.separator + newName, mutable.getKeyTypes(), mutable.getBinaryKeyTypes(), pageSize,
-            LSMTreeIndexMutable.CURRENT_VERSION, compactedIndex);
+            // THE PAGES ARE COPIED AS THEY ARE, SO THE NEW FILE MUST KEEP THE SAME PAGE FORMAT
+            mutable.getVersion(), compactedIndex);
         database.getSchema().getEmbedded().registerFile(newMutableIndex);
 
         final List<MutablePage> modifiedPages = new ArrayList<>(2 + mutable.getTotalPages() - startingFromPage);
@@ -602,21 +683,36 @@ public class LSMTreeIndex implements RangeIndex, IndexInternal {
 
     if (status.compareAndSet(INDEX_STATUS.AVAILABLE, INDEX_STATUS.UNAVAILABLE)) {
 
-      db.scanBucket(db.getSchema().getBucketById(associatedBucketId).getName(), record -> {
-        db.getIndexer().addToIndex(LSMTreeIndex.this, record.getIdentity(), (Document) record);
-        total.incrementAndGet();
-
-        if (total.get() % buildIndexBatchSize == 0) {
-          // CHUNK OF 100K
-          db.getWrappedDatabaseInstance().commit();
-          db.getWrappedDatabaseInstance().begin();
+      final long buildRAM = db.getConfiguration().getValueAsLong(GlobalConfiguration.INDEX_BUILD_RAM_MB) * 1024L * 1024L;
+      if (buildRAM > 0 && db.isTransactionActive() && mutable.getTotalPages() == 1 && mutable.getSubIndex() == null) {
+        // EMPTY INDEX: SORT THE KEYS AND WRITE THEM DIRECTLY IN A COMPACTED INDEX
+        try {
+          total.set(new LSMTreeIndexBulkBuilder(this, buildRAM, callback).build());
+        } catch (final IOException e) {
+          throw new IndexException("Error on building index '" + name + "'", e);
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IndexException("Building of index '" + name + "' has been interrupted", e);
+        } finally {
+          // IN CASE OF ERROR THE BUILDER DID NOT CHANGE THE INDEX, THAT IS STILL EMPTY AND USABLE
+          status.set(INDEX_STATUS.AVAILABLE);
         }
+      } else
+        db.scanBucket(db.getSchema().getBucketById(associatedBucketId).getName(), record -> {
+          db.getIndexer().addToIndex(LSMTreeIndex.this, record.getIdentity(), (Document) record);
+          total.incrementAndGet();
+
+          if (total.get() % buildIndexBatchSize == 0) {
+            // CHUNK OF 100K
+            db.getWrappedDatabaseInstance().commit();
+            db.getWrappedDatabaseInstance().begin();
+          }
 
-        if (callback != null)
-          callback.onDocumentIndexed((Document) record, total.get());
+          if (callback != null)
+            callback.onDocumentIndexed((Document) record, total.get());
 
-        return true;
-      });
+          return true;
+        });
 
       status.set(INDEX_STATUS.AVAILABLE);
 
@@ -630,7 +726,7 @@ public class LSMTreeIndex implements RangeIndex, IndexInternal {
     return lock;
   }
 
-  private Object[] convertKeys(final Object[] keys) {
+  Object[] convertKeys(final Object[] keys) {
     if (keys != null) {
       final byte[] keyTypes = mutable.binaryKeyTypes;
       final Object[] convertedKeys = new Object[keys.length];
@@ -644,6 +740,25 @@ public class LSMTreeIndex implements RangeIndex, IndexInternal {
     return null;
   }
 
+  private void scheduleSeriesMerge() {
+    final int maxSeries = getDatabase().getConfiguration().getValueAsInteger(GlobalConfiguration.INDEX_COMPACTION_MAX_SERIES);
+    final LSMTreeIndexCompacted subIndex = mutable.getSubIndex();
+    if (maxSeries < 1 || subIndex == null)
+      return;
+
+    try {
+      if (subIndex.getSeriesCount() <= maxSeries)
+        return;
+    } catch (final IOException e) {
+      LogManager.instance().log(this, Level.WARNING, "Error on reading the series of compacted index '%s'", e, subIndex.getName());
+      return;
+    }
+
+    if (seriesMergeScheduled.compareAndSet(false, true) && !((DatabaseAsyncExecutorImpl) getDatabase().async()).mergeSeries(this))
+      // QUEUE FULL: THE NEXT COMPACTION WILL SCHEDULE IT AGAIN
+      seriesMergeScheduled.set(false);
+  }
+
   private void checkIsValid() {
     if (!valid)
       throw new IndexException("Index '" + name + "' is not valid. Probably has been drop or rebuilt");
@@ -51,6 +51,17 @@ import static com.arcadedb.database.Binary.INT_SERIALIZED_SIZE;
  * HEADER ROOT PAGE (1st) = [offsetFreeKeyValueContent(int:4),numberOfEntries(int:4),mutable(boolean:1),compactedPageNumberOfSeries(int:4),subIndexFileId(int:4),numberOfKeys(byte:1),keyType(byte:1)*]
  * <br>
  * HEADER Nst PAGE        = [offsetFreeKeyValueContent(int:4),numberOfEntries(int:4),mutable(boolean:1),compactedPageNumberOfSeries(int:4)]
+ * <br>
+ * Starting from version 2 the keys are prefix compressed. An entry is either a restart entry with the whole key or an entry that shares the first bytes
+ * of the key with a restart entry in the same page:
+ * <br>
+ * RESTART ENTRY    = [0(varint),key,values]
+ * <br>
+ * COMPRESSED ENTRY = [sharedBytes(varint),restartEntryPosition(varint),suffixLength(varint),keySuffix,values]
+ * <br>
+ * Compressed entries always point to a restart entry, so every entry can be decoded by itself and the binary search on the offsets array works as before.
+ * Compacted pages store a restart entry every {@link #RESTART_INTERVAL} entries, mutable pages compress a new entry against the restart entry of its
+ * neighbour.
  * <p>
  * <p>
  * The page content size and available space API are not valid in the index pages, because the whole page is used from start to end.
@@ -58,9 +69,14 @@ import static com.arcadedb.database.Binary.INT_SERIALIZED_SIZE;
 public abstract class LSMTreeIndexAbstract extends PaginatedComponent {
   public enum NULL_STRATEGY {ERROR, SKIP}
 
-  public static final    int    DEF_PAGE_SIZE = 2 * 1024 * 1024;
+  public static final    int    DEF_PAGE_SIZE                = 2 * 1024 * 1024;
   public final           RID    REMOVED_ENTRY_RID;
-  protected static final String TEMP_EXT      = "temp_";
+  protected static final String TEMP_EXT                     = "temp_";
+  protected static final int    PREFIX_COMPRESSED_VERSION    = 2;
+  protected static final int    RESTART_INTERVAL             = 16;
+  protected static final int    MIN_PREFIX_COMPRESSED_SHARED = 4;
+
+  private static final ThreadLocal<Binary> KEY_BUFFER = ThreadLocal.withInitial(() -> new Binary(256, true));
 
   protected static final LSMTreeIndexCompacted.LookupResult LOWER     = new LSMTreeIndexCompacted.LookupResult(false, true, 0, null);
   protected static final LSMTreeIndexCompacted.LookupResult HIGHER    = new LSMTreeIndexCompacted.LookupResult(false, true, 0, null);
@@ -306,16 +322,127 @@ public abstract class LSMTreeIndexAbstract extends PaginatedComponent {
 
   protected void writeEntry(final Binary buffer, final Object[] keys, final Object rid) {
     buffer.clear();
+    writeEntryHeader(buffer);
     writeKeys(buffer, keys);
     writeEntryValue(buffer, rid);
   }
 
   protected void writeEntry(final Binary buffer, final Object[] keys, final Object[] rids) {
     buffer.clear();
+    writeEntryHeader(buffer);
     writeKeys(buffer, keys);
     writeEntryValues(buffer, rids);
   }
 
+  /**
+   * Rewrites the entry produced by writeEntry() sharing the beginning of the key with the restart entry stored at the content position
+   * <code>restartPos</code> of the page. The entry is left as it is if the shared prefix is too short to save space.
+   */
+  protected void compressEntry(final Binary entry, final Binary pageBuffer, final int restartPos) {
+    if (version < PREFIX_COMPRESSED_VERSION)
+      return;
+
+    // SKIP THE HEADER (1 BYTE) OF BOTH THE ENTRIES
+    entry.position(1);
+    final int keySize = getSerializedKeySize(entry, binaryKeyTypes.length);
+
+    pageBuffer.position(restartPos);
+    if (pageBuffer.getUnsignedNumber() != 0)
+      throw new IndexException("Internal error: entry at position " + restartPos + " is not a restart entry");
+    final int restartKeySize = getSerializedKeySize(pageBuffer, binaryKeyTypes.length);
+
+    final int maxShared = Math.min(keySize, restartKeySize);
+    int shared = 0;
+    while (shared < maxShared && entry.getByte(1 + shared) == pageBuffer.getByte(restartPos + 1 + shared))
+      ++shared;
+
+    if (shared < MIN_PREFIX_COMPRESSED_SHARED)
+      return;
+
+    final int headerSize = Binary.getUnsignedNumberSpace(shared) + Binary.getUnsignedNumberSpace(restartPos) + Binary.getUnsignedNumberSpace(
+        keySize - shared);
+    if (headerSize >= 1 + shared)
+      // NOTHING TO SAVE
+      return;
+
+    final int entrySize = entry.size();
+    entry.move(1 + shared, headerSize, entrySize - 1 - shared);
+
+    entry.putUnsignedNumber(0, shared);
+    entry.putUnsignedNumber(restartPos);
+    entry.putUnsignedNumber(keySize - shared);
+    entry.size(entrySize - 1 - shared + headerSize);
+  }
+
+  /**
+   * Returns the content position of the restart entry the entry at <code>contentPos</code> refers to. A restart entry refers to itself.
+   */
+  protected int getRestartEntryPosition(final Binary pageBuffer, final int contentPos) {
+    pageBuffer.position(contentPos);
+    if (pageBuffer.getUnsignedNumber() == 0)
+      return contentPos;
+    return (int) pageBuffer.getUnsignedNumber();
+  }
+
+  /**
+   * Returns the buffer to read the key of the entry stored at <code>contentPos</code> from, positioned at the beginning of the key. Prefix compressed keys
+   * are rebuilt in a buffer reused by the current thread, so the returned buffer is valid only until the next call. Once the key has been read, the page
+   * buffer is positioned at the beginning of the entry values.
+   */
+  protected Binary getEntryKeyBuffer(final Binary pageBuffer, final int contentPos) {
+    pageBuffer.position(contentPos);
+    if (version < PREFIX_COMPRESSED_VERSION)
+      return pageBuffer;
+
+    final int shared = (int) pageBuffer.getUnsignedNumber();
+    if (shared == 0)
+      // RESTART ENTRY: THE WHOLE KEY FOLLOWS
+      return pageBuffer;
+
+    final int restartPos = (int) pageBuffer.getUnsignedNumber();
+    final int suffixLength = (int) pageBuffer.getUnsignedNumber();
+    final int suffixPos = pageBuffer.position();
+
+    final byte[] pageContent = pageBuffer.getContent();
+    final int pageOffset = pageBuffer.getContentBeginOffset();
+
+    final Binary keyBuffer = KEY_BUFFER.get();
+    keyBuffer.clear();
+    keyBuffer.putByteArray(pageContent, pageOffset + restartPos + 1, shared);
+    keyBuffer.putByteArray(pageContent, pageOffset + suffixPos, suffixLength);
+    keyBuffer.position(0);
+
+    pageBuffer.position(suffixPos + suffixLength);
+    return keyBuffer;
+  }
+
+  /**
+   * Returns the position in the page where the values of the entry stored at <code>contentPos</code> begin.
+   */
+  protected int getEntryValuesPosition(final Binary pageBuffer, final int contentPos) {
+    final Binary keyBuffer = getEntryKeyBuffer(pageBuffer, contentPos);
+    if (keyBuffer == pageBuffer)
+      getSerializedKeySize(pageBuffer, binaryKeyTypes.length);
+    return pageBuffer.position();
+  }
+
+  /**
+   * Reads the whole key of the entry stored at <code>contentPos</code>. At the end the page buffer is positioned at the beginning of the entry values.
+   */
+  protected Object[] readEntryKeys(final Binary pageBuffer, final int contentPos) {
+    final Binary keyBuffer = getEntryKeyBuffer(pageBuffer, contentPos);
+
+    final Object[] key = new Object[binaryKeyTypes.length];
+    for (int keyIndex = 0; keyIndex < binaryKeyTypes.length; ++keyIndex) {
+      final boolean notNull = version < 1 || keyBuffer.getByte() == 1;
+      if (notNull)
+        key[keyIndex] = serializer.deserializeValue(database, keyBuffer, binaryKeyTypes[keyIndex], null);
+      else
+        key[keyIndex] = null;
+    }
+    return key;
+  }
+
   /**
    * Reads the keys and returns the serialized size.
    */
@@ -363,19 +490,7 @@ public abstract class LSMTreeIndexAbstract extends PaginatedComponent {
   protected Object[] getKeyInPagePosition(final int pageNum, final Binary currentPageBuffer, final int position) {
     final int startIndexArray = getHeaderSize(pageNum);
     final int contentPos = currentPageBuffer.getInt(startIndexArray + (position * INT_SERIALIZED_SIZE));
-    currentPageBuffer.position(contentPos);
-
-    final Object[] key = new Object[binaryKeyTypes.length];
-
-    for (int keyIndex = 0; keyIndex < binaryKeyTypes.length; ++keyIndex) {
-      final boolean notNull = version < 1 || currentPageBuffer.getByte() == 1;
-      if (notNull)
-        key[keyIndex] = serializer.deserializeValue(database, currentPageBuffer, binaryKeyTypes[keyIndex], null);
-      else
-        key[keyIndex] = null;
-    }
-
-    return key;
+    return readEntryKeys(currentPageBuffer, contentPos);
   }
 
   protected int compareKey(final Binary currentPageBuffer, final int startIndexArray, final Object[] keys, final int mid, final int count) {
@@ -383,14 +498,14 @@ public abstract class LSMTreeIndexAbstract extends PaginatedComponent {
     if (contentPos < startIndexArray + (count * INT_SERIALIZED_SIZE))
       throw new IndexException("Internal error: invalid content position " + contentPos + " is < of " + (startIndexArray + (count * INT_SERIALIZED_SIZE)));
 
-    currentPageBuffer.position(contentPos);
+    final Binary keyBuffer = getEntryKeyBuffer(currentPageBuffer, contentPos);
 
     int result = -1;
     for (int keyIndex = 0; keyIndex < keys.length; ++keyIndex) {
       // GET THE KEY
       final Object key = keys[keyIndex];
 
-      final boolean notNull = version < 1 || currentPageBuffer.getByte() == 1;
+      final boolean notNull = version < 1 || keyBuffer.getByte() == 1;
       if (!notNull) {
         if (key == null)
           // BOTH NULL
@@ -404,9 +519,9 @@ public abstract class LSMTreeIndexAbstract extends PaginatedComponent {
 
       if (binaryKeyTypes[keyIndex] == BinaryTypes.TYPE_STRING) {
         // OPTIMIZATION: SPECIAL CASE, LAZY EVALUATE BYTE PER BYTE THE STRING
-        result = comparator.compareBytes((byte[]) key, currentPageBuffer);
+        result = comparator.compareBytes((byte[]) key, keyBuffer);
       } else {
-        final Object keyValue = serializer.deserializeValue(database, currentPageBuffer, binaryKeyTypes[keyIndex], null);
+        final Object keyValue = serializer.deserializeValue(database, keyBuffer, binaryKeyTypes[keyIndex], null);
         result = comparator.compare(key, binaryKeyTypes[keyIndex], keyValue, binaryKeyTypes[keyIndex]);
       }
 
@@ -564,6 +679,12 @@ public abstract class LSMTreeIndexAbstract extends PaginatedComponent {
     return new RID(database, (rid.getBucketId() * -1) - 2, rid.getPosition());
   }
 
+  private void writeEntryHeader(final Binary buffer) {
+    if (version >= PREFIX_COMPRESSED_VERSION)
+      // RESTART ENTRY, THE ENTRY CAN BE COMPRESSED LATER BY compressEntry()
+      buffer.putUnsignedNumber(0);
+  }
+
   private void writeKeys(final Binary buffer, final Object[] keys) {
     // WRITE KEYS
     for (int i = 0; i < binaryKeyTypes.length; ++i) {
@@ -0,0 +1,467 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.index.lsm;
+
+import com.arcadedb.GlobalConfiguration;
+import com.arcadedb.database.Binary;
+import com.arcadedb.database.DatabaseContext;
+import com.arcadedb.database.DatabaseInternal;
+import com.arcadedb.database.Document;
+import com.arcadedb.database.RID;
+import com.arcadedb.database.Record;
+import com.arcadedb.engine.Bucket;
+import com.arcadedb.engine.MutablePage;
+import com.arcadedb.exception.DuplicatedKeyException;
+import com.arcadedb.index.Index;
+import com.arcadedb.index.IndexCursor;
+import com.arcadedb.index.IndexException;
+import com.arcadedb.index.TypeIndex;
+import com.arcadedb.log.LogManager;
+import com.arcadedb.schema.DocumentType;
+import com.arcadedb.security.SecurityDatabaseUser;
+import com.arcadedb.serializer.BinaryComparator;
+import com.arcadedb.serializer.BinarySerializer;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.logging.*;
+
+/**
+ * Builds an index on the records already stored in its bucket without passing through the transaction and the mutable pages. The pages of the bucket are
+ * split in ranges scanned in parallel. Every thread sorts the keys found in runs bounded by {@link GlobalConfiguration#INDEX_BUILD_RAM_MB}: when a run is
+ * full it is spilled to a temporary file. The sorted runs are merged and written as a new compacted index, page by page without the WAL. The compacted
+ * index is attached to the mutable index through the current transaction, so it becomes part of the index only when the transaction commits.
+ * <p>
+ * The ranges are scanned in parallel only if the current transaction did not modify the bucket, because the other threads cannot see those changes.
+ */
+public class LSMTreeIndexBulkBuilder {
+  private static final int  MIN_PAGES_PER_RANGE = 16;
+  // ESTIMATED RAM USED BY AN ENTRY IN A RUN WITHOUT THE KEYS: ENTRY OBJECT, KEYS ARRAY, RID AND THE REFERENCE IN THE LIST
+  private static final long ENTRY_RAM           = 96;
+
+  private final LSMTreeIndex             mainIndex;
+  private final LSMTreeIndexMutable      mutable;
+  private final DatabaseInternal         database;
+  private final Index.BuildIndexCallback callback;
+  private final byte[]                   keyTypes;
+  private final BinarySerializer         serializer;
+  private final BinaryComparator         comparator;
+  private final long                     maxRAM;
+  private final Comparator<Entry>        entryComparator;
+  private final AtomicLong               indexed    = new AtomicLong();
+  private final List<File>               spillFiles = Collections.synchronizedList(new ArrayList<>());
+  private volatile boolean               aborted    = false;
+
+  private static class Entry {
+    private final Object[] keys;
+    private final RID      rid;
+
+    private Entry(final Object[] keys, final RID rid) {
+      this.keys = keys;
+      this.rid = rid;
+    }
+  }
+
+  /**
+   * Sorted run of entries, kept in RAM or spilled to a temporary file.
+   */
+  private class Run implements Closeable {
+    private final Iterator<Entry> entries;
+    private final DataInputStream in;
+    private final Binary          buffer = new Binary();
+    private       Entry           current;
+
+    private Run(final List<Entry> entries) {
+      this.entries = entries.iterator();
+      this.in = null;
+    }
+
+    private Run(final File file) throws IOException {
+      this.entries = null;
+      this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 65536));
+    }
+
+    private boolean next() throws IOException {
+      if (entries != null) {
+        current = entries.hasNext() ? entries.next() : null;
+        return current != null;
+      }
+
+      final int size;
+      try {
+        size = in.readInt();
+      } catch (final EOFException e) {
+        current = null;
+        return false;
+      }
+
+      buffer.clear();
+      buffer.size(size);
+      in.readFully(buffer.getContent(), 0, size);
+      buffer.position(0);
+
+      final Object[] keys = new Object[keyTypes.length];
+      for (int i = 0; i < keys.length; ++i)
+        if (buffer.getByte() == 1)
+          keys[i] = serializer.deserializeValue(database, buffer, keyTypes[i], null);
+
+      final RID rid = new RID(database, (int) buffer.getNumber(), buffer.getNumber());
+      current = new Entry(keys, rid);
+      return true;
+    }
+
+    @Override
+    public void close() {
+      if (in != null)
+        try {
+          in.close();
+        } catch (final IOException e) {
+          // IGNORE IT
+        }
+    }
+  }
+
+  public LSMTreeIndexBulkBuilder(final LSMTreeIndex mainIndex, final long maxRAM, final Index.BuildIndexCallback callback) {
+    this.mainIndex = mainIndex;
+    this.mutable = mainIndex.getMutableIndex();
+    this.database = mutable.getDatabase();
+    this.callback = callback;
+    this.keyTypes = mutable.getBinaryKeyTypes();
+    this.serializer = database.getSerializer();
+    this.comparator = serializer.getComparator();
+    this.maxRAM = maxRAM;
+    this.entryComparator = (a, b) -> {
+      final int cmp = LSMTreeIndexAbstract.compareKeys(comparator, keyTypes, a.keys, b.keys);
+      return cmp != 0 ? cmp : a.rid.compareTo(b.rid);
+    };
+  }
+
+  /**
+   * Builds the index and returns the number of records indexed.
+   */
+  public long build() throws IOException, InterruptedException {
+    final long beginTime = System.currentTimeMillis();
+
+    final Bucket bucket = database.getSchema().getBucketById(mainIndex.getAssociatedBucketId());
+
+    final List<Run> runs = new ArrayList<>();
+    try {
+      final int threads = scan(bucket, 0, bucket.getTotalPages(), runs);
+
+      if (indexed.get() == 0)
+        return 0;
+
+      final LSMTreeIndexCompacted compacted = mutable.createNewForCompaction();
+      database.getSchema().getEmbedded().registerFile(compacted);
+
+      try {
+        final long keys = merge(runs, compacted);
+
+        final MutablePage mainPage = compacted.setCompactedTotalPages();
+        database.getPageManager().writePages(List.of(database.getPageManager().updatePageVersion(mainPage, false)), false);
+        compacted.removeTempSuffix();
+
+        mutable.setSubIndex(compacted);
+
+        LogManager.instance().log(mainIndex, Level.INFO, "Index '%s' built on %d records in %dms (keys=%d pages=%d threads=%d spilledRuns=%d)", null,
+            mainIndex.getName(), indexed.get(), System.currentTimeMillis() - beginTime, keys, compacted.getTotalPages(), threads, spillFiles.size());
+
+      } catch (final IOException | InterruptedException | RuntimeException e) {
+        compacted.drop();
+        throw e;
+      }
+
+      return indexed.get();
+
+    } finally {
+      close(runs);
+    }
+  }
+
+  /**
+   * Checks that the keys of the records in the ranges of pages are unique among them and are not in the index yet, without writing anything. The buckets
+   * of the ranges must be indexed by the same type index. Used to check records written in new pages before they are indexed.
+   *
+   * @param ranges the ranges of pages as bucket id, first page (inclusive) and last page (exclusive)
+   *
+   * @throws DuplicatedKeyException if a key is not unique
+   */
+  public void checkUniqueKeys(final List<int[]> ranges) throws IOException, InterruptedException {
+    final List<Run> runs = new ArrayList<>();
+    try {
+      for (final int[] range : ranges)
+        scan(database.getSchema().getBucketById(range[0]), range[1], range[2], runs);
+
+      merge(runs, null);
+
+    } finally {
+      close(runs);
+    }
+  }
+
+  /**
+   * Scans a range of pages of the bucket, in parallel if possible, and adds the sorted runs of the keys found to the list. Returns the number of threads
+   * used.
+   */
+  private int scan(final Bucket bucket, final int fromPage, final int toPage, final List<Run> runs) throws IOException {
+    final DocumentType type = database.getSchema().getType(database.getSchema().getTypeNameByBucketId(bucket.getFileId()));
+    final int totalPages = toPage - fromPage;
+
+    int threads = 1;
+    if (!database.isTransactionActive() || !database.getTransaction().isFileModified(bucket.getFileId())) {
+      threads = database.getConfiguration().getValueAsInteger(GlobalConfiguration.INDEX_BUILD_PARALLEL_LEVEL);
+      if (threads < 1)
+        threads = Runtime.getRuntime().availableProcessors();
+      threads = Math.max(1, Math.min(threads, totalPages / MIN_PAGES_PER_RANGE));
+    }
+
+    if (threads == 1) {
+      runs.addAll(scanRange(bucket, type, fromPage, toPage, maxRAM));
+      return threads;
+    }
+
+    final SecurityDatabaseUser user = getCurrentUser();
+    final long maxRunRAM = maxRAM / threads;
+
+    final ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+      final Thread thread = new Thread(r, "ArcadeDB-IndexBuild");
+      thread.setDaemon(true);
+      return thread;
+    });
+
+    try {
+      final List<Future<List<Run>>> tasks = new ArrayList<>(threads);
+      for (int i = 0; i < threads; ++i) {
+        final int rangeFrom = fromPage + (int) ((long) totalPages * i / threads);
+        final int rangeTo = fromPage + (int) ((long) totalPages * (i + 1) / threads);
+        tasks.add(executor.submit(() -> {
+          DatabaseContext.INSTANCE.init(database).setCurrentUser(user);
+          try {
+            return scanRange(bucket, type, rangeFrom, rangeTo, maxRunRAM);
+          } finally {
+            DatabaseContext.INSTANCE.removeContext(database.getDatabasePath());
+          }
+        }));
+      }
+
+      // WAIT FOR ALL THE TASKS EVEN IN CASE OF ERROR, SO THE RUNS ALREADY CREATED ARE CLOSED AND THEIR TEMPORARY FILES DELETED
+      RuntimeException error = null;
+      for (final Future<List<Run>> task : tasks) {
+        try {
+          runs.addAll(task.get());
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+          aborted = true;
+          if (error == null)
+            error = new IndexException("Building of index '" + mainIndex.getName() + "' has been interrupted", e);
+        } catch (final ExecutionException e) {
+          if (error == null) {
+            error = e.getCause() instanceof RuntimeException ?
+                (RuntimeException) e.getCause() :
+                new IndexException("Error on building index '" + mainIndex.getName() + "'", e.getCause());
+            // STOP THE OTHER SCANS
+            aborted = true;
+          }
+        }
+      }
+
+      if (error != null)
+        throw error;
+
+    } finally {
+      executor.shutdownNow();
+    }
+    return threads;
+  }
+
+  private void close(final List<Run> runs) {
+    for (final Run run : runs)
+      run.close();
+    for (final File file : spillFiles)
+      if (!file.delete())
+        LogManager.instance().log(this, Level.WARNING, "Cannot delete temporary file '%s' used to build index '%s'", null, file, mainIndex.getName());
+    spillFiles.clear();
+  }
+
+  /**
+   * Scans a range of pages of the bucket and returns the sorted runs of the keys found.
+   */
+  private List<Run> scanRange(final Bucket bucket, final DocumentType type, final int fromPage, final int toPage, final long maxRunRAM) throws IOException {
+    final List<Run> result = new ArrayList<>();
+    final List<Entry> run = new ArrayList<>();
+    final long[] runRAM = new long[] { 0L };
+    final RuntimeException[] error = new RuntimeException[1];
+
+    bucket.scan((rid, view) -> {
+      if (aborted)
+        return false;
+
+      try {
+        final Record record = database.getRecordFactory().newImmutableRecord(database.getWrappedDatabaseInstance(), type, rid, view, null);
+        if (!(record instanceof Document))
+          return true;
+
+        final Object[] keys = database.getIndexer().getKeyValues(mainIndex, (Document) record);
+        if (mutable.nullStrategy == LSMTreeIndexAbstract.NULL_STRATEGY.SKIP && LSMTreeIndexAbstract.isKeyNull(keys)) {
+          // NULL VALUES AND SKIP NULL VALUES
+        } else {
+          mutable.checkForNulls(keys);
+
+          final Object[] convertedKeys = mainIndex.convertKeys(keys);
+          run.add(new Entry(convertedKeys, rid));
+          runRAM[0] += getEntryRAM(convertedKeys);
+
+          if (runRAM[0] > maxRunRAM) {
+            result.add(spill(run));
+            run.clear();
+            runRAM[0] = 0L;
+          }
+        }
+
+        final long total = indexed.incrementAndGet();
+        if (callback != null)
+          synchronized (callback) {
+            callback.onDocumentIndexed((Document) record, total);
+          }
+
+        return true;
+
+      } catch (final IOException e) {
+        error[0] = new IndexException("Error on writing temporary file to build index '" + mainIndex.getName() + "'", e);
+      } catch (final RuntimeException e) {
+        error[0] = e;
+      }
+      // STOP THE SCAN, THE ERROR IS THROWN BELOW
+      return false;
+    }, null, fromPage, toPage);
+
+    if (error[0] != null)
+      throw error[0];
+
+    if (!run.isEmpty()) {
+      run.sort(entryComparator);
+      result.add(new Run(run));
+    }
+    return result;
+  }
+
+  /**
+   * Merges the sorted runs by writing the values of every key in the compacted index. Returns the number of keys written. If the compacted index is null
+   * the keys are only checked.
+   */
+  private long merge(final List<Run> runs, final LSMTreeIndexCompacted compacted) throws IOException, InterruptedException {
+    final PriorityQueue<Run> queue = new PriorityQueue<>(runs.size(), (a, b) -> entryComparator.compare(a.current, b.current));
+    for (final Run run : runs)
+      if (run.next())
+        queue.add(run);
+
+    final LSMTreeIndexCompactedSeriesWriter writer = compacted != null ? new LSMTreeIndexCompactedSeriesWriter(compacted) : null;
+    final List<RID> values = new ArrayList<>();
+    long totalKeys = 0;
+
+    while (!queue.isEmpty()) {
+      final Object[] keys = queue.peek().current.keys;
+
+      values.clear();
+      while (!queue.isEmpty() && LSMTreeIndexAbstract.compareKeys(comparator, keyTypes, queue.peek().current.keys, keys) == 0) {
+        final Run run = queue.poll();
+        values.add(run.current.rid);
+        if (run.next())
+          queue.add(run);
+      }
+
+      if (mutable.isUnique())
+        checkUniqueKey(keys, values);
+
+      if (writer != null)
+        writer.append(keys, values.toArray(new RID[values.size()]));
+      ++totalKeys;
+    }
+
+    if (writer != null)
+      writer.close();
+    return totalKeys;
+  }
+
+  /**
+   * Checks the key is unique in the bucket and across the indexes of the other buckets of the type.
+   */
+  private void checkUniqueKey(final Object[] keys, final List<RID> values) {
+    final TypeIndex typeIndex = mainIndex.getTypeIndex();
+    final String indexName = typeIndex != null ? typeIndex.getName() : mainIndex.getName();
+
+    if (values.size() > 1)
+      throw new DuplicatedKeyException(indexName, Arrays.toString(keys), values.get(0));
+
+    if (typeIndex != null) {
+      final IndexCursor found = typeIndex.get(keys, 1);
+      if (found.hasNext())
+        throw new DuplicatedKeyException(indexName, Arrays.toString(keys), found.next().getIdentity());
+    }
+  }
+
+  private Run spill(final List<Entry> run) throws IOException {
+    run.sort(entryComparator);
+
+    final File file = File.createTempFile("arcadedb-" + mainIndex.getName() + "-sort", ".tmp");
+    spillFiles.add(file);
+
+    final Binary buffer = new Binary();
+    try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 65536))) {
+      for (final Entry entry : run) {
+        buffer.clear();
+        for (int i = 0; i < keyTypes.length; ++i) {
+          if (entry.keys[i] == null)
+            buffer.putByte((byte) 0);
+          else {
+            buffer.putByte((byte) 1);
+            serializer.serializeValue(database, buffer, keyTypes[i], entry.keys[i]);
+          }
+        }
+        buffer.putNumber(entry.rid.getBucketId());
+        buffer.putNumber(entry.rid.getPosition());
+
+        out.writeInt(buffer.size());
+        out.write(buffer.getContent(), 0, buffer.size());
+      }
+    }
+
+    return new Run(file);
+  }
+
+  private static long getEntryRAM(final Object[] keys) {
+    long ram = ENTRY_RAM + 8L * keys.length;
+    for (final Object key : keys) {
+      if (key instanceof String)
+        ram += 48 + 2L * ((String) key).length();
+      else if (key instanceof byte[])
+        ram += 16 + ((byte[]) key).length;
+      else if (key != null)
+        ram += 24;
+    }
+    return ram;
+  }
+
+  private SecurityDatabaseUser getCurrentUser() {
+    final DatabaseContext.DatabaseContextTL current = DatabaseContext.INSTANCE.getContextIfExists(database.getDatabasePath());
+    return current != null ? current.getCurrentUser() : null;
+  }
+}
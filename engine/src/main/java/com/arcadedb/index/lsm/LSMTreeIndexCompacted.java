@@ -40,6 +40,10 @@ import static com.arcadedb.database.Binary.INT_SERIALIZED_SIZE;
 
 /**
  * The first page (main page) contains the total pages under the fields "compactedPageNumberOfSeries". This is to avoid concurrent read/write while compaction.
+ * <p>
+ * The series are read from the most recent one, at the end of the file, backwards. The last page of a series stores the number of pages of the series, so
+ * the root page is found by going back by that number. The root page of a series stores 0 if the previous series ends right before it, or a link to the
+ * last page of the previous series (see {@link #linkToPreviousSeries(int)}) when the pages in between have been merged into newer series.
  */
 public class LSMTreeIndexCompacted extends LSMTreeIndexAbstract {
   public static final String UNIQUE_INDEX_EXT    = "uctidx";
@@ -50,8 +54,15 @@ public class LSMTreeIndexCompacted extends LSMTreeIndexAbstract {
    */
   public LSMTreeIndexCompacted(final LSMTreeIndex mainIndex, final DatabaseInternal database, final String name, final boolean unique, final String filePath,
       final Type[] keyTypes, final byte[] binaryKeyTypes, final int pageSize) throws IOException {
-    super(mainIndex, database, name, unique, filePath, unique ? UNIQUE_INDEX_EXT : NOTUNIQUE_INDEX_EXT, keyTypes, binaryKeyTypes, pageSize,
-        LSMTreeIndexMutable.CURRENT_VERSION);
+    this(mainIndex, database, name, unique, filePath, keyTypes, binaryKeyTypes, pageSize, LSMTreeIndexMutable.CURRENT_VERSION);
+  }
+
+  /**
+   * Called at cloning time with a specific version of the page format.
+   */
+  public LSMTreeIndexCompacted(final LSMTreeIndex mainIndex, final DatabaseInternal database, final String name, final boolean unique, final String filePath,
+      final Type[] keyTypes, final byte[] binaryKeyTypes, final int pageSize, final int version) throws IOException {
+    super(mainIndex, database, name, unique, filePath, unique ? UNIQUE_INDEX_EXT : NOTUNIQUE_INDEX_EXT, keyTypes, binaryKeyTypes, pageSize, version);
   }
 
   /**
@@ -107,6 +118,7 @@ public class LSMTreeIndexCompacted extends LSMTreeIndexAbstract {
 
     int keyValueFreePosition = getValuesFreePosition(currentPage);
 
+    // THE SPACE IS CHECKED ON THE UNCOMPRESSED ENTRY: A NEW PAGE ALWAYS STARTS WITH A RESTART ENTRY
     if (keyValueFreePosition - (getHeaderSize(pageNum) + (count * INT_SERIALIZED_SIZE) + INT_SERIALIZED_SIZE) < keyValueContent.size()) {
       // NO SPACE LEFT, CREATE A NEW PAGE AND FLUSH TO THE DATABASE THE CURRENT ONE (NO WAL)
       database.getPageManager().updatePageVersion(currentPage, true);
@@ -119,6 +131,10 @@ public class LSMTreeIndexCompacted extends LSMTreeIndexAbstract {
       keyValueFreePosition = currentPage.getMaxContentSize();
     }
 
+    final int restartIndex = count - (count % RESTART_INTERVAL);
+    if (restartIndex < count)
+      compressEntry(keyValueContent, pageBuffer, pageBuffer.getInt(getHeaderSize(pageNum) + (restartIndex * INT_SERIALIZED_SIZE)));
+
     keyValueFreePosition -= keyValueContent.size();
 
     // WRITE KEY/VALUE PAIR CONTENT
@@ -143,18 +159,10 @@ public class LSMTreeIndexCompacted extends LSMTreeIndexAbstract {
     else if (result < 0)
       return LOWER;
 
-    if (purpose == 0) {
-      // EXISTS
-      currentPageBuffer.position(currentPageBuffer.getInt(startIndexArray + (mid * INT_SERIALIZED_SIZE)));
-      final int keySerializedSize = getSerializedKeySize(currentPageBuffer, convertedKeys.length);
-
-      return new LookupResult(true, false, mid, new int[] { currentPageBuffer.getInt(startIndexArray + (mid * INT_SERIALIZED_SIZE)) + keySerializedSize });
-    } else if (purpose == 1) {
-      // RETRIEVE
-      currentPageBuffer.position(currentPageBuffer.getInt(startIndexArray + (mid * INT_SERIALIZED_SIZE)));
-      final int keySerializedSize = getSerializedKeySize(currentPageBuffer, convertedKeys.length);
-
-      return new LookupResult(true, false, mid, new int[] { currentPageBuffer.getInt(startIndexArray + (mid * INT_SERIALIZED_SIZE)) + keySerializedSize });
+    if (purpose == 0 || purpose == 1) {
+      // EXISTS OR RETRIEVE
+      return new LookupResult(true, false, mid,
+          new int[] { getEntryValuesPosition(currentPageBuffer, currentPageBuffer.getInt(startIndexArray + (mid * INT_SERIALIZED_SIZE))) });
     }
 
     // TODO: SET CORRECT VALUE POSITION FOR PARTIAL KEYS
@@ -234,8 +242,8 @@ public class LSMTreeIndexCompacted extends LSMTreeIndexAbstract {
 
       if (pageId.getPageNumber() > 0) {
         final int rootPageId = getCompactedPageNumberOfSeries(rootPage);
-        if (rootPageId != 0) {
-          // COMPACTED PAGE NUMBER IS NOT 0. THIS SHOULD NEVER HAPPEN
+        if (rootPageId > 0) {
+          // COMPACTED PAGE NUMBER IS NOT 0 OR A LINK. THIS SHOULD NEVER HAPPEN
           LogManager.instance().log(this, Level.WARNING, "Compacted index '%s' root page %s has an invalid pageNumber=%d", null, getName(), pageId, rootPageId);
           return Collections.emptyList();
         }
@@ -252,9 +260,14 @@ public class LSMTreeIndexCompacted extends LSMTreeIndexAbstract {
         LookupResult resultInRootPage = lookupInPage(rootPageNumber, rootPageCount + 1, rootPageBuffer, fromKeys, 1);
         iterator = searchInCurrentPage(ascendingOrder, fromKeys, rootPageNumber, rootPageCount, rootPage, lastPageNumber, resultInRootPage);
         if (iterator == null) {
-          // LOOK FOR TO KEY IF ANY
-          resultInRootPage = lookupInPage(rootPageNumber, rootPageCount + 1, rootPageBuffer, toKeys, 1);
-          iterator = searchInCurrentPage(ascendingOrder, toKeys, rootPageNumber, rootPageCount, rootPage, lastPageNumber, resultInRootPage);
+          if (ascendingOrder && resultInRootPage.outside && resultInRootPage.keyIndex == 0)
+            // THE FROM KEY IS LOWER THAN ALL THE KEYS OF THE SERIES: BROWSE IT FROM THE BEGINNING, THE CURSOR STOPS AT THE TO KEY
+            iterator = new LSMTreeIndexUnderlyingCompactedSeriesCursor(this, startingPageNumber, lastPageNumber, binaryKeyTypes, ascendingOrder, -1);
+          else if (toKeys != null) {
+            // LOOK FOR TO KEY IF ANY
+            resultInRootPage = lookupInPage(rootPageNumber, rootPageCount + 1, rootPageBuffer, toKeys, 1);
+            iterator = searchInCurrentPage(ascendingOrder, toKeys, rootPageNumber, rootPageCount, rootPage, lastPageNumber, resultInRootPage);
+          }
         }
       } else
         iterator = new LSMTreeIndexUnderlyingCompactedSeriesCursor(this, startingPageNumber, lastPageNumber, binaryKeyTypes, ascendingOrder, -1);
@@ -262,7 +275,7 @@ public class LSMTreeIndexCompacted extends LSMTreeIndexAbstract {
       if (iterator != null)
         iterators.add(iterator);
 
-      --rootPageNumber;
+      rootPageNumber = getPreviousSeriesLastPage(rootPage);
     }
 
     return iterators;
@@ -350,8 +363,8 @@ public class LSMTreeIndexCompacted extends LSMTreeIndexAbstract {
 
       if (pageId.getPageNumber() > 0) {
         final int rootPageId = getCompactedPageNumberOfSeries(rootPage);
-        if (rootPageId != 0) {
-          // COMPACTED PAGE NUMBER IS NOT 0. THIS SHOULD NEVER HAPPEN
+        if (rootPageId > 0) {
+          // COMPACTED PAGE NUMBER IS NOT 0 OR A LINK. THIS SHOULD NEVER HAPPEN
           LogManager.instance().log(this, Level.WARNING, "Compacted index '%s' root page %s has an invalid pageNumber=%d", null, getName(), pageId, rootPageId);
           return;
         }
@@ -363,26 +376,107 @@ public class LSMTreeIndexCompacted extends LSMTreeIndexAbstract {
       if (!resultInRootPage.outside) {
         // IT'S IN PAGE RANGE
         int pageInSeries = resultInRootPage.keyIndex;
+        int firstPageInSeries;
 
         if (resultInRootPage.found) {
           if (pageInSeries >= rootPageCount)
             // LAST ITEM + FOUND = IT'S THE LAST ELEMENT OF THE LAST PAGE
             --pageInSeries;
-        } else
+
+          // THE VALUES OF A KEY THAT DON'T FIT IN A PAGE CONTINUE IN THE NEXT PAGES, EACH ONE STARTING WITH THE KEY
+          final int rootStartIndexArray = getHeaderSize(rootPage.getPageId().getPageNumber());
+          firstPageInSeries = pageInSeries;
+          while (firstPageInSeries > 0 && compareKey(rootPageBuffer, rootStartIndexArray, convertedKeys, firstPageInSeries - 1, rootPageCount + 1) == 0)
+            --firstPageInSeries;
+          while (pageInSeries < rootPageCount - 1 && compareKey(rootPageBuffer, rootStartIndexArray, convertedKeys, pageInSeries + 1, rootPageCount + 1) == 0)
+            ++pageInSeries;
+        } else {
           // NOT FOUND: GET THE PREVIOUS PAGE
           --pageInSeries;
+          firstPageInSeries = pageInSeries;
+        }
 
-        final int pageNum = rootPage.getPageId().getPageNumber() + 1 + pageInSeries;
-        final BasePage currentPage = database.getTransaction().getPage(new PageId(file.getFileId(), pageNum), pageSize);
-        final Binary currentPageBuffer = new Binary(currentPage.slice());
-        final int count = getCount(currentPage);
+        // START FROM THE MOST RECENT VALUES
+        for (; pageInSeries >= firstPageInSeries; --pageInSeries) {
+          final int pageNum = rootPage.getPageId().getPageNumber() + 1 + pageInSeries;
+          final BasePage currentPage = database.getTransaction().getPage(new PageId(file.getFileId(), pageNum), pageSize);
+          final Binary currentPageBuffer = new Binary(currentPage.slice());
+          final int count = getCount(currentPage);
 
-        if (!lookupInPageAndAddInResultset(currentPage, currentPageBuffer, count, originalKeys, convertedKeys, limit, set, removedRIDs))
-          return;
+          if (!lookupInPageAndAddInResultset(currentPage, currentPageBuffer, count, originalKeys, convertedKeys, limit, set, removedRIDs))
+            return;
+        }
+      }
+
+      pageNumber = getPreviousSeriesLastPage(rootPage);
+    }
+  }
+
+  /**
+   * Returns the number of series visible to the readers. Every series is probed on lookup, so this is the read amplification of
+   * the compacted index.
+   */
+  public int getSeriesCount() throws IOException {
+    return getSeries(getVisiblePages()).size();
+  }
+
+  /**
+   * Returns the number of pages visible to the readers, as stored in the main page. The pages after them are being written by a compaction or a merge, or
+   * have been left by one that failed.
+   */
+  protected int getVisiblePages() throws IOException {
+    final int totalPages = getTotalPages();
+    if (totalPages < 1)
+      return 0;
+
+    final BasePage mainPage = database.getTransaction().getPage(new PageId(file.getFileId(), 0), pageSize);
+    return Math.min(getCompactedPageNumberOfSeries(mainPage), totalPages);
+  }
+
+  /**
+   * Returns the series visible in the first pages of the file, from the oldest to the most recent. Each element contains the root
+   * page number and the number of pages in the series (root page excluded). The pages of the series replaced by a merge are skipped.
+   */
+  protected List<int[]> getSeries(final int totalPages) throws IOException {
+    final List<int[]> series = new ArrayList<>();
+
+    for (int pageNumber = totalPages - 1; pageNumber > 0; ) {
+      final BasePage lastPage = database.getTransaction().getPage(new PageId(file.getFileId(), pageNumber), pageSize);
+
+      final int rootPageCount = getCompactedPageNumberOfSeries(lastPage);
+      if (rootPageCount == 0) {
+        // EMPTY ROOT PAGE, GET THE PREVIOUS ONE
+        pageNumber--;
+        continue;
       }
 
-      --pageNumber;
+      pageNumber -= rootPageCount;
+      series.add(new int[] { pageNumber, rootPageCount });
+      pageNumber = getPreviousSeriesLastPage(database.getTransaction().getPage(new PageId(file.getFileId(), pageNumber), pageSize));
     }
+
+    Collections.reverse(series);
+    return series;
+  }
+
+  /**
+   * Returns the value to store in the root page of a series to link it to the last page of the previous series, or to no series if
+   * the page number is -1.
+   */
+  public static int linkToPreviousSeries(final int previousSeriesLastPage) {
+    return -previousSeriesLastPage - 2;
+  }
+
+  /**
+   * Returns the last page of the series before the one starting at the root page, or -1 if there is none.
+   */
+  private int getPreviousSeriesLastPage(final BasePage rootPage) {
+    final int rootPageNumber = rootPage.getPageId().getPageNumber();
+    if (rootPageNumber == 0)
+      return -1;
+
+    final int link = getCompactedPageNumberOfSeries(rootPage);
+    return link < 0 ? -link - 2 : rootPageNumber - 1;
   }
 
   private int getCompactedPageNumberOfSeries(final BasePage currentPage) {
@@ -0,0 +1,174 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.index.lsm;
+
+import com.arcadedb.database.Binary;
+import com.arcadedb.database.DatabaseInternal;
+import com.arcadedb.database.RID;
+import com.arcadedb.database.TrackableBinary;
+import com.arcadedb.engine.MutablePage;
+
+import java.io.*;
+import java.util.*;
+
+import static com.arcadedb.database.Binary.INT_SERIALIZED_SIZE;
+
+/**
+ * Writes entries sorted by key in new series of a compacted index. Every series has a root page with the first key of each page, followed by the data
+ * pages. The pages are written directly to the file, bypassing the WAL. A series is closed when its root page has no more room for the next key, because
+ * the root page can't overflow.
+ */
+public class LSMTreeIndexCompactedSeriesWriter {
+  private final LSMTreeIndexCompacted target;
+  private final DatabaseInternal      database;
+  private final Binary                keyValueContent = new Binary();
+  private final Binary                rootEntry       = new Binary();
+  private final RID[]                 rootValue;
+  private final int                   maxValuesPerEntry;
+  private       MutablePage           rootPage;
+  private       TrackableBinary       rootPageBuffer;
+  private       MutablePage           lastPage;
+  private       TrackableBinary       lastPageBuffer;
+  private       int                   compactedPageNumberInSeries;
+  private       Object[]              lastPageMaxKey;
+  private       int                   writtenSeries   = 0;
+  private       int                   firstRootLink   = 0;
+
+  public LSMTreeIndexCompactedSeriesWriter(final LSMTreeIndexCompacted target) {
+    this.target = target;
+    this.database = target.getDatabase();
+    this.rootValue = new RID[] { new RID(database, 0, 0) };
+    // EVERY ENTRY MUST FIT IN A PAGE
+    this.maxValuesPerEntry = Math.max(1, target.getPageSize() / 32);
+  }
+
+  /**
+   * Appends an entry. The keys must be greater than the keys of the previous entry. The values of a key that don't fit in an entry are split in more entries
+   * with the same key, each one starting a new page, so the lookups find all of them through the root page.
+   */
+  public void append(final Object[] keys, final RID[] rids) throws IOException, InterruptedException {
+    if (rids.length <= maxValuesPerEntry) {
+      appendEntry(keys, rids);
+      return;
+    }
+
+    for (int i = 0; i < rids.length; i += maxValuesPerEntry) {
+      flushLastPage();
+      appendEntry(keys, Arrays.copyOfRange(rids, i, Math.min(i + maxValuesPerEntry, rids.length)));
+    }
+  }
+
+  private void appendEntry(final Object[] keys, final RID[] rids) throws IOException, InterruptedException {
+    if (rootPage != null && !hasRoomInRootPage(keys))
+      close();
+
+    if (rootPage == null) {
+      rootPage = target.createNewPage(writtenSeries == 0 ? firstRootLink : 0);
+      rootPageBuffer = rootPage.getTrackable();
+      compactedPageNumberInSeries = 1;
+    }
+
+    final MutablePage newPage = target.appendDuringCompaction(keyValueContent, lastPage, lastPageBuffer, compactedPageNumberInSeries, keys, rids);
+    if (newPage != lastPage) {
+      ++compactedPageNumberInSeries;
+
+      // NEW PAGE: STORE THE MIN KEY IN THE ROOT PAGE
+      target.appendDuringCompaction(keyValueContent, rootPage, rootPageBuffer, compactedPageNumberInSeries, keys,
+          new RID[] { new RID(database, 0, newPage.getPageId().getPageNumber()) });
+
+      if (lastPage != null)
+        // THE PREVIOUS PAGE HAS BEEN FLUSHED
+        onPagesWritten(1);
+
+      lastPage = newPage;
+      lastPageBuffer = newPage.getTrackable();
+    }
+
+    lastPageMaxKey = keys;
+  }
+
+  /**
+   * Closes the current series, if any, by writing the max key in the root page and flushing the pages still in RAM.
+   */
+  public void close() throws IOException, InterruptedException {
+    if (rootPage == null)
+      return;
+
+    if (lastPageMaxKey != null)
+      // WRITE THE MAX KEY
+      target.appendDuringCompaction(keyValueContent, rootPage, rootPageBuffer, compactedPageNumberInSeries, lastPageMaxKey, rootValue);
+
+    final List<MutablePage> modifiedPages = new ArrayList<>(2);
+    if (lastPage != null)
+      modifiedPages.add(database.getPageManager().updatePageVersion(lastPage, true));
+    modifiedPages.add(database.getPageManager().updatePageVersion(rootPage, true));
+    database.getPageManager().writePages(modifiedPages, false);
+    onPagesWritten(modifiedPages.size());
+
+    ++writtenSeries;
+    rootPage = null;
+    rootPageBuffer = null;
+    lastPage = null;
+    lastPageBuffer = null;
+    lastPageMaxKey = null;
+  }
+
+  /**
+   * Links the first series written to the last page of an older series, so the readers skip the pages in between. Pass -1 to make the first series the
+   * oldest one.
+   */
+  public void setPreviousSeriesLastPage(final int previousSeriesLastPage) {
+    this.firstRootLink = LSMTreeIndexCompacted.linkToPreviousSeries(previousSeriesLastPage);
+  }
+
+  public int getWrittenSeries() {
+    return writtenSeries;
+  }
+
+  /**
+   * Called every time pages are written to the file. Override it to limit the I/O.
+   */
+  protected void onPagesWritten(final int pages) throws InterruptedException {
+  }
+
+  /**
+   * Writes the current data page, so the next entry starts a new page of the series.
+   */
+  private void flushLastPage() throws IOException, InterruptedException {
+    if (lastPage == null)
+      return;
+
+    database.getPageManager().writePages(List.of(database.getPageManager().updatePageVersion(lastPage, true)), false);
+    onPagesWritten(1);
+    lastPage = null;
+    lastPageBuffer = null;
+  }
+
+  /**
+   * Checks the root page can contain the entry for a new page starting with the key plus the final entry with the max key.
+   */
+  private boolean hasRoomInRootPage(final Object[] keys) {
+    target.writeEntry(rootEntry, target.convertKeys(keys, target.getBinaryKeyTypes()), rootValue);
+    final int needed = 2 * (rootEntry.size() + INT_SERIALIZED_SIZE);
+
+    final int free = target.getValuesFreePosition(rootPage) - (target.getHeaderSize(rootPage.getPageId().getPageNumber())
+        + target.getCount(rootPage) * INT_SERIALIZED_SIZE);
+    return free >= needed;
+  }
+}
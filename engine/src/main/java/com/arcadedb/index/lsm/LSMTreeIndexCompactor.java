@@ -96,6 +96,9 @@ public class LSMTreeIndexCompactor {
       LSMTreeIndexDebugger.printIndex(mainIndex);
     }
 
+    // THE FIRST NEW SERIES LINKS TO THE LAST VISIBLE ONE, SKIPPING THE PAGES LEFT BY A COMPACTION OR A MERGE THAT FAILED
+    final int visiblePages = compactedIndex.getVisiblePages();
+
     // FIND LAST IMMUTABLE PAGE TO COMPACT
     int lastImmutablePage = totalPages - 1;
     for (int pageIndex = totalPages - 1; pageIndex > -1; --pageIndex) {
@@ -120,7 +123,8 @@ public class LSMTreeIndexCompactor {
         pagesToCompact = lastImmutablePage - pageIndex + 1;
 
       // CREATE ROOT PAGE
-      final MutablePage rootPage = compactedIndex.createNewPage(0);
+      final MutablePage rootPage = compactedIndex.createNewPage(
+          pageIndex == 0 && visiblePages > 0 ? LSMTreeIndexCompacted.linkToPreviousSeries(visiblePages - 1) : 0);
       final TrackableBinary rootPageBuffer = rootPage.getTrackable();
       Object[] lastPageMaxKey = null;
 
@@ -237,6 +237,15 @@ public class LSMTreeIndexCursor implements IndexCursor {
       }
     }
 
+    if (validIterators > 0) {
+      // THE CHECK ABOVE COUNTS THE VALID RIDS, BUT THE CURSORS ARE CLOSED ONE BY ONE: COUNT THE OPEN ONES, OTHERWISE ENTRIES WITH
+      // MULTIPLE RIDS (COMMON AFTER THE MERGE OF COMPACTED SERIES) WOULD KEEP hasNext() TRUE AFTER THE LAST KEY
+      validIterators = 0;
+      for (final LSMTreeIndexUnderlyingAbstractCursor pageCursor : pageCursors)
+        if (pageCursor != null)
+          ++validIterators;
+    }
+
     getClosestEntryInTx(fromKeys, beginKeysInclusive);
   }
 
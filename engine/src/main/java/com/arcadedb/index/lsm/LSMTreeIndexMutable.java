@@ -47,7 +47,7 @@ import static com.arcadedb.database.Binary.BYTE_SERIALIZED_SIZE;
 import static com.arcadedb.database.Binary.INT_SERIALIZED_SIZE;
 
 public class LSMTreeIndexMutable extends LSMTreeIndexAbstract {
-  public static final int                   CURRENT_VERSION     = 1;
+  public static final int                   CURRENT_VERSION     = 2;
   public static final String                UNIQUE_INDEX_EXT    = "umtidx";
   public static final String                NOTUNIQUE_INDEX_EXT = "numtidx";
   private             LSMTreeIndexCompacted subIndex            = null;
@@ -83,7 +83,7 @@ public class LSMTreeIndexMutable extends LSMTreeIndexAbstract {
   protected LSMTreeIndexMutable(final LSMTreeIndex mainIndex, final DatabaseInternal database, final String name, final boolean unique, final String filePath,
       final int id, final ComponentFile.MODE mode, final int pageSize, final int version) throws IOException {
     super(mainIndex, database, name, unique, filePath, id, mode, pageSize, version);
-    onAfterLoad();
+    loadRootPage(true);
   }
 
   @Override
@@ -95,7 +95,15 @@ public class LSMTreeIndexMutable extends LSMTreeIndexAbstract {
 
   @Override
   public void onAfterLoad() {
-    // RELOAD THE PAGE. THIS CAN BE CALLED AT CREATION OF THE OBJECT (CONSTRUCTOR) OR IN A TX WHEN DATABASE STRUCTURE CHANGES
+    loadRootPage(false);
+  }
+
+  /**
+   * Reloads the first page. This is called at creation of the object (constructor), when all the files are loaded, or in a TX when the database structure
+   * changes. At creation, the sub-index could be not loaded yet because an index built on existing records has a sub-index with a higher file id: in this
+   * case it is resolved at the next call.
+   */
+  private void loadRootPage(final boolean subIndexCanBeMissing) {
     try {
       final BasePage currentPage = this.database.getTransaction().getPage(new PageId(file.getFileId(), 0), pageSize);
 
@@ -120,6 +128,9 @@ public class LSMTreeIndexMutable extends LSMTreeIndexAbstract {
       minPagesToScheduleACompaction = database.getConfiguration().getValueAsInteger(GlobalConfiguration.INDEX_COMPACTION_MIN_PAGES_SCHEDULE);
 
       if (subIndexFileId > 0) {
+        if (subIndexCanBeMissing && database.getSchema().getFileByIdIfExists(subIndexFileId) == null)
+          return;
+
         subIndex = (LSMTreeIndexCompacted) database.getSchema().getFileById(subIndexFileId);
         subIndex.mainIndex = mainIndex;
         subIndex.binaryKeyTypes = binaryKeyTypes;
@@ -158,11 +169,18 @@ public class LSMTreeIndexMutable extends LSMTreeIndexAbstract {
   }
 
   public LSMTreeIndexCompacted createNewForCompaction() throws IOException {
+    return createNewForCompaction(CURRENT_VERSION);
+  }
+
+  /**
+   * Creates a new compacted index with a specific version of the page format. This is needed when pages are copied as they are from another index.
+   */
+  public LSMTreeIndexCompacted createNewForCompaction(final int version) throws IOException {
     final int last_ = componentName.lastIndexOf('_');
     final String newName = componentName.substring(0, last_) + "_" + System.nanoTime();
 
     return new LSMTreeIndexCompacted(mainIndex, database, newName, unique, database.getDatabasePath() + File.separator + newName, keyTypes, binaryKeyTypes,
-        pageSize);
+        pageSize, version);
   }
 
   public IndexCursor iterator(final boolean ascendingOrder, final Object[] fromKeys, final boolean inclusive) throws IOException {
@@ -200,6 +218,27 @@ public class LSMTreeIndexMutable extends LSMTreeIndexAbstract {
     return subIndex;
   }
 
+  /**
+   * Attaches a compacted index to an index without one. The reference is written in the first page through the current transaction, so the compacted index
+   * is persistent only if the transaction commits.
+   */
+  protected void setSubIndex(final LSMTreeIndexCompacted subIndex) throws IOException {
+    final MutablePage rootPage = database.getTransaction().getPageToModify(new PageId(file.getFileId(), 0), pageSize, false);
+    rootPage.writeInt(INT_SERIALIZED_SIZE + INT_SERIALIZED_SIZE + BYTE_SERIALIZED_SIZE + INT_SERIALIZED_SIZE, subIndex.getFileId());
+    this.subIndex = subIndex;
+  }
+
+  /**
+   * Replaces the compacted index with another one. The reference is written in the first page bypassing the WAL: the caller must write the page returned
+   * while holding the write lock and the lock of the file, as the compaction does.
+   */
+  protected MutablePage replaceSubIndex(final LSMTreeIndexCompacted subIndex) throws IOException {
+    final MutablePage rootPage = database.getPageManager().getMutablePage(new PageId(file.getFileId(), 0), pageSize, false, true);
+    rootPage.writeInt(INT_SERIALIZED_SIZE + INT_SERIALIZED_SIZE + BYTE_SERIALIZED_SIZE + INT_SERIALIZED_SIZE, subIndex.getFileId());
+    this.subIndex = subIndex;
+    return rootPage;
+  }
+
   public IndexCursor get(final Object[] keys, final int limit) throws IOException {
     checkForNulls(keys);
 
@@ -222,6 +261,19 @@ public class LSMTreeIndexMutable extends LSMTreeIndexAbstract {
     final Map<String, Long> stats = new HashMap<>();
     stats.put("pages", (long) getTotalPages());
     stats.put("adjacentSteps", statsAdjacentSteps.get());
+
+    // EVERY MUTABLE PAGE AND EVERY COMPACTED SERIES IS A SORTED RUN PROBED ON LOOKUP
+    int series = 0;
+    if (subIndex != null) {
+      try {
+        series = subIndex.getSeriesCount();
+      } catch (final IOException e) {
+        LogManager.instance().log(this, Level.WARNING, "Error on reading the series of compacted index '%s'", e, subIndex.getName());
+      }
+      stats.put("compactedPages", (long) subIndex.getTotalPages());
+      stats.put("compactedSeries", (long) series);
+    }
+    stats.put("readAmplification", (long) getTotalPages() + series);
     return stats;
   }
 
@@ -243,22 +295,17 @@ public class LSMTreeIndexMutable extends LSMTreeIndexAbstract {
 
     if (purpose == 0) {
       // EXISTS
-      currentPageBuffer.position(currentPageBuffer.getInt(startIndexArray + (mid * INT_SERIALIZED_SIZE)));
-      final int keySerializedSize = getSerializedKeySize(currentPageBuffer, convertedKeys.length);
-
-      return new LookupResult(true, false, mid, new int[] { currentPageBuffer.getInt(startIndexArray + (mid * INT_SERIALIZED_SIZE)) + keySerializedSize });
+      return new LookupResult(true, false, mid,
+          new int[] { getEntryValuesPosition(currentPageBuffer, currentPageBuffer.getInt(startIndexArray + (mid * INT_SERIALIZED_SIZE))) });
     } else if (purpose == 1) {
-      // RETRIEVE
-      currentPageBuffer.position(currentPageBuffer.getInt(startIndexArray + (mid * INT_SERIALIZED_SIZE)));
-      final int keySerializedSize = getSerializedKeySize(currentPageBuffer, convertedKeys.length);
-
       // RETRIEVE ALL THE RESULTS
       final int firstKeyPos = findFirstEntryOfSameKey(currentPageBuffer, convertedKeys, startIndexArray, mid);
       final int lastKeyPos = findLastEntryOfSameKey(count, currentPageBuffer, convertedKeys, startIndexArray, mid);
 
       final int[] positionsArray = new int[lastKeyPos - firstKeyPos + 1];
       for (int i = firstKeyPos; i <= lastKeyPos; ++i)
-        positionsArray[i - firstKeyPos] = currentPageBuffer.getInt(startIndexArray + (i * INT_SERIALIZED_SIZE)) + keySerializedSize;
+        // THE KEY OF EVERY ENTRY CAN BE STORED WITH A DIFFERENT SIZE IF PREFIX COMPRESSED
+        positionsArray[i - firstKeyPos] = getEntryValuesPosition(currentPageBuffer, currentPageBuffer.getInt(startIndexArray + (i * INT_SERIALIZED_SIZE)));
 
       return new LookupResult(true, false, lastKeyPos, positionsArray);
     }
@@ -281,20 +328,20 @@ public class LSMTreeIndexMutable extends LSMTreeIndexAbstract {
   private int findLastEntryOfSameKey(final int count, final Binary currentPageBuffer, final Object[] keys, final int startIndexArray, int mid) {
     int result;// FIND THE MOST RIGHT ITEM
     for (int i = mid + 1; i < count; ++i) {
-      currentPageBuffer.position(currentPageBuffer.getInt(startIndexArray + (i * INT_SERIALIZED_SIZE)));
+      final Binary keyBuffer = getEntryKeyBuffer(currentPageBuffer, currentPageBuffer.getInt(startIndexArray + (i * INT_SERIALIZED_SIZE)));
 
       result = 1;
       for (int keyIndex = 0; keyIndex < keys.length; ++keyIndex) {
-        final boolean notNull = version < 1 || currentPageBuffer.getByte() == 1;
+        final boolean notNull = version < 1 || keyBuffer.getByte() == 1;
         if (!notNull)
           break;
 
         final byte keyType = binaryKeyTypes[keyIndex];
         if (keyType == BinaryTypes.TYPE_STRING) {
           // OPTIMIZATION: SPECIAL CASE, LAZY EVALUATE BYTE PER BYTE THE STRING
-          result = comparator.compareBytes((byte[]) keys[keyIndex], currentPageBuffer);
+          result = comparator.compareBytes((byte[]) keys[keyIndex], keyBuffer);
         } else {
-          final Object key = serializer.deserializeValue(database, currentPageBuffer, keyType, null);
+          final Object key = serializer.deserializeValue(database, keyBuffer, keyType, null);
           result = comparator.compare(keys[keyIndex], keyType, key, keyType);
         }
 
@@ -318,20 +365,20 @@ public class LSMTreeIndexMutable extends LSMTreeIndexAbstract {
   private int findFirstEntryOfSameKey(final Binary currentPageBuffer, final Object[] keys, final int startIndexArray, int mid) {
     int result;
     for (int i = mid - 1; i >= 0; --i) {
-      currentPageBuffer.position(currentPageBuffer.getInt(startIndexArray + (i * INT_SERIALIZED_SIZE)));
+      final Binary keyBuffer = getEntryKeyBuffer(currentPageBuffer, currentPageBuffer.getInt(startIndexArray + (i * INT_SERIALIZED_SIZE)));
 
       result = 1;
       for (int keyIndex = 0; keyIndex < keys.length; ++keyIndex) {
-        final boolean notNull = version < 1 || currentPageBuffer.getByte() == 1;
+        final boolean notNull = version < 1 || keyBuffer.getByte() == 1;
         if (!notNull)
           break;
 
         final byte keyType = binaryKeyTypes[keyIndex];
         if (keyType == BinaryTypes.TYPE_STRING) {
           // OPTIMIZATION: SPECIAL CASE, LAZY EVALUATE BYTE PER BYTE THE STRING
-          result = comparator.compareBytes((byte[]) keys[keyIndex], currentPageBuffer);
+          result = comparator.compareBytes((byte[]) keys[keyIndex], keyBuffer);
         } else {
-          final Object key = serializer.deserializeValue(database, currentPageBuffer, keyType, null);
+          final Object key = serializer.deserializeValue(database, keyBuffer, keyType, null);
           result = comparator.compare(keys[keyIndex], keyType, key, keyType);
         }
 
@@ -471,6 +518,11 @@ public class LSMTreeIndexMutable extends LSMTreeIndexAbstract {
         keyValueFreePosition = currentPage.getMaxContentSize();
       }
 
+      if (count > 0)
+        // SHARE THE KEY PREFIX WITH THE RESTART ENTRY OF THE PREVIOUS ENTRY (OR THE NEXT ONE IF IT IS THE FIRST KEY)
+        compressEntry(keyValueContent, currentPageBuffer,
+            getRestartEntryPosition(currentPageBuffer, currentPageBuffer.getInt(getHeaderSize(pageNum) + (Math.max(keyIndex - 1, 0) * INT_SERIALIZED_SIZE))));
+
       keyValueFreePosition -= keyValueContent.size();
 
       // WRITE KEY/VALUE PAIR CONTENT
@@ -592,6 +644,11 @@ public class LSMTreeIndexMutable extends LSMTreeIndexAbstract {
         keyValueFreePosition = currentPage.getMaxContentSize();
       }
 
+      if (count > 0)
+        // SHARE THE KEY PREFIX WITH THE RESTART ENTRY OF THE PREVIOUS ENTRY (OR THE NEXT ONE IF IT IS THE FIRST KEY)
+        compressEntry(keyValueContent, currentPageBuffer,
+            getRestartEntryPosition(currentPageBuffer, currentPageBuffer.getInt(getHeaderSize(pageNum) + (Math.max(keyIndex - 1, 0) * INT_SERIALIZED_SIZE))));
+
       keyValueFreePosition -= keyValueContent.size();
 
       // WRITE KEY/VALUE PAIR CONTENT
@@ -0,0 +1,288 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.index.lsm;
+
+import com.arcadedb.GlobalConfiguration;
+import com.arcadedb.database.DatabaseInternal;
+import com.arcadedb.database.RID;
+import com.arcadedb.engine.MutablePage;
+import com.arcadedb.log.LogManager;
+import com.arcadedb.serializer.BinaryComparator;
+
+import java.io.*;
+import java.util.*;
+import java.util.logging.*;
+
+/**
+ * Merges the series of a compacted index into fewer, larger series. Every compaction appends at least one series to the compacted
+ * index and every lookup probes all of them, so without merging the read amplification grows with the number of compactions. The
+ * merge runs in background, scheduled by the compaction when the series are more than {@link GlobalConfiguration#INDEX_COMPACTION_MAX_SERIES}.
+ * <p>
+ * The merge follows a size-tiered policy: starting from the most recent series, it takes the older series as long as they are not
+ * bigger than the series already taken, then extends the window until the remaining series are at most half of
+ * {@link GlobalConfiguration#INDEX_COMPACTION_MAX_SERIES}. The merged series are appended to the same file and the first of them links
+ * to the last series out of the window, so the older series are not touched and the biggest series are rewritten only when the
+ * smaller ones grew as big as them. The pages of the series in the window stay in the file, unreachable: once they would be more than
+ * the visible pages, the whole index is rewritten in a new file that replaces the current one. When the window includes the oldest
+ * series, deleted keys and removed RIDs are purged because there is nothing older they could hide.
+ */
+public class LSMTreeIndexSeriesMerger {
+  private final LSMTreeIndex          mainIndex;
+  private final LSMTreeIndexCompacted source;
+  private final DatabaseInternal      database;
+  private final int                   pageSize;
+  private final int                   maxSeries;
+  private final long                  maxBytesPerSecond;
+  private       long                  startTime;
+  private       long                  processedBytes;
+
+  public LSMTreeIndexSeriesMerger(final LSMTreeIndex mainIndex, final LSMTreeIndexCompacted source) {
+    this.mainIndex = mainIndex;
+    this.source = source;
+    this.database = source.getDatabase();
+    this.pageSize = source.getPageSize();
+    this.maxSeries = database.getConfiguration().getValueAsInteger(GlobalConfiguration.INDEX_COMPACTION_MAX_SERIES);
+    this.maxBytesPerSecond = database.getConfiguration().getValueAsLong(GlobalConfiguration.INDEX_COMPACTION_MAX_BYTES_PER_SECOND);
+  }
+
+  /**
+   * Merges the series if they are more than the configured maximum. The caller must prevent any compaction of the index meanwhile.
+   *
+   * @return true if the series have been merged
+   */
+  public boolean mergeIfNeeded() throws IOException, InterruptedException {
+    if (maxSeries < 1)
+      return false;
+
+    final List<int[]> series = source.getSeries(source.getVisiblePages());
+    if (series.size() <= maxSeries)
+      return false;
+
+    final int firstSeriesToMerge = selectFirstSeriesToMerge(series);
+
+    long visiblePages = 0;
+    long mergedPages = 0;
+    for (int i = 0; i < series.size(); ++i) {
+      visiblePages += series.get(i)[1] + 1;
+      if (i >= firstSeriesToMerge)
+        mergedPages += series.get(i)[1] + 1;
+    }
+
+    if (firstSeriesToMerge == 0 || source.getTotalPages() - visiblePages + mergedPages > visiblePages)
+      rewrite(series);
+    else
+      append(series, firstSeriesToMerge);
+
+    return true;
+  }
+
+  private int selectFirstSeriesToMerge(final List<int[]> series) {
+    int first = series.size() - 1;
+    long mergedPages = series.get(first)[1] + 1;
+    while (first > 0 && series.get(first - 1)[1] + 1 <= mergedPages) {
+      --first;
+      mergedPages += series.get(first)[1] + 1;
+    }
+    return Math.min(first, Math.max(0, maxSeries / 2 - 1));
+  }
+
+  /**
+   * Appends the merge of the series in the window to the file, then makes them visible in place of the merged ones.
+   */
+  private void append(final List<int[]> series, final int firstSeriesToMerge) throws IOException, InterruptedException {
+    startTime = System.currentTimeMillis();
+    processedBytes = 0;
+
+    final int previousPages = source.getTotalPages();
+
+    final LSMTreeIndexCompactedSeriesWriter writer = newWriter(source);
+    writer.setPreviousSeriesLastPage(series.get(firstSeriesToMerge)[0] - 1);
+
+    final long[] keys = merge(series, firstSeriesToMerge, writer, false);
+    if (writer.getWrittenSeries() == 0)
+      // NO VALUES: THE MERGED SERIES CANNOT BE REPLACED BY NOTHING, KEEP THEM
+      return;
+
+    mainIndex.publishCompactedSeries(source);
+
+    LogManager.instance().log(mainIndex, Level.INFO, "Index '%s' merged %d compacted series into %d in %dms (keys=%d pages=%d->%d)", null,
+        mainIndex.getName(), series.size() - firstSeriesToMerge, writer.getWrittenSeries(), System.currentTimeMillis() - startTime, keys[0],
+        previousPages, source.getTotalPages());
+  }
+
+  /**
+   * Rewrites all the series in a new file, purging the deleted entries, and replaces the current file with it.
+   */
+  private void rewrite(final List<int[]> series) throws IOException, InterruptedException {
+    startTime = System.currentTimeMillis();
+    processedBytes = 0;
+
+    final LSMTreeIndexCompacted target = mainIndex.getMutableIndex().createNewForCompaction();
+    database.getSchema().getEmbedded().registerFile(target);
+
+    final long[] keys;
+    try {
+      final LSMTreeIndexCompactedSeriesWriter writer = newWriter(target);
+      keys = merge(series, 0, writer, true);
+
+      if (target.getTotalPages() < 1)
+        // EVERYTHING HAS BEEN PURGED: LEAVE AN EMPTY ROOT PAGE WITH THE HEADER
+        database.getPageManager().writePages(List.of(database.getPageManager().updatePageVersion(target.createNewPage(0), true)), false);
+
+      final MutablePage mainPage = target.setCompactedTotalPages();
+      database.getPageManager().writePages(List.of(database.getPageManager().updatePageVersion(mainPage, false)), false);
+      target.removeTempSuffix();
+
+      mainIndex.replaceCompactedIndex(target);
+
+    } catch (final IOException | InterruptedException | RuntimeException e) {
+      target.drop();
+      throw e;
+    }
+
+    try {
+      source.drop();
+    } catch (final IOException e) {
+      LogManager.instance().log(mainIndex, Level.WARNING, "Error on deleting old compacted index file %s", e, source);
+    }
+
+    LogManager.instance().log(mainIndex, Level.INFO,
+        "Index '%s' rewrote %d compacted series into %d in %dms (keys=%d purgedKeys=%d pages=%d->%d)", null, mainIndex.getName(), series.size(),
+        target.getSeriesCount(), System.currentTimeMillis() - startTime, keys[0], keys[1], source.getTotalPages(), target.getTotalPages());
+  }
+
+  private LSMTreeIndexCompactedSeriesWriter newWriter(final LSMTreeIndexCompacted target) {
+    return new LSMTreeIndexCompactedSeriesWriter(target) {
+      @Override
+      protected void onPagesWritten(final int pages) throws InterruptedException {
+        throttle((long) pages * pageSize);
+      }
+    };
+  }
+
+  /**
+   * Merges the series starting from the one passed with the writer.
+   *
+   * @return the number of keys written and purged
+   */
+  private long[] merge(final List<int[]> series, final int firstSeriesToMerge, final LSMTreeIndexCompactedSeriesWriter writer, final boolean purge)
+      throws IOException, InterruptedException {
+    final int totalCursors = series.size() - firstSeriesToMerge;
+    final byte[] keyTypes = source.getBinaryKeyTypes();
+    final BinaryComparator comparator = database.getSerializer().getComparator();
+
+    final LSMTreeIndexUnderlyingCompactedSeriesCursor[] cursors = new LSMTreeIndexUnderlyingCompactedSeriesCursor[totalCursors];
+    final Object[][] keys = new Object[totalCursors][];
+    for (int i = 0; i < totalCursors; ++i) {
+      final int[] s = series.get(firstSeriesToMerge + i);
+      cursors[i] = new LSMTreeIndexUnderlyingCompactedSeriesCursor(source, s[0] + 1, s[0] + s[1], keyTypes, true, -1);
+      advance(cursors, keys, i);
+    }
+
+    final List<RID> values = new ArrayList<>();
+    long totalKeys = 0;
+    long purgedKeys = 0;
+
+    while (true) {
+      // FIND THE MINOR KEY
+      Object[] minorKey = null;
+      for (int i = 0; i < totalCursors; ++i)
+        if (keys[i] != null && (minorKey == null || LSMTreeIndexMutable.compareKeys(comparator, keyTypes, keys[i], minorKey) < 0))
+          minorKey = keys[i];
+
+      if (minorKey == null)
+        break;
+
+      // COLLECT THE VALUES FROM THE OLDEST TO THE MOST RECENT SERIES
+      values.clear();
+      for (int i = 0; i < totalCursors; ++i)
+        while (keys[i] != null && LSMTreeIndexMutable.compareKeys(comparator, keyTypes, keys[i], minorKey) == 0) {
+          final RID[] rids = cursors[i].getValue();
+          if (rids != null)
+            Collections.addAll(values, rids);
+          advance(cursors, keys, i);
+        }
+
+      final RID[] resolved = resolve(values, purge);
+      if (resolved.length > 0) {
+        writer.append(minorKey, resolved);
+        ++totalKeys;
+      } else
+        ++purgedKeys;
+    }
+
+    writer.close();
+    return new long[] { totalKeys, purgedKeys };
+  }
+
+  private void advance(final LSMTreeIndexUnderlyingCompactedSeriesCursor[] cursors, final Object[][] keys, final int i)
+      throws InterruptedException {
+    final LSMTreeIndexUnderlyingCompactedSeriesCursor cursor = cursors[i];
+    final int currentPage = keys[i] != null ? cursor.getCurrentPageId().getPageNumber() : -1;
+
+    if (cursor.hasNext()) {
+      cursor.next();
+      keys[i] = cursor.getKeys();
+      if (cursor.getCurrentPageId().getPageNumber() != currentPage)
+        throttle(pageSize);
+    } else
+      keys[i] = null;
+  }
+
+  /**
+   * Resolves the values of a key collected from the oldest to the most recent series by applying the deletions in the same way the
+   * lookups do. The most recent value of each RID wins and a deleted key hides all the older values. Deletion markers are kept
+   * only if not purging, because they still have to hide the values in the older series.
+   */
+  private RID[] resolve(final List<RID> values, final boolean purge) {
+    final Set<RID> resolvedRIDs = new HashSet<>();
+    final List<RID> result = new ArrayList<>(values.size());
+
+    for (int i = values.size() - 1; i > -1; --i) {
+      final RID rid = values.get(i);
+
+      if (source.REMOVED_ENTRY_RID.equals(rid)) {
+        if (!purge)
+          result.add(rid);
+        break;
+      }
+
+      if (rid.getBucketId() < 0) {
+        if (resolvedRIDs.add(source.getOriginalRID(rid)) && !purge)
+          result.add(rid);
+      } else if (resolvedRIDs.add(rid))
+        result.add(rid);
+    }
+
+    // RESTORE THE ORIGINAL ORDER: THE MOST RECENT VALUE IS THE LAST ONE
+    Collections.reverse(result);
+    return result.toArray(new RID[result.size()]);
+  }
+
+  private void throttle(final long bytes) throws InterruptedException {
+    if (maxBytesPerSecond <= 0)
+      return;
+
+    processedBytes += bytes;
+    final long expectedElapsed = processedBytes * 1000 / maxBytesPerSecond;
+    final long elapsed = System.currentTimeMillis() - startTime;
+    if (expectedElapsed > elapsed)
+      Thread.sleep(expectedElapsed - elapsed);
+  }
+}
@@ -67,32 +67,14 @@ public class LSMTreeIndexUnderlyingPageCursor extends LSMTreeIndexUnderlyingAbst
       throw new IllegalStateException("Invalid page cursor index " + currentEntryIndex);
 
     int contentPos = buffer.getInt(keyStartPosition + (currentEntryIndex * INT_SERIALIZED_SIZE));
-    buffer.position(contentPos);
-
-    nextKeys = new Object[keyTypes.length];
-    for (int k = 0; k < keyTypes.length; ++k) {
-      final boolean notNull = index.getVersion() < 1 || buffer.getByte() == 1;
-      if (notNull)
-        nextKeys[k] = index.getDatabase().getSerializer().deserializeValue(index.getDatabase(), buffer, keyTypes[k], null);
-      else
-        nextKeys[k] = null;
-    }
+    nextKeys = index.readEntryKeys(buffer, contentPos);
 
     valuePosition = buffer.position();
     nextValue = index.readEntryValues(buffer);
 
     for (int pos = currentEntryIndex + 1; pos < totalKeys; ++pos) {
       contentPos = buffer.getInt(keyStartPosition + (pos * INT_SERIALIZED_SIZE));
-      buffer.position(contentPos);
-
-      final Object[] adjacentKeys = new Object[keyTypes.length];
-      for (int k = 0; k < keyTypes.length; ++k) {
-        final boolean notNull = index.getVersion() < 1 || buffer.getByte() == 1;
-        if (notNull)
-          adjacentKeys[k] = index.getDatabase().getSerializer().deserializeValue(index.getDatabase(), buffer, keyTypes[k], null);
-        else
-          adjacentKeys[k] = null;
-      }
+      final Object[] adjacentKeys = index.readEntryKeys(buffer, contentPos);
 
       final int compare = LSMTreeIndexMutable.compareKeys(index.comparator, keyTypes, nextKeys, adjacentKeys);
       if (compare != 0)
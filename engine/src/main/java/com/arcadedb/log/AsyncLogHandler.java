@@ -0,0 +1,136 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.log;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+import java.util.logging.*;
+
+/**
+ * Handler that publishes the log records to a delegate handler from a background thread. The records are kept in a bounded ring buffer
+ * so the threads that log never wait for the I/O of the delegate. When the buffer is full, records with a level lower than WARNING are
+ * dropped (and counted), while WARNING and SEVERE records wait for a free slot so they are never lost.
+ */
+public class AsyncLogHandler extends Handler {
+  private final Handler                       delegate;
+  private final ArrayBlockingQueue<LogRecord> buffer;
+  private final AtomicLong                    pending = new AtomicLong();
+  private final AtomicLong                    dropped = new AtomicLong();
+  private final Thread                        worker;
+  private volatile boolean                    running = true;
+
+  public AsyncLogHandler(final Handler delegate, final int capacity) {
+    this.delegate = delegate;
+    this.buffer = new ArrayBlockingQueue<>(capacity);
+    setLevel(delegate.getLevel());
+
+    worker = new Thread(this::run, "ArcadeDB AsyncLog");
+    worker.setDaemon(true);
+    worker.start();
+  }
+
+  @Override
+  public void publish(final LogRecord record) {
+    if (!isLoggable(record))
+      return;
+
+    if (!running) {
+      delegate.publish(record);
+      return;
+    }
+
+    pending.incrementAndGet();
+    if (buffer.offer(record))
+      return;
+
+    if (record.getLevel().intValue() < Level.WARNING.intValue()) {
+      pending.decrementAndGet();
+      dropped.incrementAndGet();
+      return;
+    }
+
+    try {
+      buffer.put(record);
+    } catch (final InterruptedException e) {
+      pending.decrementAndGet();
+      Thread.currentThread().interrupt();
+      delegate.publish(record);
+    }
+  }
+
+  /**
+   * Waits for the records buffered so far to be written, then flushes the delegate.
+   */
+  @Override
+  public void flush() {
+    while (pending.get() > 0 && worker.isAlive())
+      LockSupport.parkNanos(100_000);
+    delegate.flush();
+  }
+
+  @Override
+  public void close() {
+    running = false;
+    worker.interrupt();
+    try {
+      worker.join(5_000);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    // WRITE WHAT IS LEFT FROM THE CALLER THREAD
+    LogRecord record;
+    while ((record = buffer.poll()) != null) {
+      delegate.publish(record);
+      pending.decrementAndGet();
+    }
+
+    delegate.close();
+  }
+
+  public Handler getDelegate() {
+    return delegate;
+  }
+
+  /**
+   * Returns the number of records dropped because the buffer was full.
+   */
+  public long getDroppedRecords() {
+    return dropped.get();
+  }
+
+  private void run() {
+    while (running) {
+      try {
+        final LogRecord record = buffer.take();
+        try {
+          delegate.publish(record);
+        } finally {
+          pending.decrementAndGet();
+        }
+      } catch (final InterruptedException e) {
+        // CLOSING
+        break;
+      } catch (final Exception e) {
+        reportError("Error on writing log record", e, ErrorManager.WRITE_FAILURE);
+      }
+    }
+  }
+}
@@ -128,27 +128,7 @@ public class DefaultLogger implements Logger {
 
     //level = Level.SEVERE;
 
-    final String requesterName;
-    if (requester instanceof String)
-      requesterName = (String) requester;
-    else if (requester instanceof Class<?>)
-      requesterName = ((Class<?>) requester).getName();
-    else if (requester != null)
-      requesterName = requester.getClass().getName();
-    else
-      requesterName = DEFAULT_LOG;
-
-    java.util.logging.Logger log = loggersCache.get(requesterName);
-    if (log == null) {
-      log = java.util.logging.Logger.getLogger(requesterName);
-
-      if (log != null) {
-        final java.util.logging.Logger oldLogger = loggersCache.putIfAbsent(requesterName, log);
-
-        if (oldLogger != null)
-          log = oldLogger;
-      }
-    }
+    final java.util.logging.Logger log = getLogger(requester);
 
     if (log == null) {
       if (context != null)
@@ -197,27 +177,7 @@ public class DefaultLogger implements Logger {
 
   public void log(final Object requester, final Level level, String message, final Throwable exception, final String context, final Object... args) {
     if (message != null) {
-      final String requesterName;
-      if (requester instanceof String)
-        requesterName = (String) requester;
-      else if (requester instanceof Class<?>)
-        requesterName = ((Class<?>) requester).getName();
-      else if (requester != null)
-        requesterName = requester.getClass().getName();
-      else
-        requesterName = DEFAULT_LOG;
-
-      java.util.logging.Logger log = loggersCache.get(requesterName);
-      if (log == null) {
-        log = java.util.logging.Logger.getLogger(requesterName);
-
-        if (log != null) {
-          final java.util.logging.Logger oldLogger = loggersCache.putIfAbsent(requesterName, log);
-
-          if (oldLogger != null)
-            log = oldLogger;
-        }
-      }
+      final java.util.logging.Logger log = getLogger(requester);
 
       if (log == null) {
         if (context != null)
@@ -233,6 +193,11 @@ public class DefaultLogger implements Logger {
           System.err.printf("Error on formatting message '%s'. Exception: %s", message, e);
         }
       } else {
+        final boolean loggable = log.isLoggable(level);
+        if (!loggable && !com.arcadedb.log.LogManager.instance().isDebugEnabled())
+          // SKIP THE FORMATTING OF MESSAGES THAT WOULD BE DISCARDED ANYWAY
+          return;
+
         // USE THE LOG
         try {
           if (context != null)
@@ -242,7 +207,7 @@ public class DefaultLogger implements Logger {
           if (args.length > 0)
             msg = String.format(message, args);
 
-          if (log.isLoggable(level)) {
+          if (loggable) {
             if (exception != null)
               log.log(level, msg, exception);
             else
@@ -261,9 +226,40 @@ public class DefaultLogger implements Logger {
     }
   }
 
+  @Override
+  public boolean isLoggable(final Object requester, final Level level) {
+    final java.util.logging.Logger log = getLogger(requester);
+    return log == null || log.isLoggable(level) || com.arcadedb.log.LogManager.instance().isDebugEnabled();
+  }
+
   @Override
   public void flush() {
     for (final Handler h : java.util.logging.Logger.getLogger(java.util.logging.Logger.GLOBAL_LOGGER_NAME).getHandlers())
       h.flush();
   }
+
+  private java.util.logging.Logger getLogger(final Object requester) {
+    final String requesterName;
+    if (requester instanceof String)
+      requesterName = (String) requester;
+    else if (requester instanceof Class<?>)
+      requesterName = ((Class<?>) requester).getName();
+    else if (requester != null)
+      requesterName = requester.getClass().getName();
+    else
+      requesterName = DEFAULT_LOG;
+
+    java.util.logging.Logger log = loggersCache.get(requesterName);
+    if (log == null) {
+      log = java.util.logging.Logger.getLogger(requesterName);
+
+      if (log != null) {
+        final java.util.logging.Logger oldLogger = loggersCache.putIfAbsent(requesterName, log);
+
+        if (oldLogger != null)
+          log = oldLogger;
+      }
+    }
+    return log;
+  }
 }
@@ -76,7 +76,7 @@ public class LogFormatter extends Formatter {
     final StringBuilder buffer = new StringBuilder(512);
     buffer.append(EOL);
     synchronized (dateFormat) {
-      buffer.append(dateFormat.format(new Date()));
+      buffer.append(dateFormat.format(new Date(iRecord.getMillis())));
     }
 
     buffer.append(String.format(" %-5.5s ", level.getName()));
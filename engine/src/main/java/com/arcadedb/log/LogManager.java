@@ -18,6 +18,7 @@
  */
 package com.arcadedb.log;
 
+import java.util.function.*;
 import java.util.logging.*;
 
 /**
@@ -54,6 +55,29 @@ public class LogManager {
     this.logger = logger;
   }
 
+  /**
+   * Cheap check to use on hot paths before building expensive log messages.
+   */
+  public boolean isLoggable(final Object requester, final Level level) {
+    return logger.isLoggable(requester, level);
+  }
+
+  /**
+   * Logs a message built by the supplier. The supplier is invoked only if the level is enabled for the requester.
+   */
+  public void log(final Object requester, final Level level, final Supplier<String> message) {
+    if (logger.isLoggable(requester, level))
+      logger.log(requester, level, message.get(), null, CONTEXT_INSTANCE.get());
+  }
+
+  /**
+   * Logs a message built by the supplier with an exception. The supplier is invoked only if the level is enabled for the requester.
+   */
+  public void log(final Object requester, final Level level, final Supplier<String> message, final Throwable throwable) {
+    if (logger.isLoggable(requester, level))
+      logger.log(requester, level, message.get(), throwable, CONTEXT_INSTANCE.get());
+  }
+
   public void log(final Object requester, final Level level, final String message) {
     logger.log(requester, level, message, null, CONTEXT_INSTANCE.get());
   }
@@ -30,5 +30,13 @@ public interface Logger {
 
   void log(Object iRequester, Level iLevel, String iMessage, Throwable iException, String context, Object... args);
 
+  /**
+   * Returns true if a message with the given level would be written for the requester. Callers on hot paths use this to skip building
+   * expensive messages. The default implementation always returns true.
+   */
+  default boolean isLoggable(final Object requester, final Level level) {
+    return true;
+  }
+
   void flush();
 }
@@ -18,28 +18,79 @@
  */
 package com.arcadedb.query.sql.executor;
 
+import com.arcadedb.GlobalConfiguration;
+import com.arcadedb.database.Binary;
+import com.arcadedb.database.DatabaseInternal;
+import com.arcadedb.database.RID;
+import com.arcadedb.exception.CommandExecutionException;
+import com.arcadedb.log.LogManager;
 import com.arcadedb.query.sql.parser.Expression;
 import com.arcadedb.query.sql.parser.GroupBy;
 import com.arcadedb.query.sql.parser.Projection;
 import com.arcadedb.query.sql.parser.ProjectionItem;
+import com.arcadedb.serializer.BinaryTypes;
 
+import java.io.*;
 import java.util.*;
+import java.util.logging.*;
 
 /**
+ * Calculates the aggregate projections by hashing the GROUP BY keys. Up to {@link GlobalConfiguration#QUERY_AGGREGATION_BUFFER_SIZE} groups are kept in
+ * RAM: the input of the groups found after that limit is partitioned by hash in temporary files, and every partition is aggregated separately when the
+ * results are fetched. Since a group is entirely in RAM or entirely in one partition, no partial aggregations must be merged. The partitions bigger than
+ * the buffer are split again.
+ * <p>
  * Created by luigidellaquila on 12/07/16.
  */
 public class AggregateProjectionCalculationStep extends ProjectionCalculationStep {
+  private static final int PARTITIONS = 32;
 
   private final GroupBy groupBy;
   private final long    timeoutMillis;
   private final long    limit;
+  private final Binary  keyBuffer = new Binary();
 
   //the key is the GROUP BY key, the value is the (partially) aggregated value
-  private final Map<List, ResultInternal> aggregateResults = new LinkedHashMap<>();
-  private       List<ResultInternal>      finalResults     = null;
+  private final Map<GroupKey, ResultInternal> aggregateResults = new LinkedHashMap<>();
+  private       List<ResultInternal>          finalResults     = null;
+  private       ResultTempPartitions          partitions       = null;
+  private       long                          bufferSize       = 0;
+  private       boolean                       spillDisabled    = false;
 
   private int nextItem = 0;
 
+  /**
+   * GROUP BY key. Keys made of scalar values are compared in their binary form, the others as list of values.
+   */
+  private static class GroupKey {
+    private final byte[] bytes;
+    private final List   values;
+    private final int    hash;
+
+    private GroupKey(final byte[] bytes, final List values) {
+      this.bytes = bytes;
+      this.values = values;
+      this.hash = bytes != null ? Arrays.hashCode(bytes) : values.hashCode();
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (this == o)
+        return true;
+      if (!(o instanceof GroupKey))
+        return false;
+      final GroupKey other = (GroupKey) o;
+      if (bytes != null)
+        return Arrays.equals(bytes, other.bytes);
+      return other.bytes == null && values.equals(other.values);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
   public AggregateProjectionCalculationStep(final Projection projection, final GroupBy groupBy, final long limit, final CommandContext context,
       final long timeoutMillis, final boolean profilingEnabled) {
     super(projection, context, profilingEnabled);
@@ -59,12 +110,19 @@ public class AggregateProjectionCalculationStep extends ProjectionCalculationSte
 
       @Override
       public boolean hasNext() {
-        return localNext <= nRecords && nextItem < finalResults.size();
+        if (localNext > nRecords)
+          return false;
+
+        while (nextItem >= finalResults.size() && partitions != null)
+          // AGGREGATE THE NEXT PARTITION
+          aggregateNextPartition(context);
+
+        return nextItem < finalResults.size();
       }
 
       @Override
       public Result next() {
-        if (localNext > nRecords || nextItem >= finalResults.size()) {
+        if (!hasNext()) {
           throw new NoSuchElementException();
         }
         final Result result = finalResults.get(nextItem);
@@ -75,22 +133,124 @@ public class AggregateProjectionCalculationStep extends ProjectionCalculationSte
     };
   }
 
+  @Override
+  public void close() {
+    closePartitions();
+    super.close();
+  }
+
   private void executeAggregation(final CommandContext context, final int nRecords) {
     final long timeoutBegin = System.currentTimeMillis();
 
+    final DatabaseInternal database = context.getDatabase();
+    bufferSize = limit > 0 || database == null ? 0 : database.getConfiguration().getValueAsLong(GlobalConfiguration.QUERY_AGGREGATION_BUFFER_SIZE);
+
     final ExecutionStepInternal prevStep = checkForPrevious("Cannot execute an aggregation or a GROUP BY without a previous result");
     ResultSet lastRs = prevStep.syncPull(context, nRecords);
     while (lastRs.hasNext()) {
       if (timeoutMillis > 0 && timeoutBegin + timeoutMillis < System.currentTimeMillis()) {
         sendTimeout();
       }
-      aggregate(lastRs.next(), context);
+      final Result next = lastRs.next();
+      final GroupKey key = getGroupKey(next, context);
+
+      if (bufferSize > 0 && !spillDisabled && !aggregateResults.containsKey(key) && (partitions != null || aggregateResults.size() >= bufferSize))
+        spill(key, next, context);
+      else
+        aggregate(next, key, context);
+
       if (!lastRs.hasNext()) {
         lastRs = prevStep.syncPull(context, nRecords);
       }
     }
     finalResults = new ArrayList<>(aggregateResults.values());
     aggregateResults.clear();
+    computeFinalValues(timeoutBegin);
+  }
+
+  /**
+   * Writes the input of a group not in RAM in its partition. If the input cannot be written, the partitions are aggregated in RAM and the aggregation
+   * continues in RAM.
+   */
+  private void spill(final GroupKey key, final Result next, final CommandContext context) {
+    final long begin = profilingEnabled ? System.nanoTime() : 0;
+    try {
+      if (partitions == null) {
+        if (!ResultTempFile.canBeWritten(next)) {
+          spillDisabled = true;
+          aggregate(next, key, context);
+          return;
+        }
+        partitions = new ResultTempPartitions(context.getDatabase(), "groupby", PARTITIONS, result -> getGroupKey(result, context).hashCode());
+      }
+
+      partitions.write(key.hashCode(), next);
+
+    } catch (final IllegalArgumentException e) {
+      LogManager.instance().log(this, Level.FINE, "Cannot write GROUP BY input in temporary file, aggregating in RAM (error=%s)", null, e.getMessage());
+      spillDisabled = true;
+      try {
+        for (ResultTempFile file = partitions.nextPartition(0); file != null; file = partitions.nextPartition(0))
+          readPartition(context, file);
+      } catch (final IOException ex) {
+        throw new CommandExecutionException("Error on reading temporary file for GROUP BY", ex);
+      } finally {
+        closePartitions();
+      }
+      aggregate(next, key, context);
+    } catch (final IOException e) {
+      closePartitions();
+      throw new CommandExecutionException("Error on writing temporary file for GROUP BY", e);
+    } finally {
+      if (profilingEnabled) {
+        cost += (System.nanoTime() - begin);
+      }
+    }
+  }
+
+  private void aggregateNextPartition(final CommandContext context) {
+    final long timeoutBegin = System.currentTimeMillis();
+    final ResultTempFile file;
+    try {
+      file = partitions.nextPartition(bufferSize);
+    } catch (final IOException e) {
+      closePartitions();
+      throw new CommandExecutionException("Error on reading temporary file for GROUP BY", e);
+    }
+
+    if (file == null) {
+      closePartitions();
+      return;
+    }
+
+    readPartition(context, file);
+
+    finalResults = new ArrayList<>(aggregateResults.values());
+    nextItem = 0;
+    aggregateResults.clear();
+    computeFinalValues(timeoutBegin);
+  }
+
+  private void readPartition(final CommandContext context, final ResultTempFile file) {
+    try {
+      for (Result next = file.read(); next != null; next = file.read())
+        aggregate(next, getGroupKey(next, context), context);
+    } catch (final IOException e) {
+      closePartitions();
+      throw new CommandExecutionException("Error on reading temporary file for GROUP BY", e);
+    } finally {
+      file.close();
+    }
+  }
+
+  private void closePartitions() {
+    if (partitions != null) {
+      partitions.close();
+      partitions = null;
+    }
+  }
+
+  private void computeFinalValues(final long timeoutBegin) {
     for (final ResultInternal item : finalResults) {
       if (timeoutMillis > 0 && timeoutBegin + timeoutMillis < System.currentTimeMillis()) {
         sendTimeout();
@@ -104,16 +264,50 @@ public class AggregateProjectionCalculationStep extends ProjectionCalculationSte
     }
   }
 
-  private void aggregate(final Result next, final CommandContext context) {
+  private GroupKey getGroupKey(final Result next, final CommandContext context) {
     final long begin = profilingEnabled ? System.nanoTime() : 0;
     try {
-      final List<Object> key = new ArrayList<>();
+      final List<Object> values = new ArrayList<>();
       if (groupBy != null) {
         for (final Expression item : groupBy.getItems()) {
           final Object val = item.execute(next, context);
-          key.add(val);
+          values.add(val);
+        }
+      }
+
+      final DatabaseInternal database = context.getDatabase();
+      if (database != null && isBinaryComparable(values)) {
+        keyBuffer.clear();
+        for (final Object value : values) {
+          final byte type = BinaryTypes.getTypeFromValue(value);
+          keyBuffer.putByte(type);
+          database.getSerializer().serializeValue(database, keyBuffer, type, value);
         }
+        return new GroupKey(Arrays.copyOf(keyBuffer.getContent(), keyBuffer.size()), null);
+      }
+      return new GroupKey(null, values);
+    } finally {
+      if (profilingEnabled) {
+        cost += (System.nanoTime() - begin);
       }
+    }
+  }
+
+  /**
+   * Returns true if the values have the same binary form only when they are equal.
+   */
+  private static boolean isBinaryComparable(final List<Object> values) {
+    for (final Object value : values)
+      if (value != null && !(value instanceof String) && !(value instanceof Integer) && !(value instanceof Long) && !(value instanceof Short)
+          && !(value instanceof Byte) && !(value instanceof Boolean) && !(value instanceof Double) && !(value instanceof Float)
+          && !(value instanceof RID))
+        return false;
+    return true;
+  }
+
+  private void aggregate(final Result next, final GroupKey key, final CommandContext context) {
+    final long begin = profilingEnabled ? System.nanoTime() : 0;
+    try {
       ResultInternal preAggr = aggregateResults.get(key);
       if (preAggr == null) {
         if (limit > 0 && aggregateResults.size() > limit) {
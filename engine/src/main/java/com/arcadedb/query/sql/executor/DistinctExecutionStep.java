@@ -23,25 +23,52 @@ import com.arcadedb.database.Database;
 import com.arcadedb.database.RID;
 import com.arcadedb.exception.CommandExecutionException;
 import com.arcadedb.exception.TimeoutException;
+import com.arcadedb.log.LogManager;
 
+import java.io.*;
 import java.util.*;
+import java.util.logging.*;
 
 /**
+ * Filters out the duplicated results. Records are tracked by RID, the other results are kept in RAM up to
+ * {@link GlobalConfiguration#QUERY_AGGREGATION_BUFFER_SIZE}: the new results found after that limit are partitioned by hash in temporary files and
+ * returned, without duplicates, one partition at a time once the previous step is exhausted. The partitions bigger than the buffer are split again. Since
+ * the results are not returned in the order they are received, nothing is written in temporary files when the order of the results must be kept, like
+ * after an ORDER BY.
+ * <p>
  * Created by luigidellaquila on 08/07/16.
  */
 public class DistinctExecutionStep extends AbstractExecutionStep {
+  private static final int PARTITIONS = 32;
+
   final Set<Result> pastItems = new HashSet<>();
   final RidSet      pastRids  = new RidSet();
   ResultSet lastResult = null;
   Result    nextValue;
-  private final long maxElementsAllowed;
+  private final long                 maxElementsAllowed;
+  private final long                 bufferSize;
+  private final boolean              keepOrder;
+  private       ResultTempPartitions partitions       = null;
+  private       ResultTempFile       currentPartition = null;
+  private       boolean              spillDisabled    = false;
+  private final Deque<Result>        deferredResults  = new ArrayDeque<>();
 
   public DistinctExecutionStep(final CommandContext context, final boolean profilingEnabled) {
+    this(context, false, profilingEnabled);
+  }
+
+  /**
+   * @param keepOrder true if the results must be returned in the same order they are received. In this case the results are kept in RAM up to
+   *                  {@link GlobalConfiguration#QUERY_MAX_HEAP_ELEMENTS_ALLOWED_PER_OP}.
+   */
+  public DistinctExecutionStep(final CommandContext context, final boolean keepOrder, final boolean profilingEnabled) {
     super(context, profilingEnabled);
+    this.keepOrder = keepOrder;
     final Database db = context == null ? null : context.getDatabase();
     maxElementsAllowed = db == null ?
         GlobalConfiguration.QUERY_MAX_HEAP_ELEMENTS_ALLOWED_PER_OP.getValueAsLong() :
         db.getConfiguration().getValueAsLong(GlobalConfiguration.QUERY_MAX_HEAP_ELEMENTS_ALLOWED_PER_OP);
+    bufferSize = db == null ? 0 : db.getConfiguration().getValueAsLong(GlobalConfiguration.QUERY_AGGREGATION_BUFFER_SIZE);
   }
 
   @Override
@@ -87,10 +114,16 @@ public class DistinctExecutionStep extends AbstractExecutionStep {
       if (nextValue != null) {
         return;
       }
+      if (!deferredResults.isEmpty()) {
+        nextValue = deferredResults.poll();
+        return;
+      }
       if (lastResult == null || !lastResult.hasNext()) {
         lastResult = getPrev().syncPull(context, nRecords);
       }
       if (lastResult == null || !lastResult.hasNext()) {
+        if (partitions != null)
+          nextValue = fetchNextFromPartitions();
         return;
       }
       final long begin = profilingEnabled ? System.nanoTime() : 0;
@@ -98,8 +131,9 @@ public class DistinctExecutionStep extends AbstractExecutionStep {
         nextValue = lastResult.next();
         if (alreadyVisited(nextValue)) {
           nextValue = null;
-        } else {
-          markAsVisited(nextValue);
+        } else if (!markAsVisited(nextValue)) {
+          // DEFERRED TO ITS PARTITION
+          nextValue = null;
         }
       } finally {
         if (profilingEnabled) {
@@ -109,16 +143,60 @@ public class DistinctExecutionStep extends AbstractExecutionStep {
     }
   }
 
-  private void markAsVisited(final Result nextValue) {
+  /**
+   * Returns the next result from the partitions written in temporary files. Every partition is loaded in RAM to filter its duplicates.
+   */
+  private Result fetchNextFromPartitions() {
+    final long begin = profilingEnabled ? System.nanoTime() : 0;
+    try {
+      while (partitions != null) {
+        if (currentPartition == null) {
+          currentPartition = partitions.nextPartition(bufferSize);
+          if (currentPartition == null) {
+            closePartitions();
+            return null;
+          }
+          // THE RESULTS IN THE PARTITIONS ARE NOT IN THE SET OF THE RESULTS ALREADY RETURNED: REUSE IT FOR THE PARTITION
+          pastItems.clear();
+          continue;
+        }
+
+        final Result result = currentPartition.read();
+        if (result == null) {
+          currentPartition.close();
+          currentPartition = null;
+        } else if (pastItems.add(result))
+          return result;
+      }
+      return null;
+
+    } catch (final IOException e) {
+      closePartitions();
+      throw new CommandExecutionException("Error on reading temporary file for DISTINCT", e);
+    } finally {
+      if (profilingEnabled) {
+        cost += (System.nanoTime() - begin);
+      }
+    }
+  }
+
+  /**
+   * Returns false if the result has been deferred to a partition in a temporary file because the results in RAM are too many.
+   */
+  private boolean markAsVisited(final Result nextValue) {
     if (nextValue.isElement()) {
       final RID identity = nextValue.getElement().get().getIdentity();
       final int bucket = identity.getBucketId();
       final long pos = identity.getPosition();
       if (bucket >= 0 && pos >= 0) {
         pastRids.add(identity);
-        return;
+        return true;
       }
     }
+
+    if (bufferSize > 0 && !keepOrder && !spillDisabled && (partitions != null || pastItems.size() >= bufferSize) && spill(nextValue))
+      return false;
+
     pastItems.add(nextValue);
     if (maxElementsAllowed > 0 && maxElementsAllowed < pastItems.size()) {
       this.pastItems.clear();
@@ -126,6 +204,56 @@ public class DistinctExecutionStep extends AbstractExecutionStep {
           "Limit of allowed elements for in-heap DISTINCT in a single query exceeded (" + maxElementsAllowed + ") . You can set "
               + GlobalConfiguration.QUERY_MAX_HEAP_ELEMENTS_ALLOWED_PER_OP.getKey() + " to increase this limit");
     }
+    return true;
+  }
+
+  /**
+   * Writes the result in its partition. Returns false if the result cannot be written: in this case the partitions are loaded back in RAM and the
+   * results are kept in RAM from now on.
+   */
+  private boolean spill(final Result nextValue) {
+    try {
+      if (partitions == null) {
+        if (!ResultTempFile.canBeWritten(nextValue))
+          return false;
+        partitions = new ResultTempPartitions(context.getDatabase(), "distinct", PARTITIONS, Result::hashCode);
+      }
+      partitions.write(nextValue.hashCode(), nextValue);
+      return true;
+
+    } catch (final IllegalArgumentException e) {
+      LogManager.instance().log(this, Level.FINE, "Cannot write DISTINCT results in temporary file, keeping them in RAM (error=%s)", null, e.getMessage());
+      spillDisabled = true;
+      try {
+        for (ResultTempFile partition = partitions.nextPartition(0); partition != null; partition = partitions.nextPartition(0))
+          try {
+            for (Result result = partition.read(); result != null; result = partition.read())
+              if (pastItems.add(result))
+                deferredResults.add(result);
+          } finally {
+            partition.close();
+          }
+      } catch (final IOException ex) {
+        throw new CommandExecutionException("Error on reading temporary file for DISTINCT", ex);
+      } finally {
+        closePartitions();
+      }
+      return false;
+    } catch (final IOException e) {
+      closePartitions();
+      throw new CommandExecutionException("Error on writing temporary file for DISTINCT", e);
+    }
+  }
+
+  private void closePartitions() {
+    if (currentPartition != null) {
+      currentPartition.close();
+      currentPartition = null;
+    }
+    if (partitions != null) {
+      partitions.close();
+      partitions = null;
+    }
   }
 
   private boolean alreadyVisited(final Result nextValue) {
@@ -147,6 +275,7 @@ public class DistinctExecutionStep extends AbstractExecutionStep {
 
   @Override
   public void close() {
+    closePartitions();
     if (prev != null)
       prev.close();
   }
@@ -0,0 +1,197 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.query.sql.executor;
+
+import com.arcadedb.database.Identifiable;
+import com.arcadedb.database.RID;
+import com.arcadedb.exception.RecordNotFoundException;
+import com.arcadedb.exception.TimeoutException;
+import com.arcadedb.log.LogManager;
+
+import java.util.*;
+import java.util.logging.*;
+import java.util.stream.*;
+
+/**
+ * Covering index step: produces the results from the keys of the index entries without loading the records. It is used when the projections and the
+ * conditions of the query use only the indexed properties. The records are filtered by bucket, so this step replaces also the filter by type. If the
+ * entry does not contain all the keys (partial keys of a composite index), the record is loaded.
+ */
+public class GetKeysFromIndexEntryStep extends AbstractExecutionStep {
+
+  private final List<String> propertyNames;
+  private final int[]        bucketIds;
+
+  // runtime
+
+  private ResultSet prevResult = null;
+
+  /**
+   * @param context          the execution context
+   * @param propertyNames    names of the indexed properties, in the same order of the keys
+   * @param bucketIds        only extract values from these buckets. Pass null if no filtering is needed
+   * @param profilingEnabled enable profiling
+   */
+  public GetKeysFromIndexEntryStep(final CommandContext context, final List<String> propertyNames, final int[] bucketIds, final boolean profilingEnabled) {
+    super(context, profilingEnabled);
+    this.propertyNames = propertyNames;
+    this.bucketIds = bucketIds;
+  }
+
+  @Override
+  public ResultSet syncPull(final CommandContext context, final int nRecords) throws TimeoutException {
+    final ExecutionStepInternal prevStep = checkForPrevious();
+
+    return new ResultSet() {
+
+      public boolean finished = false;
+
+      Result nextItem = null;
+      int    fetched  = 0;
+
+      @Override
+      public boolean hasNext() {
+        if (fetched >= nRecords || finished)
+          return false;
+
+        if (nextItem == null)
+          fetchNextItem();
+
+        return nextItem != null;
+      }
+
+      @Override
+      public Result next() {
+        if (fetched >= nRecords || finished)
+          throw new NoSuchElementException();
+
+        if (nextItem == null)
+          fetchNextItem();
+
+        if (nextItem == null)
+          throw new NoSuchElementException();
+
+        final Result result = nextItem;
+        nextItem = null;
+        fetched++;
+        return result;
+      }
+
+      private void fetchNextItem() {
+        nextItem = null;
+        if (finished)
+          return;
+
+        if (prevResult == null) {
+          prevResult = prevStep.syncPull(context, nRecords);
+          if (!prevResult.hasNext()) {
+            finished = true;
+            return;
+          }
+        }
+        while (!finished) {
+          while (!prevResult.hasNext()) {
+            prevResult = prevStep.syncPull(context, nRecords);
+            if (!prevResult.hasNext()) {
+              finished = true;
+              return;
+            }
+          }
+          final Result val = prevResult.next();
+          final long begin = profilingEnabled ? System.nanoTime() : 0;
+
+          try {
+            final Object value = val.getProperty("rid");
+            if (!(value instanceof Identifiable))
+              continue;
+
+            final RID rid = ((Identifiable) value).getIdentity();
+            if (!isBucketIncluded(rid))
+              continue;
+
+            final Object key = val.getProperty("key");
+            if (key instanceof Object[] && ((Object[]) key).length == propertyNames.size()) {
+              final Object[] keys = (Object[]) key;
+              final ResultInternal result = new ResultInternal();
+              for (int i = 0; i < keys.length; ++i)
+                result.setProperty(propertyNames.get(i), keys[i]);
+              nextItem = result;
+            } else {
+              // PARTIAL KEYS: LOAD THE RECORD
+              try {
+                nextItem = new ResultInternal(rid.asDocument());
+              } catch (final RecordNotFoundException e) {
+                LogManager.instance().log(this, Level.WARNING, "Record %s not found. Skip it from the result set", null, rid);
+                continue;
+              }
+            }
+            break;
+          } finally {
+            if (profilingEnabled) {
+              cost += (System.nanoTime() - begin);
+            }
+          }
+        }
+      }
+    };
+  }
+
+  private boolean isBucketIncluded(final RID rid) {
+    if (bucketIds == null)
+      return true;
+
+    for (final int bucketId : bucketIds)
+      if (bucketId == rid.getBucketId())
+        return true;
+    return false;
+  }
+
+  @Override
+  public String prettyPrint(final int depth, final int indent) {
+    final String spaces = ExecutionStepInternal.getIndent(depth, indent);
+    String result = spaces + "+ EXTRACT KEYS FROM INDEX ENTRY (COVERING INDEX)";
+
+    if (profilingEnabled)
+      result += " (" + getCostFormatted() + ")";
+
+    result += "\n";
+    result += spaces;
+    result += "  properties [" + String.join(",", propertyNames) + "]";
+
+    if (bucketIds != null) {
+      result += "\n";
+      result += spaces;
+      result += "  filtering buckets [";
+      result += Arrays.stream(bucketIds).boxed().map(x -> "" + x).collect(Collectors.joining(","));
+      result += "]";
+    }
+
+    return result;
+  }
+
+  @Override
+  public boolean canBeCached() {
+    return true;
+  }
+
+  @Override
+  public ExecutionStep copy(final CommandContext context) {
+    return new GetKeysFromIndexEntryStep(context, this.propertyNames, this.bucketIds, this.profilingEnabled);
+  }
+}
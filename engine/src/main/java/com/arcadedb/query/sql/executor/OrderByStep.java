@@ -21,20 +21,69 @@ package com.arcadedb.query.sql.executor;
 import com.arcadedb.GlobalConfiguration;
 import com.arcadedb.exception.CommandExecutionException;
 import com.arcadedb.exception.TimeoutException;
+import com.arcadedb.log.LogManager;
 import com.arcadedb.query.sql.parser.OrderBy;
 
+import java.io.*;
 import java.util.*;
+import java.util.logging.*;
 
 /**
+ * Sorts the results. With a max number of results (ORDER BY + LIMIT) only the best results are kept in a bounded heap. Otherwise the results are sorted in
+ * RAM up to {@link GlobalConfiguration#QUERY_SORT_BUFFER_SIZE} results: bigger results are sorted in runs written in temporary files, merged lazily while
+ * the results are fetched.
+ * <p>
  * Created by luigidellaquila on 11/07/16.
  */
 public class OrderByStep extends AbstractExecutionStep {
-  private final OrderBy orderBy;
-  private       Integer maxResults;
-  private final long    timeoutMillis;
+  private final OrderBy              orderBy;
+  private       Integer              maxResults;
+  private final long                 timeoutMillis;
+  private final List<ResultTempFile> runFiles      = new ArrayList<>();
+  private       Iterator<Result>     sortedResults = null;
 
-  List<Result> cachedResult = null;
-  int          nextElement  = 0;
+  /**
+   * Result with its position in the input, used to keep the sort stable.
+   */
+  private static class SortEntry {
+    private final Result result;
+    private final long   sequence;
+
+    private SortEntry(final Result result, final long sequence) {
+      this.result = result;
+      this.sequence = sequence;
+    }
+  }
+
+  /**
+   * Sorted run, in RAM or in a temporary file, with its current result.
+   */
+  private static class RunCursor {
+    private final int              index;
+    private final Iterator<Result> inHeap;
+    private final ResultTempFile   file;
+    private       Result           current;
+
+    private RunCursor(final int index, final Iterator<Result> inHeap, final ResultTempFile file) {
+      this.index = index;
+      this.inHeap = inHeap;
+      this.file = file;
+    }
+
+    private boolean next() {
+      if (inHeap != null)
+        current = inHeap.hasNext() ? inHeap.next() : null;
+      else
+        try {
+          current = file.read();
+          if (current == null)
+            file.close();
+        } catch (final IOException e) {
+          throw new CommandExecutionException("Error on reading temporary file for ORDER BY", e);
+        }
+      return current != null;
+    }
+  }
 
   public OrderByStep(final OrderBy orderBy, final CommandContext context, final long timeoutMillis, final boolean profilingEnabled) {
     this(orderBy, null, context, timeoutMillis, profilingEnabled);
@@ -52,36 +101,28 @@ public class OrderByStep extends AbstractExecutionStep {
 
   @Override
   public ResultSet syncPull(final CommandContext context, final int nRecords) throws TimeoutException {
-    if (cachedResult == null) {
-      cachedResult = new ArrayList<>();
-      if (prev != null)
-        init(prev, context);
-    }
+    if (sortedResults == null)
+      sortedResults = prev != null ? init(prev, context) : Collections.emptyIterator();
 
     return new ResultSet() {
       private int currentBatchReturned = 0;
-      private final int offset = nextElement;
 
       @Override
       public boolean hasNext() {
         if (currentBatchReturned >= nRecords) {
           return false;
         }
-        return cachedResult.size() > nextElement;
+        return sortedResults.hasNext();
       }
 
       @Override
       public Result next() {
         final long begin = profilingEnabled ? System.nanoTime() : 0;
         try {
-          if (currentBatchReturned >= nRecords) {
-            throw new NoSuchElementException();
-          }
-          if (cachedResult.size() <= nextElement) {
+          if (!hasNext()) {
             throw new NoSuchElementException();
           }
-          final Result result = cachedResult.get(offset + currentBatchReturned);
-          nextElement++;
+          final Result result = sortedResults.next();
           currentBatchReturned++;
           return result;
         } finally {
@@ -99,10 +140,29 @@ public class OrderByStep extends AbstractExecutionStep {
     };
   }
 
-  private void init(final ExecutionStepInternal p, final CommandContext context) {
+  @Override
+  public void close() {
+    closeRunFiles();
+    super.close();
+  }
+
+  private Iterator<Result> init(final ExecutionStepInternal p, final CommandContext context) {
     final long timeoutBegin = System.currentTimeMillis();
     final long maxElementsAllowed = GlobalConfiguration.QUERY_MAX_HEAP_ELEMENTS_ALLOWED_PER_OP.getValueAsLong();
-    boolean sorted = true;
+    final long bufferSize = context.getDatabase().getConfiguration().getValueAsLong(GlobalConfiguration.QUERY_SORT_BUFFER_SIZE);
+    final Comparator<Result> comparator = (a, b) -> orderBy.compare(a, b, context);
+
+    // WITH A SMALL LIMIT KEEP ONLY THE BEST RESULTS IN A HEAP WITH THE WORST RESULT ON TOP
+    final PriorityQueue<SortEntry> topResults = maxResults != null && (bufferSize <= 0 || maxResults <= bufferSize) ?
+        new PriorityQueue<>(Math.max(1, maxResults + 1), (a, b) -> {
+          final int cmp = comparator.compare(b.result, a.result);
+          return cmp != 0 ? cmp : Long.compare(b.sequence, a.sequence);
+        }) :
+        null;
+
+    final List<Result> run = new ArrayList<>();
+    boolean spillEnabled = bufferSize > 0;
+    long sequence = 0;
     do {
       final ResultSet lastBatch = p.syncPull(context, DEFAULT_FETCH_RECORDS_PER_PULL);
       if (!lastBatch.hasNext())
@@ -118,23 +178,24 @@ public class OrderByStep extends AbstractExecutionStep {
         final Result item = lastBatch.next();
         final long begin = profilingEnabled ? System.nanoTime() : 0;
         try {
-          cachedResult.add(item);
-          if (maxElementsAllowed >= 0 && cachedResult.size() > maxElementsAllowed) {
-            this.cachedResult.clear();
+          if (topResults != null) {
+            topResults.add(new SortEntry(item, sequence++));
+            if (topResults.size() > maxResults)
+              topResults.poll();
+            continue;
+          }
+
+          run.add(item);
+          if (spillEnabled && run.size() >= bufferSize)
+            spillEnabled = spill(run, comparator, context);
+
+          if (maxElementsAllowed >= 0 && run.size() > maxElementsAllowed) {
+            run.clear();
+            closeRunFiles();
             throw new CommandExecutionException(
                 "Limit of allowed elements for in-heap ORDER BY in a single query exceeded (" + maxElementsAllowed + ") . You can set "
                     + GlobalConfiguration.QUERY_MAX_HEAP_ELEMENTS_ALLOWED_PER_OP.getKey() + " to increase this limit");
           }
-          sorted = false;
-          // compact, only at twice as the buffer, to avoid to do it at each add
-          if (this.maxResults != null) {
-            final long compactThreshold = 2L * maxResults;
-            if (compactThreshold < cachedResult.size()) {
-              cachedResult.sort((a, b) -> orderBy.compare(a, b, context));
-              cachedResult = new ArrayList<>(cachedResult.subList(0, maxResults));
-              sorted = true;
-            }
-          }
         } finally {
           if (profilingEnabled) {
             cost += (System.nanoTime() - begin);
@@ -144,25 +205,27 @@ public class OrderByStep extends AbstractExecutionStep {
       if (timedOut) {
         break;
       }
-      final long begin = profilingEnabled ? System.nanoTime() : 0;
-      try {
-        // compact at each batch, if needed
-        if (!sorted && this.maxResults != null && maxResults < cachedResult.size()) {
-          cachedResult.sort((a, b) -> orderBy.compare(a, b, context));
-          cachedResult = new ArrayList<>(cachedResult.subList(0, maxResults));
-          sorted = true;
-        }
-      } finally {
-        if (profilingEnabled) {
-          cost += (System.nanoTime() - begin);
-        }
-      }
     } while (true);
+
     final long begin = profilingEnabled ? System.nanoTime() : 0;
     try {
-      if (!sorted) {
-        cachedResult.sort((a, b) -> orderBy.compare(a, b, context));
+      if (topResults != null) {
+        final List<SortEntry> entries = new ArrayList<>(topResults);
+        entries.sort((a, b) -> {
+          final int cmp = comparator.compare(a.result, b.result);
+          return cmp != 0 ? cmp : Long.compare(a.sequence, b.sequence);
+        });
+        final List<Result> result = new ArrayList<>(entries.size());
+        for (final SortEntry entry : entries)
+          result.add(entry.result);
+        return result.iterator();
       }
+
+      run.sort(comparator);
+      if (runFiles.isEmpty())
+        return run.iterator();
+
+      return merge(run, comparator);
     } finally {
       if (profilingEnabled) {
         cost += (System.nanoTime() - begin);
@@ -170,6 +233,78 @@ public class OrderByStep extends AbstractExecutionStep {
     }
   }
 
+  /**
+   * Sorts the run and writes it in a temporary file. Returns false if the results cannot be written in a file: in this case the run is kept in RAM.
+   */
+  private boolean spill(final List<Result> run, final Comparator<Result> comparator, final CommandContext context) {
+    run.sort(comparator);
+
+    ResultTempFile file = null;
+    try {
+      file = new ResultTempFile(context.getDatabase(), "orderby");
+      for (final Result result : run)
+        file.write(result);
+      runFiles.add(file);
+      run.clear();
+      return true;
+
+    } catch (final IllegalArgumentException e) {
+      // THE RESULTS CANNOT BE SERIALIZED: SORT THEM IN RAM
+      file.close();
+      LogManager.instance().log(this, Level.FINE, "Cannot write ORDER BY results in temporary file, sorting in RAM (error=%s)", null, e.getMessage());
+      return false;
+    } catch (final IOException e) {
+      if (file != null)
+        file.close();
+      closeRunFiles();
+      throw new CommandExecutionException("Error on writing temporary file for ORDER BY", e);
+    }
+  }
+
+  /**
+   * Merges the sorted runs written in temporary files and the last run in RAM. With equal results the run written first wins, so the sort is stable.
+   */
+  private Iterator<Result> merge(final List<Result> lastRun, final Comparator<Result> comparator) {
+    final PriorityQueue<RunCursor> queue = new PriorityQueue<>(runFiles.size() + 1, (a, b) -> {
+      final int cmp = comparator.compare(a.current, b.current);
+      return cmp != 0 ? cmp : Integer.compare(a.index, b.index);
+    });
+
+    for (int i = 0; i < runFiles.size(); i++) {
+      final RunCursor cursor = new RunCursor(i, null, runFiles.get(i));
+      if (cursor.next())
+        queue.add(cursor);
+    }
+    final RunCursor lastCursor = new RunCursor(runFiles.size(), lastRun.iterator(), null);
+    if (lastCursor.next())
+      queue.add(lastCursor);
+
+    return new Iterator<>() {
+      @Override
+      public boolean hasNext() {
+        return !queue.isEmpty();
+      }
+
+      @Override
+      public Result next() {
+        final RunCursor cursor = queue.poll();
+        if (cursor == null)
+          throw new NoSuchElementException();
+
+        final Result result = cursor.current;
+        if (cursor.next())
+          queue.add(cursor);
+        return result;
+      }
+    };
+  }
+
+  private void closeRunFiles() {
+    for (final ResultTempFile file : runFiles)
+      file.close();
+    runFiles.clear();
+  }
+
   @Override
   public String prettyPrint(final int depth, final int indent) {
     String result = ExecutionStepInternal.getIndent(depth, indent) + "+ " + orderBy;
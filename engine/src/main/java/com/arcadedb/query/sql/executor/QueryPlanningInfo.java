@@ -70,6 +70,14 @@ public class QueryPlanningInfo {
   Limit          limit;
   boolean        orderApplied          = false;
   boolean        projectionsCalculated = false;
+  /**
+   * set to true when the records are not loaded because the index contains all the properties used by the query
+   */
+  boolean        indexCovering         = false;
+  /**
+   * properties used by the projection and the ORDER BY as written in the query, or null if the query cannot be answered by a covering index
+   */
+  Set<String>    coveringProperties;
   AndBlock       ridRangeConditions;
 
   public QueryPlanningInfo copy() {
@@ -96,6 +104,8 @@ public class QueryPlanningInfo {
     result.limit = this.limit;
     result.orderApplied = this.orderApplied;
     result.projectionsCalculated = this.projectionsCalculated;
+    result.indexCovering = this.indexCovering;
+    result.coveringProperties = this.coveringProperties;
     result.ridRangeConditions = this.ridRangeConditions;
 
     return result;
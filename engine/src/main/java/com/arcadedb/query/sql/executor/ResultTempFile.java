@@ -0,0 +1,293 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.query.sql.executor;
+
+import com.arcadedb.database.Binary;
+import com.arcadedb.database.DatabaseInternal;
+import com.arcadedb.database.Document;
+import com.arcadedb.database.EmbeddedDocument;
+import com.arcadedb.database.RID;
+import com.arcadedb.graph.Edge;
+import com.arcadedb.graph.Vertex;
+import com.arcadedb.graph.VertexInternal;
+import com.arcadedb.log.LogManager;
+import com.arcadedb.serializer.BinarySerializer;
+import com.arcadedb.serializer.BinaryTypes;
+
+import java.io.*;
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.logging.*;
+
+/**
+ * Temporary file of results used by the steps that hold more results than allowed in RAM. The results are written in sequence and read back in the same
+ * order. The values are stored with their type: records are stored with their full serialized content, so they are restored as they were also if modified
+ * and not saved, nested results are stored recursively and lists, sets, arrays and maps are restored with the same kind of collection. Simple values are
+ * stored with the {@link BinarySerializer}. Only {@link ResultInternal} instances can be stored: use {@link #canBeWritten(Result)} to check it. The file is
+ * created in the directory returned by {@link #getTempDirectory(DatabaseInternal)} and it is deleted on {@link #close()}.
+ */
+public class ResultTempFile implements Closeable {
+  public static final  String TEMP_DIRECTORY = "temp";
+  private static final byte   VALUE_SIMPLE   = 0;
+  private static final byte   VALUE_NULL     = 1;
+  private static final byte   VALUE_RECORD   = 2;
+  private static final byte   VALUE_RESULT   = 3;
+  private static final byte   VALUE_LIST     = 4;
+  private static final byte   VALUE_SET      = 5;
+  private static final byte   VALUE_ARRAY    = 6;
+  private static final byte   VALUE_MAP      = 7;
+
+  private final DatabaseInternal database;
+  private final BinarySerializer serializer;
+  private final File             file;
+  private final Binary           buffer = new Binary();
+  private       DataOutputStream out;
+  private       DataInputStream  in;
+  private       long             written;
+  private       boolean          closed;
+
+  public ResultTempFile(final DatabaseInternal database, final String prefix) throws IOException {
+    this.database = database;
+    this.serializer = database.getSerializer();
+    this.file = File.createTempFile("arcadedb-" + prefix, ".tmp", getTempDirectory(database));
+    this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 65536));
+  }
+
+  /**
+   * Returns the directory of the temporary files of the database, under the database directory, creating it if needed. The temporary files are stored on
+   * the same storage of the database instead of the system temporary directory, that is often smaller.
+   */
+  public static File getTempDirectory(final DatabaseInternal database) throws IOException {
+    final File directory = new File(database.getDatabasePath(), TEMP_DIRECTORY);
+    if (!directory.exists() && !directory.mkdirs() && !directory.exists())
+      throw new IOException("Cannot create the temporary directory '" + directory + "'");
+    return directory;
+  }
+
+  /**
+   * Returns true if the result can be written in a temporary file. Subclasses of {@link ResultInternal}, like {@link UpdatableResult}, are bound to the
+   * instance and cannot be restored.
+   */
+  public static boolean canBeWritten(final Result result) {
+    return result.getClass() == ResultInternal.class && (!result.isElement() || result.getElement().get().getIdentity() != null);
+  }
+
+  /**
+   * Writes a result. If the result or one of its values cannot be serialized an {@link IllegalArgumentException} is thrown and nothing is written.
+   */
+  public void write(final Result result) throws IOException {
+    if (!canBeWritten(result))
+      throw new IllegalArgumentException("Result " + result + " cannot be written in a temporary file");
+
+    buffer.clear();
+    try {
+      writeResult((ResultInternal) result);
+    } catch (final ClassCastException e) {
+      throw new IllegalArgumentException("Result " + result + " cannot be written in a temporary file", e);
+    }
+
+    out.writeInt(buffer.size());
+    out.write(buffer.getContent(), 0, buffer.size());
+    ++written;
+  }
+
+  /**
+   * Returns the next result or null if all the results have been read. The first call completes the writing.
+   */
+  public Result read() throws IOException {
+    if (in == null) {
+      if (out != null) {
+        out.close();
+        out = null;
+      }
+      in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 65536));
+    }
+
+    final int size;
+    try {
+      size = in.readInt();
+    } catch (final EOFException e) {
+      return null;
+    }
+
+    buffer.clear();
+    buffer.size(size);
+    in.readFully(buffer.getContent(), 0, size);
+    buffer.position(0);
+
+    return readResult();
+  }
+  public long getWritten() {
+    return written;
+  }
+
+  @Override
+  public void close() {
+    if (closed)
+      return;
+    closed = true;
+
+    try {
+      if (out != null)
+        out.close();
+      if (in != null)
+        in.close();
+    } catch (final IOException e) {
+      // IGNORE IT
+    }
+    out = null;
+    in = null;
+
+    if (!file.delete())
+      LogManager.instance().log(this, Level.WARNING, "Cannot delete temporary file '%s'", null, file);
+  }
+
+  private void writeResult(final ResultInternal result) {
+    writeValue(result.element);
+    writeValue(result.content);
+    writeValue(result.metadata);
+    writeValue(result.temporaryContent);
+  }
+
+  private ResultInternal readResult() throws IOException {
+    final Document element = (Document) readValue();
+    final ResultInternal result = new ResultInternal((Map<String, Object>) readValue());
+    result.element = element;
+    result.metadata = (Map<String, Object>) readValue();
+    result.temporaryContent = (Map<String, Object>) readValue();
+    return result;
+  }
+
+  private void writeValue(final Object value) {
+    if (value == null)
+      buffer.putByte(VALUE_NULL);
+    else if (value instanceof Result) {
+      if (value.getClass() != ResultInternal.class)
+        throw new IllegalArgumentException("Result " + value + " cannot be written in a temporary file");
+      buffer.putByte(VALUE_RESULT);
+      writeResult((ResultInternal) value);
+    } else if (value instanceof Document && !(value instanceof EmbeddedDocument))
+      writeRecord((Document) value);
+    else if (value instanceof Map) {
+      buffer.putByte(VALUE_MAP);
+      buffer.putUnsignedNumber(((Map<?, ?>) value).size());
+      for (final Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        writeValue(entry.getKey());
+        writeValue(entry.getValue());
+      }
+    } else if (value instanceof List || value instanceof Set) {
+      buffer.putByte(value instanceof List ? VALUE_LIST : VALUE_SET);
+      buffer.putUnsignedNumber(((Collection<?>) value).size());
+      for (final Object item : (Collection<?>) value)
+        writeValue(item);
+    } else if (value instanceof Object[]) {
+      buffer.putByte(VALUE_ARRAY);
+      buffer.putString(value.getClass().getComponentType().getName());
+      buffer.putUnsignedNumber(((Object[]) value).length);
+      for (final Object item : (Object[]) value)
+        writeValue(item);
+    } else {
+      final byte type = BinaryTypes.getTypeFromValue(value);
+      if (type == BinaryTypes.TYPE_LIST || type == BinaryTypes.TYPE_MAP || type == BinaryTypes.TYPE_RID)
+        // THE SERIALIZER WOULD CHANGE THE TYPE OF THE VALUE
+        throw new IllegalArgumentException("Value '" + value + "' of type " + value.getClass() + " cannot be written in a temporary file");
+
+      buffer.putByte(VALUE_SIMPLE);
+      buffer.putByte(type);
+      serializer.serializeValue(database, buffer, type, value);
+    }
+  }
+
+  private Object readValue() throws IOException {
+    final byte kind = buffer.getByte();
+    switch (kind) {
+    case VALUE_NULL:
+      return null;
+    case VALUE_SIMPLE:
+      return serializer.deserializeValue(database, buffer, buffer.getByte(), null);
+    case VALUE_RECORD:
+      return readRecord();
+    case VALUE_RESULT:
+      return readResult();
+    case VALUE_MAP: {
+      final int count = (int) buffer.getUnsignedNumber();
+      final Map<Object, Object> map = new LinkedHashMap<>(count);
+      for (int i = 0; i < count; ++i) {
+        final Object key = readValue();
+        map.put(key, readValue());
+      }
+      return map;
+    }
+    case VALUE_LIST:
+    case VALUE_SET: {
+      final int count = (int) buffer.getUnsignedNumber();
+      final Collection<Object> collection = kind == VALUE_LIST ? new ArrayList<>(count) : new LinkedHashSet<>(count);
+      for (int i = 0; i < count; ++i)
+        collection.add(readValue());
+      return collection;
+    }
+    case VALUE_ARRAY: {
+      final String componentType = buffer.getString();
+      final int count = (int) buffer.getUnsignedNumber();
+      final Object[] array;
+      try {
+        array = (Object[]) Array.newInstance(Class.forName(componentType, false, ResultTempFile.class.getClassLoader()), count);
+      } catch (final ClassNotFoundException e) {
+        throw new IOException("Cannot restore an array of type " + componentType + " from the temporary file '" + file + "'", e);
+      }
+      for (int i = 0; i < count; ++i)
+        array[i] = readValue();
+      return array;
+    }
+    default:
+      throw new IOException("Invalid value kind " + kind + " in temporary file '" + file + "'");
+    }
+  }
+
+  /**
+   * Writes the full content of the record, so it is restored as it is now without reloading it from the database.
+   */
+  private void writeRecord(final Document record) {
+    final Binary content;
+    if (record instanceof Vertex)
+      content = serializer.serializeVertex(database, (VertexInternal) record);
+    else if (record instanceof Edge)
+      content = serializer.serializeEdge(database, (Edge) record);
+    else
+      content = serializer.serializeDocument(database, record);
+
+    buffer.putByte(VALUE_RECORD);
+    buffer.putString(record.getTypeName());
+    final RID rid = record.getIdentity();
+    if (rid != null) {
+      buffer.putNumber(rid.getBucketId());
+      buffer.putNumber(rid.getPosition());
+    } else
+      buffer.putNumber(-1);
+    buffer.putBytes(content.getContent(), content.size());
+  }
+
+  private Document readRecord() {
+    final String typeName = buffer.getString();
+    final int bucketId = (int) buffer.getNumber();
+    final RID rid = bucketId > -1 ? new RID(database, bucketId, buffer.getNumber()) : null;
+    final Binary content = new Binary(buffer.getBytes());
+    return (Document) database.getRecordFactory().newImmutableRecord(database, database.getSchema().getType(typeName), rid, content, null);
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.query.sql.executor;
+
+import com.arcadedb.database.DatabaseInternal;
+
+import java.io.*;
+import java.util.function.*;
+
+/**
+ * Results partitioned by hash in temporary files. Results with the same hash are always written in the same partition, so every partition can be
+ * processed separately with a fraction of the RAM (grace hash). The files are created at the first write in the partition. The partitions are returned
+ * by {@link #nextPartition(long)}, that splits again the partitions bigger than the requested size with the hashes computed by the hash function, using
+ * different bits of the hash at every level.
+ */
+public class ResultTempPartitions implements Closeable {
+  private static final int MAX_LEVELS = 4;
+
+  private final DatabaseInternal      database;
+  private final String                prefix;
+  private final ToIntFunction<Result> hashFunction;
+  private final int                   level;
+  private final ResultTempFile[]      partitions;
+  private       int                   nextPartition = 0;
+  private       ResultTempPartitions  split         = null;
+  private       boolean               splittable    = true;
+
+  public ResultTempPartitions(final DatabaseInternal database, final String prefix, final int count, final ToIntFunction<Result> hashFunction) {
+    this(database, prefix, count, hashFunction, 0);
+  }
+
+  private ResultTempPartitions(final DatabaseInternal database, final String prefix, final int count, final ToIntFunction<Result> hashFunction,
+      final int level) {
+    this.database = database;
+    this.prefix = prefix;
+    this.hashFunction = hashFunction;
+    this.level = level;
+    this.partitions = new ResultTempFile[count];
+  }
+
+  /**
+   * Writes the result in its partition. The hash must be the one returned by the hash function for the result.
+   */
+  public void write(final int hash, final Result result) throws IOException {
+    final int partition = getPartition(hash);
+    if (partitions[partition] == null)
+      partitions[partition] = new ResultTempFile(database, prefix);
+    partitions[partition].write(result);
+  }
+
+  /**
+   * Returns the next partition to process, or null if all the partitions have been returned. The partitions with more than maxResults results are split
+   * again, so the returned partition has up to maxResults results, unless its results cannot be divided further because they have the same hash. Use 0
+   * to never split the partitions. The caller must close the returned partition.
+   */
+  public ResultTempFile nextPartition(final long maxResults) throws IOException {
+    while (true) {
+      if (split != null) {
+        final ResultTempFile file = split.nextPartition(maxResults);
+        if (file != null)
+          return file;
+        split.close();
+        split = null;
+      }
+
+      if (nextPartition >= partitions.length)
+        return null;
+
+      final ResultTempFile file = partitions[nextPartition];
+      partitions[nextPartition++] = null;
+      if (file == null)
+        continue;
+
+      if (maxResults <= 0 || file.getWritten() <= maxResults || !splittable || level >= MAX_LEVELS)
+        return file;
+
+      split = split(file);
+    }
+  }
+
+  @Override
+  public void close() {
+    if (split != null) {
+      split.close();
+      split = null;
+    }
+    for (int i = 0; i < partitions.length; i++)
+      if (partitions[i] != null) {
+        partitions[i].close();
+        partitions[i] = null;
+      }
+  }
+
+  private ResultTempPartitions split(final ResultTempFile file) throws IOException {
+    final ResultTempPartitions result = new ResultTempPartitions(database, prefix, partitions.length, hashFunction, level + 1);
+    try {
+      for (Result next = file.read(); next != null; next = file.read())
+        result.write(hashFunction.applyAsInt(next), next);
+    } catch (final IOException | RuntimeException e) {
+      result.close();
+      throw e;
+    } finally {
+      file.close();
+    }
+
+    // IF ALL THE RESULTS ENDED IN THE SAME PARTITION, SPLITTING IT AGAIN WOULD NOT DIVIDE THEM
+    int used = 0;
+    for (final ResultTempFile partition : result.partitions)
+      if (partition != null)
+        ++used;
+    result.splittable = used > 1;
+    return result;
+  }
+
+  private int getPartition(final int hash) {
+    if (level == 0)
+      return Math.floorMod(hash ^ (hash >>> 16), partitions.length);
+
+    // MIX THE HASH WITH A DIFFERENT SEED AT EVERY LEVEL, SO THE RESULTS OF A PARTITION ARE SPREAD ON ALL THE PARTITIONS OF THE NEXT LEVEL
+    int h = hash ^ (level * 0x9E3779B9);
+    h ^= h >>> 16;
+    h *= 0x85EBCA6B;
+    h ^= h >>> 13;
+    h *= 0xC2B2AE35;
+    h ^= h >>> 16;
+    return Math.floorMod(h, partitions.length);
+  }
+}
@@ -25,6 +25,7 @@ import com.arcadedb.database.Identifiable;
 import com.arcadedb.database.RID;
 import com.arcadedb.exception.CommandExecutionException;
 import com.arcadedb.index.Index;
+import com.arcadedb.index.IndexInternal;
 import com.arcadedb.index.RangeIndex;
 import com.arcadedb.index.TypeIndex;
 import com.arcadedb.query.sql.parser.AggregateProjectionSplit;
@@ -68,17 +69,21 @@ import com.arcadedb.query.sql.parser.SubQueryCollector;
 import com.arcadedb.query.sql.parser.Timeout;
 import com.arcadedb.query.sql.parser.WhereClause;
 import com.arcadedb.schema.DocumentType;
+import com.arcadedb.schema.Type;
 import com.arcadedb.utility.Pair;
 
 import java.util.*;
 import java.util.stream.*;
 
 import static com.arcadedb.schema.Schema.INDEX_TYPE.FULL_TEXT;
+import static com.arcadedb.schema.Schema.INDEX_TYPE.LSM_TREE;
 
 /**
  * @author Luigi Dell'Aquila (luigi.dellaquila-(at)-gmail.com)
  */
 public class SelectExecutionPlanner {
+  private static final Set<Type> COVERING_INDEX_KEY_TYPES = EnumSet.of(Type.BOOLEAN, Type.BYTE, Type.SHORT, Type.INTEGER, Type.LONG, Type.FLOAT,
+      Type.DOUBLE, Type.STRING);
 
   private static final String LOCAL_NODE_NAME = "local";
   QueryPlanningInfo info;
@@ -372,7 +377,9 @@ public class SelectExecutionPlanner {
   private static void handleDistinct(final SelectExecutionPlan result, final QueryPlanningInfo info, final CommandContext context,
       final boolean profilingEnabled) {
     if (info.distinct)
-      result.chain(new DistinctExecutionStep(context, profilingEnabled));
+      // THE DISTINCT IS AFTER THE ORDER BY: KEEP THE ORDER OF THE RESULTS
+      result.chain(new DistinctExecutionStep(context, info.orderBy != null && info.orderBy.getItems() != null && !info.orderBy.getItems().isEmpty(),
+          profilingEnabled));
   }
 
   private static void handleProjectionsBeforeOrderBy(final SelectExecutionPlan result, final QueryPlanningInfo info, final CommandContext context,
@@ -423,6 +430,8 @@ public class SelectExecutionPlanner {
     }
 
     splitProjectionsForGroupBy(info, context);
+    // CHECK THE QUERY AS WRITTEN, BEFORE THE ORDER BY IS REWRITTEN WITH THE ALIASES OF THE ADDITIONAL PROJECTIONS
+    info.coveringProperties = getCoveringProperties(info);
     addOrderByProjections(info);
   }
 
@@ -1230,7 +1239,9 @@ public class SelectExecutionPlanner {
     }
 
     if (handleClassAsTargetWithIndex(plan, identifier, filterClusters, info, context, profilingEnabled)) {
-      plan.chain(new FilterByClassStep(identifier, context, profilingEnabled));
+      if (!info.indexCovering)
+        // THE COVERING INDEX ALREADY FILTERS THE BUCKETS OF THE TYPE
+        plan.chain(new FilterByClassStep(identifier, context, profilingEnabled));
       return;
     }
 
@@ -1454,7 +1465,8 @@ public class SelectExecutionPlanner {
   private boolean handleClassAsTargetWithIndex(final SelectExecutionPlan plan, final Identifier targetClass, final Set<String> filterClusters,
       final QueryPlanningInfo info, final CommandContext context, final boolean profilingEnabled) {
 
-    final List<ExecutionStepInternal> result = handleClassAsTargetWithIndex(targetClass.getStringValue(), filterClusters, info, context, profilingEnabled);
+    final List<ExecutionStepInternal> result = handleClassAsTargetWithIndex(targetClass.getStringValue(), filterClusters, info, context, true,
+        profilingEnabled);
     if (result != null) {
       result.forEach(x -> plan.chain(x));
       info.whereClause = null;
@@ -1527,7 +1539,7 @@ public class SelectExecutionPlanner {
 
   private List<ExecutionStepInternal> handleClassAsTargetWithIndexRecursive(final String targetClass, final Set<String> filterClusters,
       final QueryPlanningInfo info, final CommandContext context, final boolean profilingEnabled) {
-    List<ExecutionStepInternal> result = handleClassAsTargetWithIndex(targetClass, filterClusters, info, context, profilingEnabled);
+    List<ExecutionStepInternal> result = handleClassAsTargetWithIndex(targetClass, filterClusters, info, context, false, profilingEnabled);
     if (result == null) {
       result = new ArrayList<>();
       final DocumentType typez = context.getDatabase().getSchema().getType(targetClass);
@@ -1557,8 +1569,12 @@ public class SelectExecutionPlanner {
     return result.size() == 0 ? null : result;
   }
 
+  /**
+   * @param allowCovering true if the index can be used as covering index, namely the results are created from the index keys without loading the records.
+   *                      The results of a covering index are not records, so this is allowed only when the results are not filtered by type later.
+   */
   private List<ExecutionStepInternal> handleClassAsTargetWithIndex(final String targetClass, final Set<String> filterClusters, final QueryPlanningInfo info,
-      final CommandContext context, final boolean profilingEnabled) {
+      final CommandContext context, final boolean allowCovering, final boolean profilingEnabled) {
     if (info.flattenedWhereClause == null || info.flattenedWhereClause.size() == 0) {
       return null;
     }
@@ -1612,11 +1628,16 @@ public class SelectExecutionPlanner {
       if (filterClusters != null) {
         filterClusterIds = filterClusters.stream().map(name -> context.getDatabase().getSchema().getBucketByName(name).getFileId()).mapToInt(i -> i).toArray();
       }
-      result.add(new GetValueFromIndexEntryStep(context, filterClusterIds, profilingEnabled));
+      if (allowCovering && isCoveredByIndex(info, desc)) {
+        result.add(new GetKeysFromIndexEntryStep(context, desc.idx.getPropertyNames(), getBucketIds(typez, filterClusterIds), profilingEnabled));
+        info.indexCovering = true;
+      } else
+        result.add(new GetValueFromIndexEntryStep(context, filterClusterIds, profilingEnabled));
+      final boolean orderApplied = orderAsc != null && info.orderBy != null && fullySorted(info.orderBy, desc.keyCondition, desc.idx);
       if (requiresMultipleIndexLookups(desc.keyCondition)) {
-        result.add(new DistinctExecutionStep(context, profilingEnabled));
+        result.add(new DistinctExecutionStep(context, orderApplied, profilingEnabled));
       }
-      if (orderAsc != null && info.orderBy != null && fullySorted(info.orderBy, desc.keyCondition, desc.idx)) {
+      if (orderApplied) {
         info.orderApplied = true;
       }
       if (desc.remainingCondition != null && !desc.remainingCondition.isEmpty()) {
@@ -1632,6 +1653,68 @@ public class SelectExecutionPlanner {
     return result;
   }
 
+  /**
+   * Returns true if the index contains all the properties used by the query, so the results can be created from the index keys without loading the
+   * records. The keys must be stored in the index with the same type of the property.
+   */
+  private static boolean isCoveredByIndex(final QueryPlanningInfo info, final IndexSearchDescriptor desc) {
+    if (info.coveringProperties == null)
+      return false;
+
+    if (info.flattenedWhereClause == null || info.flattenedWhereClause.size() != 1)
+      return false;
+
+    if ((desc.remainingCondition != null && !desc.remainingCondition.isEmpty()) || requiresMultipleIndexLookups(desc.keyCondition))
+      return false;
+
+    if (desc.idx.getType() != LSM_TREE || !(desc.idx instanceof IndexInternal))
+      return false;
+
+    for (final Type keyType : ((IndexInternal) desc.idx).getKeyTypes())
+      if (!COVERING_INDEX_KEY_TYPES.contains(keyType))
+        return false;
+
+    return desc.idx.getPropertyNames().containsAll(info.coveringProperties);
+  }
+
+  /**
+   * Returns the properties used by the projection and the ORDER BY, or null if the query uses more than plain properties and cannot be answered by a covering
+   * index. It must be called before the projections needed by the ORDER BY are added, because they replace the ORDER BY items with aliases.
+   */
+  private static Set<String> getCoveringProperties(final QueryPlanningInfo info) {
+    if (info.projection == null || info.projection.getItems() == null || info.projection.getItems().isEmpty() || info.aggregateProjection != null
+        || info.groupBy != null || info.perRecordLetClause != null || info.unwind != null || info.expand)
+      return null;
+
+    final Set<String> properties = new HashSet<>();
+    for (final ProjectionItem item : info.projection.getItems()) {
+      final Expression expression = item.getExpression();
+      if (item.isAll() || item.getNestedProjection() != null || expression == null || !expression.isBaseIdentifier())
+        return null;
+      properties.add(expression.getDefaultAlias().getStringValue());
+    }
+
+    if (info.orderBy != null && info.orderBy.getItems() != null) {
+      final List<String> aliases = info.projection.getAllAliases();
+      for (final OrderByItem item : info.orderBy.getItems()) {
+        if (item.getRecordAttr() != null || item.getModifier() != null || item.getAlias() == null)
+          return null;
+        if (!aliases.contains(item.getAlias()))
+          // SORTED BY A PROPERTY THAT IS NOT IN THE PROJECTION
+          properties.add(item.getAlias());
+      }
+    }
+    return properties;
+  }
+
+  /**
+   * Returns the buckets of the type, polymorphically, that are also in the filter, if any.
+   */
+  private static int[] getBucketIds(final DocumentType type, final int[] filterBucketIds) {
+    return type.getBucketIds(true).stream().mapToInt(i -> i)
+        .filter(id -> filterBucketIds == null || Arrays.stream(filterBucketIds).anyMatch(filterId -> filterId == id)).toArray();
+  }
+
   private boolean fullySorted(final OrderBy orderBy, final AndBlock conditions, final Index idx) {
     if (!idx.supportsOrderedIterations())
       return false;
@@ -1748,7 +1831,7 @@ public class SelectExecutionPlanner {
    *
    * @return
    */
-  private boolean requiresMultipleIndexLookups(final AndBlock keyCondition) {
+  private static boolean requiresMultipleIndexLookups(final AndBlock keyCondition) {
     for (final BooleanExpression oBooleanExpression : keyCondition.getSubBlocks()) {
       if (!(oBooleanExpression instanceof BinaryCondition)) {
         return true;
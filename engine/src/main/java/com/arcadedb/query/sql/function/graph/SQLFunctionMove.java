@@ -23,6 +23,7 @@ import com.arcadedb.database.Document;
 import com.arcadedb.database.Identifiable;
 import com.arcadedb.graph.Edge;
 import com.arcadedb.graph.Vertex;
+import com.arcadedb.graph.VertexConnectionsIterator;
 import com.arcadedb.query.sql.SQLQueryEngine;
 import com.arcadedb.query.sql.executor.CommandContext;
 import com.arcadedb.query.sql.executor.MultiValue;
@@ -60,20 +61,40 @@ public abstract class SQLFunctionMove extends SQLFunctionConfigurableAbstract {
   protected Object v2v(final Database graph, final Identifiable iRecord, final Vertex.DIRECTION iDirection, final String[] iLabels) {
     if (iRecord != null) {
       final Document rec = (Document) iRecord.getRecord();
-      if (rec instanceof Vertex)
-        return ((Vertex) rec).getVertices(iDirection, iLabels);
+      if (rec instanceof Vertex) {
+        final Vertex vertex = (Vertex) rec;
+        final Iterable<Vertex> result = vertex.getVertices(iDirection, iLabels);
+        return isCountable(graph, iLabels) ? new VertexConnectionsIterator<>(vertex, iDirection, getLabel(iLabels), result) : result;
+      }
     }
     return null;
   }
 
   protected Object v2e(final Database graph, final Identifiable iRecord, final Vertex.DIRECTION iDirection, final String[] iLabels) {
     final Document rec = (Document) iRecord.getRecord();
-    if (rec instanceof Vertex)
-      return ((Vertex) rec).getEdges(iDirection, iLabels);
+    if (rec instanceof Vertex) {
+      final Vertex vertex = (Vertex) rec;
+      final Iterable<Edge> result = vertex.getEdges(iDirection, iLabels);
+      return isCountable(graph, iLabels) ? new VertexConnectionsIterator<>(vertex, iDirection, getLabel(iLabels), result) : result;
+    }
     return null;
 
   }
 
+  /**
+   * Returns true if the connections can be counted by the edge counters of the vertex, so expressions like <code>out().size()</code> do not browse
+   * the connected records. This is possible with no labels or one label of an existent type.
+   */
+  private static boolean isCountable(final Database graph, final String[] iLabels) {
+    if (iLabels == null || iLabels.length == 0)
+      return true;
+    return iLabels.length == 1 && iLabels[0] != null && graph.getSchema().existsType(iLabels[0]);
+  }
+
+  private static String getLabel(final String[] iLabels) {
+    return iLabels == null || iLabels.length == 0 ? null : iLabels[0];
+  }
+
   protected Object e2v(final Database graph, final Identifiable iRecord, final Vertex.DIRECTION iDirection, final String[] iLabels) {
     final Document rec = (Document) iRecord.getRecord();
     if (rec instanceof Edge) {
@@ -18,24 +18,22 @@
  */
 package com.arcadedb.query.sql.function.graph;
 
+import com.arcadedb.database.DatabaseInternal;
 import com.arcadedb.database.Document;
 import com.arcadedb.database.Identifiable;
 import com.arcadedb.database.RID;
-import com.arcadedb.exception.CommandExecutionException;
-import com.arcadedb.graph.Edge;
-import com.arcadedb.graph.EdgeToVertexIterable;
+import com.arcadedb.graph.BidirectionalPathFinder;
 import com.arcadedb.graph.Vertex;
 import com.arcadedb.query.sql.executor.CommandContext;
 import com.arcadedb.query.sql.executor.MultiValue;
 import com.arcadedb.query.sql.executor.Result;
 import com.arcadedb.query.sql.function.math.SQLFunctionMathAbstract;
-import com.arcadedb.utility.MultiIterator;
-import com.arcadedb.utility.Pair;
 
 import java.util.*;
 
 /**
- * Shortest path algorithm to find the shortest path from one node to another node in a directed graph.
+ * Shortest path algorithm to find the shortest path from one node to another node in a directed graph. The search is executed by
+ * {@link BidirectionalPathFinder}.
  *
  * @author Luca Garulli (l.garulli--(at)--gmail.com)
  */
@@ -50,23 +48,11 @@ public class SQLFunctionShortestPath extends SQLFunctionMathAbstract {
   private static class OShortestPathContext {
     Vertex           sourceVertex;
     Vertex           destinationVertex;
-    Vertex.DIRECTION directionLeft  = Vertex.DIRECTION.BOTH;
-    Vertex.DIRECTION directionRight = Vertex.DIRECTION.BOTH;
+    Vertex.DIRECTION directionLeft = Vertex.DIRECTION.BOTH;
 
     String   edgeType;
     String[] edgeTypeParam;
 
-    ArrayDeque<Vertex> queueLeft  = new ArrayDeque<>();
-    ArrayDeque<Vertex> queueRight = new ArrayDeque<>();
-
-    final Set<RID> leftVisited  = new HashSet<RID>();
-    final Set<RID> rightVisited = new HashSet<RID>();
-
-    final Map<RID, RID> previouses = new HashMap<RID, RID>();
-    final Map<RID, RID> nexts      = new HashMap<RID, RID>();
-
-    Vertex current;
-    Vertex currentRight;
     public Integer maxDepth;
     /**
      * option that decides whether or not to return the edge information
@@ -132,11 +118,6 @@ public class SQLFunctionShortestPath extends SQLFunctionMathAbstract {
     if (iParams.length > 2 && iParams[2] != null) {
       context.directionLeft = Vertex.DIRECTION.valueOf(iParams[2].toString().toUpperCase(Locale.ENGLISH));
     }
-    if (context.directionLeft == Vertex.DIRECTION.OUT) {
-      context.directionRight = Vertex.DIRECTION.IN;
-    } else if (context.directionLeft == Vertex.DIRECTION.IN) {
-      context.directionRight = Vertex.DIRECTION.OUT;
-    }
 
     context.edgeType = null;
     if (iParams.length > 3) {
@@ -155,65 +136,9 @@ public class SQLFunctionShortestPath extends SQLFunctionMathAbstract {
       bindAdditionalParams(iParams[4], context);
     }
 
-    context.queueLeft.add(context.sourceVertex);
-    context.leftVisited.add(context.sourceVertex.getIdentity());
-
-    context.queueRight.add(context.destinationVertex);
-    context.rightVisited.add(context.destinationVertex.getIdentity());
-
-    int depth = 1;
-    while (true) {
-      if (context.maxDepth != null && context.maxDepth <= depth) {
-        break;
-      }
-      if (context.queueLeft.isEmpty() || context.queueRight.isEmpty())
-        break;
-
-      if (Thread.interrupted())
-        throw new CommandExecutionException("The shortestPath() function has been interrupted");
-
-      List<RID> neighborIdentity;
-
-      if (context.queueLeft.size() <= context.queueRight.size()) {
-        // START EVALUATING FROM LEFT
-        neighborIdentity = walkLeft(context);
-        if (neighborIdentity != null)
-          return neighborIdentity;
-        depth++;
-        if (context.maxDepth != null && context.maxDepth <= depth) {
-          break;
-        }
-
-        if (context.queueLeft.isEmpty())
-          break;
-
-        neighborIdentity = walkRight(context);
-        if (neighborIdentity != null)
-          return neighborIdentity;
-
-      } else {
-        // START EVALUATING FROM RIGHT
-        neighborIdentity = walkRight(context);
-        if (neighborIdentity != null)
-          return neighborIdentity;
-
-        depth++;
-        if (context.maxDepth != null && context.maxDepth <= depth) {
-          break;
-        }
-
-        if (context.queueRight.isEmpty())
-          break;
-
-        neighborIdentity = walkLeft(context);
-        if (neighborIdentity != null)
-          return neighborIdentity;
-      }
-
-      depth++;
-    }
-    return new ArrayList<RID>();
-
+    return new BidirectionalPathFinder((DatabaseInternal) iContext.getDatabase(), context.directionLeft, context.edgeTypeParam,
+        Boolean.TRUE.equals(context.edge), context.maxDepth != null ? context.maxDepth : -1).find(context.sourceVertex.getIdentity(),
+        context.destinationVertex.getIdentity());
   }
 
   private void bindAdditionalParams(final Object additionalParams, final OShortestPathContext context) {
@@ -270,202 +195,8 @@ public class SQLFunctionShortestPath extends SQLFunctionMathAbstract {
     return null;
   }
 
-  /**
-   * get adjacent vertices and edges
-   *
-   * @param srcVertex
-   * @param direction
-   * @param types
-   *
-   * @return
-   *
-   * @author Thomas Young (YJJThomasYoung@hotmail.com)
-   */
-  private Pair<Iterable<Vertex>, Iterable<Edge>> getVerticesAndEdges(final Vertex srcVertex, final Vertex.DIRECTION direction, final String... types) {
-    if (direction == Vertex.DIRECTION.BOTH) {
-      final MultiIterator<Vertex> vertexIterator = new MultiIterator<>();
-      final MultiIterator<Edge> edgeIterator = new MultiIterator<>();
-      final Pair<Iterable<Vertex>, Iterable<Edge>> pair1 = getVerticesAndEdges(srcVertex, Vertex.DIRECTION.OUT, types);
-      final Pair<Iterable<Vertex>, Iterable<Edge>> pair2 = getVerticesAndEdges(srcVertex, Vertex.DIRECTION.IN, types);
-      vertexIterator.addIterator(pair1.getFirst());
-      vertexIterator.addIterator(pair2.getFirst());
-      edgeIterator.addIterator(pair1.getSecond());
-      edgeIterator.addIterator(pair2.getSecond());
-      return new Pair<>(vertexIterator, edgeIterator);
-    } else {
-      final Iterable<Edge> edges1 = srcVertex.getEdges(direction, types);
-      final Iterable<Edge> edges2 = srcVertex.getEdges(direction, types);
-      return new Pair<>(new EdgeToVertexIterable(edges1, direction), edges2);
-    }
-  }
-
-  /**
-   * get adjacent vertices and edges
-   *
-   * @param srcVertex
-   * @param direction
-   *
-   * @return
-   *
-   * @author Thomas Young (YJJThomasYoung@hotmail.com)
-   */
-  private Pair<Iterable<Vertex>, Iterable<Edge>> getVerticesAndEdges(final Vertex srcVertex, final Vertex.DIRECTION direction) {
-    return getVerticesAndEdges(srcVertex, direction, (String[]) null);
-  }
-
   public String getSyntax() {
     return "shortestPath(<sourceVertex>, <destinationVertex>, [<direction>, [ <edgeTypeAsString> ]])";
   }
 
-  protected List<RID> walkLeft(final SQLFunctionShortestPath.OShortestPathContext context) {
-    final ArrayDeque<Vertex> nextLevelQueue = new ArrayDeque<>();
-    if (!Boolean.TRUE.equals(context.edge)) {
-      while (!context.queueLeft.isEmpty()) {
-        context.current = context.queueLeft.poll();
-
-        final Iterable<Vertex> neighbors;
-        if (context.edgeType == null) {
-          neighbors = context.current.getVertices(context.directionLeft);
-        } else {
-          neighbors = context.current.getVertices(context.directionLeft, context.edgeTypeParam);
-        }
-        for (final Vertex neighbor : neighbors) {
-          final Vertex v = neighbor;
-          final RID neighborIdentity = v.getIdentity();
-
-          if (context.rightVisited.contains(neighborIdentity)) {
-            context.previouses.put(neighborIdentity, context.current.getIdentity());
-            return computePath(context.previouses, context.nexts, neighborIdentity);
-          }
-          if (!context.leftVisited.contains(neighborIdentity)) {
-            context.previouses.put(neighborIdentity, context.current.getIdentity());
-
-            nextLevelQueue.offer(v);
-            context.leftVisited.add(neighborIdentity);
-          }
-
-        }
-      }
-    } else {
-      while (!context.queueLeft.isEmpty()) {
-        context.current = context.queueLeft.poll();
-
-        final Pair<Iterable<Vertex>, Iterable<Edge>> neighbors;
-        if (context.edgeType == null) {
-          neighbors = getVerticesAndEdges(context.current, context.directionLeft);
-        } else {
-          neighbors = getVerticesAndEdges(context.current, context.directionLeft, context.edgeTypeParam);
-        }
-        final Iterator<Vertex> vertexIterator = neighbors.getFirst().iterator();
-        final Iterator<Edge> edgeIterator = neighbors.getSecond().iterator();
-        while (vertexIterator.hasNext() && edgeIterator.hasNext()) {
-          final Vertex v = vertexIterator.next();
-          final RID neighborVertexIdentity = v.getIdentity();
-          final RID neighborEdgeIdentity = edgeIterator.next().getIdentity();
-
-          if (context.rightVisited.contains(neighborVertexIdentity)) {
-            context.previouses.put(neighborVertexIdentity, neighborEdgeIdentity);
-            context.previouses.put(neighborEdgeIdentity, context.current.getIdentity());
-            return computePath(context.previouses, context.nexts, neighborVertexIdentity);
-          }
-          if (!context.leftVisited.contains(neighborVertexIdentity)) {
-            context.previouses.put(neighborVertexIdentity, neighborEdgeIdentity);
-            context.previouses.put(neighborEdgeIdentity, context.current.getIdentity());
-
-            nextLevelQueue.offer(v);
-            context.leftVisited.add(neighborVertexIdentity);
-          }
-        }
-      }
-    }
-    context.queueLeft = nextLevelQueue;
-    return null;
-  }
-
-  protected List<RID> walkRight(final SQLFunctionShortestPath.OShortestPathContext context) {
-    final ArrayDeque<Vertex> nextLevelQueue = new ArrayDeque<>();
-    if (!Boolean.TRUE.equals(context.edge)) {
-      while (!context.queueRight.isEmpty()) {
-        context.currentRight = context.queueRight.poll();
-
-        final Iterable<Vertex> neighbors;
-        if (context.edgeType == null) {
-          neighbors = context.currentRight.getVertices(context.directionRight);
-        } else {
-          neighbors = context.currentRight.getVertices(context.directionRight, context.edgeTypeParam);
-        }
-        for (final Vertex neighbor : neighbors) {
-          final Vertex v = neighbor;
-          final RID neighborIdentity = v.getIdentity();
-
-          if (context.leftVisited.contains(neighborIdentity)) {
-            context.nexts.put(neighborIdentity, context.currentRight.getIdentity());
-            return computePath(context.previouses, context.nexts, neighborIdentity);
-          }
-          if (!context.rightVisited.contains(neighborIdentity)) {
-
-            context.nexts.put(neighborIdentity, context.currentRight.getIdentity());
-
-            nextLevelQueue.offer(v);
-            context.rightVisited.add(neighborIdentity);
-          }
-
-        }
-      }
-    } else {
-      while (!context.queueRight.isEmpty()) {
-        context.currentRight = context.queueRight.poll();
-
-        final Pair<Iterable<Vertex>, Iterable<Edge>> neighbors;
-        if (context.edgeType == null) {
-          neighbors = getVerticesAndEdges(context.currentRight, context.directionRight);
-        } else {
-          neighbors = getVerticesAndEdges(context.currentRight, context.directionRight, context.edgeTypeParam);
-        }
-
-        final Iterator<Vertex> vertexIterator = neighbors.getFirst().iterator();
-        final Iterator<Edge> edgeIterator = neighbors.getSecond().iterator();
-        while (vertexIterator.hasNext() && edgeIterator.hasNext()) {
-          final Vertex v = vertexIterator.next();
-          final RID neighborVertexIdentity = v.getIdentity();
-          final RID neighborEdgeIdentity = edgeIterator.next().getIdentity();
-
-          if (context.leftVisited.contains(neighborVertexIdentity)) {
-            context.nexts.put(neighborVertexIdentity, neighborEdgeIdentity);
-            context.nexts.put(neighborEdgeIdentity, context.currentRight.getIdentity());
-            return computePath(context.previouses, context.nexts, neighborVertexIdentity);
-          }
-          if (!context.rightVisited.contains(neighborVertexIdentity)) {
-            context.nexts.put(neighborVertexIdentity, neighborEdgeIdentity);
-            context.nexts.put(neighborEdgeIdentity, context.currentRight.getIdentity());
-
-            nextLevelQueue.offer(v);
-            context.rightVisited.add(neighborVertexIdentity);
-          }
-        }
-      }
-    }
-    context.queueRight = nextLevelQueue;
-    return null;
-  }
-
-  private List<RID> computePath(final Map<RID, RID> leftDistances, final Map<RID, RID> rightDistances, final RID neighbor) {
-    final List<RID> result = new ArrayList<RID>();
-
-    RID current = neighbor;
-    while (current != null) {
-      result.add(0, current);
-      current = leftDistances.get(current);
-    }
-
-    current = neighbor;
-    while (current != null) {
-      current = rightDistances.get(current);
-      if (current != null) {
-        result.add(current);
-      }
-    }
-
-    return result;
-  }
 }
@@ -257,6 +257,10 @@ public class ProjectionItem extends SimpleNode {
     return false;
   }
 
+  public NestedProjection getNestedProjection() {
+    return nestedProjection;
+  }
+
   public void setNestedProjection(final NestedProjection nestedProjection) {
     this.nestedProjection = nestedProjection;
   }
@@ -138,13 +138,16 @@ public class Argument {
     public boolean evaluate(JSONObject json) {
         var result = evaluateInternal(json);
 
-        LogManager.instance().log(this, Level.INFO, "docValue: " + getValueForFieldJsonPath(json));
+        final Object docValue = getValueForFieldJsonPath(json);
+        if (LogManager.instance().isLoggable(this, Level.INFO))
+            LogManager.instance().log(this, Level.INFO, "docValue: " + docValue);
 
-        if (getValueForFieldJsonPath(json) != null && isNot()) {
+        if (docValue != null && isNot()) {
             result = !result;
         }
 
-        LogManager.instance().log(this, Level.FINE, "Result: " + result + " for argument: " + this.toString() + " on json: " + json.toString(2));
+        if (LogManager.instance().isLoggable(this, Level.FINE))
+            LogManager.instance().log(this, Level.FINE, "Result: " + result + " for argument: " + this + " on json: " + json.toString(2));
 
         return result;
     }
@@ -164,7 +167,7 @@ public class Argument {
                 return true;
             }
 
-            LogManager.instance().log(this, Level.FINE, "Doc field value is null, returning null handling: " + this.nullEvaluatesToGrantAccess);
+            LogManager.instance().log(this, Level.FINE, "Doc field value is null, returning null handling: %s", this.nullEvaluatesToGrantAccess);
             return this.nullEvaluatesToGrantAccess;
         } else if (operator == ArgumentOperator.FIELD_NOT_PRESENT) {
             LogManager.instance().log(this, Level.FINE, "NOT PRESENT and doc value is NOT null");
@@ -181,7 +184,7 @@ public class Argument {
                 // check if this.value is a list
                 if (this.value instanceof List) {
                     for (Object val : (List<Object>) this.value) {
-                        LogManager.instance().log(this, Level.INFO, "val type: " + val.getClass().getName());
+                        LogManager.instance().log(this, Level.INFO, "val type: %s", val.getClass().getName());
                         if (val.equals(docFieldValue)) {
                             return true;
                         }
@@ -204,7 +207,7 @@ public class Argument {
                 }
 
                 for (Object val : (Object[]) this.value) {
-                    LogManager.instance().log(this, Level.FINE, "val: " + val + "; vt: " + val.getClass().getName());
+                    LogManager.instance().log(this, Level.FINE, "val: %s; vt: %s", val, val.getClass().getName());
 
                     if (val.equals(docFieldValue)) {
                         return true;
@@ -254,8 +257,10 @@ public class Argument {
                         // Split the string by commas
                         String[] stringArray = str.split(", ");
 
-                        LogManager.instance().log(this, Level.FINE, "stringArray: " + stringArray);
-                        LogManager.instance().log(this, Level.FINE, "docVal: " + docVal);
+                        if (LogManager.instance().isLoggable(this, Level.FINE)) {
+                            LogManager.instance().log(this, Level.FINE, "stringArray: %s", Arrays.toString(stringArray));
+                            LogManager.instance().log(this, Level.FINE, "docVal: " + docVal);
+                        }
 
                         for (String val : stringArray) {
                             if (val.equals(docVal)) {
@@ -337,8 +342,9 @@ public class Argument {
                 // Split the string by commas
                 String[] stringArray = str.split(",");
 
-                LogManager.instance().log(this, Level.FINE, "Evaluation Values: " + Arrays.toString(stringArray));
-                LogManager.instance().log(this, Level.FINE, "Doc Value: " + docVal);
+                LogManager.instance().log(this, Level.FINE, () -> "Evaluation Values: " + Arrays.toString(stringArray));
+                if (LogManager.instance().isLoggable(this, Level.FINE))
+                    LogManager.instance().log(this, Level.FINE, "Doc Value: " + docVal);
 
                 for (String val : stringArray) {
                     if (val.equals(docVal)) {
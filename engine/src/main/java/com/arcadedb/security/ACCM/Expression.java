@@ -47,24 +47,28 @@ public class Expression {
             result = true;
             for (Expression expression : expressions) {
                 var expressionResult = expression.evaluate(json);
-                LogManager.instance().log(this, Level.INFO, "Expression result: " + expressionResult + " for expression: " + expression);
+                if (LogManager.instance().isLoggable(this, Level.INFO))
+                    LogManager.instance().log(this, Level.INFO, "Expression result: " + expressionResult + " for expression: " + expression);
                 result = result && expressionResult;
             }
             for (Argument argument : arguments) {
                 var argumentResult = argument.evaluate(json);
-                LogManager.instance().log(this, Level.INFO, "Argument result: " + argumentResult + " for argument: " + argument);
+                if (LogManager.instance().isLoggable(this, Level.INFO))
+                    LogManager.instance().log(this, Level.INFO, "Argument result: " + argumentResult + " for argument: " + argument);
                 result = result && argumentResult;
             }
         } else if (operator == ExpressionOperator.OR) {
             result = false;
             for (Expression expression : expressions) {
                 var expressionResult = expression.evaluate(json);
-                LogManager.instance().log(this, Level.INFO, "Expression result: " + expressionResult + " for expression: " + expression);
+                if (LogManager.instance().isLoggable(this, Level.INFO))
+                    LogManager.instance().log(this, Level.INFO, "Expression result: " + expressionResult + " for expression: " + expression);
                 result = result || expressionResult;
             }
             for (Argument argument : arguments) {
                 var argumentResult = argument.evaluate(json);
-                LogManager.instance().log(this, Level.INFO, "Argument result: " + argumentResult + " for argument: " + argument);
+                if (LogManager.instance().isLoggable(this, Level.INFO))
+                    LogManager.instance().log(this, Level.INFO, "Argument result: " + argumentResult + " for argument: " + argument);
                 result = result || argumentResult;
             }
         }
@@ -81,18 +81,20 @@ public class AuthorizationUtils {
     long startTime = System.nanoTime();
     boolean result = checkPermissionsOnDocument(document, currentUser, RecordAction.READ);
 
-    long endTime = System.nanoTime();
-    long duration = (endTime - startTime);
-    LogManager.instance().log(AuthorizationUtils.class, Level.INFO, "checkPermissionsOnDocumentToRead took " + duration + " ns");
+    if (LogManager.instance().isLoggable(AuthorizationUtils.class, Level.INFO)) {
+      long endTime = System.nanoTime();
+      long duration = (endTime - startTime);
+      LogManager.instance().log(AuthorizationUtils.class, Level.INFO, "checkPermissionsOnDocumentToRead took " + duration + " ns");
+    }
 
     return result;
   }
 
   // split out crud actions
   public static boolean checkPermissionsOnDocument(final Document document, final SecurityDatabaseUser currentUser, final RecordAction action) {
-    String message = "Checking permissions on document " + document.toJSON(true)
-            + " against user '" + currentUser + "' and CRUD op '" + action + "'...";
-    LogManager.instance().log(AuthorizationUtils.class, Level.INFO, message);
+    if (LogManager.instance().isLoggable(AuthorizationUtils.class, Level.INFO))
+      LogManager.instance().log(AuthorizationUtils.class, Level.INFO,
+              "Checking permissions on document " + document.toJSON(true) + " against user '" + currentUser + "' and CRUD op '" + action + "'...");
 
     // Allow root user to access all documents for HA syncing between nodes
     if (currentUser.getName().equals("root")) {
@@ -156,8 +158,9 @@ public class AuthorizationUtils {
       // map to json
       JSONObject classification = new JSONObject(map);
 
-      LogManager.instance().log(AuthorizationUtils.class, Level.INFO,
-              "Authorizing classifications " + classification.toString() + " against type restrictions: " + typeRestriction);
+      if (LogManager.instance().isLoggable(AuthorizationUtils.class, Level.INFO))
+        LogManager.instance().log(AuthorizationUtils.class, Level.INFO,
+                "Authorizing classifications " + classification + " against type restrictions: " + typeRestriction);
       return evalutateAccm(typeRestriction, classification, action);
     }
 
@@ -182,7 +185,7 @@ public class AuthorizationUtils {
       case DELETE:
         return typeRestriction.evaluateDeleteRestrictions(classificationJson);
       default:
-        LogManager.instance().log(AuthorizationUtils.class, Level.SEVERE, "Invalid action: " + action);
+        LogManager.instance().log(AuthorizationUtils.class, Level.SEVERE, "Invalid action: %s", action);
         return false;
     }
   }
@@ -8,9 +8,93 @@ import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.concurrent.*;
 import java.util.logging.Level;
 
 public class DataFabricClassificationClient {
+    private static final int                                         MAX_CACHED_VALIDATIONS = 10_000;
+    private static final ConcurrentHashMap<String, CachedValidation> VALIDATION_CACHE       = new ConcurrentHashMap<>();
+
+    private static class CachedValidation {
+        private final    CompletableFuture<Boolean> result = new CompletableFuture<>();
+        private volatile long                       expiresOn;
+    }
+
+    /**
+     * Same as {@link #validateDocumentClassification(String)}, but the result is kept in a local cache for the time set in
+     * {@link GlobalConfiguration#DF_CLASSIFICATION_CACHE_TIMEOUT}. The distinct combinations of markings are few, so only the first document with a
+     * combination calls the remote service. Concurrent validations of the same combination wait for the same remote call. Only the definitive answers
+     * are cached: server errors, throttling and outages are not, so the classification is validated again by the next call.
+     *
+     * @param classification the classification components in canonical form (same keys in the same order for the same markings)
+     */
+    public static boolean validateDocumentClassificationCached(final String classification) {
+        final long timeout = GlobalConfiguration.DF_CLASSIFICATION_CACHE_TIMEOUT.getValueAsLong();
+        if (timeout <= 0)
+            return validateDocumentClassification(classification);
+
+        while (true) {
+            final CachedValidation newEntry = new CachedValidation();
+            final CachedValidation cached = VALIDATION_CACHE.putIfAbsent(classification, newEntry);
+
+            if (cached == null) {
+                // NOT IN CACHE: THIS THREAD CALLS THE REMOTE SERVICE
+                final Boolean answer;
+                try {
+                    answer = callValidationService(classification);
+                } catch (RuntimeException e) {
+                    VALIDATION_CACHE.remove(classification, newEntry);
+                    newEntry.result.completeExceptionally(e);
+                    throw e;
+                }
+
+                if (answer == null) {
+                    // NO DEFINITIVE ANSWER: THE NEXT VALIDATION CALLS THE SERVICE AGAIN
+                    VALIDATION_CACHE.remove(classification, newEntry);
+                    newEntry.result.complete(false);
+                    return false;
+                }
+
+                final boolean valid = answer;
+                newEntry.expiresOn = System.currentTimeMillis() + timeout;
+                newEntry.result.complete(valid);
+
+                if (VALIDATION_CACHE.size() > MAX_CACHED_VALIDATIONS)
+                    evictExpired();
+
+                return valid;
+            }
+
+            if (cached.result.isDone() && cached.expiresOn < System.currentTimeMillis()) {
+                // EXPIRED
+                VALIDATION_CACHE.remove(classification, cached);
+                continue;
+            }
+
+            try {
+                return cached.result.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for the validation of the classification", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException)
+                    throw (RuntimeException) e.getCause();
+                throw new RuntimeException(e.getCause());
+            }
+        }
+    }
+
+    public static void clearValidationCache() {
+        VALIDATION_CACHE.clear();
+    }
+
+    private static void evictExpired() {
+        final long now = System.currentTimeMillis();
+        VALIDATION_CACHE.entrySet().removeIf(e -> e.getValue().result.isDone() && e.getValue().expiresOn < now);
+        if (VALIDATION_CACHE.size() > MAX_CACHED_VALIDATIONS)
+            // TOO MANY DISTINCT MARKINGS: START FROM SCRATCH
+            VALIDATION_CACHE.clear();
+    }
 
     /**
      * Returns true if the given classification document is a valid classification structure for this data fabric
@@ -20,39 +104,51 @@ public class DataFabricClassificationClient {
      * @return true if the classification structure is valid and meets classification level of the data fabric deployment
      */
     public static boolean validateDocumentClassification(String classification) {
+        return Boolean.TRUE.equals(callValidationService(classification));
+    }
+
+    /**
+     * Calls the remote validation service.
+     *
+     * @return true if the classification is valid, false if the service rejected it with a client error, null if the service did not give a
+     * definitive answer (server error, timeout or throttling)
+     */
+    private static Boolean callValidationService(String classification) {
         String urlString = String.format("%s/api/v1/classification/validate", GlobalConfiguration.DF_CLASSIFICATION_URL.getValueAsString());
 
         URL url = null;
         try {
             url = new URL(urlString);
-            LogManager.instance().log(DataFabricClassificationClient.class, Level.INFO, "Validating " + classification);
-            LogManager.instance().log(DataFabricClassificationClient.class, Level.INFO, "Validation URL " + urlString);
+            LogManager.instance().log(DataFabricClassificationClient.class, Level.FINE, "Validating %s with URL %s", classification, urlString);
         } catch (MalformedURLException e) {
             throw new RuntimeException(e);
         }
         try {
             HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setDoOutput(true);
-            conn.setRequestMethod("POST");
-            conn.setRequestProperty("Content-Type", "application/json");
-
-            OutputStream os = conn.getOutputStream();
-            os.write(classification.getBytes());
-            os.flush();
-
-            if (conn.getResponseCode() != HttpURLConnection.HTTP_OK) {
-                LogManager.instance().log(
-                        DataFabricClassificationClient.class,
-                        Level.WARNING,
-                        "Validation failed!");
-                return false;
-            }
+            try {
+                conn.setDoOutput(true);
+                conn.setRequestMethod("POST");
+                conn.setRequestProperty("Content-Type", "application/json");
 
-            conn.disconnect();
+                OutputStream os = conn.getOutputStream();
+                os.write(classification.getBytes());
+                os.flush();
+
+                final int responseCode = conn.getResponseCode();
+                if (responseCode == HttpURLConnection.HTTP_OK)
+                    return true;
+
+                LogManager.instance().log(DataFabricClassificationClient.class, Level.WARNING, "Validation failed (HTTP %d)", responseCode);
+                return isDefinitiveRejection(responseCode) ? false : null;
+            } finally {
+                conn.disconnect();
+            }
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
+    }
 
-        return true;
+    private static boolean isDefinitiveRejection(final int responseCode) {
+        return responseCode >= 400 && responseCode < 500 && responseCode != HttpURLConnection.HTTP_CLIENT_TIMEOUT && responseCode != 429;
     }
 }
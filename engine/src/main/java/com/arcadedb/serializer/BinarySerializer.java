@@ -37,6 +37,7 @@ import com.arcadedb.engine.Dictionary;
 import com.arcadedb.exception.SerializationException;
 import com.arcadedb.graph.Edge;
 import com.arcadedb.graph.EdgeSegment;
+import com.arcadedb.graph.EdgeTypeHeadTable;
 import com.arcadedb.graph.MutableEdge;
 import com.arcadedb.graph.MutableVertex;
 import com.arcadedb.graph.Vertex;
@@ -81,6 +82,8 @@ public class BinarySerializer {
       return serializeEdge(database, (MutableEdge) record);
     case EdgeSegment.RECORD_TYPE:
       return serializeEdgeContainer((EdgeSegment) record);
+    case EdgeTypeHeadTable.RECORD_TYPE:
+      return ((EdgeTypeHeadTable) record).getContent();
     default:
       throw new IllegalArgumentException("Cannot serialize a record of type=" + record.getRecordType());
     }
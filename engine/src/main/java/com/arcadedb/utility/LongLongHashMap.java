@@ -0,0 +1,144 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.utility;
+
+import java.util.*;
+
+/**
+ * Hash map with primitive long keys and values, based on open addressing with linear probing. It does not allocate objects per entry, so it is
+ * suitable to keep millions of entries, like the visited vertices of a traversal. Long.MIN_VALUE cannot be used as key. Removal is not supported. This
+ * class is not thread safe, but concurrent reads are safe as long as nobody writes.
+ */
+public class LongLongHashMap {
+  private static final long   FREE_KEY    = Long.MIN_VALUE;
+  private static final float  LOAD_FACTOR = 0.6F;
+  private              long[] keys;
+  private              long[] values;
+  private              int    mask;
+  private              int    size;
+  private              int    threshold;
+
+  public LongLongHashMap() {
+    this(1024);
+  }
+
+  public LongLongHashMap(final int expectedSize) {
+    final int capacity = Math.max(16, Integer.highestOneBit(Math.max(1, (int) (expectedSize / LOAD_FACTOR))) << 1);
+    allocate(capacity);
+  }
+
+  /**
+   * Returns the value associated to the key, or the default value if the key is not present.
+   */
+  public long get(final long key, final long defaultValue) {
+    int index = indexOf(key);
+    while (true) {
+      final long k = keys[index];
+      if (k == FREE_KEY)
+        return defaultValue;
+      if (k == key)
+        return values[index];
+      index = (index + 1) & mask;
+    }
+  }
+
+  public boolean containsKey(final long key) {
+    int index = indexOf(key);
+    while (true) {
+      final long k = keys[index];
+      if (k == FREE_KEY)
+        return false;
+      if (k == key)
+        return true;
+      index = (index + 1) & mask;
+    }
+  }
+
+  /**
+   * Associates the value to the key, replacing the previous value if any.
+   */
+  public void put(final long key, final long value) {
+    if (key == FREE_KEY)
+      throw new IllegalArgumentException("Invalid key " + key);
+
+    int index = indexOf(key);
+    while (true) {
+      final long k = keys[index];
+      if (k == FREE_KEY) {
+        keys[index] = key;
+        values[index] = value;
+        if (++size > threshold)
+          rehash();
+        return;
+      }
+      if (k == key) {
+        values[index] = value;
+        return;
+      }
+      index = (index + 1) & mask;
+    }
+  }
+
+  /**
+   * Associates the value to the key only if the key is not present yet.
+   *
+   * @return true if the entry has been added, false if the key was already present
+   */
+  public boolean putIfAbsent(final long key, final long value) {
+    if (containsKey(key))
+      return false;
+    put(key, value);
+    return true;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  private int indexOf(final long key) {
+    // MIX THE BITS TO SPREAD KEYS WITH SIMILAR VALUES, LIKE CONSECUTIVE RECORD POSITIONS
+    long h = key * 0x9E3779B97F4A7C15L;
+    h ^= (h >>> 32);
+    return (int) (h ^ (h >>> 16)) & mask;
+  }
+
+  private void allocate(final int capacity) {
+    keys = new long[capacity];
+    values = new long[capacity];
+    Arrays.fill(keys, FREE_KEY);
+    mask = capacity - 1;
+    threshold = (int) (capacity * LOAD_FACTOR);
+  }
+
+  private void rehash() {
+    final long[] oldKeys = keys;
+    final long[] oldValues = values;
+
+    allocate(keys.length * 2);
+    size = 0;
+
+    for (int i = 0; i < oldKeys.length; ++i)
+      if (oldKeys[i] != FREE_KEY)
+        put(oldKeys[i], oldValues[i]);
+  }
+}
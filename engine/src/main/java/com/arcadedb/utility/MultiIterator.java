@@ -30,6 +30,7 @@ public class MultiIterator<T> implements ResettableIterator<T>, Iterable<T> {
   private List<Object> sources;
   private Iterator<?>  sourcesIterator;
   private Iterator<T>  partialIterator;
+  private Iterator<T>  lastReturnedIterator;
 
   private       long    browsed            = 0L;
   private       long    skip               = -1L;
@@ -95,6 +96,7 @@ public class MultiIterator<T> implements ResettableIterator<T>, Iterable<T> {
       throw new NoSuchElementException();
 
     browsed++;
+    lastReturnedIterator = partialIterator;
     return partialIterator.next();
   }
 
@@ -108,6 +110,7 @@ public class MultiIterator<T> implements ResettableIterator<T>, Iterable<T> {
   public void reset() {
     sourcesIterator = null;
     partialIterator = null;
+    lastReturnedIterator = null;
     browsed = 0;
     skipped = 0;
   }
@@ -152,9 +155,14 @@ public class MultiIterator<T> implements ResettableIterator<T>, Iterable<T> {
     return browsed;
   }
 
+  /**
+   * Removes the last element returned by {@link #next()} from the underlying iterator, if it supports the removal.
+   */
   @Override
   public void remove() {
-    throw new UnsupportedOperationException("MultiIterator.remove()");
+    if (lastReturnedIterator == null)
+      throw new IllegalStateException("MultiIterator.remove() called before next()");
+    lastReturnedIterator.remove();
   }
 
   public long getLimit() {
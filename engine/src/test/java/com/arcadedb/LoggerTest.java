@@ -18,12 +18,15 @@
  */
 package com.arcadedb;
 
+import com.arcadedb.log.AsyncLogHandler;
 import com.arcadedb.log.DefaultLogger;
 import com.arcadedb.log.LogManager;
 import com.arcadedb.log.Logger;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.util.*;
+import java.util.concurrent.atomic.*;
 import java.util.logging.*;
 
 public class LoggerTest extends TestHelper {
@@ -63,4 +66,59 @@ public class LoggerTest extends TestHelper {
       LogManager.instance().setLogger(new DefaultLogger());
     }
   }
+
+  @Test
+  public void testSupplierIsNotInvokedWhenDisabled() {
+    final java.util.logging.Logger jul = java.util.logging.Logger.getLogger(LoggerTest.class.getName());
+    final Level previous = jul.getLevel();
+    try {
+      jul.setLevel(Level.WARNING);
+
+      final AtomicInteger invocations = new AtomicInteger();
+      Assertions.assertFalse(LogManager.instance().isLoggable(this, Level.FINE));
+      LogManager.instance().log(this, Level.FINE, () -> "expensive " + invocations.incrementAndGet());
+      Assertions.assertEquals(0, invocations.get());
+
+      Assertions.assertTrue(LogManager.instance().isLoggable(this, Level.SEVERE));
+      LogManager.instance().log(this, Level.SEVERE, () -> "expensive " + invocations.incrementAndGet());
+      Assertions.assertEquals(1, invocations.get());
+    } finally {
+      jul.setLevel(previous);
+    }
+  }
+
+  @Test
+  public void testAsyncLogHandler() {
+    final List<String> written = Collections.synchronizedList(new ArrayList<>());
+    final Handler delegate = new Handler() {
+      @Override
+      public void publish(final LogRecord record) {
+        written.add(record.getMessage());
+      }
+
+      @Override
+      public void flush() {
+      }
+
+      @Override
+      public void close() {
+      }
+    };
+
+    final AsyncLogHandler handler = new AsyncLogHandler(delegate, 16);
+    try {
+      for (int i = 0; i < 1_000; i++)
+        handler.publish(new LogRecord(Level.SEVERE, "record " + i));
+
+      handler.flush();
+
+      // SEVERE RECORDS ARE NEVER DROPPED AND KEEP THEIR ORDER
+      Assertions.assertEquals(1_000, written.size());
+      Assertions.assertEquals("record 0", written.get(0));
+      Assertions.assertEquals("record 999", written.get(999));
+      Assertions.assertEquals(0, handler.getDroppedRecords());
+    } finally {
+      handler.close();
+    }
+  }
 }
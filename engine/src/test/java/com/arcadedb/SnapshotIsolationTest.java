@@ -0,0 +1,156 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb;
+
+import com.arcadedb.database.Database;
+import com.arcadedb.database.DatabaseInternal;
+import com.arcadedb.database.MutableDocument;
+import com.arcadedb.database.RID;
+import com.arcadedb.engine.PageManager;
+import com.arcadedb.exception.ConcurrentModificationException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.*;
+
+public class SnapshotIsolationTest extends TestHelper {
+  private static final int   TOT  = 1_000;
+  private final        RID[] rids = new RID[TOT];
+
+  @Override
+  protected void beginTest() {
+    TestServiceUser.install(database);
+    database.transaction(() -> {
+      database.getSchema().createDocumentType("Account", 2);
+      for (int i = 0; i < TOT; ++i)
+        rids[i] = database.newDocument("Account").set("id", i, "balance", 100).save().getIdentity();
+    });
+  }
+
+  @Test
+  public void readersSeeTheSnapshot() throws Exception {
+    final ExecutorService writer = newWriter();
+    try {
+      database.begin(Database.TRANSACTION_ISOLATION_LEVEL.SNAPSHOT);
+
+      Assertions.assertEquals(TOT, database.countType("Account", true));
+      Assertions.assertEquals(100, (int) rids[0].asDocument(true).getInteger("balance"));
+
+      // CONCURRENT COMMITS: UPDATE ALL THE ACCOUNTS AND INSERT NEW ONES
+      writer.submit(() -> database.transaction(() -> {
+        for (final RID rid : rids) {
+          final MutableDocument doc = rid.asDocument(true).modify();
+          doc.set("balance", doc.getInteger("balance") + 10).save();
+        }
+        for (int i = 0; i < TOT; ++i)
+          database.newDocument("Account").set("id", TOT + i, "balance", 0).save();
+      })).get();
+
+      Assertions.assertEquals(TOT, database.countType("Account", true));
+      long total = 0;
+      for (final RID rid : rids)
+        total += rid.asDocument(true).getInteger("balance");
+      Assertions.assertEquals(TOT * 100L, total);
+
+      final PageManager.PPageManagerStats stats = ((DatabaseInternal) database).getPageManager().getStats();
+      Assertions.assertEquals(1, stats.activeSnapshots);
+      Assertions.assertTrue(stats.snapshotPageVersions > 0);
+
+      database.commit();
+
+      // THE VERSIONS ARE DISCARDED WHEN THE LAST SNAPSHOT IS CLOSED
+      Assertions.assertEquals(0, ((DatabaseInternal) database).getPageManager().getStats().activeSnapshots);
+      Assertions.assertEquals(0, ((DatabaseInternal) database).getPageManager().getStats().snapshotPageVersions);
+
+      database.transaction(() -> {
+        Assertions.assertEquals(TOT * 2, database.countType("Account", true));
+        Assertions.assertEquals(110, (int) rids[0].asDocument(true).getInteger("balance"));
+      });
+    } finally {
+      writer.shutdown();
+    }
+  }
+
+  @Test
+  public void firstCommitterWins() throws Exception {
+    final RID first = rids[0];
+
+    final ExecutorService writer = newWriter();
+    try {
+      database.begin(Database.TRANSACTION_ISOLATION_LEVEL.SNAPSHOT);
+      Assertions.assertEquals(100, (int) first.asDocument(true).getInteger("balance"));
+
+      writer.submit(() -> database.transaction(() -> {
+        final MutableDocument doc = first.asDocument(true).modify();
+        doc.set("balance", 50).save();
+      })).get();
+
+      final MutableDocument doc = first.asDocument(true).modify();
+      Assertions.assertEquals(100, (int) doc.getInteger("balance"));
+      doc.set("balance", 200).save();
+
+      Assertions.assertThrows(ConcurrentModificationException.class, () -> database.commit());
+
+      database.transaction(() -> Assertions.assertEquals(50, (int) first.asDocument(true).getInteger("balance")));
+    } finally {
+      writer.shutdown();
+    }
+  }
+
+  @Test
+  public void spillVersionsToDisk() throws Exception {
+    GlobalConfiguration.TX_SNAPSHOT_MAX_RAM.setValue(0L);
+    reopenDatabase();
+    TestServiceUser.install(database);
+    for (int i = 0; i < TOT; ++i)
+      rids[i] = new RID(database, rids[i].getBucketId(), rids[i].getPosition());
+
+    final ExecutorService writer = newWriter();
+    try {
+      database.begin(Database.TRANSACTION_ISOLATION_LEVEL.SNAPSHOT);
+      Assertions.assertEquals(TOT, database.countType("Account", true));
+
+      writer.submit(() -> database.transaction(() -> {
+        for (final RID rid : rids)
+          rid.asDocument(true).modify().set("balance", 0).save();
+      })).get();
+
+      Assertions.assertTrue(((DatabaseInternal) database).getPageManager().getStats().snapshotPageVersionsSpilled > 0);
+
+      for (final RID rid : rids)
+        Assertions.assertEquals(100, (int) rid.asDocument(true).getInteger("balance"));
+
+      database.commit();
+
+      database.transaction(() -> Assertions.assertEquals(0, (int) rids[TOT - 1].asDocument(true).getInteger("balance")));
+    } finally {
+      writer.shutdown();
+      GlobalConfiguration.TX_SNAPSHOT_MAX_RAM.reset();
+    }
+  }
+
+  /**
+   * Returns a single thread executor that runs the concurrent transactions as the test user.
+   */
+  private ExecutorService newWriter() throws Exception {
+    final ExecutorService writer = Executors.newSingleThreadExecutor();
+    writer.submit(() -> TestServiceUser.install(database)).get();
+    return writer;
+  }
+}
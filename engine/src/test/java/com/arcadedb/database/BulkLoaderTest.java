@@ -0,0 +1,192 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.database;
+
+import com.arcadedb.TestHelper;
+import com.arcadedb.TestServiceUser;
+import com.arcadedb.exception.DuplicatedKeyException;
+import com.arcadedb.index.IndexCursor;
+import com.arcadedb.schema.DocumentType;
+import com.arcadedb.schema.Schema;
+import com.arcadedb.schema.Type;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.*;
+
+public class BulkLoaderTest extends TestHelper {
+  private static final int TOTAL = 20_000;
+
+  @Override
+  protected void beginTest() {
+    TestServiceUser.install(database);
+  }
+
+  @Test
+  public void testBulkLoadInEmptyAndNotEmptyBuckets() {
+    database.transaction(() -> {
+      final DocumentType type = database.getSchema().createDocumentType("Bulk", 3);
+      type.createProperty("id", Type.INTEGER);
+      database.getSchema().createTypeIndex(Schema.INDEX_TYPE.LSM_TREE, true, "Bulk", "id");
+    });
+
+    // EMPTY BUCKETS: THE INDEX IS BUILT BY SORTING THE KEYS. SOME RECORDS ARE BIGGER THAN A PAGE
+    final String bigContent = "x".repeat(200_000);
+    try (final BulkLoader loader = new BulkLoader(database, "Bulk")) {
+      for (int i = 0; i < TOTAL; i++) {
+        final MutableDocument doc = database.newDocument("Bulk").set("id", i).set("name", "Doc" + i);
+        if (i % 1000 == 0)
+          doc.set("content", bigContent);
+        Assertions.assertNotNull(loader.createRecord(doc));
+        Assertions.assertNotNull(doc.getIdentity());
+      }
+      Assertions.assertEquals(TOTAL, loader.getCreated());
+    }
+
+    Assertions.assertEquals(TOTAL, database.countType("Bulk", false));
+
+    database.transaction(() -> {
+      for (int i = 0; i < TOTAL; i += 997) {
+        final IndexCursor cursor = database.lookupByKey("Bulk", "id", i);
+        Assertions.assertTrue(cursor.hasNext());
+        final Document doc = cursor.next().asDocument();
+        Assertions.assertEquals("Doc" + i, doc.getString("name"));
+        if (i % 1000 == 0)
+          Assertions.assertEquals(bigContent, doc.getString("content"));
+      }
+
+      // REGULAR INSERT AFTER THE BULK LOAD
+      database.newDocument("Bulk").set("id", TOTAL).set("name", "Doc" + TOTAL).save();
+    });
+
+    // NOT EMPTY BUCKETS: ONLY THE NEW RECORDS ARE INDEXED
+    try (final BulkLoader loader = new BulkLoader(database, "Bulk")) {
+      for (int i = TOTAL + 1; i < TOTAL * 2; i++)
+        loader.createRecord(database.newDocument("Bulk").set("id", i).set("name", "Doc" + i));
+    }
+
+    Assertions.assertEquals(TOTAL * 2, database.countType("Bulk", false));
+    Assertions.assertEquals(TOTAL * 2, database.query("sql", "select count(*) as total from Bulk where id >= 0").nextIfAvailable().<Long>getProperty("total"));
+
+    database.transaction(() -> {
+      for (int i = 0; i < TOTAL * 2; i += 1013)
+        Assertions.assertTrue(database.lookupByKey("Bulk", "id", i).hasNext());
+    });
+  }
+
+  @Test
+  public void testDuplicatedKeysDiscardTheLoad() {
+    database.transaction(() -> {
+      final DocumentType type = database.getSchema().createDocumentType("Unique", 2);
+      type.createProperty("id", Type.INTEGER);
+      database.getSchema().createTypeIndex(Schema.INDEX_TYPE.LSM_TREE, true, "Unique", "id");
+    });
+
+    // EMPTY BUCKETS: THE SAME KEY IN TWO NEW RECORDS, ALSO IN DIFFERENT BUCKETS
+    Assertions.assertThrows(DuplicatedKeyException.class, () -> {
+      try (final BulkLoader loader = new BulkLoader(database, "Unique")) {
+        for (int i = 0; i < 1000; i++)
+          loader.createRecord(database.newDocument("Unique").set("id", i));
+        loader.createRecord(database.newDocument("Unique").set("id", 10));
+      }
+    });
+    Assertions.assertEquals(0, database.countType("Unique", false));
+
+    // THE INDEX IS STILL USABLE
+    database.transaction(() -> database.newDocument("Unique").set("id", 10).save());
+    Assertions.assertTrue(database.lookupByKey("Unique", "id", 10).hasNext());
+
+    // NOT EMPTY BUCKETS: THE KEY IS ALREADY IN THE INDEX
+    Assertions.assertThrows(DuplicatedKeyException.class, () -> {
+      try (final BulkLoader loader = new BulkLoader(database, "Unique")) {
+        for (int i = 100; i < 200; i++)
+          loader.createRecord(database.newDocument("Unique").set("id", i));
+        loader.createRecord(database.newDocument("Unique").set("id", 10));
+      }
+    });
+    Assertions.assertEquals(1, database.countType("Unique", false));
+    Assertions.assertFalse(database.lookupByKey("Unique", "id", 100).hasNext());
+
+    try (final BulkLoader loader = new BulkLoader(database, "Unique")) {
+      for (int i = 100; i < 200; i++)
+        loader.createRecord(database.newDocument("Unique").set("id", i));
+    }
+    Assertions.assertEquals(101, database.countType("Unique", false));
+    Assertions.assertTrue(database.lookupByKey("Unique", "id", 150).hasNext());
+  }
+
+  @Test
+  public void testTransactionAndThreads() throws InterruptedException {
+    database.getSchema().createDocumentType("Threads");
+
+    database.begin();
+    try {
+      Assertions.assertThrows(IllegalStateException.class, () -> new BulkLoader(database, "Threads"));
+    } finally {
+      database.rollback();
+    }
+
+    final AtomicReference<Throwable> error = new AtomicReference<>();
+    final AtomicBoolean contextLeft = new AtomicBoolean();
+    final AtomicBoolean contextKept = new AtomicBoolean();
+    try (final BulkLoader loader = new BulkLoader(database, "Threads")) {
+      // THREAD WITHOUT CONTEXT: THE LOADER LENDS ITS USER FOR THE CALL ONLY
+      final MutableDocument doc = database.newDocument("Threads").set("id", 1);
+      runInThread(() -> {
+        loader.createRecord(doc);
+        contextLeft.set(DatabaseContext.INSTANCE.getContextIfExists(database.getDatabasePath()) != null);
+      }, error);
+
+      // THREAD WITH ITS OWN CONTEXT: THE LOADER LEAVES IT AS IT IS
+      runInThread(() -> {
+        TestServiceUser.install(database);
+        try {
+          loader.createRecord(database.newDocument("Threads").set("id", 2));
+          contextKept.set(DatabaseContext.INSTANCE.getContextIfExists(database.getDatabasePath()) != null);
+        } finally {
+          DatabaseContext.INSTANCE.removeContext(database.getDatabasePath());
+        }
+      }, error);
+
+      // THE INDEXES ARE UPDATED IN THEIR OWN TRANSACTIONS
+      database.begin();
+      Assertions.assertThrows(IllegalStateException.class, loader::close);
+      database.rollback();
+    }
+
+    Assertions.assertFalse(contextLeft.get());
+    Assertions.assertTrue(contextKept.get());
+    Assertions.assertEquals(2, database.countType("Threads", false));
+  }
+
+  private static void runInThread(final Runnable task, final AtomicReference<Throwable> error) throws InterruptedException {
+    final Thread thread = new Thread(() -> {
+      try {
+        task.run();
+      } catch (final Throwable e) {
+        error.set(e);
+      }
+    });
+    thread.start();
+    thread.join();
+
+    if (error.get() != null)
+      Assertions.fail("Error in worker thread", error.get());
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.engine;
+
+import com.arcadedb.TestHelper;
+import com.arcadedb.database.DatabaseInternal;
+import com.arcadedb.exception.TimeoutException;
+import com.arcadedb.utility.LockManager;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+public class TransactionManagerLockTest extends TestHelper {
+  @Test
+  public void sharedFileLocksExcludeExclusiveLock() throws Exception {
+    final TransactionManager tm = ((DatabaseInternal) database).getTransactionManager();
+    final int fileId = database.getSchema().createBucket("Locks").getFileId();
+
+    final ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      // TWO TRANSACTIONS HOLD THE FILE IN SHARED MODE AT THE SAME TIME
+      final List<Integer> shared1 = executor.submit(() -> tm.tryLockFilesShared(List.of(fileId), 1000)).get();
+      final List<Integer> shared2 = executor.submit(() -> tm.tryLockFilesShared(List.of(fileId), 1000)).get();
+      Assertions.assertEquals(List.of(fileId), shared1);
+      Assertions.assertEquals(List.of(fileId), shared2);
+
+      // THE EXCLUSIVE LOCK MUST WAIT FOR THE SHARED HOLDERS
+      Assertions.assertEquals(LockManager.LOCK_STATUS.NO, tm.tryLockFile(fileId, 100));
+
+      tm.unlockFilesSharedInOrder(shared1);
+      tm.unlockFilesSharedInOrder(shared2);
+
+      Assertions.assertEquals(LockManager.LOCK_STATUS.YES, tm.tryLockFile(fileId, 100));
+
+      // NO SHARED LOCKS WHILE THE FILE IS LOCKED EXCLUSIVELY
+      final Future<List<Integer>> waiting = executor.submit(() -> tm.tryLockFilesShared(List.of(fileId), 100));
+      final ExecutionException e = Assertions.assertThrows(ExecutionException.class, waiting::get);
+      Assertions.assertTrue(e.getCause() instanceof TimeoutException);
+
+      tm.unlockFile(fileId);
+    } finally {
+      executor.shutdown();
+    }
+
+    Assertions.assertTrue((Long) tm.getStats().get("lockTimeouts") >= 1L);
+  }
+
+  @Test
+  public void pageLocks() throws Exception {
+    final TransactionManager tm = ((DatabaseInternal) database).getTransactionManager();
+
+    final List<PageId> locked = tm.tryLockPages(List.of(new PageId(10, 2), new PageId(10, 1)), 100);
+    Assertions.assertEquals(List.of(new PageId(10, 1), new PageId(10, 2)), locked);
+
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      // A DIFFERENT PAGE OF THE SAME FILE CAN BE LOCKED
+      final List<PageId> other = executor.submit(() -> tm.tryLockPages(List.of(new PageId(10, 3)), 100)).get();
+      Assertions.assertEquals(1, other.size());
+      executor.submit(() -> tm.unlockPages(other)).get();
+
+      // THE SAME PAGE CANNOT
+      final Future<List<PageId>> conflict = executor.submit(() -> tm.tryLockPages(List.of(new PageId(10, 3), new PageId(10, 2)), 100));
+      final ExecutionException e = Assertions.assertThrows(ExecutionException.class, conflict::get);
+      Assertions.assertTrue(e.getCause() instanceof TimeoutException);
+
+      // THE LOCKS ACQUIRED BEFORE THE TIMEOUT HAVE BEEN RELEASED
+      final List<PageId> relocked = executor.submit(() -> tm.tryLockPages(List.of(new PageId(10, 3)), 100)).get();
+      Assertions.assertEquals(1, relocked.size());
+      executor.submit(() -> tm.unlockPages(relocked)).get();
+    } finally {
+      executor.shutdown();
+    }
+
+    tm.unlockPages(locked);
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.engine;
+
+import com.arcadedb.GlobalConfiguration;
+import com.arcadedb.TestHelper;
+import com.arcadedb.TestServiceUser;
+import com.arcadedb.database.DatabaseInternal;
+import com.arcadedb.database.MutableDocument;
+import com.arcadedb.exception.TransactionException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class WALRecoveryTest extends TestHelper {
+  private static final int TXS            = 50;
+  private static final int RECORDS_PER_TX = 20;
+
+  @Override
+  protected void beginTest() {
+    TestServiceUser.install(database);
+    database.getConfiguration().setValue(GlobalConfiguration.TX_WAL_FLUSH, 2);
+    database.transaction(() -> database.getSchema().createDocumentType("Recovery", 4));
+  }
+
+  @Test
+  public void recoverPagesInParallel() {
+    crashAndRecover();
+  }
+
+  @Test
+  public void recoverCompressedWAL() {
+    database.getConfiguration().setValue(GlobalConfiguration.TX_WAL_COMPRESSION, true);
+    try {
+      crashAndRecover();
+    } finally {
+      database.getConfiguration().setValue(GlobalConfiguration.TX_WAL_COMPRESSION, false);
+    }
+  }
+
+  private void crashAndRecover() {
+    for (int tx = 0; tx < TXS; ++tx) {
+      final int base = tx * RECORDS_PER_TX;
+      database.transaction(() -> insert(base));
+    }
+
+    // THE LAST TRANSACTION IS WRITTEN ONLY IN THE WAL
+    final Callable<Void> callback = () -> {
+      throw new IOException("Test IO Exception");
+    };
+    ((DatabaseInternal) database).registerCallback(DatabaseInternal.CALLBACK_EVENT.TX_AFTER_WAL_WRITE, callback);
+    try {
+      database.begin();
+      insert(TXS * RECORDS_PER_TX);
+      database.commit();
+      Assertions.fail("Expected commit to fail");
+    } catch (final TransactionException e) {
+      // EXPECTED
+    } finally {
+      ((DatabaseInternal) database).unregisterCallback(DatabaseInternal.CALLBACK_EVENT.TX_AFTER_WAL_WRITE, callback);
+    }
+
+    ((DatabaseInternal) database).kill();
+    database.close();
+
+    database = factory.open();
+    TestServiceUser.install(database);
+
+    final Map<String, Object> stats = ((DatabaseInternal) database).getTransactionManager().getStats();
+    Assertions.assertTrue((Long) stats.get("recoveryTransactions") > TXS);
+    Assertions.assertTrue((Long) stats.get("recoveryPagesApplied") > 0);
+    Assertions.assertTrue((Long) stats.get("recoveryPagesSkipped") > 0);
+
+    database.transaction(() -> Assertions.assertEquals((TXS + 1) * RECORDS_PER_TX, database.countType("Recovery", true)));
+  }
+
+  private void insert(final int base) {
+    for (int i = 0; i < RECORDS_PER_TX; ++i) {
+      final MutableDocument doc = database.newDocument("Recovery");
+      doc.set("id", base + i);
+      doc.set("name", "Recovery" + (base + i));
+      doc.save();
+    }
+  }
+}
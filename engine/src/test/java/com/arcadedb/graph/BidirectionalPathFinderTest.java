@@ -0,0 +1,123 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.graph;
+
+import com.arcadedb.TestHelper;
+import com.arcadedb.TestServiceUser;
+import com.arcadedb.database.DatabaseInternal;
+import com.arcadedb.database.RID;
+import com.arcadedb.exception.CommandExecutionException;
+import com.arcadedb.query.sql.executor.ResultSet;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+public class BidirectionalPathFinderTest extends TestHelper {
+  private static final int WIDTH = BidirectionalPathFinder.PARALLEL_THRESHOLD * 4;
+  private              RID source;
+  private              RID destination;
+
+  @Override
+  protected void beginTest() {
+    TestServiceUser.install(database);
+
+    database.transaction(() -> {
+      database.getSchema().createVertexType("Node");
+      database.getSchema().createEdgeType("Link");
+
+      // SOURCE -> LEVEL1[i] -> LEVEL2[i] -> DESTINATION: BOTH THE FRONTIERS ARE LARGE ENOUGH TO BE EXPANDED IN PARALLEL
+      final MutableVertex src = database.newVertex("Node").set("name", "source").save();
+      final MutableVertex dst = database.newVertex("Node").set("name", "destination").save();
+      for (int i = 0; i < WIDTH; i++) {
+        final MutableVertex level1 = database.newVertex("Node").set("name", "l1-" + i).save();
+        final MutableVertex level2 = database.newVertex("Node").set("name", "l2-" + i).save();
+        src.newEdge("Link", level1, true);
+        level1.newEdge("Link", level2, true);
+        level2.newEdge("Link", dst, true);
+      }
+      source = src.getIdentity();
+      destination = dst.getIdentity();
+    });
+  }
+
+  @Test
+  public void parallelAndSequentialReturnTheSamePath() {
+    final DatabaseInternal db = (DatabaseInternal) database;
+
+    final List<RID> parallel = new BidirectionalPathFinder(db, Vertex.DIRECTION.OUT, null, false, -1).find(source, destination);
+    final List<RID> sequential = new BidirectionalPathFinder(db, Vertex.DIRECTION.OUT, null, false, -1).setParallel(false).find(source, destination);
+
+    Assertions.assertEquals(4, parallel.size());
+    Assertions.assertEquals(source, parallel.get(0));
+    Assertions.assertEquals(destination, parallel.get(3));
+    Assertions.assertEquals(sequential, parallel);
+
+    // THE PATH MUST BE CONNECTED
+    for (int i = 0; i < parallel.size() - 1; i++)
+      Assertions.assertTrue(parallel.get(i).asVertex().isConnectedTo(parallel.get(i + 1), Vertex.DIRECTION.OUT));
+  }
+
+  @Test
+  public void directionAndDepth() {
+    final DatabaseInternal db = (DatabaseInternal) database;
+
+    Assertions.assertTrue(new BidirectionalPathFinder(db, Vertex.DIRECTION.IN, null, false, -1).find(source, destination).isEmpty());
+    Assertions.assertEquals(4, new BidirectionalPathFinder(db, Vertex.DIRECTION.IN, null, false, -1).find(destination, source).size());
+    Assertions.assertEquals(4, new BidirectionalPathFinder(db, Vertex.DIRECTION.BOTH, new String[] { "Link" }, false, -1).find(source, destination).size());
+    Assertions.assertTrue(new BidirectionalPathFinder(db, Vertex.DIRECTION.OUT, new String[] { "Unknown" }, false, -1).find(source, destination).isEmpty());
+    Assertions.assertTrue(new BidirectionalPathFinder(db, Vertex.DIRECTION.OUT, null, false, 3).find(source, destination).isEmpty());
+    Assertions.assertEquals(4, new BidirectionalPathFinder(db, Vertex.DIRECTION.OUT, null, false, 4).find(source, destination).size());
+  }
+
+  @Test
+  public void interruptedSearchKeepsTheFlag() {
+    final DatabaseInternal db = (DatabaseInternal) database;
+
+    Thread.currentThread().interrupt();
+    try {
+      Assertions.assertThrows(CommandExecutionException.class, () -> new BidirectionalPathFinder(db, Vertex.DIRECTION.OUT, null, false, -1).find(source, destination));
+      Assertions.assertTrue(Thread.currentThread().isInterrupted());
+    } finally {
+      Thread.interrupted();
+    }
+
+    // THE SHARED POOL IS STILL USABLE
+    Assertions.assertEquals(4, new BidirectionalPathFinder(db, Vertex.DIRECTION.OUT, null, false, -1).find(source, destination).size());
+  }
+
+  @Test
+  public void sqlFunctionWithEdges() {
+    database.transaction(() -> {
+      // CHANGES IN THE CURRENT TRANSACTION FORCE THE SEQUENTIAL EXPANSION, BECAUSE THEY ARE NOT VISIBLE TO OTHER THREADS
+      final MutableVertex shortcut = database.newVertex("Node").set("name", "shortcut").save();
+      shortcut.newEdge("Link", destination, true);
+      source.asVertex().modify().newEdge("Link", shortcut, true);
+
+      final ResultSet result = database.query("sql", "select shortestPath(?, ?, 'OUT', null, {'edge': true}) as sp", source, destination);
+      final List<RID> path = result.next().getProperty("sp");
+      Assertions.assertEquals(5, path.size());
+      Assertions.assertEquals(source, path.get(0));
+      Assertions.assertEquals(shortcut.getIdentity(), path.get(2));
+      Assertions.assertEquals(destination, path.get(4));
+      Assertions.assertTrue(path.get(1).asEdge() != null);
+      Assertions.assertTrue(path.get(3).asEdge() != null);
+    });
+  }
+}
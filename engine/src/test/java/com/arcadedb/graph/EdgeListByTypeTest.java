@@ -0,0 +1,257 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.graph;
+
+import com.arcadedb.GlobalConfiguration;
+import com.arcadedb.TestHelper;
+import com.arcadedb.TestServiceUser;
+import com.arcadedb.database.DatabaseInternal;
+import com.arcadedb.database.RID;
+import com.arcadedb.query.sql.executor.Result;
+import com.arcadedb.query.sql.executor.ResultSet;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+public class EdgeListByTypeTest extends TestHelper {
+  private static final int EDGES = 500;
+
+  @Override
+  protected void beginTest() {
+    TestServiceUser.install(database);
+    database.getConfiguration().setValue(GlobalConfiguration.GRAPH_EDGE_LIST_BY_TYPE, true);
+
+    database.transaction(() -> {
+      database.getSchema().createVertexType("Person");
+      database.getSchema().createEdgeType("Follows");
+      database.getSchema().createEdgeType("Likes");
+      database.getSchema().createEdgeType("Loves").addSuperType("Likes");
+    });
+  }
+
+  @Override
+  protected void endTest() {
+    database.getConfiguration().setValue(GlobalConfiguration.GRAPH_EDGE_LIST_BY_TYPE, false);
+  }
+
+  @Test
+  public void typedTraversal() {
+    final RID[] rids = new RID[2];
+
+    database.transaction(() -> {
+      final MutableVertex root = database.newVertex("Person").set("name", "root").save();
+      final MutableVertex other = database.newVertex("Person").set("name", "other").save();
+      rids[0] = root.getIdentity();
+      rids[1] = other.getIdentity();
+
+      for (int i = 0; i < EDGES; ++i) {
+        root.newEdge("Follows", other, true);
+        if (i % 10 == 0)
+          root.newEdge("Likes", other, true);
+        if (i % 50 == 0)
+          root.newLightEdge("Loves", other, true);
+      }
+    });
+
+    database.transaction(() -> {
+      final VertexInternal root = (VertexInternal) rids[0].asVertex();
+      final VertexInternal other = (VertexInternal) rids[1].asVertex();
+
+      Assertions.assertTrue(database.lookupByRID(root.getOutEdgesHeadChunk(), true) instanceof EdgeTypeHeadTable);
+
+      Assertions.assertEquals(EDGES, root.countEdges(Vertex.DIRECTION.OUT, "Follows"));
+      Assertions.assertEquals(EDGES / 10 + EDGES / 50, root.countEdges(Vertex.DIRECTION.OUT, "Likes"));
+      Assertions.assertEquals(EDGES / 50, root.countEdges(Vertex.DIRECTION.OUT, "Loves"));
+      Assertions.assertEquals(EDGES + EDGES / 10 + EDGES / 50, root.countEdges(Vertex.DIRECTION.OUT, null));
+      Assertions.assertEquals(EDGES / 10 + EDGES / 50, other.countEdges(Vertex.DIRECTION.IN, "Likes"));
+      Assertions.assertEquals(0, other.countEdges(Vertex.DIRECTION.OUT, null));
+
+      int total = 0;
+      for (final Edge e : root.getEdges(Vertex.DIRECTION.OUT, "Likes")) {
+        Assertions.assertTrue(e.getType().instanceOf("Likes"));
+        ++total;
+      }
+      Assertions.assertEquals(EDGES / 10 + EDGES / 50, total);
+
+      total = 0;
+      for (final Vertex v : root.getVertices(Vertex.DIRECTION.OUT, "Follows")) {
+        Assertions.assertEquals(other.getIdentity(), v.getIdentity());
+        ++total;
+      }
+      Assertions.assertEquals(EDGES, total);
+
+      Assertions.assertTrue(root.isConnectedTo(other, Vertex.DIRECTION.OUT, "Loves"));
+      Assertions.assertFalse(other.isConnectedTo(root, Vertex.DIRECTION.OUT, "Follows"));
+    });
+  }
+
+  @Test
+  public void deleteEdgesAndVertices() {
+    final RID[] rids = new RID[2];
+
+    database.transaction(() -> {
+      final MutableVertex root = database.newVertex("Person").set("name", "root").save();
+      final MutableVertex other = database.newVertex("Person").set("name", "other").save();
+      rids[0] = root.getIdentity();
+      rids[1] = other.getIdentity();
+
+      for (int i = 0; i < EDGES; ++i) {
+        root.newEdge("Follows", other, true);
+        root.newEdge("Likes", other, true);
+      }
+    });
+
+    database.transaction(() -> {
+      final Vertex root = rids[0].asVertex();
+      final List<Edge> toDelete = new ArrayList<>();
+      for (final Edge e : root.getEdges(Vertex.DIRECTION.OUT, "Likes"))
+        toDelete.add(e);
+      for (final Edge e : toDelete)
+        e.delete();
+    });
+
+    database.transaction(() -> {
+      final Vertex root = rids[0].asVertex();
+      final Vertex other = rids[1].asVertex();
+      Assertions.assertEquals(EDGES, root.countEdges(Vertex.DIRECTION.OUT, "Follows"));
+      Assertions.assertEquals(0, root.countEdges(Vertex.DIRECTION.OUT, "Likes"));
+      Assertions.assertEquals(EDGES, other.countEdges(Vertex.DIRECTION.IN, null));
+
+      root.delete();
+    });
+
+    database.transaction(() -> {
+      final Vertex other = rids[1].asVertex();
+      Assertions.assertEquals(0, other.countEdges(Vertex.DIRECTION.IN, null));
+      Assertions.assertEquals(0, database.countType("Follows", true));
+    });
+  }
+
+  @Test
+  public void mixedLayouts() {
+    final RID[] rids = new RID[2];
+
+    database.getConfiguration().setValue(GlobalConfiguration.GRAPH_EDGE_LIST_BY_TYPE, false);
+    database.transaction(() -> {
+      final MutableVertex legacy = database.newVertex("Person").set("name", "legacy").save();
+      final MutableVertex other = database.newVertex("Person").set("name", "other").save();
+      legacy.newEdge("Follows", other, true);
+      rids[0] = legacy.getIdentity();
+      rids[1] = other.getIdentity();
+    });
+
+    database.getConfiguration().setValue(GlobalConfiguration.GRAPH_EDGE_LIST_BY_TYPE, true);
+    database.transaction(() -> {
+      final MutableVertex legacy = rids[0].asVertex().modify();
+      legacy.newEdge("Likes", rids[1], true);
+
+      final MutableVertex typed = database.newVertex("Person").set("name", "typed").save();
+      typed.newEdge("Likes", legacy, true);
+    });
+
+    database.transaction(() -> {
+      final VertexInternal legacy = (VertexInternal) rids[0].asVertex();
+      Assertions.assertTrue(database.lookupByRID(legacy.getOutEdgesHeadChunk(), true) instanceof EdgeSegment);
+      Assertions.assertTrue(database.lookupByRID(legacy.getInEdgesHeadChunk(), true) instanceof EdgeTypeHeadTable);
+      Assertions.assertEquals(2, legacy.countEdges(Vertex.DIRECTION.OUT, null));
+      Assertions.assertEquals(1, legacy.countEdges(Vertex.DIRECTION.IN, "Likes"));
+    });
+  }
+
+  @Test
+  public void countersAreRepairedByCheck() {
+    final RID[] rids = new RID[2];
+
+    database.transaction(() -> {
+      final MutableVertex root = database.newVertex("Person").set("name", "root").save();
+      final MutableVertex other = database.newVertex("Person").set("name", "other").save();
+      rids[0] = root.getIdentity();
+      rids[1] = other.getIdentity();
+
+      for (int i = 0; i < EDGES; ++i)
+        root.newEdge("Follows", other, true);
+    });
+
+    database.transaction(() -> {
+      final ResultSet result = database.query("sql", "select out('Follows').size() as follows, in().size() as followers from [" + rids[1] + ", " + rids[0] + "]");
+      final Result other = result.next();
+      Assertions.assertEquals(0, (int) other.getProperty("follows"));
+      Assertions.assertEquals(EDGES, (int) other.getProperty("followers"));
+
+      final Result root = result.next();
+      Assertions.assertEquals(EDGES, (int) root.getProperty("follows"));
+      Assertions.assertEquals(0, (int) root.getProperty("followers"));
+    });
+
+    // CORRUPT THE COUNTER
+    database.transaction(() -> {
+      final EdgeTypeHeadTable table = ((EdgeLinkedListByType) ((DatabaseInternal) database).getGraphEngine()
+          .getEdgeHeadChunk((VertexInternal) rids[0].asVertex(), Vertex.DIRECTION.OUT)).getTable();
+      table.setCount(0, 3);
+      ((DatabaseInternal) database).updateRecord(table);
+    });
+
+    Assertions.assertEquals(3, rids[0].asVertex().countEdges(Vertex.DIRECTION.OUT, "Follows"));
+
+    final Result check = database.command("sql", "check database fix").next();
+    Assertions.assertTrue((Long) check.getProperty("invalidEdgeCounters") > 0);
+
+    Assertions.assertEquals(EDGES, rids[0].asVertex().countEdges(Vertex.DIRECTION.OUT, "Follows"));
+  }
+
+  @Test
+  public void removeThroughIterator() {
+    final RID[] rids = new RID[2];
+
+    database.transaction(() -> {
+      final MutableVertex root = database.newVertex("Person").set("name", "root").save();
+      final MutableVertex other = database.newVertex("Person").set("name", "other").save();
+      rids[0] = root.getIdentity();
+      rids[1] = other.getIdentity();
+
+      for (int i = 0; i < EDGES; ++i)
+        root.newEdge("Follows", other, true);
+      root.newEdge("Likes", other, true);
+    });
+
+    database.transaction(() -> {
+      final Iterator<Edge> edges = rids[0].asVertex().getEdges(Vertex.DIRECTION.OUT, "Follows").iterator();
+      for (int i = 0; i < 10; ++i) {
+        edges.next();
+        edges.remove();
+      }
+    });
+
+    database.transaction(() -> {
+      final Vertex root = rids[0].asVertex();
+      final Vertex other = rids[1].asVertex();
+      Assertions.assertEquals(EDGES - 10, root.countEdges(Vertex.DIRECTION.OUT, "Follows"));
+      Assertions.assertEquals(1, root.countEdges(Vertex.DIRECTION.OUT, "Likes"));
+      Assertions.assertEquals(EDGES - 10 + 1, other.countEdges(Vertex.DIRECTION.IN, null));
+      Assertions.assertEquals(EDGES - 10, database.countType("Follows", true));
+
+      final ResultSet result = database.query("sql", "select in().size() as followers from " + rids[1]);
+      Assertions.assertEquals(EDGES - 10 + 1, (int) result.next().getProperty("followers"));
+    });
+
+    final Result check = database.command("sql", "check database").next();
+    Assertions.assertEquals(0L, (Long) check.getProperty("invalidEdgeCounters"));
+  }
+}
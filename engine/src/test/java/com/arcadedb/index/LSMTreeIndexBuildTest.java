@@ -0,0 +1,155 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.index;
+
+import com.arcadedb.GlobalConfiguration;
+import com.arcadedb.TestHelper;
+import com.arcadedb.TestServiceUser;
+import com.arcadedb.database.Document;
+import com.arcadedb.exception.DuplicatedKeyException;
+import com.arcadedb.schema.DocumentType;
+import com.arcadedb.schema.Schema;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Builds the indexes on existing records by sorting the keys in 1MB of RAM, so the sort spills to temporary files.
+ */
+public class LSMTreeIndexBuildTest extends TestHelper {
+  private static final int    TOT       = 50_000;
+  private static final int    GROUPS    = 100;
+  private static final String TYPE_NAME = "Sensor";
+
+  @Override
+  protected void beginTest() {
+    TestServiceUser.install(database);
+  }
+
+  @Test
+  public void testBuildOnExistingRecords() {
+    try {
+      GlobalConfiguration.INDEX_BUILD_RAM_MB.setValue(1);
+
+      insertData();
+
+      database.transaction(() -> {
+        database.getSchema().createTypeIndex(Schema.INDEX_TYPE.LSM_TREE, true, TYPE_NAME, "id");
+        database.getSchema().createTypeIndex(Schema.INDEX_TYPE.LSM_TREE, false, TYPE_NAME, "name");
+        database.getSchema().createTypeIndex(Schema.INDEX_TYPE.LSM_TREE, false, TYPE_NAME, "group");
+      });
+
+      checkIndexes(0);
+
+      // THE INDEXES ARE UPDATED AS USUAL AFTER THE BUILD
+      database.transaction(() -> database.newDocument(TYPE_NAME).set("id", TOT).set("name", "sensor-" + TOT).set("group", 0).save());
+      Assertions.assertTrue(database.lookupByKey(TYPE_NAME, "id", TOT).hasNext());
+      Assertions.assertEquals(TOT / GROUPS + 1, count(database.lookupByKey(TYPE_NAME, "group", 0)));
+
+      Assertions.assertThrows(DuplicatedKeyException.class,
+          () -> database.transaction(() -> database.newDocument(TYPE_NAME).set("id", 7).set("name", "duplicated").save()));
+
+      reopenDatabase();
+      TestServiceUser.install(database);
+      checkIndexes(1);
+
+    } finally {
+      GlobalConfiguration.INDEX_BUILD_RAM_MB.setValue(256);
+    }
+  }
+
+  @Test
+  public void testBuildUniqueWithDuplicates() {
+    insertData();
+    database.transaction(() -> database.newDocument(TYPE_NAME).set("id", 7).set("name", "duplicated").save());
+
+    // THE SCHEMA WRAPS THE ERROR OF THE BUILD
+    Throwable error = Assertions.assertThrows(IndexException.class,
+        () -> database.transaction(() -> database.getSchema().createTypeIndex(Schema.INDEX_TYPE.LSM_TREE, true, TYPE_NAME, "id")));
+    while (error.getCause() != null)
+      error = error.getCause();
+    Assertions.assertInstanceOf(DuplicatedKeyException.class, error);
+
+    Assertions.assertNull(database.getSchema().getType(TYPE_NAME).getPolymorphicIndexByProperties("id"));
+  }
+
+  @Test
+  public void testBuildKeysWithManyValues() {
+    insertData();
+
+    // WITH 8KB PAGES THE VALUES OF A KEY ARE SPLIT IN MORE PAGES OF THE SAME SERIES
+    database.transaction(
+        () -> database.getSchema().createTypeIndex(Schema.INDEX_TYPE.LSM_TREE, false, TYPE_NAME, new String[] { "odd" }, 8 * 1024));
+
+    Assertions.assertEquals(TOT / 2, count(database.lookupByKey(TYPE_NAME, "odd", true)));
+    Assertions.assertEquals(TOT / 2, count(database.lookupByKey(TYPE_NAME, "odd", false)));
+
+    for (final Index bucketIndex : ((TypeIndex) database.getSchema().getIndexByName(TYPE_NAME + "[odd]")).getIndexesOnBuckets())
+      Assertions.assertEquals(1L, ((IndexInternal) bucketIndex).getStats().get("compactedSeries"));
+  }
+
+  private void checkIndexes(final int addedToGroupZero) {
+    for (int id = 0; id < TOT; id += 3) {
+      final IndexCursor cursor = database.lookupByKey(TYPE_NAME, "id", id);
+      Assertions.assertTrue(cursor.hasNext(), "Cannot find key " + id);
+      Assertions.assertEquals("sensor-" + id, ((Document) cursor.next().getRecord()).getString("name"));
+      Assertions.assertFalse(cursor.hasNext());
+
+      Assertions.assertEquals(1, count(database.lookupByKey(TYPE_NAME, "name", "sensor-" + id)));
+    }
+
+    for (int group = 0; group < GROUPS; ++group)
+      Assertions.assertEquals(TOT / GROUPS + (group == 0 ? addedToGroupZero : 0), count(database.lookupByKey(TYPE_NAME, "group", group)), "Wrong values for group " + group);
+
+    final RangeIndex index = (RangeIndex) database.getSchema().getIndexByName(TYPE_NAME + "[name]");
+    final IndexCursor cursor = index.iterator(true);
+    String previous = null;
+    int total = 0;
+    while (cursor.hasNext()) {
+      cursor.next();
+      final String current = (String) cursor.getKeys()[0];
+      if (previous != null)
+        Assertions.assertTrue(previous.compareTo(current) <= 0, "Wrong order: " + previous + " > " + current);
+      previous = current;
+      ++total;
+    }
+    Assertions.assertTrue(total >= TOT);
+  }
+
+  private void insertData() {
+    database.transaction(() -> {
+      final DocumentType type = database.getSchema().buildDocumentType().withName(TYPE_NAME).withTotalBuckets(4).create();
+      type.createProperty("id", Integer.class);
+      type.createProperty("name", String.class);
+      type.createProperty("group", Integer.class);
+      type.createProperty("odd", Boolean.class);
+
+      for (int i = 0; i < TOT; ++i)
+        database.newDocument(TYPE_NAME).set("id", i).set("name", "sensor-" + i).set("group", i % GROUPS).set("odd", i % 2 == 1).save();
+    });
+  }
+
+  private static int count(final IndexCursor cursor) {
+    int total = 0;
+    while (cursor.hasNext()) {
+      cursor.next();
+      ++total;
+    }
+    return total;
+  }
+}
@@ -20,12 +20,14 @@ package com.arcadedb.index;
 
 import com.arcadedb.GlobalConfiguration;
 import com.arcadedb.TestHelper;
+import com.arcadedb.TestServiceUser;
 import com.arcadedb.database.Database;
 import com.arcadedb.database.Document;
 import com.arcadedb.database.Identifiable;
 import com.arcadedb.database.MutableDocument;
 import com.arcadedb.database.async.ErrorCallback;
 import com.arcadedb.engine.WALFile;
+import com.arcadedb.index.lsm.LSMTreeIndex;
 import com.arcadedb.log.LogManager;
 import com.arcadedb.schema.DocumentType;
 import com.arcadedb.schema.Schema;
@@ -48,6 +50,12 @@ public class LSMTreeIndexCompactionTest extends TestHelper {
   private static final int    PARALLEL          = 4;
   private static final String TYPE_NAME         = "Device";
 
+  @Override
+  protected void beginTest() {
+    // THE LOOKUPS AND THE DELETE SCAN THE RECORDS: RUN THEM AS A SERVICE ACCOUNT WITHOUT CLASSIFICATION MARKINGS
+    TestServiceUser.install(database);
+  }
+
   @Test
   public void testCompaction() {
     try {
@@ -67,7 +75,7 @@ public class LSMTreeIndexCompactionTest extends TestHelper {
         @Override
         public void run() {
           try {
-            compaction();
+            compactIndexes();
           } finally {
             semaphore1.countDown();
           }
@@ -94,8 +102,11 @@ public class LSMTreeIndexCompactionTest extends TestHelper {
       new Timer().schedule(new TimerTask() {
         @Override
         public void run() {
-          compaction();
-          semaphore2.countDown();
+          try {
+            compactIndexes();
+          } finally {
+            semaphore2.countDown();
+          }
         }
       }, 0);
 
@@ -117,7 +128,175 @@ public class LSMTreeIndexCompactionTest extends TestHelper {
     }
   }
 
+  @Test
+  public void testSeriesMerge() {
+    try {
+      GlobalConfiguration.INDEX_COMPACTION_RAM_MB.setValue(COMPACTION_RAM_MB);
+      GlobalConfiguration.INDEX_COMPACTION_MIN_PAGES_SCHEDULE.setValue(0);
+      GlobalConfiguration.INDEX_COMPACTION_MAX_SERIES.setValue(1);
+
+      insertData();
+      compaction();
+      checkSeries(1);
+      checkLookups(100, 1);
+
+      // EVERY COMPACTION ADDS A SERIES THAT IS MERGED WITH THE PREVIOUS ONES IN BACKGROUND
+      insertData();
+      compaction();
+      checkSeries(1);
+      checkLookups(1, 2);
+      checkRanges(1, 2);
+
+      // THE DELETED ENTRIES ARE PURGED BY THE MERGE
+      database.transaction(() -> database.command("sql", "delete from " + TYPE_NAME + " where number % 2 = 0"));
+      compaction();
+      checkSeries(1);
+
+      for (long id = 0; id < TOT; ++id) {
+        final IndexCursor records = database.lookupByKey(TYPE_NAME, new String[] { "id" }, new Object[] { id });
+        int count = 0;
+        while (records.hasNext()) {
+          records.next();
+          ++count;
+        }
+        Assertions.assertEquals(id % 2 == 0 ? 0 : 2, count, "Wrong result for lookup of key " + id);
+      }
+
+    } finally {
+      GlobalConfiguration.INDEX_COMPACTION_RAM_MB.setValue(300);
+      GlobalConfiguration.INDEX_COMPACTION_MIN_PAGES_SCHEDULE.setValue(10);
+      GlobalConfiguration.INDEX_COMPACTION_MAX_SERIES.setValue(8);
+    }
+  }
+
+  @Test
+  public void testSeriesMergeInPlace() {
+    final int perRound = TOT / 10;
+    try {
+      GlobalConfiguration.INDEX_COMPACTION_RAM_MB.setValue(COMPACTION_RAM_MB);
+      GlobalConfiguration.INDEX_COMPACTION_MIN_PAGES_SCHEDULE.setValue(0);
+      GlobalConfiguration.INDEX_COMPACTION_MAX_SERIES.setValue(1);
+
+      insertData();
+      compaction();
+      checkSeries(1);
+
+      // THE SMALL SERIES ARE MERGED AFTER THE BIG ONE IN THE SAME FILE, WITHOUT REWRITING IT
+      GlobalConfiguration.INDEX_COMPACTION_MAX_SERIES.setValue(4);
+      final Map<String, Integer> compactedFiles = getCompactedFiles();
+
+      for (int round = 0; round < 5; ++round) {
+        final int first = TOT + round * perRound;
+        database.transaction(() -> {
+          for (int i = first; i < first + perRound; ++i)
+            database.newDocument(TYPE_NAME).set("id", "" + i).set("number", i).set("relativeName", "/shelf=" + i + "/slot=1").save();
+        });
+        compaction();
+      }
+
+      checkSeries(4);
+      // THE INDEXES THAT HAD NO COMPACTED SERIES BEFORE THE ROUNDS HAVE ONE NOW, THE OTHERS KEEP THEIR FILE
+      Assertions.assertFalse(compactedFiles.isEmpty());
+      final Map<String, Integer> currentFiles = getCompactedFiles();
+      for (final Map.Entry<String, Integer> entry : compactedFiles.entrySet())
+        Assertions.assertEquals(entry.getValue(), currentFiles.get(entry.getKey()), "Compacted file of index " + entry.getKey() + " has been rewritten");
+
+      for (long id = 0; id < TOT + 5 * perRound; id += 7) {
+        final IndexCursor records = database.lookupByKey(TYPE_NAME, new String[] { "id" }, new Object[] { "" + id });
+        Assertions.assertTrue(records.hasNext(), "Cannot find key " + id);
+        Assertions.assertEquals(id, ((Document) records.next().getRecord()).getLong("number"));
+        Assertions.assertFalse(records.hasNext());
+      }
+
+    } finally {
+      GlobalConfiguration.INDEX_COMPACTION_RAM_MB.setValue(300);
+      GlobalConfiguration.INDEX_COMPACTION_MIN_PAGES_SCHEDULE.setValue(10);
+      GlobalConfiguration.INDEX_COMPACTION_MAX_SERIES.setValue(8);
+    }
+  }
+
+  @Test
+  public void testPrefixCompressedKeys() {
+    try {
+      GlobalConfiguration.INDEX_COMPACTION_RAM_MB.setValue(COMPACTION_RAM_MB);
+      GlobalConfiguration.INDEX_COMPACTION_MIN_PAGES_SCHEDULE.setValue(0);
+
+      // THE KEYS OF THE INDEX ON 'relativeName' SHARE A LONG PREFIX
+      insertData();
+      checkRelativeNames();
+
+      compaction();
+      checkRelativeNames();
+
+      // NEW ENTRIES IN THE MUTABLE PAGES ARE COMPRESSED AGAINST THE EXISTENT ONES
+      database.transaction(() -> {
+        for (int i = 0; i < 1000; ++i)
+          database.newDocument(TYPE_NAME).set("relativeName", "/shelf=" + i + "/slot=2").save();
+      });
+
+      for (int i = 0; i < 1000; ++i) {
+        final IndexCursor records = database.lookupByKey(TYPE_NAME, new String[] { "relativeName" }, new Object[] { "/shelf=" + i + "/slot=2" });
+        Assertions.assertTrue(records.hasNext(), "Cannot find key /shelf=" + i + "/slot=2");
+      }
+
+      final Index index = database.getSchema().getIndexByName(TYPE_NAME + "[relativeName]");
+      final IndexCursor cursor = ((RangeIndex) index).iterator(true);
+      String previous = null;
+      int total = 0;
+      while (cursor.hasNext()) {
+        cursor.next();
+        final String current = (String) cursor.getKeys()[0];
+        if (previous != null)
+          Assertions.assertTrue(previous.compareTo(current) <= 0, "Wrong order: " + previous + " > " + current);
+        previous = current;
+        ++total;
+      }
+      Assertions.assertEquals(TOT + 1000, total);
+
+    } finally {
+      GlobalConfiguration.INDEX_COMPACTION_RAM_MB.setValue(300);
+      GlobalConfiguration.INDEX_COMPACTION_MIN_PAGES_SCHEDULE.setValue(10);
+    }
+  }
+
+  private void checkRelativeNames() {
+    for (long id = 0; id < TOT; id += 7) {
+      final IndexCursor records = database.lookupByKey(TYPE_NAME, new String[] { "relativeName" }, new Object[] { "/shelf=" + id + "/slot=1" });
+      Assertions.assertTrue(records.hasNext(), "Cannot find key /shelf=" + id + "/slot=1");
+      Assertions.assertEquals(id, ((Document) records.next().getRecord()).getLong("number"));
+      Assertions.assertFalse(records.hasNext());
+    }
+  }
+
+  private void checkSeries(final int maxSeries) {
+    for (final Index index : database.getSchema().getType(TYPE_NAME).getAllIndexes(false))
+      for (final Index bucketIndex : ((TypeIndex) index).getIndexesOnBuckets()) {
+        final Map<String, Long> stats = ((IndexInternal) bucketIndex).getStats();
+        // AN INDEX WITH ONE PAGE ONLY IS NEVER COMPACTED
+        Assertions.assertTrue(stats.getOrDefault("compactedSeries", 0L) <= maxSeries, "Too many series in index " + bucketIndex.getName() + ": " + stats);
+      }
+  }
+
+  private Map<String, Integer> getCompactedFiles() {
+    final Map<String, Integer> files = new HashMap<>();
+    for (final Index index : database.getSchema().getType(TYPE_NAME).getAllIndexes(false))
+      for (final Index bucketIndex : ((TypeIndex) index).getIndexesOnBuckets())
+        if (((LSMTreeIndex) bucketIndex).getMutableIndex().getSubIndex() != null)
+          files.put(bucketIndex.getName(), ((LSMTreeIndex) bucketIndex).getMutableIndex().getSubIndex().getFileId());
+    return files;
+  }
+
   private void compaction() {
+    compactIndexes();
+
+    // WAIT FOR THE MERGE OF THE SERIES SCHEDULED BY THE COMPACTION
+    database.async().waitCompletion();
+  }
+
+  /**
+   * Compacts the indexes without waiting for the merge of the series. It can run concurrently with the inserts, which change the async executor.
+   */
+  private void compactIndexes() {
     if (database.isOpen())
       for (final Index index : database.getSchema().getIndexes()) {
         if (database.isOpen())
@@ -0,0 +1,144 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.index;
+
+import com.arcadedb.TestHelper;
+import com.arcadedb.database.RID;
+import com.arcadedb.schema.Type;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+public class OffHeapAny2RIDIndexTest extends TestHelper {
+  private static final int TOT = 1_000_000;
+
+  @Test
+  public void testLongKeysGrowBeyondExpectedSize() {
+    final OffHeapAny2RIDIndex index = new OffHeapAny2RIDIndex(database, Type.LONG, 10, Long.MAX_VALUE, null);
+    try {
+      for (int i = 0; i < TOT; i++)
+        index.put(i * 7L, new RID(database, 3, i));
+
+      Assertions.assertEquals(TOT, index.size());
+      Assertions.assertTrue(index.getCapacity() > TOT);
+
+      for (int i = 0; i < TOT; i++)
+        Assertions.assertEquals(new RID(database, 3, i), index.get(i * 7L));
+
+      Assertions.assertNull(index.get(1L));
+      Assertions.assertThrows(IllegalArgumentException.class, () -> index.put(7L, new RID(database, 4, 0)));
+    } finally {
+      index.close();
+    }
+  }
+
+  @Test
+  public void testStringKeysSpilledToTemporaryFile() {
+    // NO RAM ALLOWED: EVERYTHING IS MAPPED FROM A TEMPORARY FILE
+    final OffHeapAny2RIDIndex index = new OffHeapAny2RIDIndex(database, Type.STRING, 10, 0, null);
+    try {
+      for (int i = 0; i < TOT; i++)
+        index.put("key-" + i, new RID(database, 3, i));
+
+      index.setReadOnly();
+
+      Assertions.assertTrue(index.getSpilledBytes() > 0);
+      Assertions.assertThrows(IllegalStateException.class, () -> index.put("key-" + TOT, new RID(database, 3, TOT)));
+
+      for (int i = 0; i < TOT; i++)
+        Assertions.assertEquals(new RID(database, 3, i), index.get("key-" + i));
+
+      Assertions.assertNull(index.get("key-" + TOT));
+    } finally {
+      index.close();
+    }
+  }
+
+  @Test
+  public void testIncomingEdgesBufferSortedByKey() {
+    final OffHeapRID2RIDsBuffer buffer = new OffHeapRID2RIDsBuffer(database, Long.MAX_VALUE, null);
+    try {
+      final Random random = new Random(1);
+      final Map<RID, Integer> expected = new HashMap<>();
+      for (int i = 0; i < TOT; i++) {
+        final RID key = new RID(database, random.nextInt(3), random.nextInt(100_000));
+        // LIGHT EDGES HAVE POSITION -1
+        buffer.put(key, new RID(database, 4, -1), new RID(database, 5, i));
+        expected.merge(key, 1, Integer::sum);
+      }
+
+      buffer.sort();
+
+      RID lastKey = null;
+      int entriesOfLastKey = 0;
+      int found = 0;
+      for (final OffHeapRID2RIDsBuffer.EntryIterator it = buffer.entryIterator(); it.hasNext(); it.moveNext()) {
+        final RID key = it.getKeyRID();
+        if (!key.equals(lastKey)) {
+          if (lastKey != null) {
+            Assertions.assertTrue(lastKey.compareTo(key) < 0);
+            Assertions.assertEquals(expected.remove(lastKey), entriesOfLastKey);
+          }
+          lastKey = key;
+          entriesOfLastKey = 0;
+        }
+
+        Assertions.assertEquals(-1, it.getEdgeRID().getPosition());
+        Assertions.assertEquals(5, it.getVertexRID().getBucketId());
+        ++entriesOfLastKey;
+        ++found;
+      }
+      Assertions.assertEquals(expected.remove(lastKey), entriesOfLastKey);
+
+      Assertions.assertEquals(TOT, found);
+      Assertions.assertTrue(expected.isEmpty());
+    } finally {
+      buffer.close();
+    }
+  }
+
+  @Test
+  public void testRAMBudgetSharedAndReleased() {
+    final long budget = 64 * 1024 * 1024;
+    final AtomicLong availableRAM = new AtomicLong(budget);
+
+    final OffHeapAny2RIDIndex index = new OffHeapAny2RIDIndex(database, Type.LONG, 10, availableRAM, null);
+    final OffHeapRID2RIDsBuffer buffer = new OffHeapRID2RIDsBuffer(database, availableRAM, null);
+    try {
+      // THE SLOTS DOUBLE MANY TIMES: THE REPLACED SLOTS RETURN THEIR MEMORY TO THE BUDGET
+      for (int i = 0; i < 100_000; i++)
+        index.put((long) i, new RID(database, 3, i));
+      for (int i = 0; i < 100_000; i++)
+        buffer.put(new RID(database, 3, i), new RID(database, 4, i), new RID(database, 5, i));
+
+      Assertions.assertTrue(availableRAM.get() >= 0);
+      Assertions.assertTrue(availableRAM.get() < budget);
+
+      for (int i = 0; i < 100_000; i += 37)
+        Assertions.assertEquals(new RID(database, 3, i), index.get((long) i));
+    } finally {
+      index.close();
+      buffer.close();
+    }
+
+    Assertions.assertEquals(budget, availableRAM.get());
+  }
+}
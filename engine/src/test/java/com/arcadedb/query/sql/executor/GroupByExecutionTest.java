@@ -18,7 +18,9 @@
  */
 package com.arcadedb.query.sql.executor;
 
+import com.arcadedb.GlobalConfiguration;
 import com.arcadedb.TestHelper;
+import com.arcadedb.TestServiceUser;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -32,6 +34,11 @@ public class GroupByExecutionTest extends TestHelper {
     autoStartTx = true;
   }
 
+  @Override
+  protected void beginTest() {
+    TestServiceUser.install(database);
+  }
+
   @Test
   public void testGroupByCount() {
     database.getSchema().createDocumentType("InputTx");
@@ -55,4 +62,90 @@ public class GroupByExecutionTest extends TestHelper {
     }
     result.close();
   }
+
+  @Test
+  public void testGroupByAndDistinctInTemporaryFiles() {
+    final Long oldValue = GlobalConfiguration.QUERY_AGGREGATION_BUFFER_SIZE.getValueAsLong();
+    try {
+      GlobalConfiguration.QUERY_AGGREGATION_BUFFER_SIZE.setValue(10);
+
+      database.getSchema().createDocumentType("Event");
+      for (int i = 0; i < 1_000; i++)
+        database.newDocument("Event").set("sensor", "sensor" + (i % 100)).set("value", i).save();
+
+      final Map<String, Long> counts = new HashMap<>();
+      try (final ResultSet result = database.query("sql", "select sensor, count(*) as total, sum(value) as sum from Event group by sensor")) {
+        while (result.hasNext()) {
+          final Result row = result.next();
+          final String sensor = row.getProperty("sensor");
+          Assertions.assertNull(counts.put(sensor, ((Number) row.getProperty("total")).longValue()), "Duplicated group " + sensor);
+
+          final int sensorId = Integer.parseInt(sensor.substring("sensor".length()));
+          long expectedSum = 0;
+          for (int i = sensorId; i < 1_000; i += 100)
+            expectedSum += i;
+          Assertions.assertEquals(expectedSum, ((Number) row.getProperty("sum")).longValue());
+        }
+      }
+      Assertions.assertEquals(100, counts.size());
+      for (final Long count : counts.values())
+        Assertions.assertEquals(10L, count);
+
+      final Set<String> sensors = new HashSet<>();
+      try (final ResultSet result = database.query("sql", "select distinct sensor from Event")) {
+        while (result.hasNext())
+          Assertions.assertTrue(sensors.add(result.next().getProperty("sensor")));
+      }
+      Assertions.assertEquals(100, sensors.size());
+    } finally {
+      GlobalConfiguration.QUERY_AGGREGATION_BUFFER_SIZE.setValue(oldValue);
+    }
+  }
+
+  @Test
+  public void testPartitionsBiggerThanTheBufferAreSplit() {
+    final Long oldValue = GlobalConfiguration.QUERY_AGGREGATION_BUFFER_SIZE.getValueAsLong();
+    try {
+      GlobalConfiguration.QUERY_AGGREGATION_BUFFER_SIZE.setValue(2);
+
+      database.getSchema().createDocumentType("Reading");
+      database.transaction(() -> {
+        for (int i = 0; i < 1_000; i++)
+          database.newDocument("Reading").set("sensor", "sensor" + (i % 500)).set("value", i).save();
+      });
+
+      final Set<String> groups = new HashSet<>();
+      try (final ResultSet result = database.query("sql", "select sensor, count(*) as total from Reading group by sensor")) {
+        while (result.hasNext()) {
+          final Result row = result.next();
+          Assertions.assertTrue(groups.add(row.getProperty("sensor")));
+          Assertions.assertEquals(2L, ((Number) row.getProperty("total")).longValue());
+        }
+      }
+      Assertions.assertEquals(500, groups.size());
+
+      final Set<String> sensors = new HashSet<>();
+      try (final ResultSet result = database.query("sql", "select distinct sensor from Reading")) {
+        while (result.hasNext())
+          Assertions.assertTrue(sensors.add(result.next().getProperty("sensor")));
+      }
+      Assertions.assertEquals(500, sensors.size());
+
+      // THE DISTINCT AFTER AN ORDER BY MUST KEEP THE ORDER
+      try (final ResultSet result = database.query("sql", "select distinct sensor from Reading order by sensor")) {
+        String last = null;
+        int total = 0;
+        while (result.hasNext()) {
+          final String sensor = result.next().getProperty("sensor");
+          if (last != null)
+            Assertions.assertTrue(last.compareTo(sensor) < 0);
+          last = sensor;
+          ++total;
+        }
+        Assertions.assertEquals(500, total);
+      }
+    } finally {
+      GlobalConfiguration.QUERY_AGGREGATION_BUFFER_SIZE.setValue(oldValue);
+    }
+  }
 }
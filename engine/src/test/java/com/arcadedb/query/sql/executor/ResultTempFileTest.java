@@ -0,0 +1,153 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.query.sql.executor;
+
+import com.arcadedb.GlobalConfiguration;
+import com.arcadedb.TestHelper;
+import com.arcadedb.TestServiceUser;
+import com.arcadedb.database.DatabaseInternal;
+import com.arcadedb.database.Document;
+import com.arcadedb.database.MutableDocument;
+import com.arcadedb.graph.MutableVertex;
+import com.arcadedb.graph.Vertex;
+import com.arcadedb.graph.VertexInternal;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.util.*;
+import java.util.stream.*;
+
+public class ResultTempFileTest extends TestHelper {
+  @Override
+  protected void beginTest() {
+    TestServiceUser.install(database);
+  }
+
+  @Test
+  public void testValuesKeepTheirType() throws IOException {
+    database.getSchema().createDocumentType("TempDoc");
+    database.getSchema().createVertexType("TempVertex");
+    database.getSchema().createEdgeType("TempEdge");
+
+    database.begin();
+    final MutableDocument document = database.newDocument("TempDoc").set("name", "saved").save();
+    final MutableVertex vertex = database.newVertex("TempVertex").set("name", "vertex").save();
+    vertex.newEdge("TempEdge", vertex, true);
+
+    // MODIFIED AND NOT SAVED: THE TEMPORARY FILE MUST NOT RELOAD IT FROM THE DATABASE
+    final MutableDocument modified = document.modify().set("name", "modified");
+
+    final ResultInternal nested = new ResultInternal();
+    nested.setProperty("set", new LinkedHashSet<>(List.of(3, 1, 2)));
+
+    final ResultInternal result = new ResultInternal();
+    result.setProperty("set", new LinkedHashSet<>(List.of("b", "a")));
+    result.setProperty("array", new String[] { "x", "y" });
+    result.setProperty("objects", new Object[] { 1, "one" });
+    result.setProperty("records", List.of(modified, vertex));
+    result.setProperty("map", Map.of("key", Set.of(1L)));
+    result.setProperty("nested", nested);
+    result.setMetadata("distance", 1.5F);
+    result.setTemporaryProperty("$order", vertex);
+
+    final ResultInternal element = new ResultInternal(vertex);
+
+    final Result read;
+    final Result readElement;
+    try (final ResultTempFile file = new ResultTempFile((DatabaseInternal) database, "test")) {
+      file.write(result);
+      file.write(element);
+      read = file.read();
+      readElement = file.read();
+      Assertions.assertNull(file.read());
+    }
+    database.rollback();
+
+    final Map<String, Object> content = read.toMap();
+    Assertions.assertEquals(new LinkedHashSet<>(List.of("b", "a")), content.get("set"));
+    Assertions.assertTrue(content.get("set") instanceof Set);
+    Assertions.assertEquals(String[].class, content.get("array").getClass());
+    Assertions.assertArrayEquals(new String[] { "x", "y" }, (String[]) content.get("array"));
+    Assertions.assertArrayEquals(new Object[] { 1, "one" }, (Object[]) content.get("objects"));
+    Assertions.assertEquals(Map.of("key", Set.of(1L)), content.get("map"));
+
+    final List<Object> records = (List<Object>) content.get("records");
+    Assertions.assertEquals(2, records.size());
+    Assertions.assertEquals(document.getIdentity(), ((Document) records.get(0)).getIdentity());
+    Assertions.assertEquals("modified", ((Document) records.get(0)).getString("name"));
+    Assertions.assertTrue(records.get(1) instanceof Vertex);
+    Assertions.assertEquals(vertex.getIdentity(), ((Vertex) records.get(1)).getIdentity());
+    Assertions.assertEquals(vertex.getOutEdgesHeadChunk(), ((VertexInternal) records.get(1)).getOutEdgesHeadChunk());
+
+    final Object readNested = content.get("nested");
+    Assertions.assertEquals(ResultInternal.class, readNested.getClass());
+    Assertions.assertEquals(new LinkedHashSet<>(List.of(3, 1, 2)), ((Result) readNested).getProperty("set"));
+
+    Assertions.assertEquals(1.5F, read.getMetadata("distance"));
+    Assertions.assertEquals(vertex.getIdentity(), ((Vertex) ((ResultInternal) read).getTemporaryProperty("$order")).getIdentity());
+
+    Assertions.assertTrue(readElement.isElement());
+    Assertions.assertEquals(vertex.getIdentity(), readElement.getIdentity().get());
+    Assertions.assertEquals("vertex", readElement.getProperty("name"));
+  }
+
+  @Test
+  public void testSpilledResultsAreTheSameAsInMemory() {
+    database.getSchema().createDocumentType("TempSorted");
+    database.transaction(() -> {
+      for (int i = 0; i < 100; i++)
+        database.newDocument("TempSorted").set("id", i).set("name", "name" + ((i * 37) % 100)).set("tags", List.of("t" + i % 3, "t" + i % 5)).save();
+    });
+
+    final String query = "select name, tags, @this as record, [id, name] as pair from TempSorted order by name";
+
+    final Long oldValue = GlobalConfiguration.QUERY_SORT_BUFFER_SIZE.getValueAsLong();
+    final List<Result> inMemory;
+    final List<Result> spilled;
+    try {
+      GlobalConfiguration.QUERY_SORT_BUFFER_SIZE.setValue(0);
+      inMemory = database.query("sql", query).stream().collect(Collectors.toList());
+
+      GlobalConfiguration.QUERY_SORT_BUFFER_SIZE.setValue(7);
+      spilled = database.query("sql", query).stream().collect(Collectors.toList());
+    } finally {
+      GlobalConfiguration.QUERY_SORT_BUFFER_SIZE.setValue(oldValue);
+    }
+
+    Assertions.assertEquals(100, inMemory.size());
+    Assertions.assertEquals(inMemory.size(), spilled.size());
+    for (int i = 0; i < inMemory.size(); i++) {
+      final Map<String, Object> expected = inMemory.get(i).toMap();
+      final Map<String, Object> actual = spilled.get(i).toMap();
+      Assertions.assertEquals(expected.keySet(), actual.keySet());
+      for (final Map.Entry<String, Object> entry : expected.entrySet()) {
+        final Object value = actual.get(entry.getKey());
+        if (entry.getValue() instanceof Document) {
+          Assertions.assertTrue(value instanceof Document);
+          Assertions.assertEquals(((Document) entry.getValue()).getIdentity(), ((Document) value).getIdentity());
+          Assertions.assertEquals(((Document) entry.getValue()).toMap(), ((Document) value).toMap());
+        } else {
+          Assertions.assertEquals(entry.getValue().getClass(), value.getClass(), entry.getKey());
+          Assertions.assertEquals(entry.getValue(), value, entry.getKey());
+        }
+      }
+    }
+  }
+}
@@ -3931,6 +3931,61 @@ public class SelectStatementExecutionTest extends TestHelper {
     }
   }
 
+  @Test
+  public void testOrderBySortedInTemporaryFiles() {
+    final Long oldValue = GlobalConfiguration.QUERY_SORT_BUFFER_SIZE.getValueAsLong();
+    try {
+      GlobalConfiguration.QUERY_SORT_BUFFER_SIZE.setValue(7);
+
+      final String className = "testOrderBySortedInTemporaryFiles";
+      database.getSchema().getOrCreateDocumentType(className);
+      database.begin();
+      for (int i = 0; i < 100; i++)
+        database.newDocument(className).set("name", "name" + ((i * 37) % 100)).set("group", i % 3).save();
+      database.commit();
+
+      // RECORDS
+      try (final ResultSet result = database.query("sql", "select from " + className + " order by name")) {
+        String last = null;
+        int total = 0;
+        while (result.hasNext()) {
+          final Result item = result.next();
+          Assertions.assertTrue(item.isElement());
+          final String name = item.getProperty("name");
+          if (last != null)
+            Assertions.assertTrue(last.compareTo(name) < 0);
+          last = name;
+          ++total;
+        }
+        Assertions.assertEquals(100, total);
+      }
+
+      // PROJECTIONS
+      try (final ResultSet result = database.query("sql", "select name, group from " + className + " order by group desc")) {
+        final Set<String> names = new HashSet<>();
+        int lastGroup = 2;
+        while (result.hasNext()) {
+          final Result item = result.next();
+          final int group = item.getProperty("group");
+          Assertions.assertTrue(group <= lastGroup);
+          lastGroup = group;
+          names.add(item.getProperty("name"));
+        }
+        Assertions.assertEquals(100, names.size());
+      }
+
+      // BOUNDED HEAP FOR THE TOP RESULTS
+      try (final ResultSet result = database.query("sql", "select name from " + className + " order by name desc limit 3")) {
+        Assertions.assertEquals("name99", result.next().getProperty("name"));
+        Assertions.assertEquals("name98", result.next().getProperty("name"));
+        Assertions.assertEquals("name97", result.next().getProperty("name"));
+        Assertions.assertFalse(result.hasNext());
+      }
+    } finally {
+      GlobalConfiguration.QUERY_SORT_BUFFER_SIZE.setValue(oldValue);
+    }
+  }
+
   @Test
   public void testXor() {
     try (final ResultSet result = database.query("sql", "select 15 ^ 4 as foo")) {
@@ -4271,4 +4326,78 @@ public class SelectStatementExecutionTest extends TestHelper {
 
     result.close();
   }
+
+  @Test
+  public void testCoveringIndex() {
+    final String className = "testCoveringIndex";
+    database.begin();
+    final DocumentType clazz = database.getSchema().createDocumentType(className);
+    clazz.createProperty("name", Type.STRING);
+    clazz.createProperty("surname", Type.STRING);
+    clazz.createProperty("age", Type.INTEGER);
+    database.command("sql", "create index on " + className + " (name, surname) NOTUNIQUE");
+
+    for (int i = 0; i < 10; i++) {
+      final MutableDocument doc = database.newDocument(className);
+      doc.set("name", "name" + i % 3);
+      doc.set("surname", "surname" + i);
+      doc.set("age", i);
+      doc.save();
+    }
+    database.commit();
+
+    try (final ResultSet result = database.query("sql", "select surname from " + className + " where name = 'name1' order by surname desc")) {
+      for (final String expected : new String[] { "surname7", "surname4", "surname1" }) {
+        Assertions.assertTrue(result.hasNext());
+        final Result item = result.next();
+        Assertions.assertEquals(expected, item.getProperty("surname"));
+        Assertions.assertNull(item.getProperty("name"));
+      }
+      Assertions.assertFalse(result.hasNext());
+
+      final ExecutionPlan plan = result.getExecutionPlan().get();
+      Assertions.assertEquals(1, plan.getSteps().stream().filter(step -> step instanceof GetKeysFromIndexEntryStep).count());
+      Assertions.assertEquals(0, plan.getSteps().stream().filter(step -> step instanceof FilterByClassStep).count());
+    }
+
+    // NOT INDEXED PROPERTY: THE RECORDS ARE LOADED
+    try (final ResultSet result = database.query("sql", "select surname, age from " + className + " where name = 'name1' order by surname")) {
+      int total = 0;
+      while (result.hasNext()) {
+        final Result item = result.next();
+        Assertions.assertEquals(Integer.parseInt(((String) item.getProperty("surname")).substring("surname".length())), (Integer) item.getProperty("age"));
+        ++total;
+      }
+      Assertions.assertEquals(3, total);
+
+      final ExecutionPlan plan = result.getExecutionPlan().get();
+      Assertions.assertEquals(0, plan.getSteps().stream().filter(step -> step instanceof GetKeysFromIndexEntryStep).count());
+    }
+
+    // SORTED BY AN INDEXED PROPERTY THAT IS NOT IN THE PROJECTION
+    try (final ResultSet result = database.query("sql", "select name from " + className + " where name = 'name1' order by surname desc")) {
+      int total = 0;
+      while (result.hasNext()) {
+        Assertions.assertEquals("name1", result.next().getProperty("name"));
+        ++total;
+      }
+      Assertions.assertEquals(3, total);
+
+      final ExecutionPlan plan = result.getExecutionPlan().get();
+      Assertions.assertEquals(1, plan.getSteps().stream().filter(step -> step instanceof GetKeysFromIndexEntryStep).count());
+    }
+
+    // SORTED BY A RECORD ATTRIBUTE: THE RECORDS ARE LOADED
+    try (final ResultSet result = database.query("sql", "select surname from " + className + " where name = 'name1' order by @rid")) {
+      int total = 0;
+      while (result.hasNext()) {
+        result.next();
+        ++total;
+      }
+      Assertions.assertEquals(3, total);
+
+      final ExecutionPlan plan = result.getExecutionPlan().get();
+      Assertions.assertEquals(0, plan.getSteps().stream().filter(step -> step instanceof GetKeysFromIndexEntryStep).count());
+    }
+  }
 }
@@ -0,0 +1,114 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.security;
+
+import com.arcadedb.GlobalConfiguration;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+public class DataFabricClassificationClientTest {
+  private final AtomicInteger calls = new AtomicInteger();
+  private       HttpServer    server;
+  private       String        previousUrl;
+
+  @BeforeEach
+  public void startServer() throws Exception {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/api/v1/classification/validate", exchange -> {
+      calls.incrementAndGet();
+      final String body = new String(exchange.getRequestBody().readAllBytes());
+      final int responseCode;
+      if (body.contains("\"TS\""))
+        responseCode = 400;
+      else if (body.contains("\"U\""))
+        responseCode = 503;
+      else if (body.contains("\"C\""))
+        responseCode = 429;
+      else
+        responseCode = 200;
+      exchange.sendResponseHeaders(responseCode, -1);
+      exchange.close();
+    });
+    server.start();
+
+    previousUrl = GlobalConfiguration.DF_CLASSIFICATION_URL.getValueAsString();
+    GlobalConfiguration.DF_CLASSIFICATION_URL.setValue("http://localhost:" + server.getAddress().getPort());
+    DataFabricClassificationClient.clearValidationCache();
+  }
+
+  @AfterEach
+  public void stopServer() {
+    server.stop(0);
+    GlobalConfiguration.DF_CLASSIFICATION_URL.setValue(previousUrl);
+    GlobalConfiguration.DF_CLASSIFICATION_CACHE_TIMEOUT.reset();
+    DataFabricClassificationClient.clearValidationCache();
+  }
+
+  @Test
+  public void validationIsCached() throws Exception {
+    final ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      final Future<?>[] futures = new Future[1000];
+      for (int i = 0; i < futures.length; i++)
+        futures[i] = executor.submit(() -> Assertions.assertTrue(DataFabricClassificationClient.validateDocumentClassificationCached("{\"classification\":\"S\"}")));
+      for (final Future<?> f : futures)
+        f.get();
+    } finally {
+      executor.shutdown();
+    }
+
+    Assertions.assertFalse(DataFabricClassificationClient.validateDocumentClassificationCached("{\"classification\":\"TS\"}"));
+    Assertions.assertFalse(DataFabricClassificationClient.validateDocumentClassificationCached("{\"classification\":\"TS\"}"));
+
+    Assertions.assertEquals(2, calls.get());
+  }
+
+  @Test
+  public void errorsAreNotCached() {
+    for (int i = 0; i < 2; i++) {
+      Assertions.assertFalse(DataFabricClassificationClient.validateDocumentClassificationCached("{\"classification\":\"U\"}"));
+      Assertions.assertFalse(DataFabricClassificationClient.validateDocumentClassificationCached("{\"classification\":\"C\"}"));
+    }
+    Assertions.assertEquals(4, calls.get());
+
+    // OUTAGE
+    server.stop(0);
+    Assertions.assertThrows(RuntimeException.class,
+        () -> DataFabricClassificationClient.validateDocumentClassificationCached("{\"classification\":\"S\"}"));
+    Assertions.assertThrows(RuntimeException.class,
+        () -> DataFabricClassificationClient.validateDocumentClassificationCached("{\"classification\":\"S\"}"));
+  }
+
+  @Test
+  public void cacheCanBeDisabled() {
+    GlobalConfiguration.DF_CLASSIFICATION_CACHE_TIMEOUT.setValue(0L);
+
+    for (int i = 0; i < 3; i++)
+      Assertions.assertTrue(DataFabricClassificationClient.validateDocumentClassificationCached("{\"classification\":\"S\"}"));
+
+    Assertions.assertEquals(3, calls.get());
+  }
+}
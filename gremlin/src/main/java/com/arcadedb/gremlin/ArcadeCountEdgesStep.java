@@ -0,0 +1,87 @@
+/*
+ * Copyright 2023 Arcade Data Ltd
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.arcadedb.gremlin;
+
+import org.apache.tinkerpop.gremlin.process.traversal.Operator;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.Traverser;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.ReducingBarrierStep;
+import org.apache.tinkerpop.gremlin.process.traversal.traverser.TraverserRequirement;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.util.StringFactory;
+import org.apache.tinkerpop.gremlin.util.function.ConstantSupplier;
+import org.apache.tinkerpop.gremlin.util.iterator.IteratorUtils;
+
+import java.util.*;
+
+/**
+ * Replaces the sequence <code>out|in|both|outE|inE|bothE([label]).count()</code> by reading the degree of each vertex with
+ * {@link com.arcadedb.graph.Vertex#countEdges(com.arcadedb.graph.Vertex.DIRECTION, String)}, without loading the connected edges and vertices.
+ */
+public class ArcadeCountEdgesStep<S extends Vertex> extends ReducingBarrierStep<S, Long> {
+  private final Direction direction;
+  private final String    edgeLabel;
+
+  public ArcadeCountEdgesStep(final Traversal.Admin traversal, final Direction direction, final String edgeLabel) {
+    super(traversal);
+    this.direction = direction;
+    this.edgeLabel = edgeLabel;
+    this.setSeedSupplier(new ConstantSupplier<>(0L));
+    this.setReducingBiOperator(Operator.sumLong);
+  }
+
+  @Override
+  public Long projectTraverser(final Traverser.Admin<S> traverser) {
+    final Vertex vertex = traverser.get();
+
+    final long degree;
+    if (vertex instanceof ArcadeVertex)
+      degree = ((ArcadeVertex) vertex).getBaseElement().countEdges(ArcadeGraph.mapDirection(direction), edgeLabel);
+    else
+      degree = IteratorUtils.count(edgeLabel != null ? vertex.edges(direction, edgeLabel) : vertex.edges(direction));
+
+    return degree * traverser.bulk();
+  }
+
+  @Override
+  public Set<TraverserRequirement> getRequirements() {
+    return Collections.singleton(TraverserRequirement.BULK);
+  }
+
+  public Direction getDirection() {
+    return direction;
+  }
+
+  public String getEdgeLabel() {
+    return edgeLabel;
+  }
+
+  @Override
+  public String toString() {
+    return StringFactory.stepString(this, direction, edgeLabel);
+  }
+
+  @Override
+  public int hashCode() {
+    return super.hashCode() ^ Objects.hash(direction, edgeLabel);
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2023 Arcade Data Ltd
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.arcadedb.gremlin;
+
+import com.arcadedb.database.Database;
+import com.arcadedb.database.Record;
+import org.apache.tinkerpop.gremlin.process.traversal.Step;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.Traverser;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.AbstractStep;
+import org.apache.tinkerpop.gremlin.process.traversal.util.FastNoSuchElementException;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.util.StringFactory;
+
+import java.util.*;
+
+/**
+ * Replaces the sequence <code>V().hasLabel(type).out|in|both|outE|inE|bothE([label]).count()</code> with a start step that browses the records of the
+ * vertex type and sums their degree, without wrapping the vertices in {@link ArcadeVertex} and without loading the connected edges and vertices.
+ */
+public class ArcadeCountTypeEdgesStep<S> extends AbstractStep<S, Long> {
+  private final String    typeName;
+  private final String    bucketName;
+  private final Direction direction;
+  private final String    edgeLabel;
+  private       boolean   done = false;
+
+  public ArcadeCountTypeEdgesStep(final Traversal.Admin traversal, final String typeName, final String bucketName, final Direction direction,
+      final String edgeLabel) {
+    super(traversal);
+    this.typeName = typeName;
+    this.bucketName = bucketName;
+    this.direction = direction;
+    this.edgeLabel = edgeLabel;
+  }
+
+  @Override
+  protected Traverser.Admin<Long> processNextStart() {
+    if (done)
+      throw FastNoSuchElementException.instance();
+
+    done = true;
+
+    final Database database = ((ArcadeGraph) getTraversal().getGraph().get()).getDatabase();
+    final com.arcadedb.graph.Vertex.DIRECTION dir = ArcadeGraph.mapDirection(direction);
+
+    long total = 0L;
+    if (typeName != null && database.getSchema().existsType(typeName)) {
+      final Iterator<Record> iterator = bucketName == null ? database.iterateType(typeName, true) : database.iterateBucket(bucketName);
+      while (iterator.hasNext())
+        total += iterator.next().asVertex().countEdges(dir, edgeLabel);
+    }
+
+    return getTraversal().getTraverserGenerator().generate(total, (Step) this, 1L);
+  }
+
+  @Override
+  public void reset() {
+    super.reset();
+    this.done = false;
+  }
+
+  public String getTypeName() {
+    return typeName;
+  }
+
+  public Direction getDirection() {
+    return direction;
+  }
+
+  public String getEdgeLabel() {
+    return edgeLabel;
+  }
+
+  @Override
+  public String toString() {
+    return StringFactory.stepString(this, bucketName != null ? "bucket:" + bucketName : typeName, direction, edgeLabel);
+  }
+
+  @Override
+  public int hashCode() {
+    return super.hashCode() ^ Objects.hash(typeName, bucketName, direction, edgeLabel);
+  }
+}
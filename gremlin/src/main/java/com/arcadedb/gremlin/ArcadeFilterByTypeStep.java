@@ -48,6 +48,7 @@ import java.util.function.*;
 
 public class ArcadeFilterByTypeStep<S, E extends Element> extends AbstractStep<S, E> implements AutoCloseable, Configuring {
   protected final     String                typeName;
+  protected final     String                bucketName;
   protected           Parameters            parameters = new Parameters();
   protected final     Class<E>              returnClass;
   protected           boolean               isStart;
@@ -66,7 +67,6 @@ public class ArcadeFilterByTypeStep<S, E extends Element> extends AbstractStep<S
 
     final ArcadeGraph graph = (ArcadeGraph) traversal.getGraph().get();
 
-    final String bucketName;
     if (typeName.startsWith("bucket:")) {
       bucketName = typeName.substring("bucket:".length());
       final DocumentType type = graph.getDatabase().getSchema().getTypeByBucketName(bucketName);
@@ -137,6 +137,17 @@ public class ArcadeFilterByTypeStep<S, E extends Element> extends AbstractStep<S
     this.parameters.set(null, keyValues);
   }
 
+  public String getTypeName() {
+    return typeName;
+  }
+
+  /**
+   * Returns the bucket name if the step browses only one bucket (label <code>bucket:&lt;name&gt;</code>), otherwise null.
+   */
+  public String getBucketName() {
+    return bucketName;
+  }
+
   public Class<E> getReturnClass() {
     return this.returnClass;
   }
@@ -20,6 +20,7 @@
  */
 package com.arcadedb.gremlin;
 
+import com.arcadedb.GlobalConfiguration;
 import com.arcadedb.cypher.ArcadeCypher;
 import com.arcadedb.database.Database;
 import com.arcadedb.database.DatabaseFactory;
@@ -86,6 +87,7 @@ public class ArcadeGraph implements Graph, Closeable {
   private              GremlinLangScriptEngine   gremlinJavaEngine;
   private              GremlinGroovyScriptEngine gremlinGroovyEngine;
   private              ServiceRegistry           serviceRegistry;
+  private              GremlinStatementCache     statementCache;
 
   static {
     TraversalStrategies.GlobalCache.registerStrategies(ArcadeGraph.class, TraversalStrategies.GlobalCache.getStrategies(Graph.class).clone()//
@@ -350,6 +352,10 @@ public class ArcadeGraph implements Graph, Closeable {
   @Override
   public void close() {
     gremlinJavaEngine = null;
+    if (statementCache != null) {
+      statementCache.clear();
+      statementCache = null;
+    }
     if (gremlinGroovyEngine != null) {
       gremlinGroovyEngine.reset();
       gremlinGroovyEngine = null;
@@ -367,6 +373,10 @@ public class ArcadeGraph implements Graph, Closeable {
 
   public void drop() {
     gremlinJavaEngine = null;
+    if (statementCache != null) {
+      statementCache.clear();
+      statementCache = null;
+    }
     if (gremlinGroovyEngine != null) {
       gremlinGroovyEngine.reset();
       gremlinGroovyEngine = null;
@@ -441,6 +451,13 @@ public class ArcadeGraph implements Graph, Closeable {
     return gremlinGroovyEngine;
   }
 
+  /**
+   * Returns the cache of the parsed Gremlin statements shared by all the queries executed against this graph.
+   */
+  public GremlinStatementCache getStatementCache() {
+    return statementCache;
+  }
+
   @Override
   public ServiceRegistry getServiceRegistry() {
     return serviceRegistry;
@@ -468,6 +485,8 @@ public class ArcadeGraph implements Graph, Closeable {
     gremlinGroovyEngine = new GremlinGroovyScriptEngine(importPlugin.create().getCustomizers().get());
     gremlinGroovyEngine.getFactory().setCustomizerManager(new DefaultGremlinScriptEngineManager());
 
+    statementCache = new GremlinStatementCache(this, database.getConfiguration().getValueAsInteger(GlobalConfiguration.GREMLIN_STATEMENT_CACHE));
+
     serviceRegistry = new ArcadeServiceRegistry(this);
     serviceRegistry.registerService(new VectorNeighborsFactory(this));
   }
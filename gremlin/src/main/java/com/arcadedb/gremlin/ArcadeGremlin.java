@@ -32,8 +32,6 @@ import com.arcadedb.query.sql.executor.IteratorResultSet;
 import com.arcadedb.query.sql.executor.Result;
 import com.arcadedb.query.sql.executor.ResultInternal;
 import com.arcadedb.query.sql.executor.ResultSet;
-import org.apache.tinkerpop.gremlin.groovy.jsr223.GremlinGroovyScriptEngine;
-import org.apache.tinkerpop.gremlin.jsr223.GremlinLangScriptEngine;
 import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.DefaultGraphTraversal;
 import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversal;
 import org.apache.tinkerpop.gremlin.process.traversal.step.Mutating;
@@ -204,23 +202,19 @@ public class ArcadeGremlin extends ArcadeQuery {
     final Object result;
     if ("java".equals(gremlinEngine)) {
       // USE THE NATIVE GREMLIN PARSER
-      final GremlinLangScriptEngine gremlinEngineImpl = graph.getGremlinJavaEngine();
-
       final SimpleBindings bindings = new SimpleBindings();
       bindings.put("g", graph.traversal());
       if (parameters != null)
         bindings.putAll(parameters);
-      result = gremlinEngineImpl.eval(query, bindings);
+      result = graph.getStatementCache().executeJava(query, bindings);
 
     } else if ("groovy".equals(gremlinEngine)) {
       // GROOVY ENGINE
-      final GremlinGroovyScriptEngine gremlinEngineImpl = graph.getGremlinGroovyEngine();
-
       final SimpleBindings bindings = new SimpleBindings();
       bindings.put("g", graph.traversal());
       if (parameters != null)
         bindings.putAll(parameters);
-      result = gremlinEngineImpl.eval(query, bindings);
+      result = graph.getStatementCache().executeGroovy(query, bindings);
 
     } else
       throw new IllegalArgumentException("Gremlin engine '" + gremlinEngine + "' not supported");
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2023 Arcade Data Ltd
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.arcadedb.gremlin;
+
+import com.arcadedb.index.IndexCursor;
+import com.arcadedb.index.TypeIndex;
+import org.apache.tinkerpop.gremlin.process.traversal.Step;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.Traverser;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.AbstractStep;
+import org.apache.tinkerpop.gremlin.process.traversal.util.FastNoSuchElementException;
+import org.apache.tinkerpop.gremlin.structure.util.StringFactory;
+
+import java.util.*;
+
+/**
+ * Replaces the sequence <code>V().hasLabel(type).has(key, eq(value)|within(values)).values(key)</code> when the property is indexed by a LSM tree
+ * index. The result is computed from the index only: for each entry found in the index the matching value is returned, without loading the record. The
+ * index is looked up when the step is executed, one value at a time.
+ */
+public class ArcadeIndexValuesStep<S, E> extends AbstractStep<S, E> implements AutoCloseable {
+  private final TypeIndex   index;
+  private final String      propertyName;
+  private final List<E>     values;
+  private       int         currentValue = 0;
+  private       IndexCursor cursor;
+
+  /**
+   * @param values the values to look up in the index. Each value is returned once for each entry found
+   */
+  public ArcadeIndexValuesStep(final Traversal.Admin traversal, final TypeIndex index, final String propertyName, final List<E> values) {
+    super(traversal);
+    this.index = index;
+    this.propertyName = propertyName;
+    this.values = values;
+  }
+
+  @Override
+  protected Traverser.Admin<E> processNextStart() {
+    while (currentValue < values.size()) {
+      if (cursor == null)
+        cursor = index.get(new Object[] { values.get(currentValue) });
+
+      if (cursor.hasNext()) {
+        cursor.next();
+        return getTraversal().getTraverserGenerator().generate(values.get(currentValue), (Step) this, 1L);
+      }
+
+      cursor.close();
+      cursor = null;
+      ++currentValue;
+    }
+    throw FastNoSuchElementException.instance();
+  }
+
+  public String getPropertyName() {
+    return propertyName;
+  }
+
+  @Override
+  public void reset() {
+    super.reset();
+    close();
+    currentValue = 0;
+  }
+
+  @Override
+  public void close() {
+    if (cursor != null) {
+      cursor.close();
+      cursor = null;
+    }
+  }
+
+  @Override
+  public ArcadeIndexValuesStep<S, E> clone() {
+    final ArcadeIndexValuesStep<S, E> clone = (ArcadeIndexValuesStep<S, E>) super.clone();
+    clone.cursor = null;
+    clone.currentValue = 0;
+    return clone;
+  }
+
+  @Override
+  public String toString() {
+    return StringFactory.stepString(this, propertyName, values);
+  }
+
+  @Override
+  public int hashCode() {
+    return super.hashCode() ^ Objects.hash(index.getName(), propertyName, values);
+  }
+}
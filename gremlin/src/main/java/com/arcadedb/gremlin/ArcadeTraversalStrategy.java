@@ -20,24 +20,47 @@
  */
 package com.arcadedb.gremlin;
 
+import com.arcadedb.database.Database;
+import com.arcadedb.database.Identifiable;
+import com.arcadedb.database.IndexCursorCollection;
 import com.arcadedb.index.IndexCursor;
 import com.arcadedb.index.TypeIndex;
+import com.arcadedb.schema.DocumentType;
+import com.arcadedb.schema.EdgeType;
+import com.arcadedb.schema.Property;
+import com.arcadedb.schema.Schema;
+import com.arcadedb.schema.Type;
+import com.arcadedb.schema.VertexType;
 import com.arcadedb.serializer.BinaryComparator;
 import org.apache.tinkerpop.gremlin.process.traversal.Compare;
+import org.apache.tinkerpop.gremlin.process.traversal.Contains;
+import org.apache.tinkerpop.gremlin.process.traversal.P;
 import org.apache.tinkerpop.gremlin.process.traversal.Step;
 import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
 import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategy;
 import org.apache.tinkerpop.gremlin.process.traversal.step.filter.HasStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.CountGlobalStep;
 import org.apache.tinkerpop.gremlin.process.traversal.step.map.GraphStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.PropertiesStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.VertexStep;
 import org.apache.tinkerpop.gremlin.process.traversal.step.util.HasContainer;
 import org.apache.tinkerpop.gremlin.process.traversal.strategy.AbstractTraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.optimization.AdjacentToIncidentStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.optimization.CountStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.optimization.IncidentToAdjacentStrategy;
 import org.apache.tinkerpop.gremlin.process.traversal.strategy.optimization.InlineFilterStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.util.AndP;
+import org.apache.tinkerpop.gremlin.structure.PropertyType;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
 
 import java.util.*;
+import java.util.function.*;
 import java.util.stream.*;
 
 /**
- * Replaces default traversal steps to speedup execution. This is used only when the traversal has a GraphStep (vertices or edges) and HasStep (label eq(X)).
+ * Replaces default traversal steps to speedup execution. This is used when the traversal has a GraphStep (vertices or edges) and HasStep (label eq(X)),
+ * when the edges of a vertex are only counted, when indexed values are only returned and to browse the connected vertices. The native steps
+ * are visible in the output of <code>explain()</code> and <code>profile()</code>.
  *
  * @author Luca Garulli (l.garulli@arcadedata.com)
  */
@@ -95,25 +118,18 @@ public class ArcadeTraversalStrategy extends AbstractTraversalStrategy<Traversal
 
             final List<IndexCursor> indexCursors = new ArrayList<>();
 
+            if (replaceWithIndexValues(traversal, i, prevStepGraph, (HasStep<?>) step, typeNameToMatch))
+              continue;
+
             for (final HasContainer c : hasContainers) {
               final String key = c.getKey();
               if (!key.startsWith("~")) {
                 if (graph.database.getSchema().existsType(typeNameToMatch)) {
                   final TypeIndex index = graph.database.getSchema().getType(typeNameToMatch).getPolymorphicIndexByProperties(key);
                   if (index != null) {
-                    if (c.getBiPredicate().equals(Compare.eq))
-                      indexCursors.add(index.get(c.getValue().getClass().isArray() ? (Object[]) c.getValue() : new Object[] { c.getValue() }));
-                    else if (c.getBiPredicate().equals(Compare.gt))
-                      indexCursors.add(
-                          index.iterator(true, c.getValue().getClass().isArray() ? (Object[]) c.getValue() : new Object[] { c.getValue() }, false));
-                    else if (c.getBiPredicate().equals(Compare.gte))
-                      indexCursors.add(index.iterator(true, c.getValue().getClass().isArray() ? (Object[]) c.getValue() : new Object[] { c.getValue() }, true));
-                    else if (c.getBiPredicate().equals(Compare.lt))
-                      indexCursors.add(
-                          index.iterator(false, c.getValue().getClass().isArray() ? (Object[]) c.getValue() : new Object[] { c.getValue() }, false));
-                    else if (c.getBiPredicate().equals(Compare.lte))
-                      indexCursors.add(
-                          index.iterator(false, c.getValue().getClass().isArray() ? (Object[]) c.getValue() : new Object[] { c.getValue() }, true));
+                    final IndexCursor cursor = getIndexCursor(index, c);
+                    if (cursor != null)
+                      indexCursors.add(cursor);
                   }
                 }
               }
@@ -138,12 +154,247 @@ public class ArcadeTraversalStrategy extends AbstractTraversalStrategy<Traversal
         }
       }
     }
+
+    replaceEdgeCount(traversal);
+    replaceTypeEdgeCount(traversal);
+    replaceVertexSteps(traversal);
+  }
+
+  /**
+   * Returns the cursor of the index entries matching the condition, or null if the predicate cannot be resolved with the index. Supported predicates are
+   * eq, gt, gte, lt, lte, within and the ranges between() and inside().
+   */
+  private static IndexCursor getIndexCursor(final TypeIndex index, final HasContainer c) {
+    final P<?> predicate = c.getPredicate();
+    if (predicate instanceof AndP) {
+      // RANGE WITH BOTH THE BOUNDARIES (BETWEEN, INSIDE)
+      final List<P<?>> predicates = ((AndP) predicate).getPredicates();
+      if (predicates.size() != 2)
+        return null;
+
+      P<?> from = null;
+      P<?> to = null;
+      for (final P<?> p : predicates) {
+        if (p.getValue() == null)
+          return null;
+        else if (p.getBiPredicate().equals(Compare.gt) || p.getBiPredicate().equals(Compare.gte))
+          from = p;
+        else if (p.getBiPredicate().equals(Compare.lt) || p.getBiPredicate().equals(Compare.lte))
+          to = p;
+      }
+
+      if (from == null || to == null)
+        return null;
+
+      return index.range(true, toKeys(from.getValue()), from.getBiPredicate().equals(Compare.gte), toKeys(to.getValue()),
+          to.getBiPredicate().equals(Compare.lte));
+    }
+
+    final Object value = c.getValue();
+    if (value == null)
+      return null;
+
+    final BiPredicate<?, ?> biPredicate = c.getBiPredicate();
+    if (biPredicate.equals(Compare.eq))
+      return index.get(toKeys(value));
+    else if (biPredicate.equals(Compare.gt))
+      return index.iterator(true, toKeys(value), false);
+    else if (biPredicate.equals(Compare.gte))
+      return index.iterator(true, toKeys(value), true);
+    else if (biPredicate.equals(Compare.lt))
+      return index.iterator(false, toKeys(value), false);
+    else if (biPredicate.equals(Compare.lte))
+      return index.iterator(false, toKeys(value), true);
+    else if (biPredicate.equals(Contains.within) && value instanceof Collection) {
+      // UNION OF THE LOOKUPS BY EACH VALUE
+      final Set<Identifiable> result = new LinkedHashSet<>();
+      for (final Object v : (Collection<?>) value)
+        if (v != null)
+          for (final IndexCursor cursor = index.get(toKeys(v)); cursor.hasNext(); )
+            result.add(cursor.next());
+      return new IndexCursorCollection(result);
+    }
+    return null;
+  }
+
+  private static Object[] toKeys(final Object value) {
+    return value.getClass().isArray() ? (Object[]) value : new Object[] { value };
+  }
+
+  /**
+   * Replaces the sequence <code>V().hasLabel(type).has(key, eq(value)|within(values)).values(key)</code> with a step that reads the values from the
+   * index, without loading the records. This is possible only if the key is the only condition and it is indexed.
+   */
+  private boolean replaceWithIndexValues(final Traversal.Admin<?, ?> traversal, final int hasStepIndex, final GraphStep<?, ?> graphStep,
+      final HasStep<?> hasStep, final String typeName) {
+    final List<Step> steps = traversal.getSteps();
+    if (!graphStep.isStartStep() || !graphStep.getLabels().isEmpty() || !hasStep.getLabels().isEmpty() || hasStepIndex + 1 >= steps.size())
+      return false;
+
+    if (hasStep.getHasContainers().size() != 1)
+      return false;
+
+    final HasContainer c = hasStep.getHasContainers().get(0);
+    final String key = c.getKey();
+    if (key == null || key.startsWith("~") || c.getValue() == null)
+      return false;
+
+    final Step nextStep = steps.get(hasStepIndex + 1);
+    if (!(nextStep instanceof PropertiesStep))
+      return false;
+
+    final PropertiesStep<?> propertiesStep = (PropertiesStep<?>) nextStep;
+    if (propertiesStep.getReturnType() != PropertyType.VALUE || propertiesStep.getPropertyKeys().length != 1 || !key.equals(
+        propertiesStep.getPropertyKeys()[0]))
+      return false;
+
+    final Collection<?> valuesToMatch;
+    if (c.getBiPredicate().equals(Compare.eq))
+      valuesToMatch = Collections.singleton(c.getValue());
+    else if (c.getBiPredicate().equals(Contains.within) && c.getValue() instanceof Collection)
+      valuesToMatch = (Collection<?>) c.getValue();
+    else
+      return false;
+
+    final Database database = ((ArcadeGraph) traversal.getGraph().get()).getDatabase();
+    if (!database.getSchema().existsType(typeName))
+      return false;
+
+    final DocumentType type = database.getSchema().getType(typeName);
+    if (!(Vertex.class.isAssignableFrom(graphStep.getReturnClass()) ? type instanceof VertexType : type instanceof EdgeType))
+      return false;
+
+    // FULL-TEXT INDEXES STORE THE WORDS, NOT THE VALUES
+    final TypeIndex index = type.getPolymorphicIndexByProperties(key);
+    final Property property = type.getPolymorphicPropertyIfExists(key);
+    if (index == null || index.getType() != Schema.INDEX_TYPE.LSM_TREE || property == null)
+      return false;
+
+    final List<Object> values = new ArrayList<>(valuesToMatch.size());
+    for (final Object v : valuesToMatch) {
+      if (v == null || v.getClass().isArray())
+        return false;
+
+      // RETURN THE VALUE AS IT IS STORED IN THE RECORD
+      values.add(Type.convert(database, v, property.getType().getDefaultJavaType()));
+    }
+
+    final ArcadeIndexValuesStep<?, Object> replaceWith = new ArcadeIndexValuesStep<>(traversal, index, key, values);
+    for (final Object label : propertiesStep.getLabels())
+      replaceWith.addLabel((String) label);
+
+    traversal.removeStep(hasStepIndex + 1);
+    traversal.removeStep(hasStepIndex);
+    traversal.removeStep(hasStepIndex - 1);
+    traversal.addStep(hasStepIndex - 1, replaceWith);
+    return true;
+  }
+
+  /**
+   * Replaces a vertex step followed by count() with a step that reads the degree of the vertices, without loading the connected edges and vertices.
+   * Only one edge label of an existent type is supported.
+   */
+  private void replaceEdgeCount(final Traversal.Admin<?, ?> traversal) {
+    final List<Step> steps = traversal.getSteps();
+    for (int i = 1; i < steps.size(); i++) {
+      final Step step = steps.get(i);
+      if (!(step instanceof CountGlobalStep))
+        continue;
+
+      final Step prevStep = steps.get(i - 1);
+      if (!(prevStep instanceof VertexStep) || !prevStep.getLabels().isEmpty())
+        continue;
+
+      final VertexStep<?> vertexStep = (VertexStep<?>) prevStep;
+      final String[] edgeLabels = vertexStep.getEdgeLabels();
+      if (edgeLabels.length > 1)
+        continue;
+
+      final String edgeLabel = edgeLabels.length == 1 ? edgeLabels[0] : null;
+      if (edgeLabel != null) {
+        final ArcadeGraph graph = (ArcadeGraph) traversal.getGraph().get();
+        if (edgeLabel.startsWith("bucket:") || !graph.getDatabase().getSchema().existsType(edgeLabel))
+          continue;
+      }
+
+      final ArcadeCountEdgesStep<?> replaceWith = new ArcadeCountEdgesStep<>(traversal, vertexStep.getDirection(), edgeLabel);
+      for (final Object label : step.getLabels())
+        replaceWith.addLabel((String) label);
+
+      traversal.removeStep(i);
+      traversal.removeStep(i - 1);
+      traversal.addStep(i - 1, replaceWith);
+    }
+  }
+
+  /**
+   * Replaces the sequence <code>V().hasLabel(type).out|in|both|outE|inE|bothE([label]).count()</code>, already rewritten as
+   * {@link ArcadeFilterByTypeStep} + {@link ArcadeCountEdgesStep}, with a single step that sums the degree of the vertices of the type.
+   */
+  private void replaceTypeEdgeCount(final Traversal.Admin<?, ?> traversal) {
+    final List<Step> steps = traversal.getSteps();
+    if (steps.size() < 2 || !(steps.get(0) instanceof ArcadeFilterByTypeStep))
+      return;
+
+    final ArcadeFilterByTypeStep<?, ?> typeStep = (ArcadeFilterByTypeStep<?, ?>) steps.get(0);
+    if (!typeStep.isStartStep() || !typeStep.returnsVertex() || !typeStep.getLabels().isEmpty())
+      return;
+
+    // THE HAS STEP WITH THE LABEL CONDITION IS LEFT IN THE TRAVERSAL WITHOUT CONDITIONS
+    int countStepIndex = 1;
+    final Step next = steps.get(1);
+    if (next instanceof HasStep) {
+      if (!((HasStep<?>) next).getHasContainers().isEmpty() || !next.getLabels().isEmpty())
+        return;
+      ++countStepIndex;
+    }
+
+    if (countStepIndex >= steps.size() || !(steps.get(countStepIndex) instanceof ArcadeCountEdgesStep))
+      return;
+
+    final ArcadeCountEdgesStep<?> countStep = (ArcadeCountEdgesStep<?>) steps.get(countStepIndex);
+    final ArcadeCountTypeEdgesStep<?> replaceWith = new ArcadeCountTypeEdgesStep<>(traversal, typeStep.getTypeName(), typeStep.getBucketName(),
+        countStep.getDirection(), countStep.getEdgeLabel());
+    for (final Object label : countStep.getLabels())
+      replaceWith.addLabel((String) label);
+
+    for (int i = countStepIndex; i > -1; --i)
+      traversal.removeStep(i);
+    traversal.addStep(0, replaceWith);
+  }
+
+  /**
+   * Replaces the remaining TinkerPop vertex steps returning vertices (<code>out|in|both([labels])</code>, also the ones rewritten from
+   * <code>outE().inV()</code> by {@link IncidentToAdjacentStrategy}) with {@link ArcadeVertexStep} that streams the connected vertices instead of
+   * collecting them. The steps returning edges and the ones configured with parameters are left to TinkerPop.
+   */
+  private void replaceVertexSteps(final Traversal.Admin<?, ?> traversal) {
+    final List<Step> steps = traversal.getSteps();
+    for (int i = 0; i < steps.size(); i++) {
+      final Step step = steps.get(i);
+      if (!(step instanceof VertexStep))
+        continue;
+
+      final VertexStep<?> vertexStep = (VertexStep<?>) step;
+      if (!vertexStep.returnsVertex() || !vertexStep.getParameters().isEmpty())
+        continue;
+
+      final ArcadeVertexStep<Vertex> replaceWith = new ArcadeVertexStep<>(traversal, Vertex.class, vertexStep.getDirection(),
+          vertexStep.getEdgeLabels());
+      for (final Object label : step.getLabels())
+        replaceWith.addLabel((String) label);
+
+      traversal.removeStep(i);
+      traversal.addStep(i, replaceWith);
+    }
   }
 
   @Override
   public Set<Class<? extends OptimizationStrategy>> applyPrior() {
     return Stream.of(
         //Inline must happen first as it sometimes removes the need for a TraversalFilterStep
-        InlineFilterStrategy.class).collect(Collectors.toSet());
+        InlineFilterStrategy.class,
+        // THE VERTEX STEPS ARE REPLACED HERE, SO THE TINKERPOP REWRITES BASED ON THEM MUST RUN FIRST
+        IncidentToAdjacentStrategy.class, AdjacentToIncidentStrategy.class, CountStrategy.class).collect(Collectors.toSet());
   }
 }
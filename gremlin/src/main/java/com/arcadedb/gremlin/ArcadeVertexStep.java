@@ -0,0 +1,151 @@
+/*
+ * Copyright 2023 Arcade Data Ltd
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.arcadedb.gremlin;
+
+import com.arcadedb.database.Database;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.Traverser;
+import org.apache.tinkerpop.gremlin.process.traversal.step.Configuring;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.FlatMapStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.Parameters;
+import org.apache.tinkerpop.gremlin.process.traversal.traverser.TraverserRequirement;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Edge;
+import org.apache.tinkerpop.gremlin.structure.Element;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.util.StringFactory;
+import org.apache.tinkerpop.gremlin.util.iterator.IteratorUtils;
+
+import java.util.*;
+
+/**
+ * Replaces the TinkerPop vertex step (<code>out|in|both|outE|inE|bothE([labels])</code>). The connected vertices (or edges) are streamed from the edge
+ * linked list of the vertex as they are browsed, instead of being collected into a list first. The connected vertices are read from the RIDs stored in
+ * the edge linked list, so the edge records are not loaded.
+ */
+public class ArcadeVertexStep<E extends Element> extends FlatMapStep<Vertex, E> implements Configuring {
+  private final Class<E>   returnClass;
+  private final Direction  direction;
+  private final String[]   edgeLabels;
+  private       Parameters parameters = new Parameters();
+
+  public ArcadeVertexStep(final Traversal.Admin traversal, final Class<E> returnClass, final Direction direction, final String... edgeLabels) {
+    super(traversal);
+    this.returnClass = returnClass;
+    this.direction = direction;
+    this.edgeLabels = edgeLabels;
+  }
+
+  @Override
+  protected Iterator<E> flatMap(final Traverser.Admin<Vertex> traverser) {
+    final Vertex vertex = traverser.get();
+    if (!(vertex instanceof ArcadeVertex))
+      return (Iterator<E>) (returnsVertex() ? vertex.vertices(direction, edgeLabels) : vertex.edges(direction, edgeLabels));
+
+    final ArcadeGraph graph = ((ArcadeVertex) vertex).graph;
+    final Database database = graph.getDatabase();
+    final com.arcadedb.graph.Vertex baseVertex = ((ArcadeVertex) vertex).getBaseElement();
+    final com.arcadedb.graph.Vertex.DIRECTION dir = ArcadeGraph.mapDirection(direction);
+
+    if (returnsVertex()) {
+      final Iterator<com.arcadedb.graph.Vertex> iterator = (edgeLabels.length == 0 ?
+          baseVertex.getVertices(dir) :
+          baseVertex.getVertices(dir, edgeLabels)).iterator();
+
+      // FILTER OUT DELETED VERTICES
+      return (Iterator<E>) IteratorUtils.map(IteratorUtils.filter(iterator, v -> database.existsRecord(v.getIdentity())),
+          v -> new ArcadeVertex(graph, v));
+    }
+
+    final Iterator<com.arcadedb.graph.Edge> iterator = (edgeLabels.length == 0 ?
+        baseVertex.getEdges(dir) :
+        baseVertex.getEdges(dir, edgeLabels)).iterator();
+
+    // FILTER OUT DELETED EDGES
+    return (Iterator<E>) IteratorUtils.map(IteratorUtils.filter(iterator, e -> database.existsRecord(e.getIdentity())), e -> new ArcadeEdge(graph, e));
+  }
+
+  public Class<E> getReturnClass() {
+    return returnClass;
+  }
+
+  public boolean returnsVertex() {
+    return returnClass.equals(Vertex.class);
+  }
+
+  public boolean returnsEdge() {
+    return returnClass.equals(Edge.class);
+  }
+
+  public Direction getDirection() {
+    return direction;
+  }
+
+  public String[] getEdgeLabels() {
+    return edgeLabels;
+  }
+
+  @Override
+  public Parameters getParameters() {
+    return parameters;
+  }
+
+  @Override
+  public void configure(final Object... keyValues) {
+    parameters.set(null, keyValues);
+  }
+
+  @Override
+  public Set<TraverserRequirement> getRequirements() {
+    return Collections.singleton(TraverserRequirement.OBJECT);
+  }
+
+  @Override
+  public ArcadeVertexStep<E> clone() {
+    final ArcadeVertexStep<E> clone = (ArcadeVertexStep<E>) super.clone();
+    clone.parameters = parameters.clone();
+    return clone;
+  }
+
+  @Override
+  public String toString() {
+    return StringFactory.stepString(this, direction, Arrays.asList(edgeLabels), returnClass.getSimpleName().toLowerCase());
+  }
+
+  @Override
+  public int hashCode() {
+    int result = super.hashCode() ^ returnClass.hashCode() ^ direction.hashCode();
+    for (final String edgeLabel : edgeLabels)
+      result ^= edgeLabel.hashCode();
+    return result;
+  }
+
+  @Override
+  public boolean equals(final Object other) {
+    if (this == other)
+      return true;
+    if (!(other instanceof ArcadeVertexStep) || !super.equals(other))
+      return false;
+
+    final ArcadeVertexStep<?> step = (ArcadeVertexStep<?>) other;
+    return returnClass.equals(step.returnClass) && direction == step.direction && Arrays.equals(edgeLabels, step.edgeLabels);
+  }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2023 Arcade Data Ltd
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.arcadedb.gremlin;
+
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.apache.tinkerpop.gremlin.groovy.jsr223.GremlinGroovyScriptEngine;
+import org.apache.tinkerpop.gremlin.language.grammar.GremlinAntlrToJava;
+import org.apache.tinkerpop.gremlin.language.grammar.GremlinLexer;
+import org.apache.tinkerpop.gremlin.language.grammar.GremlinParser;
+import org.apache.tinkerpop.gremlin.language.grammar.GremlinParserException;
+import org.apache.tinkerpop.gremlin.language.grammar.VariableResolver;
+
+import javax.script.Bindings;
+import javax.script.CompiledScript;
+import javax.script.ScriptException;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * LRU cache of the parsed Gremlin statements, shared by all the queries executed against the same {@link ArcadeGraph}. The statements are cached by
+ * their text, so parameterized queries are parsed (java engine) or compiled (groovy engine) only once and the parameters are bound at every execution.
+ * The cache keeps also the statistics about the time spent parsing and the time saved by reusing the parsed statements.
+ */
+public class GremlinStatementCache {
+  private final ArcadeGraph                     graph;
+  private final Map<String, CachedStatement<?>> map;
+  private final int                             mapSize;
+  private final AtomicLong                      hits             = new AtomicLong();
+  private final AtomicLong                      misses           = new AtomicLong();
+  private final AtomicLong                      compileTimeNanos = new AtomicLong();
+  private final AtomicLong                      savedTimeNanos   = new AtomicLong();
+
+  private static class CachedStatement<T> {
+    private final T    statement;
+    private final long compileTimeNanos;
+
+    private CachedStatement(final T statement, final long compileTimeNanos) {
+      this.statement = statement;
+      this.compileTimeNanos = compileTimeNanos;
+    }
+  }
+
+  private static final BaseErrorListener ERROR_LISTENER = new BaseErrorListener() {
+    @Override
+    public void syntaxError(final Recognizer<?, ?> recognizer, final Object offendingSymbol, final int line, final int charPositionInLine,
+        final String msg, final RecognitionException e) {
+      throw new GremlinParserException("Query parsing failed at line " + line + ", character position at " + charPositionInLine + ": " + msg);
+    }
+  };
+
+  /**
+   * @param size the size of the cache. 0 disables the cache
+   */
+  public GremlinStatementCache(final ArcadeGraph graph, final int size) {
+    this.graph = graph;
+    this.mapSize = size;
+    this.map = new LinkedHashMap<>(size) {
+      protected boolean removeEldestEntry(final Map.Entry<String, CachedStatement<?>> eldest) {
+        return super.size() > mapSize;
+      }
+    };
+  }
+
+  /**
+   * Executes the statement with the native Gremlin parser. The parse tree is taken from the cache if present.
+   */
+  public Object executeJava(final String query, final Bindings bindings) throws ScriptException {
+    final GremlinParser.QueryListContext tree = get("java:" + query, () -> parseJava(query));
+    try {
+      return new GremlinAntlrToJava(graph.traversal(), new VariableResolver.DefaultVariableResolver(bindings)).visit(tree);
+    } catch (final Exception e) {
+      final ScriptException exception = new ScriptException(e.getMessage());
+      exception.initCause(e);
+      throw exception;
+    }
+  }
+
+  /**
+   * Executes the statement with the Groovy engine. The compiled script is taken from the cache if present.
+   */
+  public Object executeGroovy(final String query, final Bindings bindings) throws ScriptException {
+    final GremlinGroovyScriptEngine engine = graph.getGremlinGroovyEngine();
+    final CompiledScript compiled = get("groovy:" + query, () -> engine.compile(query));
+    return compiled.eval(bindings);
+  }
+
+  public boolean contains(final String engine, final String query) {
+    synchronized (map) {
+      return map.containsKey(engine + ":" + query);
+    }
+  }
+
+  public void clear() {
+    synchronized (map) {
+      map.clear();
+    }
+  }
+
+  public Map<String, Object> getStats() {
+    final Map<String, Object> stats = new LinkedHashMap<>();
+    synchronized (map) {
+      stats.put("size", map.size());
+    }
+    stats.put("maxSize", mapSize);
+    stats.put("hits", hits.get());
+    stats.put("misses", misses.get());
+    stats.put("compileTimeMs", compileTimeNanos.get() / 1_000_000);
+    stats.put("compileTimeSavedMs", savedTimeNanos.get() / 1_000_000);
+    return stats;
+  }
+
+  private interface StatementCompiler<T> {
+    T compile() throws ScriptException;
+  }
+
+  private <T> T get(final String key, final StatementCompiler<T> compiler) throws ScriptException {
+    CachedStatement<T> cached;
+    synchronized (map) {
+      //LRU
+      cached = (CachedStatement<T>) map.remove(key);
+      if (cached != null)
+        map.put(key, cached);
+    }
+
+    if (cached != null) {
+      hits.incrementAndGet();
+      savedTimeNanos.addAndGet(cached.compileTimeNanos);
+      return cached.statement;
+    }
+
+    misses.incrementAndGet();
+
+    final long beginTime = System.nanoTime();
+    final T statement = compiler.compile();
+    final long elapsed = System.nanoTime() - beginTime;
+    compileTimeNanos.addAndGet(elapsed);
+
+    if (mapSize > 0)
+      synchronized (map) {
+        map.put(key, new CachedStatement<>(statement, elapsed));
+      }
+
+    return statement;
+  }
+
+  /**
+   * Parses the statement with the native Gremlin grammar. The faster SLL prediction mode is tried first, then the full LL mode (same as the
+   * <code>GremlinLangScriptEngine</code> does).
+   */
+  private static GremlinParser.QueryListContext parseJava(final String query) throws ScriptException {
+    final GremlinLexer lexer = new GremlinLexer(CharStreams.fromString(query));
+    lexer.removeErrorListeners();
+    lexer.addErrorListener(ERROR_LISTENER);
+
+    final CommonTokenStream tokens = new CommonTokenStream(lexer);
+    final GremlinParser parser = new GremlinParser(tokens);
+    parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+    parser.removeErrorListeners();
+    parser.addErrorListener(ERROR_LISTENER);
+
+    try {
+      return parser.queryList();
+    } catch (final Exception e) {
+      try {
+        tokens.seek(0);
+        lexer.reset();
+        parser.reset();
+        parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+        return parser.queryList();
+      } catch (final Exception e2) {
+        final ScriptException exception = new ScriptException(e2.getMessage());
+        exception.initCause(e2);
+        throw exception;
+      }
+    }
+  }
+}
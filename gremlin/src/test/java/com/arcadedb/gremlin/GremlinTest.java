@@ -20,6 +20,7 @@
  */
 package com.arcadedb.gremlin;
 
+import com.arcadedb.GlobalConfiguration;
 import com.arcadedb.database.Database;
 import com.arcadedb.database.DatabaseFactory;
 import com.arcadedb.database.EmbeddedDocument;
@@ -31,6 +32,7 @@ import com.arcadedb.schema.Schema;
 import com.arcadedb.schema.Type;
 import com.arcadedb.schema.VertexType;
 import com.arcadedb.utility.FileUtils;
+import org.apache.tinkerpop.gremlin.process.traversal.P;
 import org.apache.tinkerpop.gremlin.structure.T;
 import org.apache.tinkerpop.gremlin.structure.Vertex;
 import org.apache.tinkerpop.gremlin.structure.VertexProperty;
@@ -467,6 +469,64 @@ public class GremlinTest {
     }
   }
 
+  @Test
+  public void testNativeSteps() {
+    final ArcadeGraph graph = ArcadeGraph.open("./target/testNativeSteps");
+    try {
+      graph.getDatabase().getSchema().getOrCreateVertexType("Person").getOrCreateProperty("age", Type.INTEGER)
+          .getOrCreateIndex(Schema.INDEX_TYPE.LSM_TREE, false);
+      graph.getDatabase().getSchema().getOrCreateEdgeType("FriendOf");
+
+      final Vertex alice = graph.addVertex(T.label, "Person", "name", "Alice", "age", 30);
+      final Vertex bob = graph.addVertex(T.label, "Person", "name", "Bob", "age", 40);
+      final Vertex steve = graph.addVertex(T.label, "Person", "name", "Steve", "age", 30);
+
+      alice.addEdge("FriendOf", bob);
+      alice.addEdge("FriendOf", steve);
+      steve.addEdge("FriendOf", bob);
+
+      Assertions.assertEquals(3L, graph.traversal().V().hasLabel("Person").out("FriendOf").count().next());
+      Assertions.assertTrue(graph.traversal().V().hasLabel("Person").out("FriendOf").count().explain().toString().contains("ArcadeCountTypeEdgesStep"));
+
+      Assertions.assertEquals(List.of(30, 30), graph.traversal().V().hasLabel("Person").has("age", 30).values("age").toList());
+      Assertions.assertEquals(3, graph.traversal().V().hasLabel("Person").has("age", P.within(30, 40)).values("age").toList().size());
+      Assertions.assertTrue(
+          graph.traversal().V().hasLabel("Person").has("age", 30).values("age").explain().toString().contains("ArcadeIndexValuesStep"));
+
+      Assertions.assertEquals(1L, graph.traversal().V().hasLabel("Person").has("age", P.between(35, 45)).count().next());
+
+      final Set<Object> friends = new HashSet<>(graph.traversal().V(alice.id()).outE("FriendOf").inV().values("name").toList());
+      Assertions.assertEquals(Set.of("Bob", "Steve"), friends);
+      Assertions.assertEquals(2L, graph.traversal().V(bob.id()).in("FriendOf").count().next());
+      Assertions.assertEquals(Set.of("Alice", "Steve"), new HashSet<>(graph.traversal().V(bob.id()).in("FriendOf").values("name").toList()));
+    } finally {
+      graph.drop();
+    }
+  }
+
+  @Test
+  public void testStatementCache() {
+    final ArcadeGraph graph = ArcadeGraph.open("./target/testStatementCache");
+    try {
+      graph.getDatabase().getSchema().getOrCreateVertexType("Person");
+      graph.addVertex(T.label, "Person", "name", "Alice");
+      graph.addVertex(T.label, "Person", "name", "Bob");
+
+      for (final String engine : List.of("java", "groovy")) {
+        graph.getDatabase().getConfiguration().setValue(GlobalConfiguration.GREMLIN_ENGINE, engine);
+
+        final String query = "g.V().hasLabel('Person').has('name', name).values('name')";
+        Assertions.assertEquals("Alice", graph.gremlin(query).setParameters(Map.of("name", "Alice")).execute().next().getProperty("result"));
+        Assertions.assertTrue(graph.getStatementCache().contains(engine, query));
+        Assertions.assertEquals("Bob", graph.gremlin(query).setParameters(Map.of("name", "Bob")).execute().next().getProperty("result"));
+      }
+
+      Assertions.assertTrue((Long) graph.getStatementCache().getStats().get("hits") >= 2L);
+    } finally {
+      graph.drop();
+    }
+  }
+
   @BeforeEach
   @AfterEach
   public void clean() {
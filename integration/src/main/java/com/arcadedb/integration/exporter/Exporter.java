@@ -22,6 +22,7 @@ import com.arcadedb.database.Database;
 import com.arcadedb.database.DatabaseFactory;
 import com.arcadedb.database.DatabaseInternal;
 import com.arcadedb.integration.exporter.format.AbstractExporterFormat;
+import com.arcadedb.integration.exporter.format.BinaryExporterFormat;
 import com.arcadedb.integration.exporter.format.JsonlExporterFormat;
 import com.arcadedb.integration.importer.ConsoleLogger;
 import com.arcadedb.log.LogManager;
@@ -70,6 +71,11 @@ public class Exporter {
     return this;
   }
 
+  public Exporter setParallel(final int parallel) {
+    settings.parallel = parallel;
+    return this;
+  }
+
   public Map<String, Object> exportDatabase() {
     try {
       startExporting();
@@ -188,6 +194,9 @@ public class Exporter {
     case JsonlExporterFormat.NAME:
       return new JsonlExporterFormat(database, settings, context, logger);
 
+    case BinaryExporterFormat.NAME:
+      return new BinaryExporterFormat(database, settings, context, logger);
+
     case "graphml": {
       try {
         final Class<AbstractExporterFormat> clazz = (Class<AbstractExporterFormat>) Class.forName(
@@ -29,6 +29,7 @@ public class ExporterSettings {
   public       String              file;
   public       boolean             overwriteFile = false;
   public       int                 verboseLevel  = 2;
+  public       int                 parallel      = 1;
   public       Set<String>         includeTypes;
   public       Set<String>         excludeTypes;
   public final Map<String, String> options       = new HashMap<>();
@@ -80,6 +81,8 @@ public class ExporterSettings {
       includeTypes = Set.of(value.split(","));
     else if ("excludeTypes".equals(name))
       excludeTypes = Set.of(value.split(","));
+    else if ("parallel".equals(name))
+      parallel = Integer.parseInt(value);
     else
       // ADDITIONAL OPTIONS
       options.put(name, value);
@@ -18,12 +18,27 @@
  */
 package com.arcadedb.integration.exporter.format;
 
+import com.arcadedb.database.DatabaseContext;
 import com.arcadedb.database.DatabaseInternal;
+import com.arcadedb.database.Document;
+import com.arcadedb.engine.Bucket;
+import com.arcadedb.integration.exporter.ExportException;
 import com.arcadedb.integration.exporter.ExporterContext;
 import com.arcadedb.integration.exporter.ExporterSettings;
 import com.arcadedb.integration.importer.ConsoleLogger;
+import com.arcadedb.log.LogManager;
+import com.arcadedb.schema.DocumentType;
+import com.arcadedb.security.AuthorizationUtils;
+import com.arcadedb.security.SecurityDatabaseUser;
 
+import java.io.*;
+import java.nio.file.*;
 import java.text.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.logging.*;
+import java.util.zip.*;
 
 public abstract class AbstractExporterFormat {
   protected final        ExporterSettings settings;
@@ -32,6 +47,85 @@ public abstract class AbstractExporterFormat {
   protected final        ConsoleLogger    logger;
   protected static final DateFormat       dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
 
+  /**
+   * Writes the records of a bucket to a compressed stream.
+   */
+  protected interface BucketExporter {
+    void exportBucket(DocumentType type, Bucket bucket, OutputStream output) throws IOException;
+  }
+
+  /**
+   * Output stream that writes a GZIP member in the export file without closing it.
+   */
+  private static class MemberOutputStream extends FilterOutputStream {
+    private MemberOutputStream(final OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+      out.write(b, off, len);
+    }
+
+    @Override
+    public void close() throws IOException {
+      flush();
+    }
+  }
+
+  /**
+   * GZIP stream that always releases the deflater and closes the underlying stream, even if writing the end of the member fails.
+   */
+  private static class MemberGZIPOutputStream extends GZIPOutputStream {
+    private boolean closed = false;
+
+    private MemberGZIPOutputStream(final OutputStream out) throws IOException {
+      super(out, 65536);
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (closed)
+        return;
+      closed = true;
+      try {
+        finish();
+      } finally {
+        def.end();
+        out.close();
+      }
+    }
+  }
+
+  /**
+   * Output stream of a part file that fails as soon as the export is aborted, so the workers stop exporting buckets that will be discarded.
+   */
+  private static class PartOutputStream extends FilterOutputStream {
+    private final AtomicBoolean aborted;
+
+    private PartOutputStream(final File part, final AtomicBoolean aborted) throws IOException {
+      super(new FileOutputStream(part));
+      this.aborted = aborted;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+      checkAborted();
+      out.write(b);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+      checkAborted();
+      out.write(b, off, len);
+    }
+
+    private void checkAborted() throws IOException {
+      if (aborted.get())
+        throw new IOException("Export has been aborted");
+    }
+  }
+
   protected AbstractExporterFormat(final DatabaseInternal database, final ExporterSettings settings, final ExporterContext context, final ConsoleLogger logger) {
     this.database = database;
     this.settings = settings;
@@ -42,4 +136,129 @@ public abstract class AbstractExporterFormat {
   public abstract void exportDatabase() throws Exception;
 
   public abstract String getName();
+
+  /**
+   * Checks the export file can be written and creates its directory if needed.
+   */
+  protected File prepareExportFile() {
+    final File file = new File(settings.file);
+    if (file.exists() && !settings.overwriteFile)
+      throw new ExportException(String.format("The export file '%s' already exist and '-o' setting is false", settings.file));
+
+    if (file.getParentFile() != null && !file.getParentFile().exists()) {
+      if (!file.getParentFile().mkdirs())
+        throw new ExportException(String.format("The export file '%s' cannot be created", settings.file));
+    }
+
+    if (database.isTransactionActive())
+      database.getTransaction().rollback();
+
+    logger.logLine(0, "Exporting database to '%s'...", settings.file);
+
+    final File exportFile;
+    if (settings.file.startsWith("file://"))
+      exportFile = new File(settings.file.substring("file://".length()));
+    else
+      exportFile = new File(settings.file);
+
+    if (!exportFile.getParentFile().exists())
+      exportFile.getParentFile().mkdirs();
+
+    return exportFile;
+  }
+
+  /**
+   * Opens a new GZIP member at the current position of the export file. Closing the returned stream completes the member, but leaves the file open.
+   */
+  protected OutputStream newMember(final OutputStream output) throws IOException {
+    return new MemberGZIPOutputStream(new MemberOutputStream(output));
+  }
+
+  /**
+   * Returns true if the current user can read the record. The buckets are exported by scanning their pages, so the check the bucket iterator
+   * applies to every record is applied here.
+   */
+  protected boolean isReadable(final Document record) {
+    return AuthorizationUtils.checkPermissionsOnDocumentToRead(record, database.getContext().getCurrentUser());
+  }
+
+  /**
+   * Exports the buckets in the order of the list, each one as a GZIP member of the export file. Concatenated GZIP members are read back as a single
+   * stream. With `-parallel` greater than 1 the buckets are read by a pool of workers, each bucket into its own compressed part file next to the
+   * export file. The parts are appended to the export file in order and deleted, so the export file is the same regardless of the number of workers.
+   * If a bucket fails, the workers are stopped and all the parts are deleted.
+   */
+  protected void exportBuckets(final File exportFile, final OutputStream output, final List<Bucket> buckets, final BucketExporter exporter)
+      throws IOException {
+    if (settings.parallel <= 1 || buckets.size() < 2) {
+      for (final Bucket bucket : buckets)
+        try (final OutputStream member = newMember(output)) {
+          exporter.exportBucket(database.getSchema().getTypeByBucketId(bucket.getFileId()), bucket, member);
+        }
+      return;
+    }
+
+    final DatabaseContext.DatabaseContextTL current = DatabaseContext.INSTANCE.getContextIfExists(database.getDatabasePath());
+    final SecurityDatabaseUser user = current != null ? current.getCurrentUser() : null;
+
+    final ExecutorService executor = Executors.newFixedThreadPool(Math.min(settings.parallel, buckets.size()), r -> {
+      final Thread thread = new Thread(r, "ArcadeDB-Exporter");
+      thread.setDaemon(true);
+      return thread;
+    });
+
+    final List<File> parts = new ArrayList<>(buckets.size());
+    final List<Future<?>> tasks = new ArrayList<>(buckets.size());
+    final AtomicBoolean aborted = new AtomicBoolean(false);
+    try {
+      for (int i = 0; i < buckets.size(); i++) {
+        final Bucket bucket = buckets.get(i);
+        final File part = new File(exportFile.getPath() + ".part" + i);
+        parts.add(part);
+
+        tasks.add(executor.submit(() -> {
+          DatabaseContext.INSTANCE.init(database).setCurrentUser(user);
+          try {
+            if (aborted.get())
+              return null;
+            try (final OutputStream partOutput = new MemberGZIPOutputStream(new PartOutputStream(part, aborted))) {
+              exporter.exportBucket(database.getSchema().getTypeByBucketId(bucket.getFileId()), bucket, partOutput);
+            }
+            return null;
+          } finally {
+            DatabaseContext.INSTANCE.removeContext(database.getDatabasePath());
+          }
+        }));
+      }
+
+      for (int i = 0; i < tasks.size(); i++) {
+        try {
+          tasks.get(i).get();
+        } catch (final ExecutionException e) {
+          throw new ExportException("Error on exporting bucket '" + buckets.get(i).getName() + "'", e.getCause());
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new ExportException("Export of bucket '" + buckets.get(i).getName() + "' has been interrupted", e);
+        }
+
+        Files.copy(parts.get(i).toPath(), output);
+        Files.delete(parts.get(i).toPath());
+      }
+
+    } finally {
+      // IN CASE OF ERROR THE RUNNING WORKERS FAIL ON THE NEXT WRITE AND CLOSE THEIR PARTS, THEN THE PARTS ARE DELETED
+      aborted.set(true);
+      executor.shutdownNow();
+      try {
+        if (!executor.awaitTermination(1, TimeUnit.MINUTES))
+          LogManager.instance().log(this, Level.WARNING, "Timeout on waiting for the export workers to stop");
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+
+      for (final File part : parts)
+        if (part.exists() && !part.delete())
+          part.deleteOnExit();
+    }
+  }
 }
@@ -0,0 +1,192 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.integration.exporter.format;
+
+import com.arcadedb.Constants;
+import com.arcadedb.database.DatabaseInternal;
+import com.arcadedb.database.Document;
+import com.arcadedb.engine.Bucket;
+import com.arcadedb.index.TypeIndex;
+import com.arcadedb.integration.exporter.ExportException;
+import com.arcadedb.integration.exporter.ExporterContext;
+import com.arcadedb.integration.exporter.ExporterSettings;
+import com.arcadedb.integration.importer.ConsoleLogger;
+import com.arcadedb.schema.DocumentType;
+import com.arcadedb.schema.EdgeType;
+import com.arcadedb.schema.EmbeddedSchema;
+import com.arcadedb.schema.VertexType;
+import com.arcadedb.serializer.json.JSONArray;
+import com.arcadedb.serializer.json.JSONObject;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Exports the records with their serialized content as is, without deserializing them. The file is a sequence of GZIP members:
+ * <ul>
+ *   <li>the header: {@link #MAGIC}, version, information about the database, schema, indexes and the dictionary. Property names and some values are
+ *   serialized as ids of the dictionary, so the dictionary must be restored with the same ids before reading the records</li>
+ *   <li>a section per bucket: the name of the type and of the bucket, the bucket id and the records as [length][position][content], terminated by a
+ *   length of -1. Documents are exported first, then vertices and edges</li>
+ *   <li>the end marker</li>
+ * </ul>
+ * Strings are written as length + UTF-8 bytes. The connections of the vertices are not exported, because they are rebuilt when the edges are imported.
+ * Light edges are not exported, because they are not stored as records.
+ */
+public class BinaryExporterFormat extends AbstractExporterFormat {
+  public static final  String NAME           = "binary";
+  public static final  String MAGIC          = "ArcadeDB-Binary-Export";
+  public static final  byte   SECTION_BUCKET = 'b';
+  public static final  byte   SECTION_END    = 'z';
+  private final static int    VERSION        = 1;
+
+  public BinaryExporterFormat(final DatabaseInternal database, final ExporterSettings settings, final ExporterContext context, final ConsoleLogger logger) {
+    super(database, settings, context, logger);
+  }
+
+  @Override
+  public void exportDatabase() throws Exception {
+    final File exportFile = prepareExportFile();
+
+    final List<Bucket> documentBuckets = new ArrayList<>();
+    final List<Bucket> vertexBuckets = new ArrayList<>();
+    final List<Bucket> edgeBuckets = new ArrayList<>();
+
+    for (final DocumentType type : database.getSchema().getTypes()) {
+      final String typeName = type.getName();
+
+      if (settings.includeTypes != null && !settings.includeTypes.contains(typeName))
+        continue;
+      if (settings.excludeTypes != null && settings.excludeTypes.contains(typeName))
+        continue;
+
+      if (type instanceof VertexType)
+        vertexBuckets.addAll(type.getBuckets(false));
+      else if (type instanceof EdgeType)
+        edgeBuckets.addAll(type.getBuckets(false));
+      else
+        documentBuckets.addAll(type.getBuckets(false));
+    }
+
+    final List<Bucket> buckets = new ArrayList<>(documentBuckets);
+    buckets.addAll(vertexBuckets);
+    buckets.addAll(edgeBuckets);
+
+    try (final OutputStream output = new BufferedOutputStream(new FileOutputStream(exportFile), 65536)) {
+      try (final DataOutputStream header = new DataOutputStream(newMember(output))) {
+        header.write(MAGIC.getBytes(StandardCharsets.US_ASCII));
+        header.writeInt(VERSION);
+
+        final long now = System.currentTimeMillis();
+        writeString(header, new JSONObject().put("description", "ArcadeDB Database Export").put("exporterVersion", VERSION)//
+            .put("dbVersion", Constants.getRawVersion()).put("dbBranch", Constants.getBranch()).put("dbBuild", Constants.getBuildNumber())
+            .put("dbTimestamp", Constants.getTimestamp()).put("name", database.getName()).put("executedOn", dateFormat.format(now))
+            .put("executedOnTimestamp", now).toString());
+
+        writeString(header, ((EmbeddedSchema) database.getSchema()).toJSON().toString());
+        writeString(header, exportIndexes().toString());
+
+        final String[] dictionary = exportDictionary();
+        header.writeInt(dictionary.length);
+        for (final String name : dictionary)
+          writeString(header, name);
+      }
+
+      exportBuckets(exportFile, output, buckets, this::exportBucket);
+
+      try (final OutputStream end = newMember(output)) {
+        end.write(SECTION_END);
+      }
+    }
+  }
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  /**
+   * Writes the content of the records of the bucket. This method can be called by multiple threads.
+   */
+  private void exportBucket(final DocumentType type, final Bucket bucket, final OutputStream output) throws IOException {
+    final DataOutputStream out = new DataOutputStream(output);
+    out.writeByte(SECTION_BUCKET);
+    writeString(out, type.getName());
+    writeString(out, bucket.getName());
+    out.writeInt(bucket.getFileId());
+
+    final AtomicLong counter;
+    if (type instanceof VertexType)
+      counter = context.vertices;
+    else if (type instanceof EdgeType)
+      counter = context.edges;
+    else
+      counter = context.documents;
+
+    bucket.scan((rid, view) -> {
+      // THE RECORD SHARES THE BUFFER OF THE VIEW, THAT IS WRITTEN BY ITS OFFSETS
+      if (!isReadable((Document) database.getRecordFactory().newImmutableRecord(database, type, rid, view, null)))
+        return true;
+
+      try {
+        out.writeInt(view.size());
+        out.writeLong(rid.getPosition());
+        out.write(view.getContent(), view.getContentBeginOffset(), view.size());
+      } catch (final IOException e) {
+        throw new ExportException("Error on writing record " + rid + " of bucket '" + bucket.getName() + "'", e);
+      }
+      counter.incrementAndGet();
+      return true;
+    }, null);
+
+    out.writeInt(-1);
+    out.flush();
+  }
+
+  /**
+   * The schema contains the indexes by bucket only, so the type indexes are exported apart with the settings needed to create them again.
+   */
+  private JSONArray exportIndexes() {
+    final JSONArray indexes = new JSONArray();
+    for (final DocumentType type : database.getSchema().getTypes())
+      for (final TypeIndex index : type.getAllIndexes(false))
+        indexes.put(new JSONObject().put("typeName", type.getName()).put("properties", index.getPropertyNames())//
+            .put("indexType", index.getType().name()).put("unique", index.isUnique()).put("nullStrategy", index.getNullStrategy().name()));
+    return indexes;
+  }
+
+  private String[] exportDictionary() {
+    final Map<String, Integer> map = database.getSchema().getDictionary().getDictionaryMap();
+    final String[] names = new String[map.size()];
+    for (final Map.Entry<String, Integer> entry : map.entrySet()) {
+      if (entry.getValue() < 0 || entry.getValue() >= names.length)
+        throw new ExportException("Dictionary item '" + entry.getKey() + "' has an invalid id " + entry.getValue());
+      names[entry.getValue()] = entry.getKey();
+    }
+    return names;
+  }
+
+  private static void writeString(final DataOutputStream out, final String value) throws IOException {
+    final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+}
@@ -21,7 +21,8 @@ package com.arcadedb.integration.exporter.format;
 import com.arcadedb.Constants;
 import com.arcadedb.database.DatabaseFactory;
 import com.arcadedb.database.DatabaseInternal;
-import com.arcadedb.database.Record;
+import com.arcadedb.database.Document;
+import com.arcadedb.engine.Bucket;
 import com.arcadedb.integration.exporter.ExportException;
 import com.arcadedb.integration.exporter.ExporterContext;
 import com.arcadedb.integration.exporter.ExporterSettings;
@@ -35,7 +36,7 @@ import com.arcadedb.serializer.json.JSONObject;
 
 import java.io.*;
 import java.util.*;
-import java.util.zip.*;
+import java.util.concurrent.atomic.*;
 
 public class JsonlExporterFormat extends AbstractExporterFormat {
   public static final  String             NAME       = "jsonl";
@@ -49,45 +50,25 @@ public class JsonlExporterFormat extends AbstractExporterFormat {
 
   @Override
   public void exportDatabase() throws Exception {
-    final File file = new File(settings.file);
-    if (file.exists() && !settings.overwriteFile)
-      throw new ExportException(String.format("The export file '%s' already exist and '-o' setting is false", settings.file));
+    final File exportFile = prepareExportFile();
 
-    if (file.getParentFile() != null && !file.getParentFile().exists()) {
-      if (!file.getParentFile().mkdirs())
-        throw new ExportException(String.format("The export file '%s' cannot be created", settings.file));
-    }
-
-    if (database.isTransactionActive())
-      database.getTransaction().rollback();
-
-    logger.logLine(0, "Exporting database to '%s'...", settings.file);
-
-    final File exportFile;
-    if (settings.file.startsWith("file://"))
-      exportFile = new File(settings.file.substring("file://".length()));
-    else
-      exportFile = new File(settings.file);
+    try (final OutputStream output = new BufferedOutputStream(new FileOutputStream(exportFile), 65536)) {
+      try (final OutputStreamWriter headerWriter = new OutputStreamWriter(newMember(output), DatabaseFactory.getDefaultCharset())) {
+        writer = headerWriter;
 
-    if (!exportFile.getParentFile().exists())
-      exportFile.getParentFile().mkdirs();
+        writeJsonLine("info", new JSONObject().put("description", "ArcadeDB Database Export").put("exporterVersion", VERSION)//
+            .put("dbVersion", Constants.getRawVersion()).put("dbBranch", Constants.getBranch()).put("dbBuild", Constants.getBuildNumber())
+            .put("dbTimestamp", Constants.getTimestamp()));
 
-    try (final OutputStreamWriter fileWriter = new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(exportFile)),
-        DatabaseFactory.getDefaultCharset())) {
-      writer = fileWriter;
+        final long now = System.currentTimeMillis();
+        writeJsonLine("db", new JSONObject().put("name", database.getName()).put("executedOn", dateFormat.format(now)).put("executedOnTimestamp", now));
 
-      writeJsonLine("info", new JSONObject().put("description", "ArcadeDB Database Export").put("exporterVersion", VERSION)//
-          .put("dbVersion", Constants.getRawVersion()).put("dbBranch", Constants.getBranch()).put("dbBuild", Constants.getBuildNumber())
-          .put("dbTimestamp", Constants.getTimestamp()));
-
-      final long now = System.currentTimeMillis();
-      writeJsonLine("db", new JSONObject().put("name", database.getName()).put("executedOn", dateFormat.format(now)).put("executedOnTimestamp", now));
-
-      writeJsonLine("schema", ((EmbeddedSchema) database.getSchema()).toJSON());
+        writeJsonLine("schema", ((EmbeddedSchema) database.getSchema()).toJSON());
+      }
 
-      final List<String> vertexTypes = new ArrayList<>();
-      final List<String> edgeTypes = new ArrayList<>();
-      final List<String> documentTypes = new ArrayList<>();
+      final List<Bucket> vertexBuckets = new ArrayList<>();
+      final List<Bucket> edgeBuckets = new ArrayList<>();
+      final List<Bucket> documentBuckets = new ArrayList<>();
 
       for (final DocumentType type : database.getSchema().getTypes()) {
         final String typeName = type.getName();
@@ -98,20 +79,18 @@ public class JsonlExporterFormat extends AbstractExporterFormat {
           continue;
 
         if (type instanceof VertexType)
-          vertexTypes.add(typeName);
+          vertexBuckets.addAll(type.getBuckets(false));
         else if (type instanceof EdgeType)
-          edgeTypes.add(typeName);
+          edgeBuckets.addAll(type.getBuckets(false));
         else
-          documentTypes.add(typeName);
+          documentBuckets.addAll(type.getBuckets(false));
       }
 
-      final JSONObject recordJson = new JSONObject();
-
-      final JsonGraphSerializer graphSerializer = new JsonGraphSerializer().setSharedJson(recordJson).setExpandVertexEdges(true);
+      final List<Bucket> buckets = new ArrayList<>(vertexBuckets);
+      buckets.addAll(edgeBuckets);
+      buckets.addAll(documentBuckets);
 
-      exportVertices(vertexTypes, graphSerializer);
-      exportEdges(edgeTypes, graphSerializer);
-      exportDocuments(documentTypes, graphSerializer);
+      exportBuckets(exportFile, output, buckets, this::exportBucket);
     }
   }
 
@@ -120,31 +99,43 @@ public class JsonlExporterFormat extends AbstractExporterFormat {
     return NAME;
   }
 
-  private void exportVertices(final List<String> vertexTypes, final JsonGraphSerializer graphSerializer) throws IOException {
-    for (final String type : vertexTypes) {
-      for (final Iterator<Record> cursor = database.iterateType(type, false); cursor.hasNext(); ) {
-        writeJsonLine("v", graphSerializer.serializeGraphElement(cursor.next().asVertex(true)));
-        context.vertices.incrementAndGet();
-      }
+  /**
+   * Writes the records of the bucket as JSON lines. This method can be called by multiple threads, so every call has its own writer and serializer.
+   */
+  private void exportBucket(final DocumentType type, final Bucket bucket, final OutputStream output) throws IOException {
+    final OutputStreamWriter bucketWriter = new OutputStreamWriter(output, DatabaseFactory.getDefaultCharset());
+    final JSONObject lineJson = new JSONObject();
+    final JsonGraphSerializer graphSerializer = new JsonGraphSerializer().setSharedJson(new JSONObject()).setExpandVertexEdges(true);
+
+    final String lineType;
+    final AtomicLong counter;
+    if (type instanceof VertexType) {
+      lineType = "v";
+      counter = context.vertices;
+    } else if (type instanceof EdgeType) {
+      lineType = "e";
+      counter = context.edges;
+    } else {
+      lineType = "d";
+      counter = context.documents;
     }
-  }
 
-  private void exportEdges(final List<String> edgeTypes, final JsonGraphSerializer graphSerializer) throws IOException {
-    for (final String type : edgeTypes) {
-      for (final Iterator<Record> cursor = database.iterateType(type, false); cursor.hasNext(); ) {
-        writeJsonLine("e", graphSerializer.serializeGraphElement(cursor.next().asEdge(true)));
-        context.edges.incrementAndGet();
-      }
-    }
-  }
+    bucket.scan((rid, view) -> {
+      final Document record = (Document) database.getRecordFactory().newImmutableRecord(database, type, rid, view, null);
+      if (!isReadable(record))
+        return true;
 
-  private void exportDocuments(final List<String> documentTypes, final JsonGraphSerializer graphSerializer) throws IOException {
-    for (final String type : documentTypes) {
-      for (final Iterator<Record> cursor = database.iterateType(type, false); cursor.hasNext(); ) {
-        writeJsonLine("d", graphSerializer.serializeGraphElement(cursor.next().asDocument(true)));
-        context.documents.incrementAndGet();
+      try {
+        bucketWriter.write(lineJson.put("t", lineType).put("c", graphSerializer.serializeGraphElement(record)).toString() + "\n");
+      } catch (final IOException e) {
+        throw new ExportException("Error on writing record " + rid + " of bucket '" + bucket.getName() + "'", e);
       }
-    }
+      lineJson.clear();
+      counter.incrementAndGet();
+      return true;
+    }, null);
+
+    bucketWriter.flush();
   }
 
   protected void writeJsonLine(final String type, final JSONObject json) throws IOException {
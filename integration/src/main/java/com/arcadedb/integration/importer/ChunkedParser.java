@@ -0,0 +1,218 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.integration.importer;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Splits an uncompressed local file in byte ranges aligned on record boundaries and parses them concurrently. It is used by the line oriented
+ * formats (CSV, JSONL), so the parsing is not bound to the single thread reading from the {@link Parser}. The boundaries are found by the calling
+ * thread while the chunks already found are parsed, so the scan overlaps the parsing. With quoted content (CSV) the whole file is scanned to skip
+ * the new lines inside quotes, otherwise the scan jumps to the next new line after the chunk size.
+ *
+ * @author Luca Garulli (l.garulli@arcadedata.com)
+ */
+public class ChunkedParser {
+  public static final long MIN_CHUNK_SIZE = 4 * 1024 * 1024;
+  private static final int  BUFFER_SIZE    = 64 * 1024;
+  private final        Parser  parser;
+  private final        File    file;
+  private final        int     parallel;
+  private final        boolean quoted;
+
+  public interface ChunkCallback {
+    void parse(InputStream chunk) throws Exception;
+  }
+
+  public ChunkedParser(final Parser parser, final int parallel, final boolean quoted) {
+    this.parser = parser;
+    this.file = parser.getSource().file;
+    this.parallel = parallel;
+    this.quoted = quoted;
+  }
+
+  /**
+   * Returns true if the source of the parser can be parsed in chunks: it must be an uncompressed local file, the parallel parsing must be enabled
+   * and more than one thread must be available.
+   */
+  public static boolean isSupported(final Parser parser, final ImporterSettings settings) {
+    final Source source = parser.getSource();
+    return settings.parallelParsing && settings.parallel > 1 && settings.parsingLimitBytes <= 0 && settings.parsingLimitEntries <= 0
+        && source.file != null && !source.compressed;
+  }
+
+  /**
+   * Parses the file, skipping the first records, by calling the callback from multiple threads, one call per chunk. The position of the parser
+   * is updated every time a chunk is completely parsed, to keep the progress accurate.
+   *
+   * @return the number of records skipped
+   */
+  public long parse(final long skipRecords, final ChunkCallback callback) throws IOException {
+    final ExecutorService executor = Executors.newFixedThreadPool(parallel);
+    final List<Future<?>> futures = new ArrayList<>();
+
+    try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      final long fileSize = channel.size();
+      final long chunkSize = Math.max(MIN_CHUNK_SIZE, fileSize / (parallel * 4L));
+
+      final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+      long position = 0;
+      long skipped = 0;
+      boolean insideQuotes = false;
+
+      // SKIP THE HEADER RECORDS
+      while (skipped < skipRecords && position < fileSize) {
+        buffer.clear();
+        final int read = channel.read(buffer, position);
+        if (read <= 0)
+          break;
+
+        int i = 0;
+        for (; i < read && skipped < skipRecords; ++i) {
+          final byte b = buffer.get(i);
+          if (quoted && b == '"')
+            insideQuotes = !insideQuotes;
+          else if (b == '\n' && !insideQuotes)
+            ++skipped;
+        }
+        position += i;
+      }
+
+      parser.advance(position);
+
+      long chunkBegin = position;
+      while (chunkBegin < fileSize) {
+        long chunkEnd = fileSize;
+
+        if (quoted) {
+          // SCAN EVERY BYTE TO KNOW IF THE NEW LINE IS INSIDE QUOTES
+          long target = chunkBegin + chunkSize;
+          boolean found = false;
+          while (!found && position < fileSize) {
+            buffer.clear();
+            final int read = channel.read(buffer, position);
+            if (read <= 0)
+              break;
+
+            int i = 0;
+            for (; i < read; ++i) {
+              final byte b = buffer.get(i);
+              if (b == '"')
+                insideQuotes = !insideQuotes;
+              else if (b == '\n' && !insideQuotes && position + i >= target) {
+                found = true;
+                ++i;
+                break;
+              }
+            }
+            position += i;
+          }
+          chunkEnd = position;
+        } else {
+          // JUMP TO THE CHUNK SIZE AND LOOK FOR THE NEXT NEW LINE
+          position = chunkBegin + chunkSize;
+          boolean found = false;
+          while (!found && position < fileSize) {
+            buffer.clear();
+            final int read = channel.read(buffer, position);
+            if (read <= 0)
+              break;
+
+            int i = 0;
+            for (; i < read; ++i) {
+              if (buffer.get(i) == '\n') {
+                found = true;
+                ++i;
+                break;
+              }
+            }
+            position += i;
+          }
+          chunkEnd = Math.min(position, fileSize);
+        }
+
+        final long begin = chunkBegin;
+        final long end = chunkEnd;
+        futures.add(executor.submit(() -> {
+          try (final InputStream chunk = new BufferedInputStream(new ChunkInputStream(channel, begin, end), BUFFER_SIZE)) {
+            callback.parse(chunk);
+          }
+          parser.advance(end - begin);
+          return null;
+        }));
+
+        chunkBegin = chunkEnd;
+      }
+
+      for (final Future<?> future : futures)
+        future.get();
+
+      return skipped;
+
+    } catch (final ExecutionException e) {
+      throw new ImportException("Error on parsing chunk of file '" + file + "'", e.getCause());
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ImportException("Parsing of file '" + file + "' has been interrupted", e);
+    } finally {
+      for (final Future<?> future : futures)
+        future.cancel(true);
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Reads a range of the file with positional reads, so the same channel can be shared by all the threads.
+   */
+  private static class ChunkInputStream extends InputStream {
+    private final FileChannel channel;
+    private final long        end;
+    private       long        position;
+
+    private ChunkInputStream(final FileChannel channel, final long begin, final long end) {
+      this.channel = channel;
+      this.position = begin;
+      this.end = end;
+    }
+
+    @Override
+    public int read() throws IOException {
+      final byte[] b = new byte[1];
+      return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+      if (position >= end)
+        return -1;
+
+      final int read = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, end - position)), position);
+      if (read <= 0)
+        return -1;
+
+      position += read;
+      return read;
+    }
+  }
+}
@@ -43,6 +43,7 @@ public class ImporterSettings {
   public String vertexTypeName            = "Node";
   public String vertexPropertiesInclude   = "*";
   public long   expectedVertices          = 0l;
+  public long   maxRAMVerticesIndex       = 1024 * 1024 * 1024; // 1GB
 
   public String  edges;
   public String  edgesFileType;
@@ -53,6 +54,7 @@ public class ImporterSettings {
   public String  edgePropertiesInclude  = "*";
   public long    expectedEdges          = 0l;
   public long    maxRAMIncomingEdges    = 256 * 1024 * 1024; // 256MB
+  public String  spillDirectory         = null;
   public String  edgeFromField          = null;
   public String  edgeToField            = null;
   public boolean edgeBidirectional      = true;
@@ -60,6 +62,8 @@ public class ImporterSettings {
   public boolean typeIdPropertyIsUnique = false;
   public String  typeIdType             = "String";
   public int     parallel               = 1;
+  public boolean parallelParsing        = true;
+  public boolean bulkLoad               = false;
   public boolean forceDatabaseCreate    = false;
   public boolean trimText               = true;
   public long    analysisLimitBytes     = 100000;
@@ -102,6 +106,10 @@ public class ImporterSettings {
       commitEvery = Integer.parseInt(value);
     else if ("parallel".equals(name))
       parallel = Integer.parseInt(value);
+    else if ("parallelParsing".equals(name))
+      parallelParsing = Boolean.parseBoolean(value);
+    else if ("bulkLoad".equals(name))
+      bulkLoad = Boolean.parseBoolean(value);
     else if ("typeIdProperty".equals(name))
       typeIdProperty = value;
     else if ("typeIdUnique".equals(name))
@@ -151,7 +159,9 @@ public class ImporterSettings {
     else if ("verticesSkipEntries".equals(name))
       verticesSkipEntries = Long.parseLong(value);
     else if ("expectedVertices".equals(name))
-      expectedVertices = Integer.parseInt(value);
+      expectedVertices = Long.parseLong(value);
+    else if ("maxRAMVerticesIndex".equals(name))
+      maxRAMVerticesIndex = Long.parseLong(value);
     else if ("vertexType".equals(name))
       vertexTypeName = value;
     else if ("vertexPropertiesInclude".equals(name))
@@ -170,9 +180,11 @@ public class ImporterSettings {
     else if ("edgesSkipEntries".equals(name))
       edgesSkipEntries = Long.parseLong(value);
     else if ("expectedEdges".equals(name))
-      expectedEdges = Integer.parseInt(value);
+      expectedEdges = Long.parseLong(value);
     else if ("maxRAMIncomingEdges".equals(name))
       maxRAMIncomingEdges = Long.parseLong(value);
+    else if ("spillDirectory".equals(name))
+      spillDirectory = value;
     else if ("edgeType".equals(name))
       edgeTypeName = value;
     else if ("edgePropertiesInclude".equals(name))
@@ -83,6 +83,13 @@ public class Parser {
     return position.get();
   }
 
+  /**
+   * Moves the position forward by the bytes consumed outside this parser, like the chunks parsed in parallel by {@link ChunkedParser}.
+   */
+  public void advance(final long bytes) {
+    position.addAndGet(bytes);
+  }
+
   public long getTotal() {
     return limit > 0 ? Math.min(limit, total) : total;
   }
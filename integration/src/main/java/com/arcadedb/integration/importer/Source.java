@@ -29,15 +29,25 @@ public class Source {
   public        InputStream                                 inputStream;
   public final  long                                        totalSize;
   public final  boolean                                     compressed;
+  public final  File                                        file;
   private final com.arcadedb.utility.Callable<Void, Source> resetCallback;
   private final Callable<Void>                              closeCallback;
 
   public Source(final String url, final InputStream inputStream, final long totalSize, final boolean compressed,
       final com.arcadedb.utility.Callable<Void, Source> resetCallback, final Callable<Void> closeCallback) {
+    this(url, inputStream, totalSize, compressed, null, resetCallback, closeCallback);
+  }
+
+  /**
+   * @param file the local file the content comes from, only when it is uncompressed and can be read at random positions, otherwise null
+   */
+  public Source(final String url, final InputStream inputStream, final long totalSize, final boolean compressed, final File file,
+      final com.arcadedb.utility.Callable<Void, Source> resetCallback, final Callable<Void> closeCallback) {
     this.url = url;
     this.inputStream = inputStream;
     this.totalSize = totalSize;
     this.compressed = compressed;
+    this.file = file;
     this.resetCallback = resetCallback;
     this.closeCallback = closeCallback;
   }
@@ -18,6 +18,8 @@
  */
 package com.arcadedb.integration.importer;
 
+import com.arcadedb.integration.exporter.format.BinaryExporterFormat;
+import com.arcadedb.integration.importer.format.BinaryImporterFormat;
 import com.arcadedb.integration.importer.format.CSVImporterFormat;
 import com.arcadedb.integration.importer.format.FormatImporter;
 import com.arcadedb.integration.importer.format.GloVeImporterFormat;
@@ -101,7 +103,7 @@ public class SourceDiscovery {
 
     connection.connect();
 
-    return getSourceFromContent(new BufferedInputStream(connection.getInputStream()), connection.getContentLengthLong(), resource, source -> {
+    return getSourceFromContent(new BufferedInputStream(connection.getInputStream()), connection.getContentLengthLong(), resource, null, source -> {
       try {
         connection.disconnect();
 
@@ -150,7 +152,7 @@ public class SourceDiscovery {
         throw new FileNotFoundException(filePath);
     }
 
-    return getSourceFromContent(fis, file.length(), resource, source -> {
+    return getSourceFromContent(fis, file.length(), resource, file.exists() ? file : null, source -> {
       try {
         source.inputStream.close();
         if (source.inputStream instanceof GZIPInputStream)
@@ -215,6 +217,8 @@ public class SourceDiscovery {
         return new JSONImporterFormat();
       } else if (knownFileType.equalsIgnoreCase("xml")) {
         return new XMLImporterFormat();
+      } else if (knownFileType.equalsIgnoreCase(BinaryExporterFormat.NAME)) {
+        return new BinaryImporterFormat();
       } else if (knownFileType.equalsIgnoreCase("graphml")) {
 
         try {
@@ -338,6 +342,8 @@ public class SourceDiscovery {
       return "graphml";
     case "graphson":
       return "graphson";
+    case BinaryExporterFormat.NAME:
+      return BinaryExporterFormat.NAME;
     }
     return null;
   }
@@ -349,7 +355,16 @@ public class SourceDiscovery {
 
   private FormatImporter analyzeChar(final Parser parser, final ImporterSettings settings) throws IOException {
     char currentChar = parser.getCurrentChar();
-    if (currentChar == '<') {
+    if (currentChar == BinaryExporterFormat.MAGIC.charAt(0)) {
+      // CHECK FOR AN ARCADEDB BINARY EXPORT
+      int i = 1;
+      while (i < BinaryExporterFormat.MAGIC.length() && parser.isAvailable() && parser.nextChar() == BinaryExporterFormat.MAGIC.charAt(i))
+        ++i;
+
+      if (i == BinaryExporterFormat.MAGIC.length())
+        return new BinaryImporterFormat();
+
+    } else if (currentChar == '<') {
       // READ THE FIRST LINE
       int beginTag = 1;
       int endTag = 0;
@@ -435,7 +450,7 @@ public class SourceDiscovery {
       throw new IllegalArgumentException("Invalid setting '" + name + "'");
   }
 
-  private Source getSourceFromContent(final InputStream in, final long totalSize, final String resource,
+  private Source getSourceFromContent(final InputStream in, final long totalSize, final String resource, final File file,
       final com.arcadedb.utility.Callable<Void, Source> resetCallback, final Callable<Void> closeCallback) throws IOException {
     in.mark(0);
 
@@ -472,7 +487,7 @@ public class SourceDiscovery {
     in.reset();
 
     // ANALYZE THE INPUT AS TEXT
-    return new Source(url, in, totalSize, false, resetCallback, closeCallback);
+    return new Source(url, in, totalSize, false, file, resetCallback, closeCallback);
   }
 
   private String getFormatFromExtension(String fileName) {
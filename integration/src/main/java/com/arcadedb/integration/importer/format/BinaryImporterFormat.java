@@ -0,0 +1,434 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.integration.importer.format;
+
+import com.arcadedb.database.Binary;
+import com.arcadedb.database.BulkLoader;
+import com.arcadedb.database.DatabaseInternal;
+import com.arcadedb.database.Document;
+import com.arcadedb.database.MutableDocument;
+import com.arcadedb.database.RID;
+import com.arcadedb.engine.Dictionary;
+import com.arcadedb.exception.DuplicatedKeyException;
+import com.arcadedb.graph.Edge;
+import com.arcadedb.index.OffHeapAny2RIDIndex;
+import com.arcadedb.index.lsm.LSMTreeIndexAbstract;
+import com.arcadedb.integration.exporter.format.BinaryExporterFormat;
+import com.arcadedb.integration.importer.AnalyzedEntity;
+import com.arcadedb.integration.importer.AnalyzedSchema;
+import com.arcadedb.integration.importer.ImportException;
+import com.arcadedb.integration.importer.ImporterContext;
+import com.arcadedb.integration.importer.ImporterSettings;
+import com.arcadedb.integration.importer.Parser;
+import com.arcadedb.integration.importer.SourceSchema;
+import com.arcadedb.log.LogManager;
+import com.arcadedb.schema.DocumentType;
+import com.arcadedb.schema.EdgeType;
+import com.arcadedb.schema.Schema;
+import com.arcadedb.schema.Type;
+import com.arcadedb.schema.TypeBuilder;
+import com.arcadedb.schema.VertexType;
+import com.arcadedb.serializer.json.JSONArray;
+import com.arcadedb.serializer.json.JSONObject;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.util.*;
+import java.util.logging.*;
+
+/**
+ * Imports a database exported with the binary format (see {@link BinaryExporterFormat}). The dictionary is restored first with the same ids, because
+ * the exported records refer to it, so the target database must be new or contain only the same dictionary items. Then the types, properties and
+ * indexes are created and the documents and vertices are appended by a {@link BulkLoader}. The edges are created by the asynchronous executor,
+ * connecting the new vertices. The new RIDs are mapped from the exported ones in an {@link OffHeapAny2RIDIndex}, so at the end the links of the
+ * records are updated with the new RIDs. If the documents and vertices contain keys duplicated in a unique index, none of them is imported.
+ * <br>
+ * Links inside embedded documents are not updated. Links to records that were not exported are left as they are.
+ */
+public class BinaryImporterFormat extends AbstractImporterFormat {
+  private static final int VERSION = 1;
+
+  @Override
+  public void load(final SourceSchema sourceSchema, final AnalyzedEntity.ENTITY_TYPE entityType, final Parser parser, final DatabaseInternal database,
+      final ImporterContext context, final ImporterSettings settings) throws IOException {
+    if (database.isTransactionActive())
+      database.commit();
+
+    parser.getSource().reset();
+    final DataInputStream input = new DataInputStream(new BufferedInputStream(parser.getSource().inputStream, 65536));
+
+    final byte[] magic = new byte[BinaryExporterFormat.MAGIC.length()];
+    input.readFully(magic);
+    if (!BinaryExporterFormat.MAGIC.equals(new String(magic, StandardCharsets.US_ASCII)))
+      throw new ImportException("Source is not a binary export of an ArcadeDB database");
+
+    final int version = input.readInt();
+    if (version > VERSION)
+      throw new ImportException("Binary export version " + version + " is not supported");
+
+    final JSONObject info = new JSONObject(readString(input));
+    LogManager.instance().log(this, Level.INFO, "Importing binary export of database '%s' executed on %s", info.getString("name"),
+        info.getString("executedOn"));
+
+    final JSONObject schema = new JSONObject(readString(input));
+    final JSONArray indexes = new JSONArray(readString(input));
+
+    final String[] dictionary = new String[input.readInt()];
+    for (int i = 0; i < dictionary.length; i++)
+      dictionary[i] = readString(input);
+
+    restoreDictionary(database, dictionary);
+    restoreSchema(database, schema.getJSONObject("types"), indexes);
+
+    final OffHeapAny2RIDIndex rids = new OffHeapAny2RIDIndex(database, Type.LONG, 0, settings.maxRAMVerticesIndex,
+        settings.spillDirectory != null ? new File(settings.spillDirectory) : null);
+    final List<RID> recordsWithLinks = Collections.synchronizedList(new ArrayList<>());
+
+    try {
+      final List<String> typeNames = new ArrayList<>();
+      for (final String typeName : schema.getJSONObject("types").keySet())
+        if (!(database.getSchema().getType(typeName) instanceof EdgeType))
+          typeNames.add(typeName);
+
+      // THE LOADER REQUIRES NO TRANSACTION ACTIVE, BECAUSE IT UPDATES THE INDEXES IN ITS OWN TRANSACTIONS
+      if (database.isTransactionActive())
+        database.commit();
+
+      BulkLoader loader = new BulkLoader(database, typeNames.toArray(new String[0]));
+      try {
+        for (byte section = input.readByte(); section != BinaryExporterFormat.SECTION_END; section = input.readByte()) {
+          if (section != BinaryExporterFormat.SECTION_BUCKET)
+            throw new ImportException("Invalid section '" + (char) section + "' in binary export");
+
+          final DocumentType type = database.getSchema().getType(readString(input));
+          final String bucketName = readString(input);
+          final int bucketId = input.readInt();
+
+          if (type instanceof EdgeType) {
+            if (loader != null) {
+              // THE EDGES ARE EXPORTED AFTER ALL THE VERTICES: MAKE THE VERTICES VISIBLE
+              final BulkLoader completed = loader;
+              loader = null;
+              closeLoader(database, completed);
+            }
+            importEdges(database, context, input, (EdgeType) type, bucketId, rids, recordsWithLinks);
+          } else {
+            if (loader == null)
+              throw new ImportException("Bucket '" + bucketName + "' with documents found after the edges in binary export");
+            importRecords(database, context, input, loader, type, bucketId, rids, recordsWithLinks);
+          }
+        }
+
+        if (loader != null) {
+          // NO EDGES IN THE EXPORT
+          final BulkLoader completed = loader;
+          loader = null;
+          closeLoader(database, completed);
+        }
+
+      } finally {
+        if (loader != null) {
+          // IMPORT FAILED: RELEASE THE LOCKS ON THE BUCKETS WITHOUT HIDING THE ORIGINAL ERROR
+          if (database.isTransactionActive())
+            database.rollback();
+          try {
+            loader.close();
+          } catch (final RuntimeException e) {
+            LogManager.instance().log(this, Level.WARNING, "Error on closing the bulk loader after a failed import", e);
+          }
+        }
+      }
+
+      database.async().waitCompletion();
+      rids.setReadOnly();
+
+      updateLinks(database, context, settings, rids, recordsWithLinks);
+
+    } finally {
+      rids.close();
+    }
+
+    database.begin();
+  }
+
+  @Override
+  public SourceSchema analyze(final AnalyzedEntity.ENTITY_TYPE entityType, final Parser parser, final ImporterSettings settings,
+      final AnalyzedSchema analyzedSchema) {
+    return new SourceSchema(this, parser.getSource(), analyzedSchema);
+  }
+
+  @Override
+  public String getFormat() {
+    return "ArcadeDB Binary";
+  }
+
+  /**
+   * Makes the loaded documents and vertices visible. In case of keys duplicated in a unique index, the loader discards all of them.
+   */
+  private void closeLoader(final DatabaseInternal database, final BulkLoader loader) {
+    if (database.isTransactionActive())
+      database.commit();
+
+    try {
+      loader.close();
+    } catch (final DuplicatedKeyException e) {
+      throw new ImportException("Duplicated key in unique index, no documents and vertices have been imported", e);
+    }
+  }
+
+  private void importRecords(final DatabaseInternal database, final ImporterContext context, final DataInputStream input, final BulkLoader loader,
+      final DocumentType type, final int bucketId, final OffHeapAny2RIDIndex rids, final List<RID> recordsWithLinks) throws IOException {
+    final boolean vertex = type instanceof VertexType;
+
+    for (int length = input.readInt(); length > -1; length = input.readInt()) {
+      final RID oldRID = new RID(database, bucketId, input.readLong());
+      final Document record = readRecord(database, input, type, oldRID, length);
+      context.parsed.incrementAndGet();
+
+      final Map<String, Object> properties = record.propertiesAsMap();
+      final MutableDocument newRecord = vertex ? database.newVertex(type.getName()) : database.newDocument(type.getName());
+      newRecord.set(properties);
+
+      final RID newRID = loader.createRecord(newRecord);
+      if (newRID == null)
+        continue;
+
+      rids.put(encodeRID(oldRID), newRID);
+      if (containsLinks(properties))
+        recordsWithLinks.add(newRID);
+
+      if (vertex)
+        context.createdVertices.incrementAndGet();
+      else
+        context.createdDocuments.incrementAndGet();
+    }
+  }
+
+  private void importEdges(final DatabaseInternal database, final ImporterContext context, final DataInputStream input, final EdgeType type,
+      final int bucketId, final OffHeapAny2RIDIndex rids, final List<RID> recordsWithLinks) throws IOException {
+    for (int length = input.readInt(); length > -1; length = input.readInt()) {
+      final RID oldRID = new RID(database, bucketId, input.readLong());
+      final Edge edge = (Edge) readRecord(database, input, type, oldRID, length);
+      context.parsed.incrementAndGet();
+
+      final RID out = rids.get(encodeRID(edge.getOut()));
+      final RID in = rids.get(encodeRID(edge.getIn()));
+      if (out == null || in == null) {
+        // ONE OF THE VERTICES WAS NOT EXPORTED
+        context.skippedEdges.incrementAndGet();
+        continue;
+      }
+
+      final Map<String, Object> properties = edge.propertiesAsMap();
+      final boolean links = containsLinks(properties);
+
+      final Object[] pairs = new Object[properties.size() * 2];
+      int i = 0;
+      for (final Map.Entry<String, Object> entry : properties.entrySet()) {
+        pairs[i++] = entry.getKey();
+        pairs[i++] = entry.getValue();
+      }
+
+      final long oldKey = encodeRID(oldRID);
+      database.async().newEdge(out.asVertex(), type.getName(), in, true, false, (newEdge, createdSourceVertex, createdDestinationVertex) -> {
+        rids.put(oldKey, newEdge.getIdentity());
+        if (links)
+          recordsWithLinks.add(newEdge.getIdentity());
+        context.createdEdges.incrementAndGet();
+      }, pairs);
+    }
+  }
+
+  /**
+   * Replaces the exported RIDs with the new ones in the records that contain links.
+   */
+  private void updateLinks(final DatabaseInternal database, final ImporterContext context, final ImporterSettings settings,
+      final OffHeapAny2RIDIndex rids, final List<RID> recordsWithLinks) {
+    context.documentsWithLinksToUpdate.set(recordsWithLinks.size());
+
+    database.begin();
+    for (final RID rid : recordsWithLinks) {
+      final MutableDocument record = rid.asDocument(true).modify();
+      for (final String name : record.getPropertyNames()) {
+        final Object value = record.get(name);
+        final Object newValue = updateLinks(value, rids);
+        if (newValue != value)
+          record.set(name, newValue);
+      }
+      record.save();
+
+      if (context.updatedDocuments.incrementAndGet() % settings.commitEvery == 0) {
+        database.commit();
+        database.begin();
+      }
+    }
+    database.commit();
+  }
+
+  private Object updateLinks(final Object value, final OffHeapAny2RIDIndex rids) {
+    if (value instanceof RID) {
+      final RID rid = (RID) value;
+      if (rid.getBucketId() < 0 || rid.getPosition() < 0)
+        return value;
+      final RID newRID = rids.get(encodeRID(rid));
+      return newRID != null ? newRID : value;
+
+    } else if (value instanceof List) {
+      final List<Object> list = (List<Object>) value;
+      List<Object> newList = null;
+      for (int i = 0; i < list.size(); i++) {
+        final Object item = list.get(i);
+        final Object newItem = updateLinks(item, rids);
+        if (newItem != item && newList == null)
+          newList = new ArrayList<>(list);
+        if (newList != null)
+          newList.set(i, newItem);
+      }
+      return newList != null ? newList : value;
+
+    } else if (value instanceof Map) {
+      final Map<Object, Object> map = (Map<Object, Object>) value;
+      Map<Object, Object> newMap = null;
+      for (final Map.Entry<Object, Object> entry : map.entrySet()) {
+        final Object newItem = updateLinks(entry.getValue(), rids);
+        if (newItem != entry.getValue() && newMap == null)
+          newMap = new LinkedHashMap<>(map);
+        if (newMap != null)
+          newMap.put(entry.getKey(), newItem);
+      }
+      return newMap != null ? newMap : value;
+    }
+    return value;
+  }
+
+  private boolean containsLinks(final Object value) {
+    if (value instanceof RID)
+      return true;
+    if (value instanceof Collection) {
+      for (final Object item : (Collection<?>) value)
+        if (containsLinks(item))
+          return true;
+    } else if (value instanceof Map)
+      for (final Object item : ((Map<?, ?>) value).values())
+        if (containsLinks(item))
+          return true;
+    return false;
+  }
+
+  private void restoreDictionary(final DatabaseInternal database, final String[] names) {
+    final Dictionary dictionary = database.getSchema().getDictionary();
+    for (int i = 0; i < names.length; i++) {
+      final int id = dictionary.getIdByName(names[i], true);
+      if (id != i)
+        throw new ImportException(
+            "Cannot restore the dictionary item '" + names[i] + "' with id " + i + " (found " + id + "). Binary exports can be imported only in a new database");
+    }
+  }
+
+  private void restoreSchema(final DatabaseInternal database, final JSONObject types, final JSONArray indexes) {
+    final Schema schema = database.getSchema();
+    for (final String typeName : types.keySet())
+      restoreType(schema, typeName, types);
+
+    for (int i = 0; i < indexes.length(); i++) {
+      final JSONObject index = indexes.getJSONObject(i);
+      final JSONArray properties = index.getJSONArray("properties");
+      final String[] propertyNames = new String[properties.length()];
+      for (int p = 0; p < propertyNames.length; p++)
+        propertyNames[p] = properties.getString(p);
+
+      schema.buildTypeIndex(index.getString("typeName"), propertyNames)//
+          .withType(Schema.INDEX_TYPE.valueOf(index.getString("indexType")))//
+          .withUnique(index.getBoolean("unique"))//
+          .withNullStrategy(LSMTreeIndexAbstract.NULL_STRATEGY.valueOf(index.getString("nullStrategy")))//
+          .withIgnoreIfExists(true).create();
+    }
+  }
+
+  /**
+   * Creates the type after its parents.
+   */
+  private DocumentType restoreType(final Schema schema, final String typeName, final JSONObject types) {
+    if (schema.existsType(typeName))
+      return schema.getType(typeName);
+
+    final JSONObject json = types.getJSONObject(typeName);
+    final JSONArray parents = json.getJSONArray("parents");
+    for (int i = 0; i < parents.length(); i++)
+      restoreType(schema, parents.getString(i), types);
+
+    final TypeBuilder<? extends DocumentType> builder;
+    switch (json.getString("type")) {
+    case "v":
+      builder = schema.buildVertexType();
+      break;
+    case "e":
+      builder = schema.buildEdgeType();
+      break;
+    default:
+      builder = schema.buildDocumentType();
+    }
+
+    builder.withName(typeName).withTotalBuckets(json.getJSONArray("buckets").length());
+    for (int i = 0; i < parents.length(); i++)
+      builder.withSuperType(parents.getString(i));
+
+    final DocumentType type = builder.create();
+
+    final JSONObject properties = json.getJSONObject("properties");
+    for (final String propertyName : properties.keySet())
+      if (!type.existsProperty(propertyName))
+        type.createProperty(propertyName, properties.getJSONObject(propertyName));
+
+    if (json.has("bucketSelectionStrategy")) {
+      final JSONObject strategy = json.getJSONObject("bucketSelectionStrategy");
+      final Object[] strategyProperties = strategy.has("properties") ? strategy.getJSONArray("properties").toList().toArray() : new Object[0];
+      type.setBucketSelectionStrategy(strategy.getString("name"), strategyProperties);
+    }
+
+    if (json.has("custom")) {
+      final JSONObject custom = json.getJSONObject("custom");
+      for (final String key : custom.keySet())
+        type.setCustomValue(key, custom.get(key));
+    }
+
+    return type;
+  }
+
+  private static Document readRecord(final DatabaseInternal database, final DataInputStream input, final DocumentType type, final RID rid,
+      final int length) throws IOException {
+    // THE CONTENT IS NOT REUSED, BECAUSE THE PROPERTIES OF THE EDGES ARE SERIALIZED BY THE ASYNCHRONOUS TASKS
+    final byte[] content = new byte[length];
+    input.readFully(content);
+    return (Document) database.getRecordFactory().newImmutableRecord(database, type, rid, new Binary(content), null);
+  }
+
+  /**
+   * Encodes the exported RID as key of the map. The position is less than 2^48 in any bucket.
+   */
+  private static long encodeRID(final RID rid) {
+    return ((long) rid.getBucketId() << 48) | rid.getPosition();
+  }
+
+  private static String readString(final DataInputStream input) throws IOException {
+    final byte[] bytes = new byte[input.readInt()];
+    input.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
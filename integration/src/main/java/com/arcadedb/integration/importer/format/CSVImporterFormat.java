@@ -18,14 +18,16 @@
  */
 package com.arcadedb.integration.importer.format;
 
+import com.arcadedb.database.BulkLoader;
 import com.arcadedb.database.Database;
 import com.arcadedb.database.DatabaseFactory;
 import com.arcadedb.database.DatabaseInternal;
 import com.arcadedb.database.MutableDocument;
-import com.arcadedb.index.CompressedAny2RIDIndex;
+import com.arcadedb.index.OffHeapAny2RIDIndex;
 import com.arcadedb.integration.importer.AnalyzedEntity;
 import com.arcadedb.integration.importer.AnalyzedProperty;
 import com.arcadedb.integration.importer.AnalyzedSchema;
+import com.arcadedb.integration.importer.ChunkedParser;
 import com.arcadedb.integration.importer.ImportException;
 import com.arcadedb.integration.importer.ImporterContext;
 import com.arcadedb.integration.importer.ImporterSettings;
@@ -84,9 +86,8 @@ public class CSVImporterFormat extends AbstractImporterFormat {
       // BY DEFAULT SKIP THE FIRST LINE AS HEADER
       skipEntries = 1l;
 
+    BulkLoader bulkLoader = null;
     try (final InputStreamReader inputFileReader = new InputStreamReader(parser.getInputStream(), DatabaseFactory.getDefaultCharset())) {
-      csvParser.beginParsing(inputFileReader);
-
       if (!database.isTransactionActive())
         database.begin();
 
@@ -112,6 +113,18 @@ public class CSVImporterFormat extends AbstractImporterFormat {
 
       database.async().onError(exception -> LogManager.instance().log(this, Level.SEVERE, "Error on inserting documents", exception));
 
+      if (ChunkedParser.isSupported(parser, settings)) {
+        loadDocumentsInChunks(parser, database, context, settings, properties, skipEntries, csvParser instanceof CsvParser);
+        return;
+      }
+
+      if (settings.bulkLoad) {
+        database.commit();
+        bulkLoader = new BulkLoader(database, settings.documentTypeName);
+      }
+
+      csvParser.beginParsing(inputFileReader);
+
       String[] row;
       for (long line = 0; (row = csvParser.parseNext()) != null; ++line) {
         context.parsed.incrementAndGet();
@@ -127,7 +140,11 @@ public class CSVImporterFormat extends AbstractImporterFormat {
           document.set(prop.getName(), row[prop.getIndex()]);
         }
 
-        document.save();
+        if (bulkLoader != null)
+          bulkLoader.createRecord(document);
+        else
+          document.save();
+        context.createdDocuments.incrementAndGet();
 
 //        database.async().createRecord(document, new NewRecordCallback() {
 //          @Override
@@ -137,7 +154,10 @@ public class CSVImporterFormat extends AbstractImporterFormat {
 //        });
       }
 
-      database.commit();
+      if (bulkLoader != null)
+        bulkLoader.close();
+      else
+        database.commit();
       database.async().waitCompletion();
 
     } catch (final IOException e) {
@@ -149,10 +169,61 @@ public class CSVImporterFormat extends AbstractImporterFormat {
       LogManager.instance().log(this, Level.INFO, "- Parsed lines...: %d", null, context.parsed.get());
       LogManager.instance().log(this, Level.INFO, "- Total documents: %d", null, context.createdDocuments.get());
 
+      if (bulkLoader != null)
+        bulkLoader.close();
+
       csvParser.stopParsing();
     }
   }
 
+  /**
+   * Parses the file in chunks from multiple threads. Every chunk has its own CSV parser and the documents are created by the async workers, each
+   * one owning the buckets assigned to its slot.
+   */
+  private void loadDocumentsInChunks(final Parser parser, final Database database, final ImporterContext context, final ImporterSettings settings,
+      final List<AnalyzedProperty> properties, final long skipEntries, final boolean quoted) throws IOException {
+    LogManager.instance().log(this, Level.INFO, "Parsing CSV source in chunks with %d threads", null, settings.parallel);
+
+    if (database.isTransactionActive())
+      database.commit();
+
+    final BulkLoader bulkLoader = settings.bulkLoad ? new BulkLoader(database, settings.documentTypeName) : null;
+    try {
+      final long skipped = new ChunkedParser(parser, settings.parallel, quoted).parse(skipEntries, chunk -> {
+        final AbstractParser chunkParser = createCSVParser(settings, ",");
+        chunkParser.beginParsing(new InputStreamReader(chunk, DatabaseFactory.getDefaultCharset()));
+        try {
+          String[] row;
+          while ((row = chunkParser.parseNext()) != null) {
+            context.parsed.incrementAndGet();
+
+            final MutableDocument document = database.newDocument(settings.documentTypeName);
+
+            for (int p = 0; p < properties.size(); ++p) {
+              final AnalyzedProperty prop = properties.get(p);
+              document.set(prop.getName(), row[prop.getIndex()]);
+            }
+
+            if (bulkLoader != null) {
+              bulkLoader.createRecord(document);
+              context.createdDocuments.incrementAndGet();
+            } else
+              database.async().createRecord(document, newDocument -> context.createdDocuments.incrementAndGet());
+          }
+        } finally {
+          chunkParser.stopParsing();
+        }
+      });
+
+      context.parsed.addAndGet(skipped);
+    } finally {
+      if (bulkLoader != null)
+        bulkLoader.close();
+    }
+
+    database.async().waitCompletion();
+  }
+
   private void loadVertices(final SourceSchema sourceSchema, final Parser parser, final Database database, final ImporterContext context,
       final ImporterSettings settings) throws ImportException {
 
@@ -181,15 +252,9 @@ public class CSVImporterFormat extends AbstractImporterFormat {
       expectedVertices = (int) (sourceSchema.getSource().totalSize / entity.getAverageRowLength());
     if (expectedVertices <= 0)
       expectedVertices = 1000000;
-    else if (expectedVertices > Integer.MAX_VALUE)
-      expectedVertices = Integer.MAX_VALUE;
 
-    try {
-      context.graphImporter = new GraphImporter((DatabaseInternal) database, (int) expectedVertices, (int) settings.expectedEdges,
-          Type.valueOf(settings.typeIdType.toUpperCase()));
-    } catch (ClassNotFoundException e) {
-      throw new ImportException("Error on creating internal component", e);
-    }
+    // THE VERTICES INDEX GROWS ON DEMAND: THE EXPECTED VERTICES ARE ONLY THE INITIAL SIZE
+    context.graphImporter = new GraphImporter((DatabaseInternal) database, expectedVertices, Type.valueOf(settings.typeIdType.toUpperCase()), settings);
 
     final AbstractParser csvParser = createCSVParser(settings, ",");
 
@@ -230,7 +295,7 @@ public class CSVImporterFormat extends AbstractImporterFormat {
       String[] row;
       final Object[] vertexProperties = new Object[properties.size() * 2];
 
-      final CompressedAny2RIDIndex<Object> verticesIndex = context.graphImporter.getVerticesIndex();
+      final OffHeapAny2RIDIndex verticesIndex = context.graphImporter.getVerticesIndex();
 
       for (long line = 0; (row = csvParser.parseNext()) != null; ++line) {
         context.parsed.incrementAndGet();
@@ -257,9 +322,9 @@ public class CSVImporterFormat extends AbstractImporterFormat {
         context.createdVertices.incrementAndGet();
 
         if (line > 0 && line % 10000000 == 0) {
-          LogManager.instance().log(this, Level.INFO, "Map chunkSize=%s chunkAllocated=%s size=%d totalUsedSlots=%d", null,
-              FileUtils.getSizeAsString(verticesIndex.getChunkSize()), FileUtils.getSizeAsString(verticesIndex.getChunkAllocated()), verticesIndex.size(),
-              verticesIndex.getTotalUsedSlots());
+          LogManager.instance().log(this, Level.INFO, "Map allocated=%s spilled=%s size=%d capacity=%d", null,
+              FileUtils.getSizeAsString(verticesIndex.getAllocatedBytes()), FileUtils.getSizeAsString(verticesIndex.getSpilledBytes()), verticesIndex.size(),
+              verticesIndex.getCapacity());
         }
       }
 
@@ -313,12 +378,8 @@ public class CSVImporterFormat extends AbstractImporterFormat {
     LogManager.instance()
         .log(this, Level.INFO, "Started importing edges from CSV source (expectedVertices=%d expectedEdges=%d)", null, expectedVertices, expectedEdges);
 
-    try {
-      if (context.graphImporter == null)
-        context.graphImporter = new GraphImporter(database, (int) expectedVertices, (int) expectedEdges, Type.valueOf(settings.typeIdType.toUpperCase()));
-    } catch (ClassNotFoundException e) {
-      throw new ImportException("Error on creating internal component", e);
-    }
+    if (context.graphImporter == null)
+      context.graphImporter = new GraphImporter(database, expectedVertices, Type.valueOf(settings.typeIdType.toUpperCase()), settings);
     context.graphImporter.startImportingEdges();
 
     database.async().onError(exception -> LogManager.instance().log(this, Level.SEVERE, "Error on inserting edges", exception));
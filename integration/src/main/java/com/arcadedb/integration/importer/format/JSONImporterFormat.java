@@ -18,7 +18,9 @@
  */
 package com.arcadedb.integration.importer.format;
 
+import com.arcadedb.database.BulkLoader;
 import com.arcadedb.database.Database;
+import com.arcadedb.database.DatabaseFactory;
 import com.arcadedb.database.DatabaseInternal;
 import com.arcadedb.database.Document;
 import com.arcadedb.database.MutableDocument;
@@ -30,6 +32,7 @@ import com.arcadedb.graph.Vertex;
 import com.arcadedb.index.IndexCursor;
 import com.arcadedb.integration.importer.AnalyzedEntity;
 import com.arcadedb.integration.importer.AnalyzedSchema;
+import com.arcadedb.integration.importer.ChunkedParser;
 import com.arcadedb.integration.importer.ImporterContext;
 import com.arcadedb.integration.importer.ImporterSettings;
 import com.arcadedb.integration.importer.Parser;
@@ -55,6 +58,8 @@ import static com.google.gson.stream.JsonToken.END_ARRAY;
 import static com.google.gson.stream.JsonToken.END_OBJECT;
 
 public class JSONImporterFormat implements FormatImporter {
+  private static final int MAX_JSONL_LINE_DETECTION = 16 * 1024 * 1024;
+
   static class CascadingProperties {
     CascadingProperties parent;
     Map<String, Object> map;
@@ -71,20 +76,31 @@ public class JSONImporterFormat implements FormatImporter {
 
     final JSONObject mapping = settings.mapping != null ? new JSONObject(settings.mapping) : null;
 
+    if (mapping == null && ChunkedParser.isSupported(parser, settings) && isJSONL(parser.getSource().file)) {
+      loadJSONLInChunks(parser, database, context, settings);
+      return;
+    }
+
     JsonToken waitFor = null;
     Object tagValue = null;
 
     try (final JsonReader reader = new Gson().newJsonReader(parser.getReader())) {
+      if (mapping == null) {
+        // ONE OR MORE OBJECTS AT THE TOP LEVEL (JSONL)
+        reader.setLenient(true);
+        do {
+          final Object record = parseRecord(reader, settings, context, database, null, false);
+          if (record instanceof Map) {
+            saveAnonymousRecord(database, settings, (Map<String, Object>) record);
+            context.createdDocuments.incrementAndGet();
+          }
+        } while (reader.peek() == BEGIN_OBJECT);
+        return;
+      }
+
       while (reader.hasNext()) {
         JsonToken token = reader.peek();
 
-        if (mapping == null) {
-          final Object record = parseRecord(reader, settings, context, database, mapping, false);
-          if (record instanceof Map)
-            saveAnonymousRecord(database, settings, (Map<String, Object>) record);
-          return;
-        }
-
         switch (token) {
         case BEGIN_OBJECT:
           reader.beginObject();
@@ -108,6 +124,76 @@ public class JSONImporterFormat implements FormatImporter {
     }
   }
 
+  /**
+   * Parses a JSONL file (one object per line) in chunks from multiple threads. The documents are created by the async workers, each one owning the
+   * buckets assigned to its slot.
+   */
+  private void loadJSONLInChunks(final Parser parser, final DatabaseInternal database, final ImporterContext context, final ImporterSettings settings)
+      throws IOException {
+    LogManager.instance().log(this, Level.INFO, "Parsing JSONL source in chunks with %d threads", settings.parallel);
+
+    database.getSchema().getOrCreateDocumentType(settings.documentTypeName);
+    if (database.isTransactionActive())
+      database.commit();
+
+    final BulkLoader bulkLoader = settings.bulkLoad ? new BulkLoader(database, settings.documentTypeName) : null;
+    try {
+      new ChunkedParser(parser, settings.parallel, false).parse(0, chunk -> {
+        try (final JsonReader reader = new Gson().newJsonReader(new InputStreamReader(chunk, DatabaseFactory.getDefaultCharset()))) {
+          reader.setLenient(true);
+          while (reader.peek() == BEGIN_OBJECT) {
+            final Object record = parseRecord(reader, settings, context, database, null, false);
+            if (record instanceof Map) {
+              final MutableDocument document = database.newDocument(settings.documentTypeName).set((Map<String, Object>) record);
+              if (bulkLoader != null) {
+                bulkLoader.createRecord(document);
+                context.createdDocuments.incrementAndGet();
+              } else
+                database.async().createRecord(document, newDocument -> context.createdDocuments.incrementAndGet());
+            }
+          }
+        }
+      });
+    } finally {
+      if (bulkLoader != null)
+        bulkLoader.close();
+    }
+
+    database.async().waitCompletion();
+  }
+
+  /**
+   * Returns true if the first line of the file contains a complete JSON object.
+   */
+  private static boolean isJSONL(final File file) throws IOException {
+    final StringBuilder line = new StringBuilder();
+    try (final Reader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), DatabaseFactory.getDefaultCharset()))) {
+      for (int c; (c = reader.read()) != -1; ) {
+        if (c == '\n') {
+          if (line.toString().isBlank())
+            continue;
+          break;
+        }
+
+        if (line.length() >= MAX_JSONL_LINE_DETECTION)
+          return false;
+
+        line.append((char) c);
+      }
+    }
+
+    final String firstLine = line.toString().trim();
+    if (!firstLine.startsWith("{"))
+      return false;
+
+    try {
+      new JSONObject(firstLine);
+      return true;
+    } catch (final Exception e) {
+      return false;
+    }
+  }
+
   @Override
   public SourceSchema analyze(final AnalyzedEntity.ENTITY_TYPE entityType, final Parser parser, final ImporterSettings settings,
       final AnalyzedSchema analyzedSchema) {
@@ -25,13 +25,11 @@ import com.arcadedb.database.async.DatabaseAsyncExecutorImpl;
 import com.arcadedb.database.async.DatabaseAsyncTask;
 import com.arcadedb.graph.Edge;
 import com.arcadedb.graph.EdgeLinkedList;
-import com.arcadedb.graph.EdgeSegment;
 import com.arcadedb.graph.GraphEngine;
 import com.arcadedb.graph.MutableVertex;
 import com.arcadedb.graph.Vertex;
 import com.arcadedb.graph.VertexInternal;
-import com.arcadedb.index.CompressedRID2RIDsIndex;
-import com.arcadedb.integration.importer.ImportException;
+import com.arcadedb.index.OffHeapRID2RIDsBuffer;
 import com.arcadedb.integration.importer.ImporterContext;
 import com.arcadedb.integration.importer.ImporterSettings;
 import com.arcadedb.log.LogManager;
@@ -69,7 +67,7 @@ public class CreateEdgeFromImportTask implements DatabaseAsyncTask {
 //    LogManager.instance().log(this, Level.INFO, "Using context %s from theadId=%d", null, threadContext, Thread.currentThread().getId());
 
     // TODO: LOAD FROM INDEX
-    final RID destinationVertexRID = context.graphImporter.getVertex(threadContext.vertexIndexThreadBuffer, destinationVertexKey);
+    final RID destinationVertexRID = context.graphImporter.getVertex(destinationVertexKey);
     if (destinationVertexRID == null) {
       // SKIP IT
       context.skippedEdges.incrementAndGet();
@@ -81,7 +79,7 @@ public class CreateEdgeFromImportTask implements DatabaseAsyncTask {
       threadContext.connections = new ArrayList<>();
 
       // TODO: LOAD FROM INDEX
-      final RID sourceVertexRID = context.graphImporter.getVertex(threadContext.vertexIndexThreadBuffer, sourceVertexKey);
+      final RID sourceVertexRID = context.graphImporter.getVertex(sourceVertexKey);
       if (sourceVertexRID == null) {
         // SKIP IT
         context.skippedEdges.incrementAndGet();
@@ -96,37 +94,31 @@ public class CreateEdgeFromImportTask implements DatabaseAsyncTask {
 
     ++threadContext.importedEdges;
 
-    if (threadContext.incomingConnectionsIndexThread.getChunkSize() >= settings.maxRAMIncomingEdges) {
+    if (threadContext.incomingConnectionsIndexThread.getUsedBytes() >= settings.maxRAMIncomingEdges) {
       LogManager.instance()
-          .log(this, Level.INFO, "Creation of back connections, reached %s size (max=%s), flushing %d connections (slots=%d thread=%d)...", null,
-              FileUtils.getSizeAsString(threadContext.incomingConnectionsIndexThread.getChunkSize()), FileUtils.getSizeAsString(settings.maxRAMIncomingEdges),
-              threadContext.incomingConnectionsIndexThread.size(), threadContext.incomingConnectionsIndexThread.getTotalUsedSlots(),
-              Thread.currentThread().getId());
+          .log(this, Level.INFO, "Creation of back connections, reached %s size (max=%s), flushing %d connections (thread=%d)...", null,
+              FileUtils.getSizeAsString(threadContext.incomingConnectionsIndexThread.getUsedBytes()), FileUtils.getSizeAsString(settings.maxRAMIncomingEdges),
+              threadContext.incomingConnectionsIndexThread.size(), Thread.currentThread().getId());
 
       createIncomingEdgesInBatch(database, threadContext.incomingConnectionsIndexThread, linked -> context.linkedEdges.addAndGet(linked));
 
-      // CREATE A NEW CHUNK BEFORE CONTINUING
-      try {
-        threadContext.incomingConnectionsIndexThread = new CompressedRID2RIDsIndex(database, threadContext.incomingConnectionsIndexThread.getKeys(),
-            (int) settings.expectedEdges);
-      } catch (ClassNotFoundException e) {
-        throw new ImportException("Error on creating internal component", e);
-      }
+      // REUSE THE BUFFER BEFORE CONTINUING
+      threadContext.incomingConnectionsIndexThread.clear();
 
       LogManager.instance().log(this, Level.INFO, "Creation done, reset index buffer and continue");
     }
 
     if (threadContext.importedEdges % settings.commitEvery == 0) {
-      LogManager.instance().log(this, Level.FINE, "Committing batch of outgoing edges (chunkSize=%s max=%s entries=%d slots=%d)...", null,
-          FileUtils.getSizeAsString(threadContext.incomingConnectionsIndexThread.getChunkSize()), FileUtils.getSizeAsString(settings.maxRAMIncomingEdges),
-          threadContext.incomingConnectionsIndexThread.size(), threadContext.incomingConnectionsIndexThread.getTotalUsedSlots());
+      LogManager.instance().log(this, Level.FINE, "Committing batch of outgoing edges (bufferSize=%s max=%s entries=%d)...", null,
+          FileUtils.getSizeAsString(threadContext.incomingConnectionsIndexThread.getUsedBytes()), FileUtils.getSizeAsString(settings.maxRAMIncomingEdges),
+          threadContext.incomingConnectionsIndexThread.size());
 
       createEdgesInBatch(database, threadContext.incomingConnectionsIndexThread, context, settings, threadContext.connections);
       threadContext.connections = new ArrayList<>();
     }
   }
 
-  private void createEdgesInBatch(final DatabaseInternal database, final CompressedRID2RIDsIndex edgeIndex, final ImporterContext context,
+  private void createEdgesInBatch(final DatabaseInternal database, final OffHeapRID2RIDsBuffer edgeIndex, final ImporterContext context,
       final ImporterSettings settings, final List<GraphEngine.CreateEdgeOperation> connections) {
     if (!connections.isEmpty()) {
       // CREATE EDGES ALL TOGETHER FOR THE PREVIOUS BATCH
@@ -145,13 +137,17 @@ public class CreateEdgeFromImportTask implements DatabaseAsyncTask {
     }
   }
 
-  protected static void createIncomingEdgesInBatch(final DatabaseInternal database, final CompressedRID2RIDsIndex index, final EdgeLinkedCallback callback) {
+  /**
+   * Links the incoming connections of the buffer after sorting them by destination vertex, so the vertices are updated in RID order.
+   */
+  protected static void createIncomingEdgesInBatch(final DatabaseInternal database, final OffHeapRID2RIDsBuffer index, final EdgeLinkedCallback callback) {
     Vertex lastVertex = null;
 
     LogManager.instance()
-        .log(CreateEdgeFromImportTask.class, Level.INFO, "Linking %d incoming connections (chunk=%s allocated=%s totalSlotUsed=%d keys=%d)...", null,
-            index.size(), FileUtils.getSizeAsString(index.getChunkSize()), FileUtils.getSizeAsString(index.getChunkAllocated()), index.getTotalUsedSlots(),
-            index.getKeys());
+        .log(CreateEdgeFromImportTask.class, Level.INFO, "Linking %d incoming connections (buffer=%s)...", null, index.size(),
+            FileUtils.getSizeAsString(index.getUsedBytes()));
+
+    index.sort();
 
     List<Pair<Identifiable, Identifiable>> connections = new ArrayList<>();
 
@@ -160,7 +156,7 @@ public class CreateEdgeFromImportTask implements DatabaseAsyncTask {
     int minEdges = Integer.MAX_VALUE;
     int maxEdges = -1;
 
-    for (final CompressedRID2RIDsIndex.EntryIterator it = index.entryIterator(); it.hasNext(); it.moveNext()) {
+    for (final OffHeapRID2RIDsBuffer.EntryIterator it = index.entryIterator(); it.hasNext(); it.moveNext()) {
       try {
         final Vertex destinationVertex = it.getKeyRID().asVertex(true);
 
@@ -203,9 +199,7 @@ public class CreateEdgeFromImportTask implements DatabaseAsyncTask {
 
     final MutableVertex toVertexRecord = ((Vertex) toVertex.getRecord()).modify();
 
-    final EdgeSegment inChunk = database.getGraphEngine().createInEdgeChunk(toVertexRecord);
-
-    final EdgeLinkedList inLinkedList = new EdgeLinkedList(toVertexRecord, Vertex.DIRECTION.IN, inChunk);
+    final EdgeLinkedList inLinkedList = database.getGraphEngine().createEdgeLinkedList(toVertexRecord, Vertex.DIRECTION.IN);
     inLinkedList.addAll(connections);
 
     if (callback != null)
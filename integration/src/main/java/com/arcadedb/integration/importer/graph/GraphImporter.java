@@ -18,27 +18,34 @@
  */
 package com.arcadedb.integration.importer.graph;
 
-import com.arcadedb.database.Binary;
 import com.arcadedb.database.DatabaseInternal;
 import com.arcadedb.database.Identifiable;
 import com.arcadedb.database.RID;
 import com.arcadedb.database.async.DatabaseAsyncExecutorImpl;
 import com.arcadedb.graph.GraphEngine;
 import com.arcadedb.graph.MutableVertex;
+import com.arcadedb.graph.Vertex;
 import com.arcadedb.graph.VertexInternal;
-import com.arcadedb.index.CompressedAny2RIDIndex;
-import com.arcadedb.index.CompressedRID2RIDsIndex;
+import com.arcadedb.index.OffHeapAny2RIDIndex;
+import com.arcadedb.index.OffHeapRID2RIDsBuffer;
 import com.arcadedb.integration.importer.ImporterContext;
 import com.arcadedb.integration.importer.ImporterSettings;
 import com.arcadedb.log.LogManager;
 import com.arcadedb.schema.Type;
 import com.arcadedb.utility.Pair;
 
+import java.io.*;
 import java.util.*;
+import java.util.concurrent.atomic.*;
 import java.util.logging.*;
 
+/**
+ * Imports vertices and edges by resolving the ids of the source through an off-heap map of ids to RIDs. The incoming edges are buffered per
+ * thread in off-heap buffers, then sorted and linked to the destination vertices in RID order. Both structures grow on demand and spill to
+ * temporary files when they exceed the configured RAM, so the expected number of vertices and edges is only a hint.
+ */
 public class GraphImporter {
-  private final CompressedAny2RIDIndex       verticesIndex;
+  private final OffHeapAny2RIDIndex          verticesIndex;
   private final DatabaseInternal             database;
   private final GraphImporterThreadContext[] threadContexts;
 
@@ -47,31 +54,31 @@ public class GraphImporter {
   private STATUS status = STATUS.IMPORTING_VERTEX;
 
   public class GraphImporterThreadContext {
-    Binary                  vertexIndexThreadBuffer;
-    CompressedRID2RIDsIndex incomingConnectionsIndexThread;
+    OffHeapRID2RIDsBuffer incomingConnectionsIndexThread;
 
     Long                                  lastSourceKey    = null;
     VertexInternal                        lastSourceVertex = null;
     List<GraphEngine.CreateEdgeOperation> connections      = new ArrayList<>();
     int                                   importedEdges    = 0;
 
-    public GraphImporterThreadContext(final int expectedVertices, final int expectedEdges) throws ClassNotFoundException {
-      incomingConnectionsIndexThread = new CompressedRID2RIDsIndex(database, expectedVertices, expectedEdges);
+    public GraphImporterThreadContext(final AtomicLong availableRAM, final File spillDirectory) {
+      incomingConnectionsIndexThread = new OffHeapRID2RIDsBuffer(database, availableRAM, spillDirectory);
     }
   }
 
-  public GraphImporter(final DatabaseInternal database, final int expectedVertices, final int expectedEdges, final Type idType) throws ClassNotFoundException {
+  public GraphImporter(final DatabaseInternal database, final long expectedVertices, final Type idType, final ImporterSettings settings) {
     this.database = database;
 
     final int parallel = database.async().getParallelLevel();
+    final File spillDirectory = settings.spillDirectory != null ? new File(settings.spillDirectory) : null;
 
-    this.verticesIndex = new CompressedAny2RIDIndex(database, idType, expectedVertices);
-
-    final int expectedEdgesPerThread = expectedEdges / parallel;
+    this.verticesIndex = new OffHeapAny2RIDIndex(database, idType, expectedVertices, settings.maxRAMVerticesIndex, spillDirectory);
 
+    // THE BUFFERS OF ALL THE THREADS SHARE THE SAME BUDGET OF DIRECT MEMORY
+    final AtomicLong incomingEdgesRAM = new AtomicLong(settings.maxRAMIncomingEdges);
     threadContexts = new GraphImporterThreadContext[parallel];
     for (int i = 0; i < parallel; ++i)
-      threadContexts[i] = new GraphImporterThreadContext(expectedVertices, expectedEdgesPerThread);
+      threadContexts[i] = new GraphImporterThreadContext(incomingEdgesRAM, spillDirectory);
   }
 
   public void close() {
@@ -83,21 +90,21 @@ public class GraphImporter {
 
     database.async().waitCompletion();
 
-    for (int i = 0; i < threadContexts.length; ++i)
-      threadContexts[i].incomingConnectionsIndexThread.setReadOnly();
+    try {
+      createIncomingEdges(database, callback);
 
-    createIncomingEdges(database, callback);
-
-    database.async().waitCompletion();
+      database.async().waitCompletion();
 
-    for (int i = 0; i < threadContexts.length; ++i)
-      threadContexts[i] = null;
+    } finally {
+      for (int i = 0; i < threadContexts.length; ++i) {
+        threadContexts[i].incomingConnectionsIndexThread.close();
+        threadContexts[i] = null;
+      }
 
-    status = STATUS.CLOSED;
-  }
+      verticesIndex.close();
 
-  public RID getVertex(final Binary vertexIndexThreadBuffer, final long vertexId) {
-    return verticesIndex.get(vertexIndexThreadBuffer, vertexId);
+      status = STATUS.CLOSED;
+    }
   }
 
   public RID getVertex(final long vertexId) {
@@ -105,7 +112,7 @@ public class GraphImporter {
   }
 
   public void createVertex(final String vertexTypeName, final String vertexId, final Object[] vertexProperties) {
-    final Object transformedVertexId = verticesIndex.getKeyBinaryType().newInstance(vertexId);
+    final Object transformedVertexId = verticesIndex.getKeyType().newInstance(vertexId);
 
     final MutableVertex sourceVertex;
     final RID sourceVertexRID = verticesIndex.get(transformedVertexId);
@@ -117,8 +124,8 @@ public class GraphImporter {
       database.async().createRecord(sourceVertex, newDocument -> {
         // PRE-CREATE OUT/IN CHUNKS TO SPEEDUP EDGE CREATION
         final DatabaseInternal db = database;
-        db.getGraphEngine().createOutEdgeChunk(sourceVertex);
-        db.getGraphEngine().createInEdgeChunk(sourceVertex);
+        db.getGraphEngine().createEdgeLinkedList(sourceVertex, Vertex.DIRECTION.OUT);
+        db.getGraphEngine().createEdgeLinkedList(sourceVertex, Vertex.DIRECTION.IN);
 
         verticesIndex.put(transformedVertexId, newDocument.getIdentity());
       });
@@ -141,53 +148,65 @@ public class GraphImporter {
 
     status = STATUS.IMPORTING_EDGE;
 
-    for (int i = 0; i < threadContexts.length; ++i)
-      threadContexts[i].vertexIndexThreadBuffer = verticesIndex.getInternalBuffer().slice();
+    // ALL THE VERTICES HAVE BEEN CREATED: FROM NOW ON THE LOOKUPS ARE LOCK FREE
+    database.async().waitCompletion();
+    verticesIndex.setReadOnly();
   }
 
-  public CompressedAny2RIDIndex<Object> getVerticesIndex() {
+  public OffHeapAny2RIDIndex getVerticesIndex() {
     return verticesIndex;
   }
 
+  /**
+   * Links the incoming edges by merging the sorted buffers of all the threads, so every destination vertex is updated once and the vertices are
+   * updated in RID order.
+   */
   protected void createIncomingEdges(final DatabaseInternal database, final EdgeLinkedCallback callback) {
-    List<Pair<Identifiable, Identifiable>> connections = new ArrayList<>();
+    long totalEntries = 0;
+    for (final GraphImporterThreadContext threadContext : threadContexts)
+      totalEntries += threadContext.incomingConnectionsIndexThread.size();
+
+    LogManager.instance().log(this, Level.INFO, "Linking back %d edges for %d vertices...", null, totalEntries, verticesIndex.size());
+
+    Arrays.stream(threadContexts).parallel().forEach(t -> t.incomingConnectionsIndexThread.sort());
+
+    final OffHeapRID2RIDsBuffer.EntryIterator[] iterators = new OffHeapRID2RIDsBuffer.EntryIterator[threadContexts.length];
+    for (int t = 0; t < threadContexts.length; ++t)
+      iterators[t] = threadContexts[t].incomingConnectionsIndexThread.entryIterator();
+
+    final DatabaseAsyncExecutorImpl async = (DatabaseAsyncExecutorImpl) database.async();
 
-    long browsedVertices = 0;
     long browsedEdges = 0;
-    long verticesWithNoEdges = 0;
     long verticesWithEdges = 0;
 
-    LogManager.instance().log(this, Level.INFO, "Linking back edges for %d vertices...", null, verticesIndex.size());
-
-    // BROWSE ALL THE VERTICES AND COLLECT ALL THE EDGES FROM THE OTHER IN RAM INDEXES
-    for (final CompressedAny2RIDIndex.EntryIterator it = verticesIndex.vertexIterator(); it.hasNext(); ) {
-      final RID destinationVertex = it.next();
+    while (true) {
+      // FIND THE LOWEST DESTINATION VERTEX AMONG THE THREADS
+      long destinationKey = Long.MAX_VALUE;
+      RID destinationVertex = null;
+      for (final OffHeapRID2RIDsBuffer.EntryIterator it : iterators)
+        if (it.hasNext() && it.getKey() < destinationKey) {
+          destinationKey = it.getKey();
+          destinationVertex = it.getKeyRID();
+        }
 
-      ++browsedVertices;
+      if (destinationVertex == null)
+        break;
 
-      for (int t = 0; t < threadContexts.length; ++t) {
-        final List<Pair<RID, RID>> edges = threadContexts[t].incomingConnectionsIndexThread.get(destinationVertex);
-        if (edges != null) {
-          for (int e = 0; e < edges.size(); ++e) {
-            final Pair<RID, RID> edge = edges.get(e);
-            connections.add(new Pair<>(edge.getFirst(), edge.getSecond()));
-            ++browsedEdges;
-          }
+      // COLLECT ALL THE EDGES OF THE DESTINATION VERTEX
+      final List<Pair<Identifiable, Identifiable>> connections = new ArrayList<>();
+      for (final OffHeapRID2RIDsBuffer.EntryIterator it : iterators)
+        for (; it.hasNext() && it.getKey() == destinationKey; it.moveNext()) {
+          connections.add(new Pair<>(it.getEdgeRID(), it.getVertexRID()));
+          ++browsedEdges;
         }
-      }
 
-      if (!connections.isEmpty()) {
-        final DatabaseAsyncExecutorImpl async = (DatabaseAsyncExecutorImpl) database.async();
-        final int slot = async.getSlot(destinationVertex.getBucketId());
-        async.scheduleTask(slot, new LinkEdgeFromImportTask(destinationVertex, connections, callback), true, 70);
-        connections = new ArrayList<>();
-        ++verticesWithEdges;
-      } else
-        ++verticesWithNoEdges;
+      final int slot = async.getSlot(destinationVertex.getBucketId());
+      async.scheduleTask(slot, new LinkEdgeFromImportTask(destinationVertex, connections, callback), true, 70);
+      ++verticesWithEdges;
     }
 
     LogManager.instance()
-        .log(this, Level.INFO, "Linking back edges completed: browsedVertices=%d browsedEdges=%d verticesWithEdges=%d verticesWithNoEdges=%d", null,
-            browsedVertices, browsedEdges, verticesWithEdges, verticesWithNoEdges);
+        .log(this, Level.INFO, "Linking back edges completed: browsedEdges=%d verticesWithEdges=%d verticesWithNoEdges=%d", null, browsedEdges,
+            verticesWithEdges, verticesIndex.size() - verticesWithEdges);
   }
 }
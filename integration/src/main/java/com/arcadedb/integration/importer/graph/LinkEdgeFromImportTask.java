@@ -23,7 +23,6 @@ import com.arcadedb.database.Identifiable;
 import com.arcadedb.database.async.DatabaseAsyncExecutorImpl;
 import com.arcadedb.database.async.DatabaseAsyncTask;
 import com.arcadedb.graph.EdgeLinkedList;
-import com.arcadedb.graph.EdgeSegment;
 import com.arcadedb.graph.MutableVertex;
 import com.arcadedb.graph.Vertex;
 import com.arcadedb.utility.Pair;
@@ -49,9 +48,7 @@ public class LinkEdgeFromImportTask implements DatabaseAsyncTask {
 
     final MutableVertex toVertexRecord = ((Vertex) destinationVertex.getRecord()).modify();
 
-    final EdgeSegment inChunk = database.getGraphEngine().createInEdgeChunk(toVertexRecord);
-
-    final EdgeLinkedList inLinkedList = new EdgeLinkedList(toVertexRecord, Vertex.DIRECTION.IN, inChunk);
+    final EdgeLinkedList inLinkedList = database.getGraphEngine().createEdgeLinkedList(toVertexRecord, Vertex.DIRECTION.IN);
     inLinkedList.addAll(connections);
 
     if (callback != null)
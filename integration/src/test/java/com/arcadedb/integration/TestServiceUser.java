@@ -0,0 +1,114 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.integration;
+
+import com.arcadedb.database.Database;
+import com.arcadedb.database.DatabaseContext;
+import com.arcadedb.database.DatabaseInternal;
+import com.arcadedb.security.SecurityDatabaseUser;
+import com.arcadedb.security.serializers.OpaPolicy;
+
+import java.time.*;
+import java.util.*;
+
+/**
+ * Service account used by the tests, so the record level authorization does not get in the way of the component under test.
+ */
+public class TestServiceUser implements SecurityDatabaseUser {
+  public static final TestServiceUser INSTANCE = new TestServiceUser();
+
+  /**
+   * Disables the classification validation and sets this user as the current user of the calling thread. Threads started by the test must call it too.
+   * The audit dates of the records have a precision finer than milliseconds, so they are read back as {@link LocalDateTime}.
+   */
+  public static void install(final Database database) {
+    database.getSchema().getEmbedded().setClassificationValidationEnabled(false);
+    try {
+      ((DatabaseInternal) database).getSerializer().setDateTimeImplementation(LocalDateTime.class);
+    } catch (final ClassNotFoundException e) {
+      // NEVER HAPPENS WITH A CLASS
+      throw new IllegalStateException(e);
+    }
+    // KEEP THE CONTEXT IF ANY: INITIALIZING IT AGAIN WOULD ROLL BACK THE TRANSACTION ALREADY BEGUN BY THE TEST
+    DatabaseContext.DatabaseContextTL context = DatabaseContext.INSTANCE.getContextIfExists(database.getDatabasePath());
+    if (context == null)
+      context = DatabaseContext.INSTANCE.init((DatabaseInternal) database);
+    context.setCurrentUser(INSTANCE);
+  }
+
+  @Override
+  public boolean requestAccessOnDatabase(final DATABASE_ACCESS access) {
+    return true;
+  }
+
+  @Override
+  public boolean requestAccessOnFile(final int fileId, final ACCESS access) {
+    return true;
+  }
+
+  @Override
+  public boolean isDataSteward(final String type) {
+    return true;
+  }
+
+  @Override
+  public boolean isServiceAccount() {
+    return true;
+  }
+
+  @Override
+  public String getName() {
+    return "root";
+  }
+
+  @Override
+  public long getResultSetLimit() {
+    return -1;
+  }
+
+  @Override
+  public long getReadTimeout() {
+    return -1;
+  }
+
+  @Override
+  public String getClearanceForCountryOrTetragraphCode(final String code) {
+    return "TOP SECRET";
+  }
+
+  @Override
+  public String getNationality() {
+    return "USA";
+  }
+
+  @Override
+  public String getTetragraphs() {
+    return "";
+  }
+
+  @Override
+  public List<OpaPolicy> getOpaPolicy() {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public boolean hasTetragraph(final String tetragraph) {
+    return false;
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.integration.exporter;
+
+import com.arcadedb.database.Database;
+import com.arcadedb.database.DatabaseFactory;
+import com.arcadedb.database.Document;
+import com.arcadedb.database.RID;
+import com.arcadedb.graph.Vertex;
+import com.arcadedb.index.IndexCursor;
+import com.arcadedb.integration.TestHelper;
+import com.arcadedb.integration.TestServiceUser;
+import com.arcadedb.integration.importer.ImportException;
+import com.arcadedb.integration.importer.Importer;
+import com.arcadedb.schema.Schema;
+import com.arcadedb.schema.Type;
+import com.arcadedb.schema.VertexType;
+import com.arcadedb.utility.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.util.*;
+
+public class BinaryExporterIT {
+  private final static String DATABASE_PATH = "target/databases/binary-export";
+  private final static String IMPORTED_PATH = "target/databases/binary-import";
+  private final static String FILE          = "target/arcadedb-export.binary.tgz";
+  private final static int    PEOPLE        = 10_000;
+
+  @Test
+  public void testExportAndImport() {
+    try (final Database database = new DatabaseFactory(DATABASE_PATH).create()) {
+      TestServiceUser.install(database);
+
+      database.transaction(() -> {
+        final VertexType person = database.getSchema().buildVertexType().withName("Person").withTotalBuckets(4).create();
+        person.createProperty("id", Type.INTEGER);
+        database.getSchema().createTypeIndex(Schema.INDEX_TYPE.LSM_TREE, true, "Person", "id");
+        database.getSchema().createEdgeType("Knows");
+        database.getSchema().createDocumentType("Note");
+      });
+
+      database.transaction(() -> {
+        // DELETED RECORDS LEAVE HOLES IN THE POSITIONS, SO THE IMPORTED RIDS ARE DIFFERENT
+        for (int i = 0; i < 100; i++)
+          database.newVertex("Person").set("id", -1 - i).save().delete();
+
+        final List<RID> people = new ArrayList<>();
+        for (int i = 0; i < PEOPLE; i++)
+          people.add(database.newVertex("Person").set("id", i).set("name", "Person" + i).save().getIdentity());
+
+        for (int i = 0; i < PEOPLE; i++)
+          people.get(i).asVertex().newEdge("Knows", people.get((i + 1) % PEOPLE), true, "since", 2000 + i % 20);
+
+        for (int i = 0; i < PEOPLE; i += 10)
+          database.newDocument("Note").set("id", i).set("author", people.get(i)).set("readers", List.of(people.get(i + 1), people.get(i + 2))).save();
+      });
+
+      // THE WORKERS EXPORT WITH THE USER OF THE CALLING THREAD
+      new Exporter(database, FILE).setFormat("binary").setOverwrite(true).setParallel(3).exportDatabase();
+    }
+    Assertions.assertTrue(new File(FILE).length() > 0);
+
+    try (final Database database = new DatabaseFactory(IMPORTED_PATH).create()) {
+      TestServiceUser.install(database);
+      new Importer(database, FILE).load();
+      Assertions.assertEquals(PEOPLE, database.countType("Person", false));
+      Assertions.assertEquals(PEOPLE, database.countType("Knows", false));
+      Assertions.assertEquals(PEOPLE / 10, database.countType("Note", false));
+      Assertions.assertTrue(database.getSchema().getType("Person").getPolymorphicIndexByProperties("id").isUnique());
+
+      for (int i = 0; i < PEOPLE; i += 97) {
+        final IndexCursor cursor = database.lookupByKey("Person", "id", i);
+        Assertions.assertTrue(cursor.hasNext());
+        final Vertex person = cursor.next().asVertex();
+        Assertions.assertEquals("Person" + i, person.getString("name"));
+
+        final Iterator<Vertex> friends = person.getVertices(Vertex.DIRECTION.OUT, "Knows").iterator();
+        Assertions.assertTrue(friends.hasNext());
+        Assertions.assertEquals((i + 1) % PEOPLE, friends.next().getInteger("id"));
+        Assertions.assertEquals(2000 + i % 20, person.getEdges(Vertex.DIRECTION.OUT, "Knows").iterator().next().getInteger("since"));
+        Assertions.assertTrue(person.getVertices(Vertex.DIRECTION.IN, "Knows").iterator().hasNext());
+      }
+
+      database.iterateType("Note", false).forEachRemaining(record -> {
+        final Document note = record.asDocument();
+        final int id = note.getInteger("id");
+        Assertions.assertEquals(id, ((RID) note.get("author")).asVertex().getInteger("id"));
+
+        final List<RID> readers = (List<RID>) note.get("readers");
+        Assertions.assertEquals(id + 1, readers.get(0).asVertex().getInteger("id"));
+        Assertions.assertEquals(id + 2, readers.get(1).asVertex().getInteger("id"));
+      });
+    }
+  }
+
+  @Test
+  public void testImportInNotEmptyDatabaseError() {
+    try (final Database database = new DatabaseFactory(DATABASE_PATH).create()) {
+      TestServiceUser.install(database);
+      database.getSchema().createVertexType("Person").createProperty("name", Type.STRING);
+      database.transaction(() -> database.newVertex("Person").set("name", "Jay").save());
+
+      new Exporter(database, FILE).setFormat("binary").setOverwrite(true).exportDatabase();
+    }
+
+    try (final Database database = new DatabaseFactory(IMPORTED_PATH).create()) {
+      TestServiceUser.install(database);
+      database.getSchema().createDocumentType("Other").createProperty("other", Type.STRING);
+
+      // THE DICTIONARY OF THE TARGET DATABASE ALREADY CONTAINS OTHER NAMES
+      Assertions.assertThrows(ImportException.class, () -> new Importer(database, FILE).load());
+    }
+  }
+
+  @BeforeEach
+  @AfterEach
+  public void beforeTests() {
+    TestHelper.checkActiveDatabases();
+    FileUtils.deleteRecursively(new File(DATABASE_PATH));
+    FileUtils.deleteRecursively(new File(IMPORTED_PATH));
+    new File(FILE).delete();
+  }
+}
@@ -21,6 +21,8 @@ package com.arcadedb.integration.exporter;
 import com.arcadedb.database.Database;
 import com.arcadedb.database.DatabaseFactory;
 import com.arcadedb.integration.TestHelper;
+import com.arcadedb.integration.TestServiceUser;
+import com.arcadedb.integration.importer.Importer;
 import com.arcadedb.integration.importer.OrientDBImporter;
 import com.arcadedb.integration.importer.OrientDBImporterIT;
 import com.arcadedb.utility.FileUtils;
@@ -32,6 +34,7 @@ import org.junit.jupiter.api.Test;
 
 import java.io.*;
 import java.net.*;
+import java.util.*;
 import java.util.zip.*;
 
 public class JsonlExporterIT {
@@ -75,6 +78,39 @@ public class JsonlExporterIT {
     }
   }
 
+  @Test
+  public void testParallelExportIsEqualToSequential() throws Exception {
+    final File databaseDirectory = new File(DATABASE_PATH);
+    final File parallelFile = new File(FILE + ".parallel");
+
+    try {
+      final URL inputFile = OrientDBImporterIT.class.getClassLoader().getResource("orientdb-export-small.gz");
+
+      try (final Database database = new DatabaseFactory(DATABASE_PATH).create()) {
+        TestServiceUser.install(database);
+        new Importer(database, inputFile.getFile()).load();
+
+        new Exporter(database, FILE).setFormat("jsonl").setOverwrite(true).exportDatabase();
+        new Exporter(database, parallelFile.getPath()).setFormat("jsonl").setOverwrite(true).setParallel(4).exportDatabase();
+      }
+
+      // THE HEADER CONTAINS THE TIME OF THE EXPORT: COMPARE THE RECORDS ONLY
+      final List<String> sequentialLines = readRecordLines(new File(FILE));
+      final List<String> parallelLines = readRecordLines(parallelFile);
+
+      Assertions.assertTrue(sequentialLines.size() > 10);
+      Assertions.assertEquals(sequentialLines, parallelLines);
+
+      // NO PART FILES LEFT
+      Assertions.assertEquals(0, parallelFile.getParentFile().listFiles((dir, name) -> name.startsWith(parallelFile.getName() + ".part")).length);
+
+    } finally {
+      FileUtils.deleteRecursively(databaseDirectory);
+      new File(FILE).delete();
+      parallelFile.delete();
+    }
+  }
+
   @Test
   public void testFormatError() {
     try {
@@ -98,6 +134,18 @@ public class JsonlExporterIT {
     }
   }
 
+  private List<String> readRecordLines(final File file) throws IOException {
+    final List<String> lines = new ArrayList<>();
+    try (final BufferedReader in = new BufferedReader(new InputStreamReader(new GZIPInputStream(new FileInputStream(file))))) {
+      for (String line = in.readLine(); line != null; line = in.readLine()) {
+        final String type = new JSONObject(line).getString("t");
+        if (type.equals("v") || type.equals("e") || type.equals("d"))
+          lines.add(line);
+      }
+    }
+    return lines;
+  }
+
   private Database emptyDatabase() {
     return new DatabaseFactory(DATABASE_PATH).create();
   }
@@ -24,6 +24,8 @@ import com.arcadedb.integration.TestHelper;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.io.*;
+
 public class CSVImporterIT {
   @Test
   public void importDocuments() {
@@ -43,6 +45,47 @@ public class CSVImporterIT {
     TestHelper.checkActiveDatabases();
   }
 
+  @Test
+  public void importDocumentsInChunks() throws IOException {
+    final String databasePath = "target/databases/test-import-documents-chunks";
+    final File file = new File("target/importer-documents-chunks.csv");
+
+    try (final Writer writer = new BufferedWriter(new FileWriter(file))) {
+      writer.write("Id,Name,Notes\n");
+      for (int i = 0; i < 10_000; i++)
+        // EVERY 100 RECORDS THE QUOTED TEXT CONTAINS A NEW LINE
+        writer.write(i + ",Name" + i + ",\"Notes" + (i % 100 == 0 ? "\nsecond line" : "") + "\"\n");
+    }
+
+    final Importer importer = new Importer(
+        ("-documents " + file.getPath() + " -database " + databasePath + " -parallel 4 -forceDatabaseCreate true").split(" "));
+    importer.load();
+
+    try (final Database db = new DatabaseFactory(databasePath).open()) {
+      Assertions.assertEquals(10_000, db.countType("Document", true));
+      Assertions.assertEquals(100, db.query("sql", "select from Document where Notes like '%second line'").stream().count());
+      db.drop();
+    } finally {
+      file.delete();
+    }
+    TestHelper.checkActiveDatabases();
+  }
+
+  @Test
+  public void importDocumentsWithBulkLoad() {
+    final String databasePath = "target/databases/test-import-documents-bulk";
+
+    final Importer importer = new Importer(
+        ("-documents src/test/resources/importer-vertices.csv -database " + databasePath + " -bulkLoad true -forceDatabaseCreate true").split(" "));
+    importer.load();
+
+    try (final Database db = new DatabaseFactory(databasePath).open()) {
+      Assertions.assertEquals(6, db.countType("Document", true));
+      db.drop();
+    }
+    TestHelper.checkActiveDatabases();
+  }
+
   @Test
   public void importGraph() {
     final String databasePath = "target/databases/test-import-graph";
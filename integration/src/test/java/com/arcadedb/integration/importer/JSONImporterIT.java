@@ -54,6 +54,29 @@ public class JSONImporterIT {
     TestHelper.checkActiveDatabases();
   }
 
+  @Test
+  public void importJSONLInChunks() throws IOException {
+    final String databasePath = "target/databases/test-import-jsonl";
+    final File file = new File("target/importer-documents.jsonl");
+
+    try (final Writer writer = new BufferedWriter(new FileWriter(file))) {
+      for (int i = 0; i < 10_000; i++)
+        writer.write("{\"id\":" + i + ",\"name\":\"Name" + i + "\",\"tags\":[\"a\",\"b\"]}\n");
+    }
+
+    final Importer importer = new Importer(
+        ("-url file://" + file.getPath() + " -database " + databasePath + " -documentType Item -parallel 4 -forceDatabaseCreate true").split(" "));
+    importer.load();
+
+    try (final Database db = new DatabaseFactory(databasePath).open()) {
+      Assertions.assertEquals(10_000, db.countType("Item", true));
+    } finally {
+      file.delete();
+    }
+
+    TestHelper.checkActiveDatabases();
+  }
+
   @Test
   public void importTwoObjects() throws IOException {
     final String databasePath = "target/databases/test-import-graph";
@@ -0,0 +1,170 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.network.binary;
+
+import com.arcadedb.database.BasicDatabase;
+import com.arcadedb.database.Binary;
+import com.arcadedb.database.Document;
+import com.arcadedb.database.Identifiable;
+import com.arcadedb.database.RID;
+import com.arcadedb.query.sql.executor.Result;
+import com.arcadedb.serializer.BinarySerializer;
+import com.arcadedb.serializer.BinaryTypes;
+
+import java.lang.reflect.*;
+import java.util.*;
+
+/**
+ * Binary client protocol used by remote databases as an alternative to HTTP/JSON. A connection is opened with a handshake
+ * (magic number, protocol version, user, password and database name) and then carries any number of requests, each tagged with a
+ * request id the server echoes back in the response. Result sets are streamed as pages of rows, terminated by an empty page.
+ * <p>
+ * Values are encoded with the type ids and the scalar encoding of {@link BinarySerializer}. Maps, lists, RIDs and records are
+ * encoded by this class because they would otherwise need the database dictionary, which is not available on the client side.
+ */
+public class BinaryProtocol {
+  public static final long  MAGIC_NUMBER     = 20986405762943499L;
+  public static final short PROTOCOL_VERSION = 0;
+
+  // REQUESTS
+  public static final byte REQUEST_QUERY    = 0;
+  public static final byte REQUEST_COMMAND  = 1;
+  public static final byte REQUEST_BEGIN    = 2;
+  public static final byte REQUEST_COMMIT   = 3;
+  public static final byte REQUEST_ROLLBACK = 4;
+  public static final byte REQUEST_CLOSE    = 5;
+
+  // RESPONSE STATUS
+  public static final byte STATUS_OK    = 0;
+  public static final byte STATUS_ERROR = 1;
+
+  private static final Set<String> RID_METADATA = Set.of("@rid", "@in", "@out");
+
+  public static void writeRow(final BinarySerializer serializer, final Binary buffer, final Result row) {
+    if (row.isElement())
+      writeMap(serializer, buffer, row.getElement().get().toMap(true));
+    else
+      writeMap(serializer, buffer, row.toMap());
+  }
+
+  /**
+   * Reads a row written by {@link #writeRow(BinarySerializer, Binary, Result)}. Record metadata is returned in the same format
+   * of the HTTP/JSON protocol, so the RIDs of "@rid", "@in" and "@out" are converted to strings.
+   */
+  public static Map<String, Object> readRow(final BinarySerializer serializer, final BasicDatabase database, final Binary buffer) {
+    final Map<String, Object> row = readMap(serializer, database, buffer);
+    for (final String name : RID_METADATA) {
+      final Object value = row.get(name);
+      if (value instanceof RID)
+        row.put(name, value.toString());
+    }
+    return row;
+  }
+
+  public static void writeMap(final BinarySerializer serializer, final Binary buffer, final Map<?, ?> map) {
+    buffer.putUnsignedNumber(map.size());
+    for (final Map.Entry<?, ?> entry : map.entrySet()) {
+      writeValue(serializer, buffer, entry.getKey());
+      writeValue(serializer, buffer, entry.getValue());
+    }
+  }
+
+  public static Map<String, Object> readMap(final BinarySerializer serializer, final BasicDatabase database, final Binary buffer) {
+    final int count = (int) buffer.getUnsignedNumber();
+    final Map<String, Object> map = new LinkedHashMap<>(count);
+    for (int i = 0; i < count; ++i) {
+      final Object key = readValue(serializer, database, buffer);
+      map.put(key != null ? key.toString() : null, readValue(serializer, database, buffer));
+    }
+    return map;
+  }
+
+  public static void writeValue(final BinarySerializer serializer, final Binary buffer, Object value) {
+    if (value instanceof Result) {
+      final Result result = (Result) value;
+      value = result.isElement() ? result.getElement().get() : result.toMap();
+    }
+
+    if (value instanceof Document)
+      value = ((Document) value).toMap(true);
+    else if (value instanceof Enum)
+      value = value.toString();
+
+    if (value == null) {
+      buffer.putByte(BinaryTypes.TYPE_NULL);
+    } else if (value instanceof Map) {
+      buffer.putByte(BinaryTypes.TYPE_MAP);
+      writeMap(serializer, buffer, (Map<?, ?>) value);
+    } else if (value instanceof Identifiable) {
+      final RID rid = ((Identifiable) value).getIdentity();
+      buffer.putByte(BinaryTypes.TYPE_RID);
+      buffer.putInt(rid.getBucketId());
+      buffer.putLong(rid.getPosition());
+    } else if (value instanceof Collection) {
+      buffer.putByte(BinaryTypes.TYPE_LIST);
+      buffer.putUnsignedNumber(((Collection<?>) value).size());
+      for (final Object entry : (Collection<?>) value)
+        writeValue(serializer, buffer, entry);
+    } else if (value instanceof Object[]) {
+      buffer.putByte(BinaryTypes.TYPE_LIST);
+      buffer.putUnsignedNumber(((Object[]) value).length);
+      for (final Object entry : (Object[]) value)
+        writeValue(serializer, buffer, entry);
+    } else if (value instanceof Iterable) {
+      final List<Object> list = new ArrayList<>();
+      for (final Object entry : (Iterable<?>) value)
+        list.add(entry);
+      writeValue(serializer, buffer, list);
+    } else {
+      final byte type = BinaryTypes.getTypeFromValue(value);
+      if (type == BinaryTypes.TYPE_LIST) {
+        // ARRAY OF PRIMITIVES NOT SUPPORTED BY THE SERIALIZER
+        final int length = Array.getLength(value);
+        buffer.putByte(BinaryTypes.TYPE_LIST);
+        buffer.putUnsignedNumber(length);
+        for (int i = 0; i < length; ++i)
+          writeValue(serializer, buffer, Array.get(value, i));
+      } else {
+        buffer.putByte(type);
+        serializer.serializeValue(null, buffer, type, value);
+      }
+    }
+  }
+
+  public static Object readValue(final BinarySerializer serializer, final BasicDatabase database, final Binary buffer) {
+    final byte type = buffer.getByte();
+    switch (type) {
+    case BinaryTypes.TYPE_NULL:
+      return null;
+    case BinaryTypes.TYPE_MAP:
+      return readMap(serializer, database, buffer);
+    case BinaryTypes.TYPE_RID:
+      return new RID(database, buffer.getInt(), buffer.getLong());
+    case BinaryTypes.TYPE_LIST: {
+      final int count = (int) buffer.getUnsignedNumber();
+      final List<Object> list = new ArrayList<>(count);
+      for (int i = 0; i < count; ++i)
+        list.add(readValue(serializer, database, buffer));
+      return list;
+    }
+    default:
+      return serializer.deserializeValue(null, buffer, type, null);
+    }
+  }
+}
@@ -63,7 +63,7 @@ public class SocketFactory {
     return socketFactory;
   }
 
-  protected SSLContext getSSLContext() {
+  public SSLContext getSSLContext() {
     if (context == null) {
       context = createSSLContext();
     }
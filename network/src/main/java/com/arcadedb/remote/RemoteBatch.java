@@ -0,0 +1,155 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.remote;
+
+import com.arcadedb.query.sql.executor.ResultSet;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Buffers commands on the client and sends them to the server in groups, one request per group, saving a round trip per command.
+ * Groups are sent in order by a background thread as soon as `batchSize` commands are buffered, or on {@link #flush()} and
+ * {@link #close()}. Every command gets a future completed with its result set or with the exception it raised.
+ * <p>
+ * At most {@link #MAX_PENDING_FLUSHES} groups can wait to be sent: beyond that, adding a command blocks until the oldest group has
+ * been sent. While groups are being sent, the {@link RemoteDatabase} instance is used by the background thread too.
+ * <p>
+ * The session of the transaction active at creation, if any, is captured: all the groups are sent in that session, regardless of
+ * the transaction active when they are sent, so the batch must be closed before the transaction is committed or rolled back.
+ */
+public class RemoteBatch implements AutoCloseable {
+  public static final int DEFAULT_BATCH_SIZE  = 500;
+  public static final int MAX_PENDING_FLUSHES = 4;
+
+  private final RemoteDatabase          database;
+  private final int                     batchSize;
+  private final boolean                 transaction;
+  private final String                  sessionId;
+  private final ExecutorService         executor;
+  private final Semaphore               pendingFlushes = new Semaphore(MAX_PENDING_FLUSHES);
+  private       List<BatchCommand>      buffer         = new ArrayList<>();
+  private       CompletableFuture<Void> lastFlush      = CompletableFuture.completedFuture(null);
+  private       boolean                 closed         = false;
+
+  static class BatchCommand {
+    final String                       language;
+    final String                       command;
+    final Map<String, Object>          params;
+    final CompletableFuture<ResultSet> future = new CompletableFuture<>();
+
+    BatchCommand(final String language, final String command, final Map<String, Object> params) {
+      this.language = language;
+      this.command = command;
+      this.params = params;
+    }
+  }
+
+  RemoteBatch(final RemoteDatabase database, final int batchSize, final boolean transaction, final String sessionId) {
+    if (batchSize < 1)
+      throw new IllegalArgumentException("Invalid batch size " + batchSize);
+
+    this.database = database;
+    this.batchSize = batchSize;
+    this.transaction = transaction;
+    this.sessionId = sessionId;
+    this.executor = Executors.newSingleThreadExecutor((r) -> {
+      final Thread thread = new Thread(r, "ArcadeDB-RemoteBatch-" + database.getName());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Buffers a command. The returned future is completed once the group containing the command has been executed by the server.
+   */
+  public synchronized CompletableFuture<ResultSet> command(final String language, final String command, final Object... args) {
+    if (closed)
+      throw new IllegalStateException("Batch is closed");
+
+    final BatchCommand entry = new BatchCommand(language, command, database.mapArgs(args));
+    buffer.add(entry);
+
+    if (buffer.size() >= batchSize)
+      flush();
+
+    return entry.future;
+  }
+
+  /**
+   * Sends the buffered commands without waiting for the response.
+   *
+   * @return a future completed when all the commands sent so far have been executed
+   */
+  public synchronized CompletableFuture<Void> flush() {
+    if (buffer.isEmpty())
+      return lastFlush;
+
+    final List<BatchCommand> commands = buffer;
+    buffer = new ArrayList<>();
+
+    pendingFlushes.acquireUninterruptibly();
+    lastFlush = CompletableFuture.runAsync(() -> execute(commands), executor);
+    return lastFlush;
+  }
+
+  /**
+   * Sends the buffered commands and waits until all of them have been executed.
+   */
+  @Override
+  public void close() {
+    final CompletableFuture<Void> last;
+    synchronized (this) {
+      if (closed)
+        return;
+      last = flush();
+      closed = true;
+    }
+
+    last.join();
+    executor.shutdown();
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  private void execute(final List<BatchCommand> commands) {
+    try {
+      final List<Object> results = database.executeBatch(commands, transaction, sessionId);
+
+      for (int i = 0; i < commands.size(); ++i) {
+        final CompletableFuture<ResultSet> future = commands.get(i).future;
+        final Object result = i < results.size() ? results.get(i) : null;
+
+        if (result instanceof ResultSet)
+          future.complete((ResultSet) result);
+        else if (result instanceof Exception)
+          future.completeExceptionally((Exception) result);
+        else
+          future.completeExceptionally(new RemoteException("Missing result for command '" + commands.get(i).command + "'"));
+      }
+    } catch (final Exception e) {
+      for (final BatchCommand command : commands)
+        command.future.completeExceptionally(e);
+    } finally {
+      pendingFlushes.release();
+    }
+  }
+}
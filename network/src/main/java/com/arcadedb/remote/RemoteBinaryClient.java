@@ -0,0 +1,302 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.remote;
+
+import com.arcadedb.ContextConfiguration;
+import com.arcadedb.GlobalConfiguration;
+import com.arcadedb.database.Binary;
+import com.arcadedb.database.Database;
+import com.arcadedb.network.binary.BinaryProtocol;
+import com.arcadedb.network.binary.ChannelBinaryClient;
+import com.arcadedb.network.binary.NetworkProtocolException;
+import com.arcadedb.query.sql.executor.InternalResultSet;
+import com.arcadedb.query.sql.executor.ResultSet;
+import com.arcadedb.serializer.BinarySerializer;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Client side of the binary protocol used by {@link RemoteDatabase} when the server exposes it. Connections are persistent and
+ * kept in a pool of idle channels. While a transaction is active, all the requests go through the same connection, because the
+ * server binds the transaction to it.
+ */
+class RemoteBinaryClient {
+  private final RemoteDatabase                  database;
+  private final String                          host;
+  private final int                             port;
+  private final String                          userName;
+  private final String                          userPassword;
+  private final ContextConfiguration            configuration;
+  private final BinarySerializer                serializer;
+  private final int                             maxIdleConnections;
+  private final ArrayDeque<ChannelBinaryClient> idleConnections = new ArrayDeque<>();
+  private final AtomicInteger                   requestIds      = new AtomicInteger();
+  private       ChannelBinaryClient             transactionConnection;
+
+  /**
+   * Error sent by the server. The response has been read completely, so the connection can be reused. The error is unwrapped
+   * before reaching the caller.
+   */
+  private static class ServerErrorException extends RuntimeException {
+    private ServerErrorException(final RuntimeException cause) {
+      super(cause);
+    }
+  }
+
+  interface RequestWriter {
+    void write(ChannelBinaryClient channel) throws IOException;
+  }
+
+  interface ResponseReader<T> {
+    T read(ChannelBinaryClient channel) throws IOException;
+  }
+
+  RemoteBinaryClient(final RemoteDatabase database, final String host, final int port, final String userName,
+      final String userPassword, final ContextConfiguration configuration) {
+    this.database = database;
+    this.host = host;
+    this.port = port;
+    this.userName = userName;
+    this.userPassword = userPassword;
+    this.configuration = configuration;
+    this.maxIdleConnections = configuration.getValueAsInteger(GlobalConfiguration.NETWORK_BINARY_POOL_SIZE);
+    try {
+      this.serializer = new BinarySerializer(configuration);
+    } catch (final ClassNotFoundException e) {
+      throw new RemoteException("Error on creating the binary serializer", e);
+    }
+  }
+
+  String getURL() {
+    return host + ":" + port;
+  }
+
+  ResultSet query(final boolean command, final String language, final String text, final Map<String, Object> params)
+      throws IOException {
+    return execute(command ? BinaryProtocol.REQUEST_COMMAND : BinaryProtocol.REQUEST_QUERY, command ? "command" : "query",
+        (channel) -> {
+          channel.writeString(language);
+          channel.writeString(text);
+          final Binary buffer = new Binary(256);
+          BinaryProtocol.writeMap(serializer, buffer, params != null ? params : Collections.emptyMap());
+          channel.writeVarLengthBytes(buffer.toByteArray());
+        }, this::readResultSet);
+  }
+
+  String begin(final Database.TRANSACTION_ISOLATION_LEVEL isolationLevel) throws IOException {
+    final ChannelBinaryClient channel = acquire();
+    transactionConnection = channel;
+    try {
+      execute(BinaryProtocol.REQUEST_BEGIN, "begin transaction", (c) -> c.writeString(isolationLevel.name()), null);
+    } catch (final IOException | RuntimeException e) {
+      discardTransaction();
+      throw e;
+    }
+    return "binary-" + channel.getLocalSocketAddress();
+  }
+
+  void commit() throws IOException {
+    endTransaction(BinaryProtocol.REQUEST_COMMIT, "commit transaction");
+  }
+
+  void rollback() throws IOException {
+    endTransaction(BinaryProtocol.REQUEST_ROLLBACK, "rollback transaction");
+  }
+
+  /**
+   * Drops the connection bound to the current transaction, if any. The server rolls back the pending transaction when the
+   * connection is closed.
+   */
+  void discardTransaction() {
+    final ChannelBinaryClient channel = transactionConnection;
+    transactionConnection = null;
+    if (channel != null)
+      channel.close();
+  }
+
+  boolean isTransactionActive() {
+    return transactionConnection != null;
+  }
+
+  void close() {
+    discardTransaction();
+    synchronized (idleConnections) {
+      for (final ChannelBinaryClient channel : idleConnections) {
+        try {
+          channel.writeInt(requestIds.incrementAndGet());
+          channel.writeByte(BinaryProtocol.REQUEST_CLOSE);
+          channel.flush();
+        } catch (final IOException e) {
+          // IGNORE IT
+        }
+        channel.close();
+      }
+      idleConnections.clear();
+    }
+  }
+
+  private void endTransaction(final byte request, final String operation) throws IOException {
+    if (transactionConnection == null)
+      throw new IllegalStateException("Transaction not begun");
+
+    final ChannelBinaryClient channel = transactionConnection;
+    try {
+      execute(request, operation, null, null);
+    } finally {
+      if (transactionConnection == channel) {
+        transactionConnection = null;
+        release(channel);
+      }
+    }
+  }
+
+  private <T> T execute(final byte request, final String operation, final RequestWriter writer, final ResponseReader<T> reader)
+      throws IOException {
+    final ChannelBinaryClient channel = transactionConnection != null ? transactionConnection : acquire();
+    final int requestId = requestIds.incrementAndGet();
+
+    final T result;
+    try {
+      channel.writeInt(requestId);
+      channel.writeByte(request);
+      if (writer != null)
+        writer.write(channel);
+      channel.flush();
+
+      final int responseId = channel.readInt();
+      if (responseId != requestId)
+        throw new NetworkProtocolException(
+            "Received response for request " + responseId + " while waiting for request " + requestId + " from server " + getURL());
+
+      if (reader != null)
+        result = reader.read(channel);
+      else {
+        checkStatus(channel, operation);
+        result = null;
+      }
+
+    } catch (final ServerErrorException e) {
+      // ERROR SENT BY THE SERVER: THE CONNECTION CAN BE REUSED
+      if (channel != transactionConnection)
+        release(channel);
+      throw (RuntimeException) e.getCause();
+    } catch (final IOException | RuntimeException e) {
+      // FAILED OR PARTIAL READ: THE STREAM IS NOT IN A KNOWN STATE ANYMORE
+      channel.close();
+      if (channel == transactionConnection)
+        transactionConnection = null;
+      throw e;
+    }
+
+    if (channel != transactionConnection)
+      release(channel);
+    return result;
+  }
+
+  private ResultSet readResultSet(final ChannelBinaryClient channel) throws IOException {
+    final InternalResultSet resultSet = new InternalResultSet();
+    RuntimeException error = null;
+
+    while (true) {
+      if (channel.readByte() != BinaryProtocol.STATUS_OK) {
+        // THE ERROR CLOSES THE RESPONSE. ROWS ALREADY RECEIVED ARE DISCARDED
+        error = readException(channel, "query");
+        break;
+      }
+
+      final Binary page = new Binary(channel.readBytes());
+      final int rows = (int) page.getUnsignedNumber();
+      if (rows == 0)
+        break;
+
+      for (int i = 0; i < rows; ++i)
+        resultSet.add(database.map2Result(BinaryProtocol.readRow(serializer, database, page)));
+    }
+
+    if (error != null)
+      throw new ServerErrorException(error);
+
+    return resultSet;
+  }
+
+  private void checkStatus(final ChannelBinaryClient channel, final String operation) throws IOException {
+    if (channel.readByte() != BinaryProtocol.STATUS_OK)
+      throw new ServerErrorException(readException(channel, operation));
+  }
+
+  private RuntimeException readException(final ChannelBinaryClient channel, final String operation) throws IOException {
+    final String exception = channel.readString();
+    final String detail = channel.readString();
+    final String exceptionArgs = channel.readString();
+
+    final Exception e = database.createException(exception, detail, exceptionArgs, operation);
+    if (e instanceof RuntimeException)
+      return (RuntimeException) e;
+    return new RemoteException("Error on executing remote operation " + operation, e);
+  }
+
+  private ChannelBinaryClient acquire() throws IOException {
+    synchronized (idleConnections) {
+      while (!idleConnections.isEmpty()) {
+        final ChannelBinaryClient channel = idleConnections.pop();
+        if (channel.isConnected())
+          return channel;
+        channel.close();
+      }
+    }
+    return connect();
+  }
+
+  private void release(final ChannelBinaryClient channel) {
+    if (!channel.isConnected())
+      return;
+
+    synchronized (idleConnections) {
+      if (idleConnections.size() < maxIdleConnections) {
+        idleConnections.push(channel);
+        return;
+      }
+    }
+    channel.close();
+  }
+
+  private ChannelBinaryClient connect() throws IOException {
+    final ChannelBinaryClient channel = new ChannelBinaryClient(host, port, configuration);
+    try {
+      channel.writeLong(BinaryProtocol.MAGIC_NUMBER);
+      channel.writeShort(BinaryProtocol.PROTOCOL_VERSION);
+      channel.writeString(userName);
+      channel.writeString(userPassword);
+      channel.writeString(database.getName());
+      channel.flush();
+
+      checkStatus(channel, "connect");
+      return channel;
+
+    } catch (final ServerErrorException e) {
+      channel.close();
+      throw (RuntimeException) e.getCause();
+    } catch (final IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+}
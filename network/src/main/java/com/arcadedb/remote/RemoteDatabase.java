@@ -86,6 +86,7 @@ public class RemoteDatabase extends RWLockContext implements BasicDatabase {
   private              String                               sessionId;
   protected final      DatabaseStats                        stats                     = new DatabaseStats();
   private              Database.TRANSACTION_ISOLATION_LEVEL transactionIsolationLevel = Database.TRANSACTION_ISOLATION_LEVEL.READ_COMMITTED;
+  private              RemoteBinaryClient                   binaryClient;
 
   public List<String> getReplicaAddresses() {
     return replicaServerList.stream().map((e) -> e.getFirst() + ":" + e.getSecond()).collect(Collectors.toList());
@@ -97,6 +98,8 @@ public class RemoteDatabase extends RWLockContext implements BasicDatabase {
 
   void setSessionId(String sessionId) {
     this.sessionId = sessionId;
+    if (sessionId == null && binaryClient != null)
+      binaryClient.discardTransaction();
   }
 
   public enum CONNECTION_STRATEGY {
@@ -152,6 +155,10 @@ public class RemoteDatabase extends RWLockContext implements BasicDatabase {
   @Override
   public void close() {
     setSessionId(null);
+    if (binaryClient != null) {
+      binaryClient.close();
+      binaryClient = null;
+    }
   }
 
   @Override
@@ -268,6 +275,19 @@ public class RemoteDatabase extends RWLockContext implements BasicDatabase {
     if (getSessionId() != null)
       throw new TransactionException("Transaction already begun");
 
+    if (binaryClient != null) {
+      try {
+        setSessionId(binaryClient.begin(isolationLevel));
+        return;
+      } catch (final IOException e) {
+        disableBinaryProtocol(e);
+      } catch (final TransactionException e) {
+        throw e;
+      } catch (final Exception e) {
+        throw new TransactionException("Error on transaction begin", e);
+      }
+    }
+
     try {
       final HttpURLConnection connection = createConnection("POST", getUrl("begin", databaseName));
       setRequestPayload(connection, new JSONObject().put("isolationLevel", isolationLevel));
@@ -288,8 +308,22 @@ public class RemoteDatabase extends RWLockContext implements BasicDatabase {
     if (getSessionId() == null)
       throw new TransactionException("Transaction not begun");
 
+    if (binaryClient != null && binaryClient.isTransactionActive()) {
+      try {
+        binaryClient.commit();
+        return;
+      } catch (final DuplicatedKeyException | ConcurrentModificationException e) {
+        throw e;
+      } catch (final Exception e) {
+        throw new TransactionException("Error on transaction commit", e);
+      } finally {
+        setSessionId(null);
+      }
+    }
+
     try {
       final HttpURLConnection connection = createConnection("POST", getUrl("commit", databaseName));
+      setSessionId(connection, getSessionId());
       connection.connect();
       if (connection.getResponseCode() != 204) {
         final Exception detail = manageException(connection, "commit transaction");
@@ -315,8 +349,20 @@ public class RemoteDatabase extends RWLockContext implements BasicDatabase {
     if (getSessionId() == null)
       throw new TransactionException("Transaction not begun");
 
+    if (binaryClient != null && binaryClient.isTransactionActive()) {
+      try {
+        binaryClient.rollback();
+        return;
+      } catch (final Exception e) {
+        throw new TransactionException("Error on transaction rollback", e);
+      } finally {
+        setSessionId(null);
+      }
+    }
+
     try {
       final HttpURLConnection connection = createConnection("POST", getUrl("rollback", databaseName));
+      setSessionId(connection, getSessionId());
       connection.connect();
       if (connection.getResponseCode() != 204) {
         final Exception detail = manageException(connection, "rollback transaction");
@@ -332,16 +378,14 @@ public class RemoteDatabase extends RWLockContext implements BasicDatabase {
   @Override
   public long countBucket(final String bucketName) {
     stats.countBucket.incrementAndGet();
-    return ((Number) ((ResultSet) databaseCommand("query", "sql", "select count(*) as count from bucket:" + bucketName, null, false,
-        (connection, response) -> createResultSet(response))).nextIfAvailable().getProperty("count")).longValue();
+    return ((Number) query("sql", "select count(*) as count from bucket:" + bucketName).nextIfAvailable().getProperty("count")).longValue();
   }
 
   @Override
   public long countType(final String typeName, final boolean polymorphic) {
     stats.countType.incrementAndGet();
     final String appendix = polymorphic ? "" : " where @type = '" + typeName + "'";
-    return ((Number) ((ResultSet) databaseCommand("query", "sql", "select count(*) as count from " + typeName + appendix, null,
-        false, (connection, response) -> createResultSet(response))).nextIfAvailable().getProperty("count")).longValue();
+    return ((Number) query("sql", "select count(*) as count from " + typeName + appendix).nextIfAvailable().getProperty("count")).longValue();
   }
 
   public Record lookupByRID(final RID rid) {
@@ -399,6 +443,11 @@ public class RemoteDatabase extends RWLockContext implements BasicDatabase {
     stats.commands.incrementAndGet();
 
     final Map<String, Object> params = mapArgs(args);
+
+    final ResultSet binaryResult = binaryQuery(true, language, command, params);
+    if (binaryResult != null)
+      return binaryResult;
+
     return (ResultSet) databaseCommand("command", language, command, params, true,
         (connection, response) -> createResultSet(response));
   }
@@ -408,6 +457,11 @@ public class RemoteDatabase extends RWLockContext implements BasicDatabase {
     stats.queries.incrementAndGet();
 
     final Map<String, Object> params = mapArgs(args);
+
+    final ResultSet binaryResult = binaryQuery(false, language, command, params);
+    if (binaryResult != null)
+      return binaryResult;
+
     return (ResultSet) databaseCommand("query", language, command, params, false,
         (connection, response) -> createResultSet(response));
   }
@@ -421,10 +475,86 @@ public class RemoteDatabase extends RWLockContext implements BasicDatabase {
     stats.commands.incrementAndGet();
 
     final Map<String, Object> params = mapArgs(args);
+
+    final ResultSet binaryResult = binaryQuery(true, language, command, params);
+    if (binaryResult != null)
+      return binaryResult;
+
     return (ResultSet) databaseCommand("command", language, command, params, false,
         (connection, response) -> createResultSet(response));
   }
 
+  /**
+   * Creates a batch of commands that are buffered on the client and sent to the server in groups of `batchSize` commands, each
+   * group in one request. Results are returned as futures. All the commands of a group are executed in one transaction.
+   */
+  public RemoteBatch batch() {
+    return batch(RemoteBatch.DEFAULT_BATCH_SIZE, true);
+  }
+
+  /**
+   * Creates a batch of commands that are buffered on the client and sent to the server in groups of `batchSize` commands, each
+   * group in one request. Results are returned as futures.
+   * <p>
+   * The batch is bound to the transaction active when it is created, if any: all its groups are executed in that transaction,
+   * whatever thread or transaction uses this instance later, so the batch must be closed before committing. Without a
+   * transaction, every group is executed on its own, as set by `transaction`. A transaction begun with the binary protocol cannot
+   * be joined by a batch.
+   *
+   * @param batchSize   Number of commands that trigger a flush of the buffer
+   * @param transaction If true, all the commands of a group are executed in one transaction, otherwise every command is committed
+   *                    on its own and its failure does not prevent the execution of the following ones
+   */
+  public RemoteBatch batch(final int batchSize, final boolean transaction) {
+    if (isBinaryTransactionActive())
+      throw new IllegalStateException("Cannot create a batch in a transaction begun with the binary protocol");
+    return new RemoteBatch(this, batchSize, transaction, getSessionId());
+  }
+
+  /**
+   * Sends a group of commands in one request, in the session passed, if any. Returns, for each command, its result set or the
+   * exception it raised.
+   */
+  List<Object> executeBatch(final List<RemoteBatch.BatchCommand> commands, final boolean transaction, final String sessionId) {
+    final JSONArray jsonCommands = new JSONArray();
+    for (final RemoteBatch.BatchCommand command : commands) {
+      stats.commands.incrementAndGet();
+
+      final JSONObject jsonCommand = new JSONObject();
+      jsonCommand.put("language", command.language);
+      jsonCommand.put("command", command.command);
+      if (command.params != null)
+        jsonCommand.put("params", new JSONObject(command.params));
+      jsonCommands.put(jsonCommand);
+    }
+
+    final JSONObject jsonRequest = new JSONObject();
+    jsonRequest.put("transaction", transaction);
+    jsonRequest.put("serializer", "record");
+    jsonRequest.put("commands", jsonCommands);
+
+    return (List<Object>) httpCommand("POST", databaseName, "batch", jsonRequest, "batch of " + commands.size() + " commands",
+        true, true, sessionId, (connection, response) -> {
+          final JSONArray results = response.getJSONArray("result");
+          final List<Object> list = new ArrayList<>(results.length());
+          for (int i = 0; i < results.length(); ++i) {
+            final JSONObject result = results.getJSONObject(i);
+            if (result.has("error")) {
+              final String exception = result.has("exception") ? result.getString("exception") : null;
+              final String detail = result.has("detail") ? result.getString("detail") : result.getString("error");
+              final String exceptionArgs = result.has("exceptionArgs") ? result.getString("exceptionArgs") : null;
+              list.add(exception != null ?
+                  createException(exception, detail, exceptionArgs, commands.get(i).command) :
+                  new RemoteException(detail));
+            } else if (result.has("result"))
+              list.add(createResultSet(result));
+            else
+              list.add(new InternalResultSet());
+          }
+          return list;
+        });
+  }
+
   public Database.TRANSACTION_ISOLATION_LEVEL getTransactionIsolationLevel() {
     return transactionIsolationLevel;
   }
@@ -519,6 +649,26 @@ public class RemoteDatabase extends RWLockContext implements BasicDatabase {
       final String payloadCommand, final Map<String, Object> params, final boolean leaderIsPreferable, final boolean autoReconnect,
       final Callback callback) {
 
+    JSONObject jsonRequest = null;
+    if (payloadCommand != null) {
+      jsonRequest = new JSONObject();
+      if (language != null)
+        jsonRequest.put("language", language);
+      jsonRequest.put("command", payloadCommand);
+      jsonRequest.put("serializer", "record");
+
+      if (params != null)
+        jsonRequest.put("params", new JSONObject(params));
+    }
+
+    return httpCommand(method, extendedURL, operation, jsonRequest, payloadCommand != null ? payloadCommand : operation,
+        leaderIsPreferable, autoReconnect, getHttpSessionId(), callback);
+  }
+
+  private Object httpCommand(final String method, final String extendedURL, final String operation, final JSONObject jsonRequest,
+      final String operationDescription, final boolean leaderIsPreferable, final boolean autoReconnect, final String sessionId,
+      final Callback callback) {
+
     Exception lastException = null;
 
     final int maxRetry = leaderIsPreferable ? 3 : getReplicaServerList().size() + 1;
@@ -537,30 +687,21 @@ public class RemoteDatabase extends RWLockContext implements BasicDatabase {
 
       try {
         final HttpURLConnection connection = createConnection(method, url);
+        setSessionId(connection, sessionId);
         connection.setDoOutput(true);
         try {
 
-          if (payloadCommand != null) {
+          if (jsonRequest != null) {
             if ("GET".equalsIgnoreCase(method))
               throw new IllegalArgumentException("Cannot execute a HTTP GET request with a payload");
 
-            final JSONObject jsonRequest = new JSONObject();
-            if (language != null)
-              jsonRequest.put("language", language);
-            if (payloadCommand != null)
-              jsonRequest.put("command", payloadCommand);
-            jsonRequest.put("serializer", "record");
-
-            if (params != null)
-              jsonRequest.put("params", new JSONObject(params));
-
             setRequestPayload(connection, jsonRequest);
           }
 
           connection.connect();
 
           if (connection.getResponseCode() != 200) {
-            lastException = manageException(connection, payloadCommand != null ? payloadCommand : operation);
+            lastException = manageException(connection, operationDescription);
             if (lastException instanceof RuntimeException && lastException.getMessage().equals("Empty payload received"))
               LogManager.instance()
                   .log(this, Level.FINE, "Empty payload received, retrying (retry=%d/%d)...", null, retry, maxRetry);
@@ -632,17 +773,31 @@ public class RemoteDatabase extends RWLockContext implements BasicDatabase {
     connection.setRequestProperty("charset", "utf-8");
     connection.setRequestMethod(httpMethod);
 
-    final String authorization = userName + ":" + userPassword;
-    connection.setRequestProperty("Authorization",
-        "Basic " + Base64.getEncoder().encodeToString(authorization.getBytes(DatabaseFactory.getDefaultCharset())));
+    if (userPassword != null && userPassword.startsWith("Bearer "))
+      // TOKEN OF THE USER (OIDC)
+      connection.setRequestProperty("Authorization", userPassword);
+    else {
+      final String authorization = userName + ":" + userPassword;
+      connection.setRequestProperty("Authorization",
+          "Basic " + Base64.getEncoder().encodeToString(authorization.getBytes(DatabaseFactory.getDefaultCharset())));
+    }
 
     connection.setConnectTimeout(timeout);
     connection.setReadTimeout(timeout);
+    return connection;
+  }
 
-    if (getSessionId() != null)
-      connection.setRequestProperty(ARCADEDB_SESSION_ID, getSessionId());
+  private void setSessionId(final HttpURLConnection connection, final String sessionId) {
+    if (sessionId != null)
+      connection.setRequestProperty(ARCADEDB_SESSION_ID, sessionId);
+  }
 
-    return connection;
+  /**
+   * Returns the id of the session to send with HTTP requests, if any. A transaction begun with the binary protocol is bound to its
+   * connection: the HTTP server does not know its session.
+   */
+  private String getHttpSessionId() {
+    return isBinaryTransactionActive() ? null : getSessionId();
   }
 
   void requestClusterConfiguration() {
@@ -671,6 +826,7 @@ public class RemoteDatabase extends RWLockContext implements BasicDatabase {
       if (!response.has("ha")) {
         leaderServer = new Pair<>(originalServer, originalPort);
         replicaServerList.clear();
+        configureBinaryProtocol(response);
         return;
       }
 
@@ -762,7 +918,7 @@ public class RemoteDatabase extends RWLockContext implements BasicDatabase {
     return leaderServer != null;
   }
 
-  private Map<String, Object> mapArgs(final Object[] args) {
+  Map<String, Object> mapArgs(final Object[] args) {
     Map<String, Object> params = null;
     if (args != null && args.length > 0) {
       if (args.length == 1 && args[0] instanceof Map)
@@ -797,18 +953,24 @@ public class RemoteDatabase extends RWLockContext implements BasicDatabase {
   }
 
   protected Result json2Result(final JSONObject result) {
-    final Record record = json2Record(result);
+    return map2Result(result.toMap());
+  }
+
+  protected Record json2Record(final JSONObject result) {
+    return map2Record(result.toMap());
+  }
+
+  Result map2Result(final Map<String, Object> map) {
+    final Record record = map2Record(map);
     if (record == null)
-      return new ResultInternal(result.toMap());
+      return new ResultInternal(map);
 
     return new ResultInternal(record);
   }
 
-  protected Record json2Record(final JSONObject result) {
-    final Map<String, Object> map = result.toMap();
-
+  Record map2Record(final Map<String, Object> map) {
     if (map.containsKey("@cat")) {
-      final String cat = result.getString("@cat");
+      final String cat = (String) map.get("@cat");
       switch (cat) {
       case "d":
         return new RemoteImmutableDocument(this, map);
@@ -881,45 +1043,8 @@ public class RemoteDatabase extends RWLockContext implements BasicDatabase {
       }
     }
 
-    if (exception != null) {
-      if (detail == null)
-        detail = "Unknown";
-
-      if (exception.equals(ServerIsNotTheLeaderException.class.getName())) {
-        final int sep = detail.lastIndexOf('.');
-        return new ServerIsNotTheLeaderException(sep > -1 ? detail.substring(0, sep) : detail, exceptionArgs);
-      } else if (exception.equals(RecordNotFoundException.class.getName())) {
-        final int begin = detail.indexOf("#");
-        final int end = detail.indexOf(" ", begin);
-        return new RecordNotFoundException(detail, new RID(this, detail.substring(begin, end)));
-      } else if (exception.equals(QuorumNotReachedException.class.getName())) {
-        return new QuorumNotReachedException(detail);
-      } else if (exception.equals(DuplicatedKeyException.class.getName()) && exceptionArgs != null) {
-        final String[] exceptionArgsParts = exceptionArgs.split("\\|");
-        return new DuplicatedKeyException(exceptionArgsParts[0], exceptionArgsParts[1], new RID(this, exceptionArgsParts[2]));
-      } else if (exception.equals(ConcurrentModificationException.class.getName())) {
-        return new ConcurrentModificationException(detail);
-      } else if (exception.equals(TransactionException.class.getName())) {
-        return new TransactionException(detail);
-      } else if (exception.equals(TimeoutException.class.getName())) {
-        return new TimeoutException(detail);
-      } else if (exception.equals(SchemaException.class.getName())) {
-        return new SchemaException(detail);
-      } else if (exception.equals(NoSuchElementException.class.getName())) {
-        return new NoSuchElementException(detail);
-      } else if (exception.equals(SecurityException.class.getName())) {
-        return new SecurityException(detail);
-      } else if (exception.equals("com.arcadedb.server.security.ServerSecurityException")) {
-        return new SecurityException(detail);
-      } else if (exception.equals(java.net.ConnectException.class.getName())) {
-        return new NeedRetryException(detail);
-      } else if (exception.equals("com.arcadedb.server.ha.ReplicationException")) {
-        return new NeedRetryException(detail);
-      } else
-        // ELSE
-        return new RemoteException(
-            "Error on executing remote operation " + operation + " (cause:" + exception + " detail:" + detail + ")");
-    }
+    if (exception != null)
+      return createException(exception, detail, exceptionArgs, operation);
 
     final String httpErrorDescription = connection.getResponseMessage();
 
@@ -935,4 +1060,114 @@ public class RemoteDatabase extends RWLockContext implements BasicDatabase {
             + " httpErrorDescription=" + httpErrorDescription + " reason=" + reason + " detail=" + detail + " exception="
             + exception + ")");
   }
+
+  /**
+   * Converts an exception raised on the server into the local one, if known.
+   */
+  Exception createException(final String exception, String detail, final String exceptionArgs, final String operation) {
+    if (detail == null)
+      detail = "Unknown";
+
+    if (exception.equals(ServerIsNotTheLeaderException.class.getName())) {
+      final int sep = detail.lastIndexOf('.');
+      return new ServerIsNotTheLeaderException(sep > -1 ? detail.substring(0, sep) : detail, exceptionArgs);
+    } else if (exception.equals(RecordNotFoundException.class.getName())) {
+      final int begin = detail.indexOf("#");
+      final int end = detail.indexOf(" ", begin);
+      return new RecordNotFoundException(detail, new RID(this, detail.substring(begin, end)));
+    } else if (exception.equals(QuorumNotReachedException.class.getName())) {
+      return new QuorumNotReachedException(detail);
+    } else if (exception.equals(DuplicatedKeyException.class.getName()) && exceptionArgs != null) {
+      final String[] exceptionArgsParts = exceptionArgs.split("\\|");
+      return new DuplicatedKeyException(exceptionArgsParts[0], exceptionArgsParts[1], new RID(this, exceptionArgsParts[2]));
+    } else if (exception.equals(ConcurrentModificationException.class.getName())) {
+      return new ConcurrentModificationException(detail);
+    } else if (exception.equals(TransactionException.class.getName())) {
+      return new TransactionException(detail);
+    } else if (exception.equals(TimeoutException.class.getName())) {
+      return new TimeoutException(detail);
+    } else if (exception.equals(SchemaException.class.getName())) {
+      return new SchemaException(detail);
+    } else if (exception.equals(NoSuchElementException.class.getName())) {
+      return new NoSuchElementException(detail);
+    } else if (exception.equals(SecurityException.class.getName())) {
+      return new SecurityException(detail);
+    } else if (exception.equals("com.arcadedb.server.security.ServerSecurityException")) {
+      return new SecurityException(detail);
+    } else if (exception.equals(java.net.ConnectException.class.getName())) {
+      return new NeedRetryException(detail);
+    } else if (exception.equals("com.arcadedb.server.ha.ReplicationException")) {
+      return new NeedRetryException(detail);
+    } else
+      // ELSE
+      return new RemoteException(
+          "Error on executing remote operation " + operation + " (cause:" + exception + " detail:" + detail + ")");
+  }
+
+  private void configureBinaryProtocol(final JSONObject response) {
+    if (!response.has("binaryPort") || !configuration.getValueAsBoolean(GlobalConfiguration.NETWORK_BINARY_PROTOCOL))
+      return;
+
+    final int binaryPort = response.getInt("binaryPort");
+    if (binaryClient != null && binaryClient.getURL().equals(currentServer + ":" + binaryPort))
+      return;
+
+    if (binaryClient != null)
+      binaryClient.close();
+
+    binaryClient = new RemoteBinaryClient(this, currentServer, binaryPort, userName, userPassword, configuration);
+    LogManager.instance().log(this, Level.FINE, "Remote Database using the binary protocol on %s", null, binaryClient.getURL());
+  }
+
+  boolean isBinaryProtocolActive() {
+    return binaryClient != null;
+  }
+
+  private boolean isBinaryTransactionActive() {
+    return binaryClient != null && binaryClient.isTransactionActive();
+  }
+
+  private void disableBinaryProtocol(final Exception cause) {
+    LogManager.instance()
+        .log(this, Level.WARNING, "Binary protocol not available on server %s, switching to HTTP (error=%s)", null,
+            binaryClient.getURL(), cause.toString());
+    binaryClient.close();
+    binaryClient = null;
+  }
+
+  /**
+   * Executes the query or command through the binary protocol, if available. Returns null when the binary protocol is not
+   * available, so the caller falls back to HTTP. A query is retried once on a new connection, because the pooled one could have
+   * been closed by the server. A command is never executed again, because the server could have executed it before the
+   * connection was lost.
+   */
+  private ResultSet binaryQuery(final boolean command, final String language, final String text,
+      final Map<String, Object> params) {
+    if (binaryClient == null)
+      return null;
+
+    try {
+      return binaryClient.query(command, language, text, params);
+    } catch (final IOException e) {
+      if (getSessionId() != null) {
+        // THE TRANSACTION WAS BOUND TO THE LOST CONNECTION
+        setSessionId(null);
+        throw new NeedRetryException("Connection lost during the transaction on server " + binaryClient.getURL(), e);
+      }
+
+      if (command) {
+        final String url = binaryClient.getURL();
+        disableBinaryProtocol(e);
+        throw new RemoteException("Connection lost while executing the command on server " + url, e);
+      }
+    }
+
+    try {
+      // THE POOLED CONNECTION COULD HAVE BEEN CLOSED BY THE SERVER, RETRY WITH A NEW ONE
+      return binaryClient.query(command, language, text, params);
+    } catch (final IOException e) {
+      disableBinaryProtocol(e);
+      return null;
+    }
+  }
 }
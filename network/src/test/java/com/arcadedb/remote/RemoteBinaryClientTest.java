@@ -0,0 +1,173 @@
+package com.arcadedb.remote;
+
+import com.arcadedb.ContextConfiguration;
+import com.arcadedb.database.Binary;
+import com.arcadedb.database.Database;
+import com.arcadedb.database.RID;
+import com.arcadedb.exception.ConcurrentModificationException;
+import com.arcadedb.network.binary.BinaryProtocol;
+import com.arcadedb.network.binary.ChannelBinaryServer;
+import com.arcadedb.query.sql.executor.Result;
+import com.arcadedb.query.sql.executor.ResultSet;
+import com.arcadedb.serializer.BinarySerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.EOFException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RemoteBinaryClientTest {
+  private final    ContextConfiguration      configuration  = new ContextConfiguration();
+  private final    List<Map<String, Object>> receivedParams = new ArrayList<>();
+  private          ServerSocket              serverSocket;
+  private          Thread                    server;
+  private          RemoteBinaryClient        client;
+  private volatile Throwable                 serverError;
+
+  class MockRemoteDatabase extends RemoteDatabase {
+    MockRemoteDatabase() {
+      super("localhost", 1234, "testdb", "user", "password", configuration);
+    }
+
+    void requestClusterConfiguration() {
+    }
+  }
+
+  @BeforeEach
+  void startServer() throws Exception {
+    serverSocket = new ServerSocket(0);
+    server = new Thread(this::serve);
+    server.start();
+
+    client = new RemoteBinaryClient(new MockRemoteDatabase(), "localhost", serverSocket.getLocalPort(), "user", "password",
+        configuration);
+  }
+
+  @AfterEach
+  void stopServer() throws Exception {
+    client.close();
+    serverSocket.close();
+    server.join(5000);
+    if (serverError != null)
+      throw new AssertionError("Error on the fake server", serverError);
+  }
+
+  @Test
+  void testQueryPages() throws Exception {
+    for (int i = 0; i < 3; ++i) {
+      final ResultSet resultSet = client.query(false, "sql", "select from V", Map.of("0", 7));
+
+      final Result vertex = resultSet.next();
+      assertTrue(vertex.isVertex());
+      assertEquals("#3:0", vertex.getIdentity().get().toString());
+      assertEquals("a", vertex.getProperty("name"));
+      assertEquals("[#5:1]", vertex.getProperty("links").toString());
+
+      final Result projection = resultSet.next();
+      assertFalse(projection.isElement());
+      assertEquals(42L, (Long) projection.getProperty("count"));
+
+      final Result third = resultSet.next();
+      assertEquals(2, (int) third.getProperty("page"));
+      assertFalse(resultSet.hasNext());
+    }
+
+    // ALL THE REQUESTS WENT THROUGH THE SAME POOLED CONNECTION
+    assertEquals(3, receivedParams.size());
+    assertEquals(7, receivedParams.get(0).get("0"));
+  }
+
+  @Test
+  void testTransactionError() throws Exception {
+    assertNotNull(client.begin(Database.TRANSACTION_ISOLATION_LEVEL.READ_COMMITTED));
+    assertTrue(client.isTransactionActive());
+
+    assertThrows(ConcurrentModificationException.class, () -> client.commit());
+    assertFalse(client.isTransactionActive());
+  }
+
+  private void serve() {
+    try (final Socket socket = serverSocket.accept()) {
+      final ChannelBinaryServer channel = new ChannelBinaryServer(socket, configuration);
+      final BinarySerializer serializer = new BinarySerializer(configuration);
+
+      assertEquals(BinaryProtocol.MAGIC_NUMBER, channel.readLong());
+      assertEquals(BinaryProtocol.PROTOCOL_VERSION, channel.readShort());
+      assertEquals("user", channel.readString());
+      assertEquals("password", channel.readString());
+      assertEquals("testdb", channel.readString());
+      channel.writeByte(BinaryProtocol.STATUS_OK);
+      channel.flush();
+
+      while (true) {
+        final int requestId = channel.readInt();
+        final byte request = channel.readByte();
+
+        switch (request) {
+        case BinaryProtocol.REQUEST_QUERY: {
+          channel.readString();
+          channel.readString();
+          receivedParams.add(BinaryProtocol.readMap(serializer, null, new Binary(channel.readBytes())));
+
+          final Map<String, Object> vertex = new LinkedHashMap<>();
+          vertex.put("@rid", new RID(null, 3, 0));
+          vertex.put("@type", "V");
+          vertex.put("@cat", "v");
+          vertex.put("name", "a");
+          vertex.put("links", List.of(new RID(null, 5, 1)));
+
+          channel.writeInt(requestId);
+          final Binary page = new Binary();
+          page.putUnsignedNumber(2);
+          BinaryProtocol.writeMap(serializer, page, vertex);
+          BinaryProtocol.writeMap(serializer, page, Map.of("count", 42L));
+          channel.writeByte(BinaryProtocol.STATUS_OK);
+          channel.writeVarLengthBytes(page.toByteArray());
+
+          page.clear();
+          page.putUnsignedNumber(1);
+          BinaryProtocol.writeMap(serializer, page, Map.of("page", 2));
+          channel.writeByte(BinaryProtocol.STATUS_OK);
+          channel.writeVarLengthBytes(page.toByteArray());
+
+          channel.writeByte(BinaryProtocol.STATUS_OK);
+          channel.writeVarLengthBytes(new byte[] { 0 });
+          break;
+        }
+
+        case BinaryProtocol.REQUEST_BEGIN:
+          channel.readString();
+          channel.writeInt(requestId);
+          channel.writeByte(BinaryProtocol.STATUS_OK);
+          break;
+
+        case BinaryProtocol.REQUEST_COMMIT:
+          channel.writeInt(requestId);
+          channel.writeByte(BinaryProtocol.STATUS_ERROR);
+          channel.writeString(ConcurrentModificationException.class.getName());
+          channel.writeString("Concurrent modification on page");
+          channel.writeString(null);
+          break;
+
+        case BinaryProtocol.REQUEST_CLOSE:
+          return;
+        }
+        channel.flush();
+      }
+    } catch (final EOFException e) {
+      // CLIENT DISCONNECTED
+    } catch (final Throwable e) {
+      // REPORTED BY stopServer(), AS THIS THREAD IS NOT THE ONE OF THE TEST
+      if (!serverSocket.isClosed())
+        serverError = e;
+    }
+  }
+}
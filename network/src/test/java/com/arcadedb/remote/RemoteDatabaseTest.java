@@ -1,6 +1,9 @@
 package com.arcadedb.remote;
 
 import com.arcadedb.ContextConfiguration;
+import com.arcadedb.exception.DuplicatedKeyException;
+import com.arcadedb.query.sql.executor.ResultSet;
+import com.arcadedb.serializer.json.JSONArray;
 import com.arcadedb.serializer.json.JSONObject;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -12,6 +15,8 @@ import java.net.HttpURLConnection;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -271,4 +276,61 @@ class RemoteDatabaseTest {
     byte[] payloadAsByteArray = payload.toString().getBytes(StandardCharsets.UTF_8);
     verify(outputStream).write(payloadAsByteArray, 0, payloadAsByteArray.length);
   }
+
+  @Test
+  void testBatch() throws Exception {
+    HttpURLConnection connection = mock(HttpURLConnection.class);
+    doNothing().when(connection).connect();
+    when(connection.getResponseCode()).thenReturn(200);
+    when(connection.getInputStream()).thenReturn(new ByteArrayInputStream(("{\"result\": [" +//
+        "{\"result\": [{\"@rid\": \"#3:0\", \"@type\": \"Customer\", \"@cat\": \"d\", \"name\": \"Jay\"}]}," +//
+        "{\"error\": \"Cannot execute command\", \"detail\": \"Duplicated key\", " +//
+        "\"exception\": \"com.arcadedb.exception.DuplicatedKeyException\", \"exceptionArgs\": \"Customer[name]|[Jay]|#3:0\"}" +//
+        "]}").getBytes()));
+
+    RemoteDatabase database = spy(new MockRemoteDatabase());
+    doNothing().when(database).setRequestPayload(any(), any());
+    doReturn(connection).when(database).createConnection(any(), any());
+
+    final CompletableFuture<ResultSet> first;
+    final CompletableFuture<ResultSet> second;
+    try (RemoteBatch batch = database.batch(10, false)) {
+      first = batch.command("sql", "insert into Customer set name = ?", "Jay");
+      second = batch.command("sql", "insert into Customer set name = ?", "Jay");
+      assertFalse(first.isDone());
+    }
+
+    assertEquals("Jay", first.get().next().getProperty("name"));
+    final ExecutionException e = assertThrows(ExecutionException.class, second::get);
+    assertTrue(e.getCause() instanceof DuplicatedKeyException);
+
+    // ONE REQUEST FOR BOTH THE COMMANDS
+    verify(database).createConnection("POST", "http://localhost:1234/api/v1/batch/testdb");
+    final JSONObject command = new JSONObject().put("language", "sql").put("command", "insert into Customer set name = ?")
+        .put("params", new JSONObject().put("0", "Jay"));
+    final JSONObject payload = new JSONObject().put("transaction", false).put("serializer", "record")
+        .put("commands", new JSONArray().put(command).put(command));
+    verify(database).setRequestPayload(connection, payload);
+  }
+
+  @Test
+  void testBatchKeepsTheSessionOfCreation() throws Exception {
+    HttpURLConnection connection = mock(HttpURLConnection.class);
+    doNothing().when(connection).connect();
+    when(connection.getResponseCode()).thenReturn(200);
+    when(connection.getInputStream()).thenReturn(new ByteArrayInputStream("{\"result\": [{\"result\": []}]}".getBytes()));
+
+    RemoteDatabase database = spy(new MockRemoteDatabase());
+    doNothing().when(database).setRequestPayload(any(), any());
+    doReturn(connection).when(database).createConnection(any(), any());
+
+    database.setSessionId("1234");
+    final RemoteBatch batch = database.batch(10, true);
+    database.setSessionId(null);
+
+    batch.command("sql", "insert into Customer set name = ?", "Jay");
+    batch.close();
+
+    verify(connection).setRequestProperty(RemoteDatabase.ARCADEDB_SESSION_ID, "1234");
+  }
 }
@@ -123,6 +123,9 @@ public class ArcadeDBServer {
 
     status = STATUS.STARTING;
 
+    if (configuration.getValueAsBoolean(GlobalConfiguration.SERVER_ASYNC_LOGGING))
+      ServerLogManager.installAsyncHandlers(configuration.getValueAsInteger(GlobalConfiguration.SERVER_ASYNC_LOGGING_BUFFER_SIZE));
+
     eventLog.start();
 
     try {
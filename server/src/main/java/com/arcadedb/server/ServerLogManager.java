@@ -21,6 +21,8 @@
 
 package com.arcadedb.server;
 
+import com.arcadedb.log.AsyncLogHandler;
+
 import java.util.logging.*;
 
 /**
@@ -51,6 +53,19 @@ public class ServerLogManager extends LogManager {
     super.reset();
   }
 
+  /**
+   * Wraps the handlers of the root logger with {@link AsyncLogHandler}, so the threads that log do not wait for the console and file I/O.
+   */
+  public static void installAsyncHandlers(final int bufferSize) {
+    final Logger root = Logger.getLogger("");
+    for (final Handler h : root.getHandlers()) {
+      if (h instanceof AsyncLogHandler)
+        continue;
+      root.removeHandler(h);
+      root.addHandler(new AsyncLogHandler(h, bufferSize));
+    }
+  }
+
   public static void resetFinally() {
     if (instance != null)
       instance.reset0();
@@ -0,0 +1,340 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.server.binary;
+
+import com.arcadedb.Constants;
+import com.arcadedb.GlobalConfiguration;
+import com.arcadedb.database.Binary;
+import com.arcadedb.database.Database;
+import com.arcadedb.database.DatabaseContext;
+import com.arcadedb.database.DatabaseInternal;
+import com.arcadedb.exception.CommandExecutionException;
+import com.arcadedb.exception.CommandParsingException;
+import com.arcadedb.exception.DuplicatedKeyException;
+import com.arcadedb.exception.TransactionException;
+import com.arcadedb.log.LogManager;
+import com.arcadedb.network.binary.BinaryProtocol;
+import com.arcadedb.network.binary.ChannelBinaryServer;
+import com.arcadedb.network.binary.NetworkProtocolException;
+import com.arcadedb.network.binary.ServerIsNotTheLeaderException;
+import com.arcadedb.query.sql.executor.ResultSet;
+import com.arcadedb.serializer.BinarySerializer;
+import com.arcadedb.serializer.json.JSONObject;
+import com.arcadedb.server.ArcadeDBServer;
+import com.arcadedb.server.http.handler.AbstractServerHttpHandler;
+import com.arcadedb.server.security.ServerSecurityException;
+import com.arcadedb.server.security.ServerSecurityUser;
+
+import java.io.*;
+import java.net.*;
+import java.util.*;
+import java.util.logging.*;
+
+/**
+ * Serves one client connection of the binary protocol. The connection is bound to one database and one user after the handshake.
+ * Requests are executed in order on this thread, so a transaction begun by the client stays attached to the connection until it
+ * is committed or rolled back. A transaction still pending when the connection drops is rolled back.
+ */
+public class BinaryNetworkExecutor extends Thread {
+  private static final int    MAX_PAGE_BYTES = 1024 * 1024;
+  private static final String BEARER_PREFIX  = "Bearer ";
+
+  private final    ArcadeDBServer        server;
+  private final    BinaryNetworkListener listener;
+  private final    ChannelBinaryServer   channel;
+  private final    BinarySerializer      serializer;
+  private final    int                   pageSize;
+  private          Database              database;
+  private volatile boolean               shutdown = false;
+
+  public BinaryNetworkExecutor(final ArcadeDBServer server, final Socket socket, final BinaryNetworkListener listener)
+      throws IOException {
+    setName(Constants.PRODUCT + "-binary/" + socket.getInetAddress());
+    this.server = server;
+    this.listener = listener;
+    this.channel = new ChannelBinaryServer(socket, server.getConfiguration());
+    try {
+      this.serializer = new BinarySerializer(server.getConfiguration());
+    } catch (final ClassNotFoundException e) {
+      throw new IOException("Error on creating the serializer", e);
+    }
+    this.pageSize = Math.max(1, server.getConfiguration().getValueAsInteger(GlobalConfiguration.NETWORK_BINARY_RESULT_PAGE_SIZE));
+  }
+
+  @Override
+  public void run() {
+    try {
+      if (!handshake())
+        return;
+
+      while (!shutdown) {
+        try {
+          final int requestId = channel.readInt();
+          final byte request = channel.readByte();
+          executeRequest(requestId, request);
+
+        } catch (final EOFException | SocketException e) {
+          LogManager.instance().log(this, Level.FINE, "Binary protocol: connection closed by the client", e);
+          shutdown = true;
+        } catch (final SocketTimeoutException e) {
+          // IGNORE IT
+        } catch (final IOException e) {
+          LogManager.instance().log(this, Level.SEVERE, "Binary protocol: error on reading request", e);
+          shutdown = true;
+        }
+      }
+    } finally {
+      if (database != null) {
+        try {
+          if (database.isTransactionActive())
+            database.rollback();
+        } catch (final Exception e) {
+          LogManager.instance().log(this, Level.FINE, "Binary protocol: error on rolling back the pending transaction", e);
+        }
+        DatabaseContext.INSTANCE.removeContext(database.getDatabasePath());
+      }
+      close();
+    }
+  }
+
+  public void close() {
+    shutdown = true;
+    listener.removeConnection(this);
+    channel.close();
+  }
+
+  private boolean handshake() {
+    try {
+      final long magicNumber = channel.readLong();
+      if (magicNumber != BinaryProtocol.MAGIC_NUMBER) {
+        // INVALID PROTOCOL, WAIT (TO AVOID SPOOFING) AND CLOSE THE SOCKET
+        Thread.sleep(500);
+        return false;
+      }
+
+      final short protocolVersion = channel.readShort();
+      final String userName = channel.readString();
+      final String userPassword = channel.readString();
+      final String databaseName = channel.readString();
+
+      try {
+        if (protocolVersion != BinaryProtocol.PROTOCOL_VERSION)
+          throw new NetworkProtocolException(
+              "Network protocol version " + protocolVersion + " is different than local server " + BinaryProtocol.PROTOCOL_VERSION);
+
+        final ServerSecurityUser user = authenticate(userName, userPassword, databaseName);
+        database = server.getDatabase(databaseName, false, false);
+
+        final DatabaseContext.DatabaseContextTL current = DatabaseContext.INSTANCE.init((DatabaseInternal) database);
+        current.setCurrentUser(user.getDatabaseUser(database));
+
+      } catch (final Exception e) {
+        LogManager.instance().log(this, Level.FINE, "Binary protocol: handshake refused", e);
+        writeError(e);
+        channel.flush();
+        database = null;
+        return false;
+      }
+
+      channel.writeByte(BinaryProtocol.STATUS_OK);
+      channel.flush();
+      return true;
+
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } catch (final IOException e) {
+      LogManager.instance().log(this, Level.FINE, "Binary protocol: error on handshake", e);
+      return false;
+    }
+  }
+
+  /**
+   * With OIDC enabled, the password field carries the bearer token of the user, as in the `Authorization` header of the HTTP API, and
+   * the user is the one the token was issued to. Password logins are refused.
+   */
+  private ServerSecurityUser authenticate(final String userName, final String userPassword, final String databaseName) {
+    if (!GlobalConfiguration.OIDC_AUTH.getValueAsBoolean())
+      return server.getSecurity().authenticate(userName, userPassword, databaseName);
+
+    if (userPassword == null || !userPassword.startsWith(BEARER_PREFIX))
+      throw new ServerSecurityException("Password authentication is disabled with OIDC, provide a bearer token");
+
+    final String tokenUserName;
+    try {
+      final JSONObject token = new JSONObject(AbstractServerHttpHandler.decodeTokenParts(userPassword)[1].replaceAll(" ", ""));
+      tokenUserName = token.getString("preferred_username");
+    } catch (final Exception e) {
+      throw new ServerSecurityException("Invalid bearer token");
+    }
+    return server.getSecurity().authenticate(tokenUserName, databaseName);
+  }
+
+  private void executeRequest(final int requestId, final byte request) throws IOException {
+    // READ THE WHOLE REQUEST BEFORE EXECUTING IT TO KEEP THE STREAM ALIGNED ON ERRORS
+    switch (request) {
+    case BinaryProtocol.REQUEST_QUERY:
+    case BinaryProtocol.REQUEST_COMMAND: {
+      final String language = channel.readString();
+      final String command = channel.readString();
+      final Map<String, Object> params = BinaryProtocol.readMap(serializer, database, new Binary(channel.readBytes()));
+
+      channel.writeInt(requestId);
+      executeQuery(request == BinaryProtocol.REQUEST_COMMAND, language, command, params);
+      break;
+    }
+
+    case BinaryProtocol.REQUEST_BEGIN: {
+      final Database.TRANSACTION_ISOLATION_LEVEL isolationLevel = Database.TRANSACTION_ISOLATION_LEVEL.valueOf(channel.readString());
+      channel.writeInt(requestId);
+      executeOperation(() -> database.begin(isolationLevel));
+      break;
+    }
+
+    case BinaryProtocol.REQUEST_COMMIT:
+      channel.writeInt(requestId);
+      executeOperation(() -> database.commit());
+      break;
+
+    case BinaryProtocol.REQUEST_ROLLBACK:
+      channel.writeInt(requestId);
+      executeOperation(() -> database.rollback());
+      break;
+
+    case BinaryProtocol.REQUEST_CLOSE:
+      shutdown = true;
+      return;
+
+    default:
+      throw new NetworkProtocolException("Binary protocol: request " + request + " not supported");
+    }
+
+    channel.flush();
+  }
+
+  private void executeOperation(final Runnable operation) throws IOException {
+    try {
+      operation.run();
+    } catch (final Exception e) {
+      writeError(e);
+      return;
+    }
+    channel.writeByte(BinaryProtocol.STATUS_OK);
+  }
+
+  /**
+   * Streams the result set in pages of at most `arcadedb.network.binaryResultPageSize` rows. Every page is preceded by a status
+   * byte, so an error raised while iterating the result or while committing is still reported to the client. An empty page closes
+   * the response.
+   */
+  private void executeQuery(final boolean command, final String language, final String text, final Map<String, Object> params)
+      throws IOException {
+    final boolean atomicTransaction = !database.isTransactionActive();
+
+    try {
+      if (atomicTransaction)
+        database.begin();
+
+      final Object ordinalParams = mapParams(params);
+      final ResultSet resultSet;
+      if (command) {
+        resultSet = ordinalParams instanceof Object[] ?
+            database.command(language, text, server.getConfiguration(), (Object[]) ordinalParams) :
+            database.command(language, text, server.getConfiguration(), params);
+        server.getServerMetrics().meter("binary.command").hit();
+      } else {
+        resultSet = ordinalParams instanceof Object[] ?
+            database.query(language, text, (Object[]) ordinalParams) :
+            database.query(language, text, params);
+        server.getServerMetrics().meter("binary.query").hit();
+      }
+
+      final Binary page = new Binary(8192);
+      final Binary rows = new Binary(8192);
+      int rowCount = 0;
+
+      if (resultSet != null) {
+        while (resultSet.hasNext()) {
+          BinaryProtocol.writeRow(serializer, rows, resultSet.next());
+          if (++rowCount >= pageSize || rows.size() >= MAX_PAGE_BYTES) {
+            writePage(page, rows, rowCount);
+            rowCount = 0;
+          }
+        }
+        resultSet.close();
+      }
+
+      if (rowCount > 0)
+        writePage(page, rows, rowCount);
+
+      if (atomicTransaction)
+        database.commit();
+
+    } catch (final Exception e) {
+      if (atomicTransaction && database.isTransactionActive())
+        database.rollback();
+
+      writeError(e);
+      return;
+    }
+
+    // EMPTY PAGE: END OF THE RESULT SET
+    channel.writeByte(BinaryProtocol.STATUS_OK);
+    channel.writeVarLengthBytes(new byte[] { 0 });
+  }
+
+  private void writePage(final Binary page, final Binary rows, final int rowCount) throws IOException {
+    page.clear();
+    page.putUnsignedNumber(rowCount);
+    page.append(rows);
+
+    channel.writeByte(BinaryProtocol.STATUS_OK);
+    channel.writeVarLengthBytes(page.toByteArray());
+
+    rows.clear();
+  }
+
+  private void writeError(Throwable e) throws IOException {
+    String exceptionArgs = null;
+    if (e instanceof DuplicatedKeyException) {
+      final DuplicatedKeyException d = (DuplicatedKeyException) e;
+      exceptionArgs = d.getIndexName() + "|" + d.getKeys() + "|" + d.getCurrentIndexedRID();
+    } else if (e instanceof ServerIsNotTheLeaderException)
+      exceptionArgs = ((ServerIsNotTheLeaderException) e).getLeaderAddress();
+    else if ((e instanceof CommandExecutionException || e instanceof CommandParsingException || e instanceof IllegalStateException
+        || e instanceof TransactionException) && e.getCause() != null)
+      e = e.getCause();
+
+    channel.writeByte(BinaryProtocol.STATUS_ERROR);
+    channel.writeString(e.getClass().getName());
+    channel.writeString(e.getMessage() != null ? e.getMessage() : "");
+    channel.writeString(exceptionArgs);
+  }
+
+  private static Object mapParams(final Map<String, Object> params) {
+    if (!params.isEmpty() && params.containsKey("0")) {
+      // ORDINAL
+      final Object[] array = new Object[params.size()];
+      for (int i = 0; i < array.length; ++i)
+        array[i] = params.get("" + i);
+      return array;
+    }
+    return params;
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.server.binary;
+
+import com.arcadedb.ContextConfiguration;
+import com.arcadedb.GlobalConfiguration;
+import com.arcadedb.server.ArcadeDBServer;
+import com.arcadedb.server.ServerPlugin;
+import com.arcadedb.server.ha.network.DefaultServerSocketFactory;
+import com.arcadedb.server.ha.network.SSLServerSocketFactory;
+import com.arcadedb.server.ha.network.ServerSocketFactory;
+
+/**
+ * Exposes the binary client protocol (see {@link com.arcadedb.network.binary.BinaryProtocol}) used by remote databases. To enable
+ * it, add `Binary:com.arcadedb.server.binary.BinaryProtocolPlugin` to the server plugins. With `arcadedb.ssl.enabled` the port accepts
+ * TLS connections only, with the same key and trust stores of the HTTPS listener.
+ */
+public class BinaryProtocolPlugin implements ServerPlugin {
+  private ArcadeDBServer        server;
+  private ContextConfiguration  configuration;
+  private BinaryNetworkListener listener;
+
+  @Override
+  public void configure(final ArcadeDBServer arcadeDBServer, final ContextConfiguration configuration) {
+    this.server = arcadeDBServer;
+    this.configuration = configuration;
+  }
+
+  @Override
+  public void startService() {
+    final ServerSocketFactory socketFactory = configuration.getValueAsBoolean(GlobalConfiguration.NETWORK_USE_SSL) ?
+        new SSLServerSocketFactory(configuration) :
+        new DefaultServerSocketFactory();
+    listener = new BinaryNetworkListener(server, socketFactory,
+        configuration.getValueAsString(GlobalConfiguration.BINARY_HOST), configuration.getValueAsString(GlobalConfiguration.BINARY_PORT));
+  }
+
+  @Override
+  public void stopService() {
+    if (listener != null)
+      listener.close();
+  }
+
+  public int getPort() {
+    return listener != null ? listener.getPort() : -1;
+  }
+}
@@ -28,7 +28,7 @@ import java.util.*;
 
 public abstract class TxRequestAbstract extends HAAbstractCommand {
   protected String                databaseName;
-  protected int                   changesUncompressedLength;
+  protected int                   changesUncompressedLength; // -1 = CHANGES ALREADY COMPRESSED IN THE WAL FORMAT
   protected Binary                changesBuffer;
   protected Map<Integer, Integer> bucketRecordDelta;    // @SINCE 23.7.1
 
@@ -39,8 +39,14 @@ public abstract class TxRequestAbstract extends HAAbstractCommand {
     this.databaseName = dbName;
 
     changesBuffer.rewind();
-    this.changesUncompressedLength = changesBuffer.size();
-    this.changesBuffer = CompressionFactory.getDefault().compress(changesBuffer);
+    if (WALFile.isCompressedTransactionBuffer(changesBuffer)) {
+      // THE PAGES ARE ALREADY COMPRESSED, SEND THE BUFFER AS IT IS
+      this.changesUncompressedLength = -1;
+      this.changesBuffer = changesBuffer;
+    } else {
+      this.changesUncompressedLength = changesBuffer.size();
+      this.changesBuffer = CompressionFactory.getDefault().compress(changesBuffer);
+    }
     this.bucketRecordDelta = bucketRecordDelta;
   }
 
@@ -62,7 +68,10 @@ public abstract class TxRequestAbstract extends HAAbstractCommand {
   public void fromStream(final ArcadeDBServer server, final Binary stream) {
     databaseName = stream.getString();
     changesUncompressedLength = stream.getInt();
-    changesBuffer = CompressionFactory.getDefault().decompress(new Binary(stream.getBytes()), changesUncompressedLength);
+    if (changesUncompressedLength < 0)
+      changesBuffer = new Binary(stream.getBytes());
+    else
+      changesBuffer = CompressionFactory.getDefault().decompress(new Binary(stream.getBytes()), changesUncompressedLength);
 
     // @SINCE 23.7.1
     final int deltaSize = stream.getInt();
@@ -73,69 +82,9 @@ public abstract class TxRequestAbstract extends HAAbstractCommand {
   }
 
   protected WALFile.WALTransaction readTxFromBuffer() {
-    final WALFile.WALTransaction tx = new WALFile.WALTransaction();
-
-    final Binary bufferChange = changesBuffer;
-
-    int pos = 0;
-    tx.txId = bufferChange.getLong(pos);
-    pos += Binary.LONG_SERIALIZED_SIZE;
-
-    tx.timestamp = bufferChange.getLong(pos);
-    pos += Binary.LONG_SERIALIZED_SIZE;
-
-    final int pages = bufferChange.getInt(pos);
-    pos += Binary.INT_SERIALIZED_SIZE;
-
-    final int segmentSize = bufferChange.getInt(pos);
-    pos += Binary.INT_SERIALIZED_SIZE;
-
-    if (pos + segmentSize + Binary.LONG_SERIALIZED_SIZE > bufferChange.size())
-      // TRUNCATED FILE
-      throw new ReplicationException("Replicated transaction buffer is corrupted");
-
-    tx.pages = new WALFile.WALPage[pages];
-
-    for (int i = 0; i < pages; ++i) {
-      if (pos > bufferChange.size())
-        // INVALID
-        throw new ReplicationException("Replicated transaction buffer is corrupted");
-
-      tx.pages[i] = new WALFile.WALPage();
-
-      tx.pages[i].fileId = bufferChange.getInt(pos);
-      pos += Binary.INT_SERIALIZED_SIZE;
-
-      tx.pages[i].pageNumber = bufferChange.getInt(pos);
-      pos += Binary.INT_SERIALIZED_SIZE;
-
-      tx.pages[i].changesFrom = bufferChange.getInt(pos);
-      pos += Binary.INT_SERIALIZED_SIZE;
-
-      tx.pages[i].changesTo = bufferChange.getInt(pos);
-      pos += Binary.INT_SERIALIZED_SIZE;
-
-      final int deltaSize = tx.pages[i].changesTo - tx.pages[i].changesFrom + 1;
-
-      tx.pages[i].currentPageVersion = bufferChange.getInt(pos);
-      pos += Binary.INT_SERIALIZED_SIZE;
-
-      tx.pages[i].currentPageSize = bufferChange.getInt(pos);
-      pos += Binary.INT_SERIALIZED_SIZE;
-
-      final byte[] buffer = new byte[deltaSize];
-
-      tx.pages[i].currentContent = new Binary(buffer);
-      bufferChange.getByteArray(pos, buffer, 0, deltaSize);
-
-      pos += deltaSize;
-    }
-
-    final long mn = bufferChange.getLong(pos + Binary.INT_SERIALIZED_SIZE);
-    if (mn != WALFile.MAGIC_NUMBER)
-      // INVALID
+    final WALFile.WALTransaction tx = WALFile.readTransactionFromBuffer(changesBuffer);
+    if (tx == null)
       throw new ReplicationException("Replicated transaction buffer is corrupted");
-
     return tx;
   }
 }
@@ -0,0 +1,43 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.server.ha.network;
+
+import com.arcadedb.ContextConfiguration;
+import com.arcadedb.network.binary.SocketFactory;
+
+import javax.net.ssl.SSLContext;
+import java.io.*;
+import java.net.*;
+
+/**
+ * Factory for TLS server sockets, using the key and trust stores of the server configuration (`arcadedb.ssl.*` settings). Clients
+ * connect through {@link SocketFactory} with `arcadedb.ssl.enabled` set.
+ */
+public class SSLServerSocketFactory extends ServerSocketFactory {
+  private final SSLContext context;
+
+  public SSLServerSocketFactory(final ContextConfiguration configuration) {
+    this.context = SocketFactory.instance(configuration).getSSLContext();
+  }
+
+  @Override
+  public ServerSocket createServerSocket(final int port, final int backlog, final InetAddress ifAddress) throws IOException {
+    return context.getServerSocketFactory().createServerSocket(port, backlog, ifAddress);
+  }
+}
@@ -116,6 +116,7 @@ public class HttpServer implements ServerPlugin {
 
     routes.addPrefixPath("/api/v1/arcadedb",
         basicRoutes
+            .post("/batch/{database}", new PostBatchHandler(this))//
             .post("/begin/{database}", new PostBeginHandler(this))//
             .post("/command/{database}", new PostCommandHandler(this))//
             .post("/commit/{database}", new PostCommitHandler(this))//
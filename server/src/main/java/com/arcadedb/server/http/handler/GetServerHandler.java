@@ -25,6 +25,8 @@ import com.arcadedb.log.LogManager;
 import com.arcadedb.serializer.json.JSONArray;
 import com.arcadedb.serializer.json.JSONObject;
 import com.arcadedb.server.ServerDatabase;
+import com.arcadedb.server.ServerPlugin;
+import com.arcadedb.server.binary.BinaryProtocolPlugin;
 import com.arcadedb.server.ha.HAServer;
 import com.arcadedb.server.ha.ReplicatedDatabase;
 import com.arcadedb.server.http.HttpServer;
@@ -63,6 +65,11 @@ public class GetServerHandler extends AbstractServerHttpHandler {
   }
 
   private void exportCluster(final HttpServerExchange exchange, final JSONObject response) {
+    for (final ServerPlugin plugin : httpServer.getServer().getPlugins())
+      if (plugin instanceof BinaryProtocolPlugin && ((BinaryProtocolPlugin) plugin).getPort() > -1)
+        // ADVERTISE THE BINARY PROTOCOL TO THE REMOTE DATABASES
+        response.put("binaryPort", ((BinaryProtocolPlugin) plugin).getPort());
+
     final HAServer ha = httpServer.getServer().getHA();
     if (ha != null) {
       final JSONObject haJSON = new JSONObject();
@@ -148,6 +155,8 @@ public class GetServerHandler extends AbstractServerHttpHandler {
       );
     }
 
+    metricsJSON.put("webSockets", httpServer.getWebSocketEventBus().getStats());
+
     int serverEventsSummaryErrors = 0;
     int serverEventsSummaryWarnings = 0;
     int serverEventsSummaryInfo = 0;
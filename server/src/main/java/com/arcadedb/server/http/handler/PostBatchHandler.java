@@ -0,0 +1,136 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.server.http.handler;
+
+import com.arcadedb.database.Database;
+import com.arcadedb.exception.DuplicatedKeyException;
+import com.arcadedb.query.sql.executor.ResultSet;
+import com.arcadedb.serializer.json.JSONArray;
+import com.arcadedb.serializer.json.JSONObject;
+import com.arcadedb.server.http.HttpServer;
+import com.arcadedb.server.security.ServerSecurityUser;
+import io.undertow.server.HttpServerExchange;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Executes an ordered batch of commands in one request. The payload is
+ * `{ "transaction": true, "commands": [ { "language": "sql", "command": "...", "params": {...} }, ... ] }`.
+ * <p>
+ * With "transaction" (default) all the commands run in one transaction and the first error fails the whole batch. Without it every
+ * command is committed on its own and its error, if any, is returned in place of its result, so the following commands are still
+ * executed. When the request joins a session (`arcadedb-session-id` header) all the commands run in the session transaction.
+ */
+public class PostBatchHandler extends PostCommandHandler {
+
+  public PostBatchHandler(final HttpServer httpServer) {
+    super(httpServer);
+  }
+
+  @Override
+  public ExecutionResponse execute(final HttpServerExchange exchange, final ServerSecurityUser user, final Database database)
+      throws IOException {
+    final String payload = parseRequestPayload(exchange);
+    if (payload == null || payload.isEmpty())
+      return new ExecutionResponse(400, "{ \"error\" : \"Batch payload is null\"}");
+
+    final JSONObject json = new JSONObject(payload);
+    if (!json.has("commands"))
+      return new ExecutionResponse(400, "{ \"error\" : \"Batch commands are missing\"}");
+
+    final JSONArray commands = json.getJSONArray("commands");
+    final boolean sessionTransaction = database.isTransactionActive();
+    final boolean atomic = !sessionTransaction && (!json.has("transaction") || json.getBoolean("transaction"));
+    final String serializer = json.optString("serializer", "record");
+
+    final JSONArray results = new JSONArray();
+
+    if (atomic)
+      database.begin();
+
+    try {
+      for (int i = 0; i < commands.length(); ++i) {
+        final Map<String, Object> entry = commands.getJSONObject(i).toMap();
+
+        final String language = (String) entry.get("language");
+        final String commandText = (String) entry.get("command");
+        if (language == null || commandText == null)
+          throw new IllegalArgumentException("Language or command missing in batch entry " + i);
+
+        // SAME DECODING OF THE /command ENDPOINT
+        final String command = decode(commandText).trim();
+
+        Map<String, Object> paramMap = (Map<String, Object>) entry.get("params");
+        if (paramMap == null)
+          paramMap = new HashMap<>();
+
+        final JSONObject commandResult = new JSONObject();
+        if (atomic || sessionTransaction) {
+          serializeResultSet(database, serializer, -1, commandResult, executeCommand(database, language, command, paramMap));
+        } else {
+          // EVERY COMMAND IN ITS OWN TRANSACTION
+          try {
+            database.begin();
+            serializeResultSet(database, serializer, -1, commandResult, executeCommand(database, language, command, paramMap));
+            database.commit();
+          } catch (final Exception e) {
+            if (database.isTransactionActive())
+              database.rollback();
+            setError(commandResult, e);
+          }
+        }
+        results.put(commandResult);
+      }
+
+      if (atomic)
+        database.commit();
+
+    } catch (final RuntimeException e) {
+      if (atomic && database.isTransactionActive())
+        database.rollback();
+      throw e;
+    }
+
+    final JSONObject response = createResult(user, database);
+    response.put("result", results);
+
+    httpServer.getServer().getServerMetrics().meter("http.batch").hit();
+
+    return new ExecutionResponse(200, response.toString());
+  }
+
+  @Override
+  protected boolean requiresTransaction() {
+    return false;
+  }
+
+  private void setError(final JSONObject commandResult, Throwable e) {
+    if (e.getCause() != null && !(e instanceof DuplicatedKeyException))
+      e = e.getCause();
+
+    commandResult.put("error", "Cannot execute command");
+    commandResult.put("detail", e.getMessage() != null ? encodeError(e.getMessage()) : "");
+    commandResult.put("exception", e.getClass().getName());
+    if (e instanceof DuplicatedKeyException) {
+      final DuplicatedKeyException d = (DuplicatedKeyException) e;
+      commandResult.put("exceptionArgs", d.getIndexName() + "|" + d.getKeys() + "|" + d.getCurrentIndexedRID());
+    }
+  }
+}
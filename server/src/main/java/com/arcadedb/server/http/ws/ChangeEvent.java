@@ -24,6 +24,7 @@ import com.arcadedb.serializer.json.JSONObject;
 public class ChangeEvent {
   private final TYPE   type;
   private final Record record;
+  private       String json;
 
   public enum TYPE {CREATE, UPDATE, DELETE}
 
@@ -40,12 +41,19 @@ public class ChangeEvent {
     return type;
   }
 
+  /**
+   * Returns the JSON representation of the event. It is computed only once and then shared by all the subscribers.
+   */
   public String toJSON() {
+    if (json != null)
+      return json;
+
     final var jsonObject = new JSONObject();
     jsonObject.put("changeType", this.type.toString().toLowerCase());
     jsonObject.put("record", this.record.toJSON());
     jsonObject.put("database", this.record.getDatabase().getName());
-    return jsonObject.toString();
+    json = jsonObject.toString();
+    return json;
   }
 
   @Override
@@ -18,26 +18,108 @@
  */
 package com.arcadedb.server.http.ws;
 
+import com.arcadedb.database.Document;
+import com.arcadedb.database.RID;
+import com.arcadedb.log.LogManager;
+import com.arcadedb.serializer.json.JSONObject;
+import io.undertow.websockets.core.WebSocketCallback;
 import io.undertow.websockets.core.WebSocketChannel;
+import io.undertow.websockets.core.WebSockets;
 
 import java.io.*;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.logging.*;
 import java.util.stream.*;
 
+/**
+ * Subscription of a WebSocket channel to the changes of a database. Every subscriber has its own bounded queue of pending
+ * messages, so a slow client never blocks the event bus or the other subscribers. At most one message per subscriber is in
+ * flight: the next one is sent when Undertow completes the previous write. When the queue is full the {@link OVERFLOW_POLICY}
+ * decides what to discard.
+ */
 public class EventWatcherSubscription {
   private final String                             database;
   private final WebSocketChannel                   channel;
+  private final WebSocketEventBus                  eventBus;
   private final Map<String, Set<ChangeEvent.TYPE>> typeSubscriptions = new ConcurrentHashMap<>();
+  private final Map<String, Map<String, Object>>   propertyFilters   = new ConcurrentHashMap<>();
+  private final int                                queueSize;
+  private       OVERFLOW_POLICY                    overflowPolicy;
+
+  // PENDING MESSAGES, KEYED BY RID WITH THE COALESCE POLICY OR BY A SEQUENCE NUMBER OTHERWISE. GUARDED BY 'this'
+  private final LinkedHashMap<Object, PendingMessage> queue    = new LinkedHashMap<>();
+  private       long                                  sequence = 0;
+  private       boolean                               sending  = false;
+  private       boolean                               closed   = false;
+
+  // STATISTICS
+  private long sent;
+  private long dropped;
+  private long coalesced;
+  private long lastLagMs;
+  private long maxLagMs;
 
   private final static Set<ChangeEvent.TYPE> allTypes = Arrays.stream(ChangeEvent.TYPE.values()).collect(Collectors.toSet());
 
+  public enum OVERFLOW_POLICY {
+    /**
+     * Discards the oldest pending message to make room for the new one.
+     */
+    DROP_OLDEST,
+    /**
+     * Discards the new message, keeping the pending ones.
+     */
+    DROP_NEWEST,
+    /**
+     * Keeps only the most recent change for each record. If the queue is full with changes of other records, it behaves like
+     * {@link #DROP_OLDEST}.
+     */
+    COALESCE;
+
+    public static OVERFLOW_POLICY parse(final String value) {
+      switch (value.toLowerCase()) {
+      case "dropoldest":
+        return DROP_OLDEST;
+      case "dropnewest":
+        return DROP_NEWEST;
+      case "coalesce":
+        return COALESCE;
+      default:
+        throw new IllegalArgumentException("Invalid overflow policy '" + value + "'. Supported are: dropOldest, dropNewest, coalesce");
+      }
+    }
+  }
+
+  private static class PendingMessage {
+    private final String message;
+    private final long   enqueuedOn;
+
+    private PendingMessage(final String message) {
+      this.message = message;
+      this.enqueuedOn = System.currentTimeMillis();
+    }
+  }
+
   public EventWatcherSubscription(final String database, final WebSocketChannel channel) {
+    this(database, channel, null, Integer.MAX_VALUE, OVERFLOW_POLICY.DROP_OLDEST);
+  }
+
+  public EventWatcherSubscription(final String database, final WebSocketChannel channel, final WebSocketEventBus eventBus,
+      final int queueSize, final OVERFLOW_POLICY overflowPolicy) {
     this.database = database;
     this.channel = channel;
+    this.eventBus = eventBus;
+    this.queueSize = queueSize;
+    this.overflowPolicy = overflowPolicy;
   }
 
   public void close() {
+    synchronized (this) {
+      closed = true;
+      queue.clear();
+    }
+
     if (channel != null)
       try {
         channel.close();
@@ -46,11 +128,30 @@ public class EventWatcherSubscription {
       }
 
     typeSubscriptions.clear();
+    propertyFilters.clear();
   }
 
   public void add(final String type, final Set<ChangeEvent.TYPE> changeTypes) {
+    add(type, changeTypes, null);
+  }
+
+  /**
+   * Subscribes to the changes of a type, or of all the types if the type is null. The filter restricts the events of this type to the records having
+   * all the properties equal to the values in the map. The values are compared by their string representation, so numbers sent as JSON match
+   * regardless of the stored numeric type. Every subscription replaces the filter of the previous one on the same type, so subscribing without a
+   * filter receives all the records again.
+   */
+  public void add(final String type, final Set<ChangeEvent.TYPE> changeTypes, final Map<String, Object> filters) {
     final var key = type == null ? "*" : type; // ConcurrentHashMap can't have null keys, so use * for "all types."
     typeSubscriptions.computeIfAbsent(key, k -> new HashSet<>()).addAll(changeTypes == null ? allTypes : changeTypes);
+    if (filters == null || filters.isEmpty())
+      propertyFilters.remove(key);
+    else
+      propertyFilters.put(key, new HashMap<>(filters));
+  }
+
+  public synchronized void setOverflowPolicy(final OVERFLOW_POLICY overflowPolicy) {
+    this.overflowPolicy = overflowPolicy;
   }
 
   public WebSocketChannel getChannel() {
@@ -58,10 +159,132 @@ public class EventWatcherSubscription {
   }
 
   public boolean isMatch(final ChangeEvent event) {
-    final var databaseEventTypes = typeSubscriptions.get("*");
-    final var typeEventTypes = typeSubscriptions.get(event.getRecord().asDocument().getTypeName());
+    final var record = event.getRecord().asDocument();
     // first, see if the type matches on the "database" sub, then the type specific sub
-    return (databaseEventTypes != null && databaseEventTypes.contains(event.getType())) || (typeEventTypes != null && typeEventTypes.contains(event.getType()));
+    return isMatch("*", event, record) || isMatch(record.getTypeName(), event, record);
+  }
+
+  private boolean isMatch(final String key, final ChangeEvent event, final Document record) {
+    final var eventTypes = typeSubscriptions.get(key);
+    if (eventTypes == null || !eventTypes.contains(event.getType()))
+      return false;
+
+    final var filters = propertyFilters.get(key);
+    return filters == null || matchesProperties(record, filters);
+  }
+
+  /**
+   * Enqueues the already serialized event and starts sending if no other message is in flight. It never blocks the caller.
+   */
+  public void enqueue(final ChangeEvent event) {
+    final String message = event.toJSON();
+
+    synchronized (this) {
+      if (closed)
+        return;
+
+      final Object key;
+      if (overflowPolicy == OVERFLOW_POLICY.COALESCE) {
+        final RID rid = event.getRecord().getIdentity();
+        key = rid != null ? rid : ++sequence;
+        if (queue.remove(key) != null)
+          ++coalesced;
+      } else
+        key = ++sequence;
+
+      if (queue.size() >= queueSize) {
+        if (overflowPolicy == OVERFLOW_POLICY.DROP_NEWEST) {
+          ++dropped;
+          return;
+        }
+
+        final Iterator<PendingMessage> it = queue.values().iterator();
+        it.next();
+        it.remove();
+        ++dropped;
+      }
+
+      queue.put(key, new PendingMessage(message));
+
+      if (sending)
+        return;
+      sending = true;
+    }
+
+    sendNext();
+  }
+
+  public synchronized JSONObject getStats() {
+    final JSONObject json = new JSONObject();
+    json.put("database", database);
+    json.put("overflowPolicy", overflowPolicy.name());
+    json.put("queued", queue.size());
+    json.put("queueSize", queueSize);
+    json.put("sent", sent);
+    json.put("dropped", dropped);
+    json.put("coalesced", coalesced);
+    json.put("lagMs", queue.isEmpty() ? 0L : System.currentTimeMillis() - queue.values().iterator().next().enqueuedOn);
+    json.put("lastDeliveryLagMs", lastLagMs);
+    json.put("maxDeliveryLagMs", maxLagMs);
+    return json;
+  }
+
+  private void sendNext() {
+    final PendingMessage next;
+    synchronized (this) {
+      if (closed || queue.isEmpty()) {
+        sending = false;
+        return;
+      }
+      final Iterator<PendingMessage> it = queue.values().iterator();
+      next = it.next();
+      it.remove();
+    }
+
+    WebSockets.sendText(next.message, channel, new WebSocketCallback<>() {
+      @Override
+      public void complete(final WebSocketChannel webSocketChannel, final Void unused) {
+        webSocketChannel.flush();
+
+        synchronized (EventWatcherSubscription.this) {
+          ++sent;
+          lastLagMs = System.currentTimeMillis() - next.enqueuedOn;
+          if (lastLagMs > maxLagMs)
+            maxLagMs = lastLagMs;
+        }
+
+        sendNext();
+      }
+
+      @Override
+      public void onError(final WebSocketChannel webSocketChannel, final Void unused, final Throwable throwable) {
+        synchronized (EventWatcherSubscription.this) {
+          sending = false;
+          queue.clear();
+        }
+
+        final var channelId = (UUID) webSocketChannel.getAttribute(WebSocketEventBus.CHANNEL_ID);
+        if (throwable instanceof IOException) {
+          LogManager.instance().log(this, Level.FINE, "Closing zombie connection: %s", null, channelId);
+          if (eventBus != null)
+            eventBus.unsubscribeAll(channelId);
+        } else
+          LogManager.instance().log(this, Level.SEVERE, "Unexpected error while sending message.", throwable);
+      }
+    });
+  }
+
+  private static boolean matchesProperties(final Document record, final Map<String, Object> filters) {
+    for (final Map.Entry<String, Object> filter : filters.entrySet()) {
+      final Object value = record.get(filter.getKey());
+      final Object expected = filter.getValue();
+      if (value == null || expected == null) {
+        if (value != expected)
+          return false;
+      } else if (!value.equals(expected) && !value.toString().equals(expected.toString()))
+        return false;
+    }
+    return true;
   }
 
   @Override
@@ -19,16 +19,12 @@
 package com.arcadedb.server.http.ws;
 
 import com.arcadedb.GlobalConfiguration;
-import com.arcadedb.log.LogManager;
+import com.arcadedb.serializer.json.JSONObject;
 import com.arcadedb.server.ArcadeDBServer;
-import io.undertow.websockets.core.WebSocketCallback;
 import io.undertow.websockets.core.WebSocketChannel;
-import io.undertow.websockets.core.WebSockets;
 
-import java.io.*;
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.logging.*;
 
 public class WebSocketEventBus {
   private final       ConcurrentHashMap<String, ConcurrentHashMap<UUID, EventWatcherSubscription>> subscribers      = new ConcurrentHashMap<>();
@@ -48,10 +44,31 @@ public class WebSocketEventBus {
   }
 
   public void subscribe(final String databaseName, final String type, final Set<ChangeEvent.TYPE> changeTypes, final WebSocketChannel channel) {
+    subscribe(databaseName, type, changeTypes, null, null, channel);
+  }
+
+  /**
+   * Subscribes the channel to the changes of a database.
+   *
+   * @param propertyFilters optional property values the changed records of the type must have, null to receive all the records of the type
+   * @param overflowPolicy  optional policy to apply when the queue of the subscriber is full, null to use the server default
+   */
+  public void subscribe(final String databaseName, final String type, final Set<ChangeEvent.TYPE> changeTypes,
+      final Map<String, Object> propertyFilters, final EventWatcherSubscription.OVERFLOW_POLICY overflowPolicy,
+      final WebSocketChannel channel) {
     final var channelId = (UUID) channel.getAttribute(CHANNEL_ID);
     final var databaseSubscribers = this.subscribers.computeIfAbsent(databaseName, k -> new ConcurrentHashMap<>());
 
-    databaseSubscribers.computeIfAbsent(channelId, k -> new EventWatcherSubscription(databaseName, channel)).add(type, changeTypes);
+    final var subscription = databaseSubscribers.computeIfAbsent(channelId, k -> {
+      final var configuration = this.arcadeServer.getConfiguration();
+      return new EventWatcherSubscription(databaseName, channel, this,
+          configuration.getValueAsInteger(GlobalConfiguration.SERVER_WS_SUBSCRIBER_QUEUE_SIZE),
+          EventWatcherSubscription.OVERFLOW_POLICY.parse(
+              configuration.getValueAsString(GlobalConfiguration.SERVER_WS_SUBSCRIBER_OVERFLOW_POLICY)));
+    });
+    subscription.add(type, changeTypes, propertyFilters);
+    if (overflowPolicy != null)
+      subscription.setOverflowPolicy(overflowPolicy);
 
     if (!this.databaseWatchers.containsKey(databaseName))
       this.startDatabaseWatcher(databaseName);
@@ -66,33 +83,33 @@ public class WebSocketEventBus {
       this.stopDatabaseWatcher(databaseName);
   }
 
+  /**
+   * Dispatches the event to the matching subscribers. Filters are evaluated before the serialization, so the event is
+   * converted to JSON at most once and only if somebody is interested. Sending is asynchronous through the per-subscriber
+   * queues, so a slow client can't delay the others.
+   */
   public void publish(final ChangeEvent event) {
     final var databaseName = event.getRecord().getDatabase().getName();
-    final var zombieConnections = new ArrayList<UUID>();
-    this.subscribers.get(databaseName).values().forEach(subscription -> {
-      if (subscription.isMatch(event)) {
-        WebSockets.sendText(event.toJSON(), subscription.getChannel(), new WebSocketCallback<>() {
-          @Override
-          public void complete(final WebSocketChannel webSocketChannel, final Void unused) {
-            webSocketChannel.flush();
-          }
-
-          @Override
-          public void onError(final WebSocketChannel webSocketChannel, final Void unused, final Throwable throwable) {
-            final var channelId = (UUID) webSocketChannel.getAttribute(CHANNEL_ID);
-            if (throwable instanceof IOException) {
-              LogManager.instance().log(this, Level.FINE, "Closing zombie connection: %s", null, channelId);
-              zombieConnections.add(channelId);
-            } else {
-              LogManager.instance().log(this, Level.SEVERE, "Unexpected error while sending message.", throwable);
-            }
-          }
-        });
-      }
-    });
+    final var databaseSubscribers = this.subscribers.get(databaseName);
+    if (databaseSubscribers == null)
+      return;
+
+    for (final EventWatcherSubscription subscription : databaseSubscribers.values())
+      if (subscription.isMatch(event))
+        subscription.enqueue(event);
+  }
 
-    // This will mutate subscribers, so we can't do it while iterating!
-    zombieConnections.forEach(this::unsubscribeAll);
+  /**
+   * Returns the statistics of the subscribers grouped by database, included in the server metrics.
+   */
+  public JSONObject getStats() {
+    final JSONObject json = new JSONObject();
+    this.subscribers.forEach((databaseName, channels) -> {
+      final JSONObject databaseJSON = new JSONObject();
+      channels.forEach((channelId, subscription) -> databaseJSON.put(channelId.toString(), subscription.getStats()));
+      json.put(databaseName, databaseJSON);
+    });
+    return json;
   }
 
   public Collection<EventWatcherSubscription> getDatabaseSubscriptions(final String database) {
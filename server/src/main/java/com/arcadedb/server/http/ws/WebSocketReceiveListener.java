@@ -63,7 +63,12 @@ public class WebSocketReceiveListener extends AbstractReceiveListener {
         final var changeTypes = jsonChangeTypes == null ?
             null :
             jsonChangeTypes.toList().stream().map(t -> ChangeEvent.TYPE.valueOf(t.toString().toUpperCase())).collect(Collectors.toSet());
-        this.webSocketEventBus.subscribe(message.getString("database"), message.optString("type", null), changeTypes, channel);
+        final var propertyFilters = !message.isNull("filter") ? message.getJSONObject("filter").toMap() : null;
+        final var overflowPolicy = !message.isNull("overflow") ?
+            EventWatcherSubscription.OVERFLOW_POLICY.parse(message.getString("overflow")) :
+            null;
+        this.webSocketEventBus.subscribe(message.getString("database"), message.optString("type", null), changeTypes, propertyFilters,
+            overflowPolicy, channel);
         this.sendAck(channel, action);
         break;
       case UNSUBSCRIBE:
@@ -80,6 +85,8 @@ public class WebSocketReceiveListener extends AbstractReceiveListener {
       }
     } catch (final JSONException e) {
       sendError(channel, "Unable to parse JSON", e.getMessage(), e);
+    } catch (final IllegalArgumentException e) {
+      sendError(channel, "Invalid subscription", e.getMessage(), e);
     } catch (final DatabaseOperationException e) {
       sendError(channel, "Database error", e.getMessage(), e);
     } catch (final Exception e) {
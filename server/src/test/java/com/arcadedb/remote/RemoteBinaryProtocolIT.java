@@ -0,0 +1,126 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.remote;
+
+import com.arcadedb.ContextConfiguration;
+import com.arcadedb.GlobalConfiguration;
+import com.arcadedb.query.sql.executor.ResultSet;
+import com.arcadedb.server.BaseGraphServerTest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.*;
+import java.util.*;
+
+/**
+ * Round trip of {@link RemoteDatabase} with a server running the binary protocol plugin.
+ */
+public class RemoteBinaryProtocolIT extends BaseGraphServerTest {
+  private static final int BINARY_PORT = 2424;
+
+  @Override
+  public void setTestConfiguration() {
+    super.setTestConfiguration();
+    GlobalConfiguration.OIDC_AUTH.setValue(false);
+  }
+
+  @Override
+  protected void onServerConfiguration(final ContextConfiguration config) {
+    config.setValue(GlobalConfiguration.SERVER_PLUGINS, "Binary:com.arcadedb.server.binary.BinaryProtocolPlugin");
+    config.setValue(GlobalConfiguration.BINARY_PORT, BINARY_PORT);
+  }
+
+  @Test
+  public void queryAndTransaction() {
+    final RemoteDatabase database = new RemoteDatabase("127.0.0.1", 2480, getDatabaseName(), "root", DEFAULT_PASSWORD_FOR_TESTS);
+    try {
+      Assertions.assertTrue(database.isBinaryProtocolActive());
+
+      try (final ResultSet result = database.query("sql", "select from " + VERTEX1_TYPE_NAME + " where id = ?", 0)) {
+        Assertions.assertTrue(result.hasNext());
+        Assertions.assertTrue(result.next().isVertex());
+      }
+
+      database.transaction(() -> {
+        database.command("sql", "create vertex " + VERTEX1_TYPE_NAME + " set id = 1000, name = 'binary'");
+        database.command("sql", "create vertex " + VERTEX1_TYPE_NAME + " set id = 1001, name = 'binary'");
+      });
+      Assertions.assertEquals(2L, ((Number) database.query("sql",
+          "select count(*) as count from " + VERTEX1_TYPE_NAME + " where name = 'binary'").next().getProperty("count")).longValue());
+
+      database.begin();
+      database.command("sql", "create vertex " + VERTEX1_TYPE_NAME + " set id = 1002, name = 'binary'");
+      database.rollback();
+      Assertions.assertFalse(
+          database.query("sql", "select from " + VERTEX1_TYPE_NAME + " where id = 1002").hasNext());
+
+      // NO FALLBACK TO HTTP HAPPENED
+      Assertions.assertTrue(database.isBinaryProtocolActive());
+    } finally {
+      database.close();
+    }
+  }
+
+  @Test
+  public void wrongPasswordIsRefused() {
+    final RemoteDatabase database = new RemoteDatabase("127.0.0.1", 2480, getDatabaseName(), "root", DEFAULT_PASSWORD_FOR_TESTS);
+    final RemoteBinaryClient client = new RemoteBinaryClient(database, "127.0.0.1", BINARY_PORT, "root", "wrong",
+        new ContextConfiguration());
+    try {
+      Assertions.assertThrows(SecurityException.class, () -> client.query(false, "sql", "select from " + VERTEX1_TYPE_NAME, null));
+    } finally {
+      client.close();
+      database.close();
+    }
+  }
+
+  @Test
+  public void oidcRequiresToken() {
+    GlobalConfiguration.OIDC_AUTH.setValue(true);
+    try {
+      final String token = "Bearer " + encode("{\"alg\":\"none\"}") + "." + encode("{\"preferred_username\":\"root\"}") + "." + encode(
+          "signature");
+
+      final RemoteDatabase database = new RemoteDatabase("127.0.0.1", 2480, getDatabaseName(), "root", token);
+      try {
+        // PASSWORD LOGINS ARE REFUSED
+        final RemoteBinaryClient client = new RemoteBinaryClient(database, "127.0.0.1", BINARY_PORT, "root",
+            DEFAULT_PASSWORD_FOR_TESTS, new ContextConfiguration());
+        try {
+          Assertions.assertThrows(SecurityException.class,
+              () -> client.query(false, "sql", "select from " + VERTEX1_TYPE_NAME, null));
+        } finally {
+          client.close();
+        }
+
+        // THE TOKEN IS ACCEPTED
+        Assertions.assertTrue(database.query("sql", "select from " + VERTEX1_TYPE_NAME).hasNext());
+        Assertions.assertTrue(database.isBinaryProtocolActive());
+      } finally {
+        database.close();
+      }
+    } finally {
+      GlobalConfiguration.OIDC_AUTH.setValue(false);
+    }
+  }
+
+  private static String encode(final String text) {
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+  }
+}
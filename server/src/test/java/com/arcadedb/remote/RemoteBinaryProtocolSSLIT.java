@@ -0,0 +1,84 @@
+/*
+ * Copyright © 2021-present Arcade Data Ltd (info@arcadedata.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-FileCopyrightText: 2021-present Arcade Data Ltd (info@arcadedata.com)
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.arcadedb.remote;
+
+import com.arcadedb.ContextConfiguration;
+import com.arcadedb.GlobalConfiguration;
+import com.arcadedb.server.BaseGraphServerTest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Round trip of {@link RemoteDatabase} with the binary protocol over TLS. The HTTP API used to discover the binary port stays on
+ * plain HTTP.
+ */
+public class RemoteBinaryProtocolSSLIT extends BaseGraphServerTest {
+  @Override
+  public void setTestConfiguration() {
+    super.setTestConfiguration();
+    GlobalConfiguration.OIDC_AUTH.setValue(false);
+  }
+
+  @Override
+  protected void onServerConfiguration(final ContextConfiguration config) {
+    config.setValue(GlobalConfiguration.SERVER_PLUGINS, "Binary:com.arcadedb.server.binary.BinaryProtocolPlugin");
+    setSSL(config);
+  }
+
+  @Test
+  public void queryOverTLS() {
+    // THE CERTIFICATE OF THE SERVER IS SELF-SIGNED: THE CLIENT TRUSTS THE KEY STORE OF THE SERVER
+    final ContextConfiguration configuration = new ContextConfiguration();
+    setSSL(configuration);
+    configuration.setValue(GlobalConfiguration.NETWORK_SSL_TRUSTSTORE, "src/test/resources/keystore.pkcs12");
+    configuration.setValue(GlobalConfiguration.NETWORK_SSL_TRUSTSTORE_PASSWORD, "sos0nmzWniR0");
+
+    final RemoteDatabase database = new RemoteDatabase("127.0.0.1", 2480, getDatabaseName(), "root", DEFAULT_PASSWORD_FOR_TESTS,
+        configuration);
+    try {
+      database.transaction(() -> database.command("sql", "create vertex " + VERTEX1_TYPE_NAME + " set id = 1000, name = 'tls'"));
+      Assertions.assertTrue(database.query("sql", "select from " + VERTEX1_TYPE_NAME + " where id = 1000").hasNext());
+
+      // NO FALLBACK TO HTTP HAPPENED
+      Assertions.assertTrue(database.isBinaryProtocolActive());
+    } finally {
+      database.close();
+    }
+  }
+
+  @Test
+  public void plainConnectionFallsBackToHTTP() {
+    final RemoteDatabase database = new RemoteDatabase("127.0.0.1", 2480, getDatabaseName(), "root", DEFAULT_PASSWORD_FOR_TESTS);
+    try {
+      // THE BINARY PORT ACCEPTS TLS CONNECTIONS ONLY
+      Assertions.assertTrue(database.query("sql", "select from " + VERTEX1_TYPE_NAME).hasNext());
+      Assertions.assertFalse(database.isBinaryProtocolActive());
+    } finally {
+      database.close();
+    }
+  }
+
+  private static void setSSL(final ContextConfiguration configuration) {
+    configuration.setValue(GlobalConfiguration.NETWORK_USE_SSL, true);
+    configuration.setValue(GlobalConfiguration.NETWORK_SSL_KEYSTORE, "src/test/resources/keystore.pkcs12");
+    configuration.setValue(GlobalConfiguration.NETWORK_SSL_KEYSTORE_PASSWORD, "sos0nmzWniR0");
+    configuration.setValue(GlobalConfiguration.NETWORK_SSL_TRUSTSTORE, "src/test/resources/truststore.jks");
+    configuration.setValue(GlobalConfiguration.NETWORK_SSL_TRUSTSTORE_PASSWORD, "nphgDK7ugjGR");
+  }
+}
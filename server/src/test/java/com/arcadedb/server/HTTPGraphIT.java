@@ -506,6 +506,45 @@ public class HTTPGraphIT extends BaseGraphServerTest {
     });
   }
 
+  @Test
+  public void checkBatch() throws Exception {
+    testEachServer((serverIndex) -> {
+      executeCommand(serverIndex, "sql", "create vertex type BatchV if not exists");
+
+      // THE COMMANDS ARE DECODED AS IN THE /command ENDPOINT
+      final JSONObject response = executeBatch(serverIndex, new JSONObject().put("commands", new JSONArray()//
+          .put(new JSONObject().put("language", "sql").put("command", "create vertex BatchV set name = &quot;first&quot;"))//
+          .put(new JSONObject().put("language", "sql").put("command", "select from BatchV where name &lt;&gt; 'none'"))));
+
+      final JSONArray results = response.getJSONArray("result");
+      Assertions.assertEquals(2, results.length());
+      final JSONArray records = results.getJSONObject(1).getJSONArray("result");
+      Assertions.assertEquals(1, records.length());
+      Assertions.assertEquals("first", records.getJSONObject(0).getString("name"));
+    });
+  }
+
+  @Test
+  public void checkBatchWithoutTransaction() throws Exception {
+    testEachServer((serverIndex) -> {
+      executeCommand(serverIndex, "sql", "create vertex type BatchV if not exists");
+
+      final JSONObject response = executeBatch(serverIndex, new JSONObject().put("transaction", false).put("commands", new JSONArray()//
+          .put(new JSONObject().put("language", "sql").put("command", "create vertex BatchV set name = 'first'"))//
+          .put(new JSONObject().put("language", "sql").put("command", "select from NotExistentType"))//
+          .put(new JSONObject().put("language", "sql").put("command", "create vertex BatchV set name = 'third'"))));
+
+      final JSONArray results = response.getJSONArray("result");
+      Assertions.assertEquals(3, results.length());
+      Assertions.assertFalse(results.getJSONObject(0).has("error"));
+      Assertions.assertTrue(results.getJSONObject(1).has("error"));
+      Assertions.assertFalse(results.getJSONObject(2).has("error"));
+
+      final JSONObject count = executeCommand(serverIndex, "sql", "select count(*) as total from BatchV");
+      Assertions.assertEquals(2, count.getJSONObject("result").getJSONArray("records").getJSONObject(0).getInt("total"));
+    });
+  }
+
   @Test
   public void testOneEdgePerTx() throws Exception {
     testEachServer((serverIndex) -> {
@@ -591,4 +630,22 @@ public class HTTPGraphIT extends BaseGraphServerTest {
       Assertions.assertEquals(THREADS * SCRIPTS, responseAsJsonSelect.getJSONObject("result").getJSONArray("records").length());
     });
   }
+
+  private JSONObject executeBatch(final int serverIndex, final JSONObject payload) throws Exception {
+    final HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:248" + serverIndex + "/api/v1/batch/graph").openConnection();
+
+    connection.setRequestMethod("POST");
+    connection.setRequestProperty("Authorization",
+        "Basic " + Base64.getEncoder().encodeToString(("root:" + BaseGraphServerTest.DEFAULT_PASSWORD_FOR_TESTS).getBytes()));
+    formatPayload(connection, payload);
+    connection.connect();
+
+    try {
+      final String response = readResponse(connection);
+      Assertions.assertEquals(200, connection.getResponseCode());
+      return new JSONObject(response);
+    } finally {
+      connection.disconnect();
+    }
+  }
 }
@@ -278,6 +278,81 @@ public class WebSocketEventBusIT extends BaseGraphServerTest {
     }, "subscribeTypeDoesNotPushOtherTypes");
   }
 
+  @Test
+  public void subscribeFilterIsPerType() throws Throwable {
+    execute(() -> {
+      try (final var client = new WebSocketClientHelper("ws://localhost:2480/ws", "root", BaseGraphServerTest.DEFAULT_PASSWORD_FOR_TESTS)) {
+        var result = client.send(buildActionMessage("subscribe", "graph", "V1", null, new JSONObject().put("name", "match")));
+        Assertions.assertEquals("ok", new JSONObject(result).get("result"));
+        result = client.send(buildActionMessage("subscribe", "graph", "V2"));
+        Assertions.assertEquals("ok", new JSONObject(result).get("result"));
+
+        // THE FILTER ON V1 DOES NOT APPLY TO V2
+        getServerDatabase(0, "graph").newVertex("V2").set("name", "other").save();
+        var json = getJsonMessageOrFail(client);
+        Assertions.assertEquals("V2", json.getJSONObject("record").get("@type"));
+
+        getServerDatabase(0, "graph").newVertex("V1").set("name", "other").save();
+        Assertions.assertNull(client.popMessage(500));
+
+        getServerDatabase(0, "graph").newVertex("V1").set("name", "match").save();
+        json = getJsonMessageOrFail(client);
+        Assertions.assertEquals("V1", json.getJSONObject("record").get("@type"));
+        Assertions.assertEquals("match", json.getJSONObject("record").get("name"));
+      }
+    }, "subscribeFilterIsPerType");
+  }
+
+  @Test
+  public void subscribeWithoutFilterClearsFilter() throws Throwable {
+    execute(() -> {
+      try (final var client = new WebSocketClientHelper("ws://localhost:2480/ws", "root", BaseGraphServerTest.DEFAULT_PASSWORD_FOR_TESTS)) {
+        var result = client.send(buildActionMessage("subscribe", "graph", "V1", null, new JSONObject().put("name", "match")));
+        Assertions.assertEquals("ok", new JSONObject(result).get("result"));
+        result = client.send(buildActionMessage("subscribe", "graph", "V1"));
+        Assertions.assertEquals("ok", new JSONObject(result).get("result"));
+
+        getServerDatabase(0, "graph").newVertex("V1").set("name", "other").save();
+        final var json = getJsonMessageOrFail(client);
+        Assertions.assertEquals("other", json.getJSONObject("record").get("name"));
+      }
+    }, "subscribeWithoutFilterClearsFilter");
+  }
+
+  @Test
+  public void invalidOverflowPolicyReturnsError() throws Throwable {
+    execute(() -> {
+      try (final var client = new WebSocketClientHelper("ws://localhost:2480/ws", "root", BaseGraphServerTest.DEFAULT_PASSWORD_FOR_TESTS)) {
+        final var message = new JSONObject(buildActionMessage("subscribe", "graph", "V1")).put("overflow", "invalid");
+        final var result = new JSONObject(client.send(message.toString()));
+        Assertions.assertEquals("error", result.get("result"));
+        Assertions.assertEquals("Invalid subscription", result.get("error"));
+      }
+    }, "invalidOverflowPolicyReturnsError");
+  }
+
+  @Test
+  public void subscriberStatsAreCollected() throws Throwable {
+    execute(() -> {
+      try (final var client = new WebSocketClientHelper("ws://localhost:2480/ws", "root", BaseGraphServerTest.DEFAULT_PASSWORD_FOR_TESTS)) {
+        final var message = new JSONObject(buildActionMessage("subscribe", "graph", "V1")).put("overflow", "coalesce");
+        Assertions.assertEquals("ok", new JSONObject(client.send(message.toString())).get("result"));
+
+        getServerDatabase(0, "graph").newVertex("V1").set("name", "test").save();
+        getJsonMessageOrFail(client);
+
+        // THE COUNTER IS UPDATED WHEN UNDERTOW COMPLETES THE WRITE
+        Thread.sleep(DELAY_MS);
+        final var stats = getServer(0).getHttpServer().getWebSocketEventBus().getStats().getJSONObject("graph");
+        Assertions.assertEquals(1, stats.length());
+        final var subscriber = stats.getJSONObject(stats.keySet().iterator().next());
+        Assertions.assertEquals("COALESCE", subscriber.get("overflowPolicy"));
+        Assertions.assertEquals(1L, subscriber.getLong("sent"));
+        Assertions.assertEquals(0L, subscriber.getLong("dropped"));
+      }
+    }, "subscriberStatsAreCollected");
+  }
+
   @Test
   public void unsubscribeDatabaseWorks() throws Throwable {
     execute(() -> {
@@ -310,11 +385,18 @@ public class WebSocketEventBusIT extends BaseGraphServerTest {
   }
 
   private static String buildActionMessage(final String action, final String database, final String type, final String[] changeTypes) {
+    return buildActionMessage(action, database, type, changeTypes, null);
+  }
+
+  private static String buildActionMessage(final String action, final String database, final String type, final String[] changeTypes,
+      final JSONObject filter) {
     final var obj = new JSONObject();
     obj.put("action", action);
     obj.put("database", database);
     obj.put("type", type);
     obj.put("changeTypes", changeTypes);
+    if (filter != null)
+      obj.put("filter", filter);
     return obj.toString();
   }
 